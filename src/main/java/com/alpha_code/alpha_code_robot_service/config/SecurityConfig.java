@@ -42,6 +42,9 @@ public class SecurityConfig {
                                 // ✅ permit mọi method cho mấy endpoint chung
                                 .requestMatchers(SecurityWhitelist.GENERAL_WHITELIST).permitAll()
 
+                                // ❌ dữ liệu trực tiếp của một tài khoản: cần login (kiểm tra chủ sở hữu ở controller)
+                                .requestMatchers(HttpMethod.GET, SecurityWhitelist.GET_AUTHENTICATED).authenticated()
+
                                 // ✅ chỉ permit GET cho "get all"
                                 .requestMatchers(HttpMethod.GET, SecurityWhitelist.GET_WHITELIST).permitAll()
 
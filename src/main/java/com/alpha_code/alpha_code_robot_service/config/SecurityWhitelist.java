@@ -17,8 +17,17 @@ public class SecurityWhitelist {
             "/api/v1/esp32s/{id}/send-message",
     };
 
+    // Under GET_WHITELIST but need a token: live data and history of one account
+    public static final String[] GET_AUTHENTICATED = {
+            "/api/v1/esp32s/account/*/events",
+            "/api/v1/esp32s/*/telemetry"
+    };
+
     // Permit GET only
     public static final String[] GET_WHITELIST = {
-            "/api/v1/**"
+            "/api/v1/**",
+            // orchestrator probes only; metrics and the rest of /actuator need a token
+            "/actuator/health/liveness",
+            "/actuator/health/readiness"
     };
 }
\ No newline at end of file
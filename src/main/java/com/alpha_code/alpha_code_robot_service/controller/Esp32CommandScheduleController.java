@@ -0,0 +1,55 @@
+package com.alpha_code.alpha_code_robot_service.controller;
+
+import com.alpha_code.alpha_code_robot_service.dto.Esp32CommandScheduleDto;
+import com.alpha_code.alpha_code_robot_service.dto.PagedResult;
+import com.alpha_code.alpha_code_robot_service.service.Esp32CommandScheduleService;
+import com.alpha_code.alpha_code_robot_service.validation.OnCreate;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/esp32-schedules")
+@RequiredArgsConstructor
+@Tag(name = "Esp32 Command Schedules")
+@Validated
+public class Esp32CommandScheduleController {
+
+    private final Esp32CommandScheduleService service;
+
+    @GetMapping
+    @Operation(summary = "Get all command schedules")
+    public PagedResult<Esp32CommandScheduleDto> getAll(
+            @RequestParam(value = "page", defaultValue = "1") int page,
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            @RequestParam(value = "esp32Id", required = false) UUID esp32Id,
+            @RequestParam(value = "status", required = false) Integer status) {
+        return service.getAll(page, size, esp32Id, status);
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get command schedule by id")
+    public Esp32CommandScheduleDto getOne(@PathVariable UUID id) {
+        return service.getById(id);
+    }
+
+    @PostMapping
+    @Operation(summary = "Create a one-shot or cron command schedule")
+    public Esp32CommandScheduleDto create(
+            @Validated(OnCreate.class) @RequestBody Esp32CommandScheduleDto dto) {
+        return service.create(dto);
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Delete command schedule")
+    public ResponseEntity<Map<String, String>> delete(@PathVariable UUID id) {
+        service.delete(id);
+        return ResponseEntity.ok(Map.of("message", "Command schedule deleted successfully"));
+    }
+}
@@ -1,18 +1,36 @@
 package com.alpha_code.alpha_code_robot_service.controller;
 
+import com.alpha_code.alpha_code_robot_service.dto.CommandQueueDto;
 import com.alpha_code.alpha_code_robot_service.dto.Esp32Dto;
+import com.alpha_code.alpha_code_robot_service.dto.Esp32StateDto;
 import com.alpha_code.alpha_code_robot_service.dto.PagedResult;
+import com.alpha_code.alpha_code_robot_service.dto.request.FanoutCommandRequest;
+import com.alpha_code.alpha_code_robot_service.dto.response.FanoutResponse;
 import com.alpha_code.alpha_code_robot_service.dto.response.VoiceResponse;
+import com.alpha_code.alpha_code_robot_service.service.Esp32CommandQueueService;
+import com.alpha_code.alpha_code_robot_service.service.Esp32EventHub;
 import com.alpha_code.alpha_code_robot_service.service.Esp32Service;
+import com.alpha_code.alpha_code_robot_service.service.Esp32TelemetryService;
+import com.alpha_code.alpha_code_robot_service.service.IdempotencyService;
 import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.eclipse.paho.client.mqttv3.MqttException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/v1/esp32s")
@@ -22,6 +40,10 @@ import java.util.UUID;
 public class Esp32Controller {
 
     private final Esp32Service service;
+    private final Esp32TelemetryService telemetryService;
+    private final Esp32EventHub eventHub;
+    private final IdempotencyService idempotencyService;
+    private final Esp32CommandQueueService commandQueueService;
 
     @GetMapping
     public PagedResult<Esp32Dto> getAll (@RequestParam(value = "page", defaultValue = "1") int page,
@@ -33,11 +55,37 @@ public class Esp32Controller {
         return service.searchAll(page, size, accountId, name, firmwareVersion, status);
     }
 
+    @GetMapping("/presence")
+    public Map<UUID, Boolean> getPresence(@RequestParam List<UUID> ids){
+        return service.getPresence(ids);
+    }
+
     @GetMapping("/{id}")
     public Esp32Dto getOne(@PathVariable UUID id){
         return service.getOne(id);
     }
 
+    @GetMapping("/{id}/state")
+    public Esp32StateDto getState(@PathVariable UUID id){
+        return service.getState(id);
+    }
+
+    @GetMapping("/{id}/command-queue")
+    public CommandQueueDto getCommandQueue(@PathVariable UUID id){
+        // số lệnh đang chờ ESP32 kết nối lại
+        return new CommandQueueDto(id, commandQueueService.depth(id), commandQueueService.isDraining(id));
+    }
+
+    @GetMapping(value = "/{id}/telemetry", produces = "application/x-ndjson")
+    @PreAuthorize("hasAnyAuthority('ROLE_Admin', 'ROLE_Staff') or @esp32ServiceImpl.isOwnedBy(#id, authentication.details)")
+    public ResponseEntity<StreamingResponseBody> getTelemetry(@PathVariable UUID id,
+                                                              @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                              @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                              @RequestParam(defaultValue = "raw") String resolution){
+        // mỗi dòng là một JSON object, trả dần theo cursor thay vì nạp cả khoảng vào bộ nhớ
+        return ResponseEntity.ok().body(telemetryService.streamRange(id, from, to, resolution));
+    }
+
     @PostMapping
     public Esp32Dto create(@RequestBody Esp32Dto dto){
         return service.create(dto);
@@ -64,8 +112,34 @@ public class Esp32Controller {
     }
 
     @PostMapping("/{id}/send-message")
-    public VoiceResponse sendMessage(@PathVariable UUID id, @RequestParam String name, @RequestParam String message, @RequestParam String language) throws MqttException {
-        return service.sendMessage(id, name, message, language);
+    public CompletableFuture<VoiceResponse> sendMessage(@PathVariable UUID id, @RequestParam String name, @RequestParam String message, @RequestParam String language,
+                                                       @RequestParam(defaultValue = "false") boolean awaitAck,
+                                                       @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) throws MqttException {
+        if (idempotencyKey == null) {
+            return send(id, name, message, language, awaitAck);
+        }
+        // client gửi lại cùng key khi timeout: trả lại response đã lưu, không publish lại lên MQTT
+        return idempotencyService.execute("send-message", idempotencyKey,
+                String.join("|", id.toString(), name, message, language, String.valueOf(awaitAck)), VoiceResponse.class, () -> {
+                    try {
+                        return send(id, name, message, language, awaitAck);
+                    } catch (MqttException e) {
+                        return CompletableFuture.failedFuture(e);
+                    }
+                });
+    }
+
+    private CompletableFuture<VoiceResponse> send(UUID id, String name, String message, String language, boolean awaitAck) throws MqttException {
+        // awaitAck: trả kết quả khi ESP32 xác nhận, không giữ request thread trong lúc chờ
+        if (awaitAck) {
+            return service.sendMessageAwaitAck(id, name, message, language);
+        }
+        return CompletableFuture.completedFuture(service.sendMessage(id, name, message, language));
+    }
+
+    @PostMapping("/send-message/fan-out")
+    public CompletableFuture<FanoutResponse> fanout(@Valid @RequestBody FanoutCommandRequest request){
+        return service.fanout(request);
     }
 
     @GetMapping("/devices/{id}")
@@ -74,8 +148,13 @@ public class Esp32Controller {
     }
 
     @PostMapping("/devices/{id}")
-    public Esp32Dto addDevice(@PathVariable UUID id, @RequestParam String name, @RequestParam String type){
-        return service.addDevice(id, name, type);
+    public CompletableFuture<Esp32Dto> addDevice(@PathVariable UUID id, @RequestParam String name, @RequestParam String type,
+                                                 @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey){
+        if (idempotencyKey == null) {
+            return CompletableFuture.completedFuture(service.addDevice(id, name, type));
+        }
+        return idempotencyService.execute("add-device", idempotencyKey, String.join("|", id.toString(), name, type), Esp32Dto.class,
+                () -> CompletableFuture.completedFuture(service.addDevice(id, name, type)));
     }
 
     @DeleteMapping("/devices/{id}")
@@ -92,4 +171,11 @@ public class Esp32Controller {
     public Esp32Dto getEsp32ByUser(@PathVariable UUID id){
         return service.getEsp32ByUser(id);
     }
+
+    @GetMapping(value = "account/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyAuthority('ROLE_Admin', 'ROLE_Staff') or authentication.details == #id")
+    public SseEmitter streamEvents(@PathVariable UUID id){
+        // server-sent events: message, presence, command; thay cho việc poll getEsp32ByUser
+        return eventHub.subscribe(id);
+    }
 }
@@ -0,0 +1,81 @@
+package com.alpha_code.alpha_code_robot_service.controller;
+
+import com.alpha_code.alpha_code_robot_service.dto.Esp32FirmwareDto;
+import com.alpha_code.alpha_code_robot_service.dto.OtaRolloutDto;
+import com.alpha_code.alpha_code_robot_service.dto.PagedResult;
+import com.alpha_code.alpha_code_robot_service.dto.request.OtaRolloutRequest;
+import com.alpha_code.alpha_code_robot_service.service.Esp32OtaService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.Map;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/esp32-firmwares")
+@RequiredArgsConstructor
+@Tag(name = "Esp32 Firmwares")
+@Validated
+public class Esp32FirmwareController {
+
+    private final Esp32OtaService service;
+
+    @GetMapping
+    @Operation(summary = "Get all firmware images")
+    public PagedResult<Esp32FirmwareDto> getAll(
+            @RequestParam(value = "page", defaultValue = "1") int page,
+            @RequestParam(value = "size", defaultValue = "10") int size) {
+        return service.getFirmwares(page, size);
+    }
+
+    @GetMapping("/{version}")
+    @Operation(summary = "Get firmware image by version")
+    public Esp32FirmwareDto getOne(@PathVariable Integer version) {
+        return service.getFirmware(version);
+    }
+
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Upload a firmware image")
+    @PreAuthorize("hasAnyAuthority('ROLE_Admin', 'ROLE_Staff')")
+    public Esp32FirmwareDto upload(@RequestParam("version") Integer version,
+                                   @RequestParam(value = "notes", required = false) String notes,
+                                   @RequestPart("file") MultipartFile file) {
+        return service.uploadFirmware(version, notes, file);
+    }
+
+    @DeleteMapping("/{version}")
+    @Operation(summary = "Delete firmware image")
+    @PreAuthorize("hasAnyAuthority('ROLE_Admin', 'ROLE_Staff')")
+    public ResponseEntity<Map<String, String>> delete(@PathVariable Integer version) {
+        service.deleteFirmware(version);
+        return ResponseEntity.ok(Map.of("message", "Firmware deleted successfully"));
+    }
+
+    @PostMapping("/{version}/rollouts")
+    @Operation(summary = "Start sending a firmware image to ESP32s over MQTT")
+    @PreAuthorize("hasAnyAuthority('ROLE_Admin', 'ROLE_Staff')")
+    public OtaRolloutDto startRollout(@PathVariable Integer version, @Valid @RequestBody OtaRolloutRequest request) {
+        return service.startRollout(version, request.getEsp32Ids());
+    }
+
+    @GetMapping("/rollouts/{rolloutId}")
+    @Operation(summary = "Get rollout progress (only on the instance that started it)")
+    public OtaRolloutDto getRollout(@PathVariable UUID rolloutId) {
+        return service.getRollout(rolloutId);
+    }
+
+    @DeleteMapping("/rollouts/{rolloutId}")
+    @Operation(summary = "Cancel a rollout")
+    @PreAuthorize("hasAnyAuthority('ROLE_Admin', 'ROLE_Staff')")
+    public OtaRolloutDto cancelRollout(@PathVariable UUID rolloutId) {
+        return service.cancelRollout(rolloutId);
+    }
+}
@@ -0,0 +1,49 @@
+package com.alpha_code.alpha_code_robot_service.controller;
+
+import com.alpha_code.alpha_code_robot_service.dto.ClusterStatusDto;
+import com.alpha_code.alpha_code_robot_service.dto.MqttStatsDto;
+import com.alpha_code.alpha_code_robot_service.service.Esp32OwnershipService;
+import com.alpha_code.alpha_code_robot_service.service.Esp32SubscriptionRegistry;
+import com.alpha_code.alpha_code_robot_service.service.MqttService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Set;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/mqtt")
+@RequiredArgsConstructor
+@Tag(name = "MQTT")
+@Validated
+public class MqttController {
+
+    private final MqttService service;
+    private final Esp32SubscriptionRegistry subscriptionRegistry;
+    private final Esp32OwnershipService ownershipService;
+
+    @GetMapping("/stats")
+    @Operation(summary = "Get MQTT connection, publish window and dispatch queue stats")
+    @PreAuthorize("hasAnyAuthority('ROLE_Admin', 'ROLE_Staff')")
+    public MqttStatsDto getStats() {
+        return service.getStats();
+    }
+
+    @GetMapping("/subscriptions")
+    @Operation(summary = "Get ESP32s whose inbound MQTT traffic is currently handled")
+    @PreAuthorize("hasAnyAuthority('ROLE_Admin', 'ROLE_Staff')")
+    public Set<UUID> getSubscriptions() {
+        return subscriptionRegistry.getSubscriptions();
+    }
+
+    @GetMapping("/cluster")
+    @Operation(summary = "Get this replica's id and the live replicas ESP32 ownership is split between")
+    @PreAuthorize("hasAnyAuthority('ROLE_Admin', 'ROLE_Staff')")
+    public ClusterStatusDto getCluster() {
+        return ownershipService.getStatus();
+    }
+}
@@ -0,0 +1,17 @@
+package com.alpha_code.alpha_code_robot_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterStatusDto implements Serializable {
+    private boolean enabled;
+    private String nodeId;
+    private List<String> members;
+}
@@ -0,0 +1,17 @@
+package com.alpha_code.alpha_code_robot_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommandQueueDto implements Serializable {
+    private UUID esp32Id;
+    private long depth;
+    private boolean draining;
+}
@@ -0,0 +1,54 @@
+package com.alpha_code.alpha_code_robot_service.dto;
+
+import com.alpha_code.alpha_code_robot_service.enums.Esp32CommandScheduleEnum;
+import com.alpha_code.alpha_code_robot_service.validation.OnCreate;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Esp32CommandScheduleDto implements Serializable {
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private UUID id;
+
+    @NotNull(message = "ESP32 ID is required", groups = {OnCreate.class})
+    private UUID esp32Id;
+
+    @NotBlank(message = "Device name is required", groups = {OnCreate.class})
+    private String deviceName;
+
+    @NotBlank(message = "Command is required", groups = {OnCreate.class})
+    private String command;
+
+    // Spring cron format (second minute hour day month weekday); empty for a one-shot command
+    private String cronExpression;
+
+    // required for one-shot commands, computed from cronExpression otherwise (must not be set with it)
+    private LocalDateTime nextFireAt;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDateTime lastFiredAt;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDateTime createdDate;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDateTime lastUpdated;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer status;
+
+    @JsonProperty(value = "statusText", access = JsonProperty.Access.READ_ONLY)
+    public String getStatusText() {
+        return Esp32CommandScheduleEnum.fromCode(this.status);
+    }
+}
@@ -0,0 +1,42 @@
+package com.alpha_code.alpha_code_robot_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One pushed device event. Only the fields of its type are set.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class Esp32EventDto implements Serializable {
+
+    public enum Type {
+        MESSAGE,
+        PRESENCE,
+        COMMAND
+    }
+
+    private Type type;
+    private UUID esp32Id;
+    private LocalDateTime timestamp;
+
+    // MESSAGE
+    private String message;
+
+    // PRESENCE
+    private Boolean online;
+
+    // COMMAND
+    private String correlationId;
+    private String status;
+}
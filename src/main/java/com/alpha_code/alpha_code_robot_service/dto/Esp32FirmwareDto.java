@@ -0,0 +1,30 @@
+package com.alpha_code.alpha_code_robot_service.dto;
+
+import com.alpha_code.alpha_code_robot_service.enums.Esp32FirmwareEnum;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Esp32FirmwareDto implements Serializable {
+    private UUID id;
+    private Integer version;
+    private Integer sizeBytes;
+    private String sha256;
+    private String notes;
+    private LocalDateTime createdDate;
+    private LocalDateTime lastUpdated;
+    private Integer status;
+
+    @JsonProperty(value = "statusText", access = JsonProperty.Access.READ_ONLY)
+    public String getStatusText() {
+        return Esp32FirmwareEnum.fromCode(this.status);
+    }
+}
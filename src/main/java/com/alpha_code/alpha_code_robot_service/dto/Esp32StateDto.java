@@ -0,0 +1,19 @@
+package com.alpha_code.alpha_code_robot_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Esp32StateDto implements Serializable {
+    private UUID id;
+    private String message;
+    private LocalDateTime lastSeen;
+    private long messageCount;
+}
@@ -0,0 +1,25 @@
+package com.alpha_code.alpha_code_robot_service.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+public class MqttLaneStatsDto implements Serializable {
+    private String trafficClass;
+    private String clientId;
+    private boolean connected;
+    private int qos;
+    private int priority;
+    private long reconnectCount;
+    private int subscriptionCount;
+
+    private int publishInFlight;
+    private int publishWindow;
+
+    private int dispatchStripes;
+    private int dispatchQueueDepth;
+    private long droppedMessages;
+}
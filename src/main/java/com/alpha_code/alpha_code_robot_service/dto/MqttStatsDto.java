@@ -0,0 +1,37 @@
+package com.alpha_code.alpha_code_robot_service.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class MqttStatsDto implements Serializable {
+    private boolean connected;
+    private String clientId;
+    private long reconnectCount;
+    private long failedConnectAttempts;
+    private long downtimeMs;
+    private int subscriptionCount;
+
+    private int publishInFlight;
+    private int publishWindow;
+
+    private int dispatchStripes;
+    private int dispatchQueueCapacity;
+    private int dispatchQueueDepth;
+    private int dispatchMaxStripeDepth;
+    private long dispatchedMessages;
+    private long droppedMessages;
+
+    private String payloadFormat;
+
+    private long coalesceWindowMs;
+    private int coalesceActiveTopics;
+    private long coalescedCommands;
+
+    // per traffic class; the figures above are totals across these
+    private List<MqttLaneStatsDto> lanes;
+}
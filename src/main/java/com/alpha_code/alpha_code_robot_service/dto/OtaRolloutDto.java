@@ -0,0 +1,48 @@
+package com.alpha_code.alpha_code_robot_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OtaRolloutDto implements Serializable {
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Transfer implements Serializable {
+        private UUID esp32Id;
+        private String state;
+        private int ackedOffset;
+        private int sizeBytes;
+        private long sentChunks;
+        private String error;
+    }
+
+    private UUID id;
+    private Integer version;
+    // RUNNING, COMPLETED or CANCELLED
+    private String state;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+    // already on this version or newer, or not found
+    private int skipped;
+    private int pending;
+    private int active;
+    private int succeeded;
+    private int failed;
+    private List<Transfer> transfers;
+}
@@ -0,0 +1,30 @@
+package com.alpha_code.alpha_code_robot_service.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Targets are either every active ESP32 of an account or an explicit list of ESP32 ids,
+ * optionally narrowed to devices of one type or with one name.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FanoutCommandRequest implements Serializable {
+    private UUID accountId;
+
+    private List<UUID> esp32Ids;
+
+    private String deviceType;
+
+    private String deviceName;
+
+    @NotBlank(message = "message is required")
+    private String message;
+}
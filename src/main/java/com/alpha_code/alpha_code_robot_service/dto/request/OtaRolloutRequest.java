@@ -0,0 +1,18 @@
+package com.alpha_code.alpha_code_robot_service.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OtaRolloutRequest implements Serializable {
+    @NotEmpty(message = "esp32Ids is required")
+    private List<UUID> esp32Ids;
+}
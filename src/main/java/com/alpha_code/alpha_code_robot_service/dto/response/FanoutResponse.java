@@ -0,0 +1,29 @@
+package com.alpha_code.alpha_code_robot_service.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FanoutResponse implements Serializable {
+    private int total;
+    private int succeeded;
+    private int failed;
+    private List<TargetResult> results;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TargetResult implements Serializable {
+        private UUID esp32Id;
+        private String deviceName;
+        private boolean success;
+        private String error;
+    }
+}
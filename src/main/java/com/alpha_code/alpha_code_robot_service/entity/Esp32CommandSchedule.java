@@ -0,0 +1,64 @@
+package com.alpha_code.alpha_code_robot_service.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "esp32_command_schedule", indexes = {
+        @Index(name = "idx_esp32_command_schedule_due", columnList = "status, next_fire_at"),
+        @Index(name = "idx_esp32_command_schedule_esp32", columnList = "esp32_id")
+})
+public class Esp32CommandSchedule {
+    @Id
+    @GeneratedValue(generator = "UUID")
+    @GenericGenerator(
+            name = "UUID",
+            strategy = "org.hibernate.id.UUIDGenerator"
+    )
+    @Column(name = "id", updatable = false, nullable = false, columnDefinition = "uuid")
+    private UUID id;
+
+    @NotNull
+    @Column(name = "esp32_id", nullable = false)
+    private UUID esp32Id;
+
+    @NotNull
+    @Column(name = "device_name", nullable = false)
+    private String deviceName;
+
+    @NotNull
+    @Column(name = "command", nullable = false)
+    private String command;
+
+    @Column(name = "cron_expression")
+    private String cronExpression;
+
+    @Column(name = "next_fire_at")
+    private LocalDateTime nextFireAt;
+
+    @Column(name = "last_fired_at")
+    private LocalDateTime lastFiredAt;
+
+    @NotNull
+    @Column(name = "created_date", nullable = false)
+    private LocalDateTime createdDate;
+
+    @Column(name = "last_updated")
+    private LocalDateTime lastUpdated;
+
+    @NotNull
+    @Column(name = "status", nullable = false)
+    private Integer status;
+}
@@ -0,0 +1,64 @@
+package com.alpha_code.alpha_code_robot_service.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "esp32_firmware", indexes = {
+        @Index(name = "idx_esp32_firmware_version", columnList = "version")
+})
+public class Esp32Firmware {
+    @Id
+    @GeneratedValue(generator = "UUID")
+    @GenericGenerator(
+            name = "UUID",
+            strategy = "org.hibernate.id.UUIDGenerator"
+    )
+    @Column(name = "id", updatable = false, nullable = false, columnDefinition = "uuid")
+    private UUID id;
+
+    // compared with Esp32.firmwareVersion
+    @NotNull
+    @Column(name = "version", nullable = false)
+    private Integer version;
+
+    @NotNull
+    @Column(name = "size_bytes", nullable = false)
+    private Integer sizeBytes;
+
+    // hex, sent to the device in the begin frame
+    @NotNull
+    @Column(name = "sha256", nullable = false, length = 64)
+    private String sha256;
+
+    // relative to esp32.ota.dir
+    @NotNull
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @Column(name = "notes")
+    private String notes;
+
+    @NotNull
+    @Column(name = "created_date", nullable = false)
+    private LocalDateTime createdDate;
+
+    @Column(name = "last_updated")
+    private LocalDateTime lastUpdated;
+
+    @NotNull
+    @Column(name = "status", nullable = false)
+    private Integer status;
+}
@@ -0,0 +1,25 @@
+package com.alpha_code.alpha_code_robot_service.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum Esp32CommandScheduleEnum {
+    DELETED(0, "ĐÃ BỊ XÓA"),
+    ACTIVE(1, "HOẠT ĐỘNG"),
+    COMPLETED(2, "ĐÃ HOÀN THÀNH");
+
+    private final int code;
+    private final String description;
+
+    public static String fromCode(Integer code) {
+        if (code == null) return null;
+        for (Esp32CommandScheduleEnum s : values()) {
+            if (s.code == code) {
+                return s.description;
+            }
+        }
+        return "KHÔNG XÁC ĐỊNH";
+    }
+}
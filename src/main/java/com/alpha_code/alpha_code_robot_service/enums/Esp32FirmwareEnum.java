@@ -0,0 +1,24 @@
+package com.alpha_code.alpha_code_robot_service.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum Esp32FirmwareEnum {
+    DELETED(0, "ĐÃ BỊ XÓA"),
+    ACTIVE(1, "HOẠT ĐỘNG");
+
+    private final int code;
+    private final String description;
+
+    public static String fromCode(Integer code) {
+        if (code == null) return null;
+        for (Esp32FirmwareEnum s : values()) {
+            if (s.code == code) {
+                return s.description;
+            }
+        }
+        return "KHÔNG XÁC ĐỊNH";
+    }
+}
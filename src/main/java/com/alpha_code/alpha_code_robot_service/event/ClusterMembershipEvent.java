@@ -0,0 +1,10 @@
+package com.alpha_code.alpha_code_robot_service.event;
+
+import java.util.List;
+
+/**
+ * Published by Esp32OwnershipServiceImpl whenever the set of live replicas changes, after the
+ * ownership ring has been rebuilt.
+ */
+public record ClusterMembershipEvent(String nodeId, List<String> members) {
+}
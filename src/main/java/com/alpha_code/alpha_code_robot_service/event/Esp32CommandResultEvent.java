@@ -0,0 +1,10 @@
+package com.alpha_code.alpha_code_robot_service.event;
+
+import java.util.UUID;
+
+/**
+ * Published by CommandAckServiceImpl when a tracked command is settled: the status acked by the
+ * device, "TIMEOUT" when no ack arrived in time, or "FAILED" when it was failed early.
+ */
+public record Esp32CommandResultEvent(UUID esp32Id, String correlationId, String status) {
+}
@@ -0,0 +1,19 @@
+package com.alpha_code.alpha_code_robot_service.event;
+
+import java.util.UUID;
+
+/**
+ * Published by Esp32ServiceImpl whenever an ESP32 is created, changes status or is soft-deleted.
+ */
+public record Esp32LifecycleEvent(UUID esp32Id, Type type, Integer status) {
+
+    public enum Type {
+        CREATED,
+        STATUS_CHANGED,
+        DELETED
+    }
+
+    public boolean isActive() {
+        return type != Type.DELETED && status != null && status != 0;
+    }
+}
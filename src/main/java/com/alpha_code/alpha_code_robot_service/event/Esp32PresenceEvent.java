@@ -0,0 +1,9 @@
+package com.alpha_code.alpha_code_robot_service.event;
+
+import java.util.UUID;
+
+/**
+ * Published when an ESP32 goes online (first heartbeat or message) or offline (LWT or heartbeat expiry).
+ */
+public record Esp32PresenceEvent(UUID esp32Id, boolean online) {
+}
@@ -0,0 +1,7 @@
+package com.alpha_code.alpha_code_robot_service.exception;
+
+public class MqttBackpressureException extends RuntimeException {
+    public MqttBackpressureException(String message) {
+        super(message);
+    }
+}
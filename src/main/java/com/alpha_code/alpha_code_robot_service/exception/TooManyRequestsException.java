@@ -0,0 +1,7 @@
+package com.alpha_code.alpha_code_robot_service.exception;
+
+public class TooManyRequestsException extends RuntimeException {
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
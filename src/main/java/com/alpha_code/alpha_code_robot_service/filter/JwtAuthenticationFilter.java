@@ -16,6 +16,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.UUID;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -46,6 +47,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(username, null, authorities);
+                // account id, for endpoints that only serve the caller's own account
+                String accountId = claims.get("id", String.class);
+                authentication.setDetails(accountId == null ? null : UUID.fromString(accountId));
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             }
@@ -0,0 +1,41 @@
+package com.alpha_code.alpha_code_robot_service.mapper;
+
+import com.alpha_code.alpha_code_robot_service.dto.Esp32CommandScheduleDto;
+import com.alpha_code.alpha_code_robot_service.entity.Esp32CommandSchedule;
+
+public class Esp32CommandScheduleMapper {
+
+    public static Esp32CommandScheduleDto toDto(Esp32CommandSchedule schedule) {
+        if (schedule == null) return null;
+
+        Esp32CommandScheduleDto dto = new Esp32CommandScheduleDto();
+        dto.setId(schedule.getId());
+        dto.setEsp32Id(schedule.getEsp32Id());
+        dto.setDeviceName(schedule.getDeviceName());
+        dto.setCommand(schedule.getCommand());
+        dto.setCronExpression(schedule.getCronExpression());
+        dto.setNextFireAt(schedule.getNextFireAt());
+        dto.setLastFiredAt(schedule.getLastFiredAt());
+        dto.setCreatedDate(schedule.getCreatedDate());
+        dto.setLastUpdated(schedule.getLastUpdated());
+        dto.setStatus(schedule.getStatus());
+        return dto;
+    }
+
+    public static Esp32CommandSchedule toEntity(Esp32CommandScheduleDto dto) {
+        if (dto == null) return null;
+
+        Esp32CommandSchedule schedule = new Esp32CommandSchedule();
+        schedule.setId(dto.getId());
+        schedule.setEsp32Id(dto.getEsp32Id());
+        schedule.setDeviceName(dto.getDeviceName());
+        schedule.setCommand(dto.getCommand());
+        schedule.setCronExpression(dto.getCronExpression());
+        schedule.setNextFireAt(dto.getNextFireAt());
+        schedule.setLastFiredAt(dto.getLastFiredAt());
+        schedule.setCreatedDate(dto.getCreatedDate());
+        schedule.setLastUpdated(dto.getLastUpdated());
+        schedule.setStatus(dto.getStatus());
+        return schedule;
+    }
+}
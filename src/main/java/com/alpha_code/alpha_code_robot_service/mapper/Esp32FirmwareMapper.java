@@ -0,0 +1,22 @@
+package com.alpha_code.alpha_code_robot_service.mapper;
+
+import com.alpha_code.alpha_code_robot_service.dto.Esp32FirmwareDto;
+import com.alpha_code.alpha_code_robot_service.entity.Esp32Firmware;
+
+public class Esp32FirmwareMapper {
+
+    public static Esp32FirmwareDto toDto(Esp32Firmware firmware) {
+        if (firmware == null) return null;
+
+        Esp32FirmwareDto dto = new Esp32FirmwareDto();
+        dto.setId(firmware.getId());
+        dto.setVersion(firmware.getVersion());
+        dto.setSizeBytes(firmware.getSizeBytes());
+        dto.setSha256(firmware.getSha256());
+        dto.setNotes(firmware.getNotes());
+        dto.setCreatedDate(firmware.getCreatedDate());
+        dto.setLastUpdated(firmware.getLastUpdated());
+        dto.setStatus(firmware.getStatus());
+        return dto;
+    }
+}
@@ -0,0 +1,26 @@
+package com.alpha_code.alpha_code_robot_service.mqtt;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Topic levels under "{esp32Id}/" that carry the service's own traffic. Device commands go to
+ * "{esp32Id}/{deviceName}", so none of these may be used as a device name.
+ */
+public class Esp32Channels {
+
+    // Last Will ("offline") and the device's own "online" announcement
+    public static final String STATUS = "status";
+    public static final String HEARTBEAT = "heartbeat";
+    // "{correlationId}|{status}" answers to device commands
+    public static final String ACK = "ack";
+    // firmware OTA frames to the device, and its acks for them
+    public static final String OTA = "ota";
+    public static final String OTA_ACK = "ota-ack";
+
+    private static final Set<String> RESERVED = Set.of(STATUS, HEARTBEAT, ACK, OTA, OTA_ACK);
+
+    public static boolean isReserved(String deviceName) {
+        return deviceName != null && RESERVED.contains(deviceName.trim().toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,145 @@
+package com.alpha_code.alpha_code_robot_service.mqtt;
+
+import com.alpha_code.alpha_code_robot_service.util.HashedWheelTimer;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * Per-topic debounce in front of the publisher. The first command to an idle topic is sent at
+ * once and opens a window; commands arriving inside the window only replace the pending state,
+ * and when the window ends the last one is sent and a new window opens. An ON/OFF/ON burst thus
+ * costs two publishes instead of three, and the device always ends in the last requested state.
+ * Windows are independent per topic, so other devices are neither delayed nor reordered.
+ */
+public class MqttCommandCoalescer implements AutoCloseable {
+
+    public enum Outcome {
+        SENT,
+        // superseded by a later command to the same topic inside the window
+        COALESCED
+    }
+
+    private static final class Slot {
+        private byte[] payload;
+        private CompletableFuture<Outcome> future;
+    }
+
+    private record Due(byte[] payload, CompletableFuture<Outcome> future) {
+    }
+
+    private final BiFunction<String, byte[], CompletableFuture<Void>> publisher;
+    private final Executor flushExecutor;
+    private final long windowMs;
+    private final HashedWheelTimer timer;
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * @param flushExecutor runs the trailing publishes, which must not block the timer thread
+     */
+    public MqttCommandCoalescer(BiFunction<String, byte[], CompletableFuture<Void>> publisher,
+                                Executor flushExecutor, long windowMs) {
+        if (windowMs <= 0) throw new IllegalArgumentException("windowMs must be positive");
+        this.publisher = publisher;
+        this.flushExecutor = flushExecutor;
+        this.windowMs = windowMs;
+        this.timer = new HashedWheelTimer("mqtt-coalesce-timer", Math.max(1, Math.min(windowMs / 4, 50)),
+                TimeUnit.MILLISECONDS, 512);
+    }
+
+    /**
+     * @return completes with SENT once the broker acknowledged this payload, or COALESCED if a
+     * later command to the same topic replaced it
+     */
+    public CompletableFuture<Outcome> submit(String topic, byte[] payload) {
+        CompletableFuture<Outcome> result = new CompletableFuture<>();
+        boolean[] leading = new boolean[1];
+        @SuppressWarnings("unchecked")
+        CompletableFuture<Outcome>[] superseded = new CompletableFuture[1];
+        slots.compute(topic, (t, slot) -> {
+            if (slot == null) {
+                leading[0] = true;
+                openWindow(t);
+                return new Slot();
+            }
+            superseded[0] = slot.future;
+            slot.payload = payload;
+            slot.future = result;
+            return slot;
+        });
+        if (superseded[0] != null) {
+            coalescedCount.incrementAndGet();
+            superseded[0].complete(Outcome.COALESCED);
+        }
+        if (leading[0]) {
+            send(topic, payload, result);
+        }
+        return result;
+    }
+
+    public long coalescedCount() {
+        return coalescedCount.get();
+    }
+
+    public int activeTopics() {
+        return slots.size();
+    }
+
+    public long windowMs() {
+        return windowMs;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        timer.close();
+        // flush what is still held rather than dropping the final state
+        slots.forEach((topic, slot) -> closeWindow(topic));
+    }
+
+    private void openWindow(String topic) {
+        timer.schedule(() -> closeWindow(topic), windowMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void closeWindow(String topic) {
+        Due[] due = new Due[1];
+        slots.compute(topic, (t, slot) -> {
+            if (slot == null || slot.future == null) {
+                return null;
+            }
+            due[0] = new Due(slot.payload, slot.future);
+            slot.payload = null;
+            slot.future = null;
+            if (closed) {
+                return null;
+            }
+            // keep the topic held so a command right after the trailing send is debounced too
+            openWindow(t);
+            return slot;
+        });
+        if (due[0] != null) {
+            flushExecutor.execute(() -> send(topic, due[0].payload(), due[0].future()));
+        }
+    }
+
+    private void send(String topic, byte[] payload, CompletableFuture<Outcome> result) {
+        try {
+            publisher.apply(topic, payload).whenComplete((ignored, ex) -> {
+                if (ex != null) {
+                    result.completeExceptionally(ex);
+                } else {
+                    result.complete(Outcome.SENT);
+                }
+            });
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.alpha_code.alpha_code_robot_service.mqtt;
+
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.IMqttMessageListener;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttCallbackExtended;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Owns one Paho client for the lifetime of the service, so the client id never changes.
+ * Lost connections are retried with exponential backoff and jitter (so a broker restart
+ * does not get every replica reconnecting in lock step), and every registered subscription is
+ * replayed once the connection is back, regardless of what the broker kept for the session.
+ */
+@Slf4j
+public class MqttConnectionManager {
+
+    private record Subscription(int qos, IMqttMessageListener listener) {
+    }
+
+    private final IMqttAsyncClient client;
+    private final MqttConnectOptions options;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final BiConsumer<String, MqttMessage> inbound;
+
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "mqtt-reconnect");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean connecting = new AtomicBoolean();
+    private final AtomicInteger attempt = new AtomicInteger();
+    private volatile boolean stopped;
+
+    private final AtomicLong reconnectCount = new AtomicLong();
+    private final AtomicLong failedAttempts = new AtomicLong();
+    private final AtomicLong totalDowntimeMs = new AtomicLong();
+    private volatile long disconnectedSince;
+    private volatile boolean everConnected;
+
+    public MqttConnectionManager(IMqttAsyncClient client,
+                                 MqttConnectOptions options,
+                                 long initialBackoffMs,
+                                 long maxBackoffMs,
+                                 BiConsumer<String, MqttMessage> inbound) {
+        this.client = client;
+        this.options = options;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.inbound = inbound;
+        // reconnects are driven here, not by Paho
+        this.options.setAutomaticReconnect(false);
+        this.client.setCallback(new Callback());
+    }
+
+    public void start() {
+        disconnectedSince = System.currentTimeMillis();
+        connect();
+    }
+
+    public void stop() {
+        stopped = true;
+        scheduler.shutdownNow();
+        try {
+            if (client.isConnected()) {
+                client.disconnect().waitForCompletion();
+            }
+            client.close();
+        } catch (Exception e) {
+            log.error("Error closing MQTT client", e);
+        }
+    }
+
+    public IMqttAsyncClient client() {
+        return client;
+    }
+
+    public boolean isConnected() {
+        return client.isConnected();
+    }
+
+    /**
+     * Register a subscription and send it now if connected. It is replayed after every reconnect.
+     * A null listener delivers messages to the manager-wide inbound consumer.
+     */
+    public void subscribe(String topicFilter, int qos, IMqttMessageListener listener) {
+        subscriptions.put(topicFilter, new Subscription(qos, listener));
+        if (client.isConnected()) {
+            sendSubscribe(topicFilter, qos, listener);
+        }
+    }
+
+    public void unsubscribe(String topicFilter) {
+        if (subscriptions.remove(topicFilter) == null) return;
+        if (client.isConnected()) {
+            try {
+                client.unsubscribe(topicFilter);
+            } catch (Exception e) {
+                log.warn("⚠️ Failed to unsubscribe MQTT topic {}", topicFilter, e);
+            }
+        }
+    }
+
+    public int subscriptionCount() {
+        return subscriptions.size();
+    }
+
+    public String clientId() {
+        return client.getClientId();
+    }
+
+    public long reconnectCount() {
+        return reconnectCount.get();
+    }
+
+    public long failedAttempts() {
+        return failedAttempts.get();
+    }
+
+    /**
+     * Accumulated time without a broker connection, including the current outage.
+     */
+    public long downtimeMs() {
+        long since = disconnectedSince;
+        return totalDowntimeMs.get() + (since > 0 ? System.currentTimeMillis() - since : 0);
+    }
+
+    private void connect() {
+        if (stopped || !connecting.compareAndSet(false, true)) return;
+        try {
+            client.connect(options, null, new IMqttActionListener() {
+                @Override
+                public void onSuccess(IMqttToken token) {
+                    connecting.set(false);
+                    onConnected();
+                }
+
+                @Override
+                public void onFailure(IMqttToken token, Throwable cause) {
+                    connecting.set(false);
+                    failedAttempts.incrementAndGet();
+                    log.warn("⚠️ MQTT connect to {} failed: {}", client.getServerURI(), cause.getMessage());
+                    scheduleReconnect();
+                }
+            });
+        } catch (Exception e) {
+            connecting.set(false);
+            failedAttempts.incrementAndGet();
+            log.warn("⚠️ MQTT connect to {} failed: {}", client.getServerURI(), e.getMessage());
+            scheduleReconnect();
+        }
+    }
+
+    private void onConnected() {
+        long since = disconnectedSince;
+        if (since > 0) {
+            totalDowntimeMs.addAndGet(System.currentTimeMillis() - since);
+            disconnectedSince = 0;
+        }
+        if (everConnected) {
+            reconnectCount.incrementAndGet();
+        }
+        everConnected = true;
+        attempt.set(0);
+        log.info("✅ MQTT connected to broker: {} as {}", client.getServerURI(), client.getClientId());
+
+        subscriptions.forEach((filter, sub) -> sendSubscribe(filter, sub.qos(), sub.listener()));
+        if (!subscriptions.isEmpty()) {
+            log.info("✅ Replayed {} MQTT subscriptions", subscriptions.size());
+        }
+    }
+
+    private void sendSubscribe(String topicFilter, int qos, IMqttMessageListener listener) {
+        try {
+            if (listener == null) {
+                client.subscribe(topicFilter, qos);
+            } else {
+                client.subscribe(topicFilter, qos, listener);
+            }
+        } catch (Exception e) {
+            log.error("❌ Failed to subscribe MQTT topic {}", topicFilter, e);
+        }
+    }
+
+    private void scheduleReconnect() {
+        if (stopped) return;
+        int n = attempt.getAndIncrement();
+        long delay = backoffDelay(n);
+        log.info("MQTT reconnect attempt {} in {} ms", n + 1, delay);
+        try {
+            scheduler.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            // scheduler already shut down
+        }
+    }
+
+    /**
+     * Delay before the reconnect that follows n failed attempts: a ceiling that doubles from the
+     * initial backoff up to the max, with the delay drawn from its upper half.
+     */
+    long backoffDelay(int n) {
+        long ceiling = Math.min(maxBackoffMs, initialBackoffMs << Math.min(n, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+    }
+
+    private class Callback implements MqttCallbackExtended {
+
+        @Override
+        public void connectComplete(boolean reconnect, String serverURI) {
+            log.debug("MQTT connectComplete (reconnect={}): {}", reconnect, serverURI);
+        }
+
+        @Override
+        public void connectionLost(Throwable cause) {
+            disconnectedSince = System.currentTimeMillis();
+            log.warn("⚠️ MQTT connection lost: {}", cause == null ? "unknown" : cause.getMessage());
+            scheduleReconnect();
+        }
+
+        @Override
+        public void messageArrived(String topic, MqttMessage message) {
+            inbound.accept(topic, message);
+        }
+
+        @Override
+        public void deliveryComplete(IMqttDeliveryToken token) {
+        }
+    }
+}
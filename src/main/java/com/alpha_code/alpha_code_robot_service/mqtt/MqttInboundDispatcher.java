@@ -0,0 +1,143 @@
+package com.alpha_code.alpha_code_robot_service.mqtt;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves inbound MQTT work off the Paho callback thread. Each key (ESP32 id) is pinned to one
+ * single-threaded stripe, so messages of a device are handled in arrival order while a slow
+ * handler only delays the devices sharing its stripe. Every stripe has a bounded queue; when it
+ * is full the overflow policy either drops the oldest queued message or blocks the caller.
+ */
+@Slf4j
+public class MqttInboundDispatcher {
+
+    public enum OverflowPolicy {
+        DROP_OLDEST,
+        BLOCK
+    }
+
+    private final ThreadPoolExecutor[] stripes;
+    private final int queueCapacity;
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public MqttInboundDispatcher(int stripeCount, int queueCapacity, OverflowPolicy policy) {
+        this("mqtt-dispatch", stripeCount, queueCapacity, policy, Thread.NORM_PRIORITY);
+    }
+
+    /**
+     * @param threadPriority priority of the stripe threads, so a latency-sensitive dispatcher can
+     *                       be favoured over a bulk one when the CPU is saturated
+     */
+    public MqttInboundDispatcher(String name, int stripeCount, int queueCapacity, OverflowPolicy policy,
+                                 int threadPriority) {
+        if (stripeCount <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("stripeCount and queueCapacity must be positive");
+        }
+        this.queueCapacity = queueCapacity;
+        this.stripes = new ThreadPoolExecutor[stripeCount];
+        RejectedExecutionHandler overflow = policy == OverflowPolicy.BLOCK ? this::block : this::dropOldest;
+        for (int i = 0; i < stripeCount; i++) {
+            String threadName = name + "-" + i;
+            stripes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    r -> {
+                        Thread t = new Thread(r, threadName);
+                        t.setDaemon(true);
+                        t.setPriority(threadPriority);
+                        return t;
+                    },
+                    overflow);
+        }
+    }
+
+    public void dispatch(String key, Runnable task) {
+        dispatched.incrementAndGet();
+        stripes[Math.floorMod(key.hashCode(), stripes.length)].execute(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("❌ MQTT handler failed for key {}", key, e);
+            }
+        });
+    }
+
+    private void dropOldest(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            dropped.incrementAndGet();
+            return;
+        }
+        BlockingQueue<Runnable> queue = executor.getQueue();
+        while (!queue.offer(task)) {
+            if (queue.poll() != null) {
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    private void block(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            dropped.incrementAndGet();
+            return;
+        }
+        try {
+            executor.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.incrementAndGet();
+        }
+    }
+
+    public int queueDepth() {
+        int depth = 0;
+        for (ThreadPoolExecutor stripe : stripes) {
+            depth += stripe.getQueue().size();
+        }
+        return depth;
+    }
+
+    public int maxStripeDepth() {
+        int max = 0;
+        for (ThreadPoolExecutor stripe : stripes) {
+            max = Math.max(max, stripe.getQueue().size());
+        }
+        return max;
+    }
+
+    public int stripeCount() {
+        return stripes.length;
+    }
+
+    public int queueCapacity() {
+        return queueCapacity;
+    }
+
+    public long dispatchedCount() {
+        return dispatched.get();
+    }
+
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    public void shutdown() {
+        for (ThreadPoolExecutor stripe : stripes) {
+            stripe.shutdown();
+        }
+        for (ThreadPoolExecutor stripe : stripes) {
+            try {
+                stripe.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
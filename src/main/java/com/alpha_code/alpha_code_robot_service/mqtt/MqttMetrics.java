@@ -0,0 +1,94 @@
+package com.alpha_code.alpha_code_robot_service.mqtt;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters for the MQTT hot path, tagged by topic class so cardinality stays bounded:
+ * "telemetry" for "{esp32Id}", the channel name for registered channels ("{esp32Id}/ack", ...)
+ * and "other" for anything else. Meters are created once per class and cached, so recording is
+ * a map lookup plus an atomic update.
+ */
+public class MqttMetrics {
+
+    public static final String TELEMETRY = "telemetry";
+    public static final String OTHER = "other";
+
+    private final MeterRegistry registry;
+    private final Set<String> channels = ConcurrentHashMap.newKeySet();
+    private final Map<String, Counter> inbound = new ConcurrentHashMap<>();
+    private final Map<String, Timer> handlerTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> ackTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> publishFailures = new ConcurrentHashMap<>();
+
+    public MqttMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public MeterRegistry registry() {
+        return registry;
+    }
+
+    /**
+     * Makes "{prefix}/{channel}" its own topic class.
+     */
+    public void registerChannel(String channel) {
+        channels.add(channel);
+    }
+
+    public String classify(String topic) {
+        int slash = topic.indexOf('/');
+        if (slash < 0) return TELEMETRY;
+        String channel = topic.substring(slash + 1);
+        return channels.contains(channel) ? channel : OTHER;
+    }
+
+    public void inbound(String topicClass) {
+        inbound.computeIfAbsent(topicClass, c -> Counter.builder("mqtt.inbound.messages")
+                .description("Messages received from the broker")
+                .tag("class", c)
+                .register(registry)).increment();
+    }
+
+    /**
+     * Wraps a dispatched handler so its execution time is recorded on the dispatch thread.
+     */
+    public Runnable timed(String topicClass, Runnable handler) {
+        Timer timer = handlerTimers.computeIfAbsent(topicClass, c -> Timer.builder("mqtt.handler.duration")
+                .description("Time spent in inbound message handlers")
+                .tag("class", c)
+                .register(registry));
+        return () -> {
+            long start = System.nanoTime();
+            try {
+                handler.run();
+            } finally {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+
+    public void publishAcked(String publishClass, long startNanos) {
+        ackTimers.computeIfAbsent(publishClass, c -> Timer.builder("mqtt.publish.ack")
+                .description("Publish to PUBACK latency")
+                .tag("class", c)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry)).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void publishFailed(String publishClass) {
+        publishFailures.computeIfAbsent(publishClass, c -> Counter.builder("mqtt.publish.failures")
+                .description("Publishes rejected by the client or not acknowledged by the broker")
+                .tag("class", c)
+                .register(registry)).increment();
+    }
+}
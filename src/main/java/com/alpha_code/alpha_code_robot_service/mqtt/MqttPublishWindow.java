@@ -0,0 +1,55 @@
+package com.alpha_code.alpha_code_robot_service.mqtt;
+
+import com.alpha_code.alpha_code_robot_service.exception.MqttBackpressureException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the number of QoS 1 publishes awaiting a PUBACK. A slot is taken before the publish is
+ * handed to Paho and given back when the broker acknowledges (or the publish fails). When the
+ * window stays full for longer than the acquire timeout the caller is rejected instead of queued.
+ */
+public class MqttPublishWindow {
+
+    private final int capacity;
+    private final long acquireTimeoutMs;
+    private final Semaphore permits;
+
+    public MqttPublishWindow(int capacity, long acquireTimeoutMs) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        this.capacity = capacity;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.permits = new Semaphore(capacity);
+    }
+
+    public void acquire() {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new MqttBackpressureException("MQTT publish window full (" + capacity + " in flight)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MqttBackpressureException("Interrupted while waiting for MQTT publish window");
+        }
+    }
+
+    /**
+     * Takes a slot only if one is free right now, for callers that must never wait.
+     */
+    public boolean tryAcquire() {
+        return permits.tryAcquire();
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int inFlight() {
+        return capacity - permits.availablePermits();
+    }
+}
@@ -0,0 +1,79 @@
+package com.alpha_code.alpha_code_robot_service.mqtt;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Routes messages received on a wildcard subscription to the handler registered for the
+ * topic prefix (the first topic level, i.e. the ESP32 id). A lookup is a single hash probe,
+ * so adding a device never requires a SUBSCRIBE round trip to the broker.
+ * Sub-topics such as "{esp32Id}/ack" are first matched against channel handlers, which serve
+ * one kind of message for the whole fleet.
+ */
+@Slf4j
+public class MqttTopicRouter {
+
+    private final Map<String, BiConsumer<String, String>> handlers = new ConcurrentHashMap<>();
+
+    private final Map<String, BiConsumer<String, String>> channelHandlers = new ConcurrentHashMap<>();
+
+    private volatile BiConsumer<String, String> fallbackHandler;
+
+    public void register(String prefix, BiConsumer<String, String> handler) {
+        handlers.put(prefix, handler);
+    }
+
+    public void unregister(String prefix) {
+        handlers.remove(prefix);
+    }
+
+    /**
+     * Handler for every topic "{prefix}/{channel}", whatever the prefix.
+     */
+    public void registerChannel(String channel, BiConsumer<String, String> handler) {
+        channelHandlers.put(channel, handler);
+    }
+
+    /**
+     * Handler used when no prefix-specific handler is registered, e.g. one handler for the whole fleet.
+     */
+    public void setFallbackHandler(BiConsumer<String, String> handler) {
+        this.fallbackHandler = handler;
+    }
+
+    /**
+     * @return false if no handler accepted the message
+     */
+    public boolean route(String topic, String payload) {
+        BiConsumer<String, String> handler = null;
+        int slash = topic.indexOf('/');
+        if (slash >= 0 && !channelHandlers.isEmpty()) {
+            handler = channelHandlers.get(topic.substring(slash + 1));
+        }
+        if (handler == null) {
+            handler = handlers.get(slash < 0 ? topic : topic.substring(0, slash));
+        }
+        if (handler == null) {
+            handler = fallbackHandler;
+        }
+        if (handler == null) {
+            log.debug("No MQTT handler for topic {}", topic);
+            return false;
+        }
+        handler.accept(topic, payload);
+        return true;
+    }
+
+    public Set<String> prefixes() {
+        return Set.copyOf(handlers.keySet());
+    }
+
+    public static String prefixOf(String topic) {
+        int slash = topic.indexOf('/');
+        return slash < 0 ? topic : topic.substring(0, slash);
+    }
+}
@@ -0,0 +1,25 @@
+package com.alpha_code.alpha_code_robot_service.mqtt;
+
+import java.util.Locale;
+
+/**
+ * Kinds of MQTT traffic that get separate connections, so one cannot queue behind another.
+ */
+public enum MqttTrafficClass {
+    // ESP32 telemetry on the wildcard ingest subscriptions, and bulk OTA chunks, which carry their
+    // own acks and retransmission and so suit this connection's QoS 0
+    TELEMETRY,
+    // device commands and their acks
+    COMMAND,
+    // presence, heartbeats and everything else
+    CONTROL;
+
+    private final String tag = name().toLowerCase(Locale.ROOT);
+
+    /**
+     * Lower-case name, used in client ids, thread names and meter tags.
+     */
+    public String tag() {
+        return tag;
+    }
+}
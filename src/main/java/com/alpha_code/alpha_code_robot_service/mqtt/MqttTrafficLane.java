@@ -0,0 +1,34 @@
+package com.alpha_code.alpha_code_robot_service.mqtt;
+
+/**
+ * Everything one traffic class owns: its client connection, the QoS its publishes and
+ * subscriptions use, its publish window and its inbound dispatch stripes.
+ */
+public record MqttTrafficLane(MqttTrafficClass trafficClass,
+                              Settings settings,
+                              MqttConnectionManager connection,
+                              MqttPublishWindow publishWindow,
+                              MqttInboundDispatcher dispatcher) {
+
+    /**
+     * @param maxInFlight publishes awaiting PUBACK (or, at QoS 0, awaiting the socket write)
+     * @param priority    1-10; the thread priority of the dispatch stripes, and lanes connect in
+     *                    descending priority order at startup
+     */
+    public record Settings(int qos, int maxInFlight, int priority, int stripes) {
+        public Settings {
+            if (qos < 0 || qos > 2) throw new IllegalArgumentException("qos must be 0, 1 or 2");
+            if (priority < Thread.MIN_PRIORITY || priority > Thread.MAX_PRIORITY) {
+                throw new IllegalArgumentException("priority must be between 1 and 10");
+            }
+        }
+    }
+
+    public int qos() {
+        return settings.qos();
+    }
+
+    public int priority() {
+        return settings.priority();
+    }
+}
@@ -0,0 +1,131 @@
+package com.alpha_code.alpha_code_robot_service.mqtt.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-size big-endian frames for firmware that prefers not to parse text.
+ * <pre>
+ * command (9 bytes): magic 0xC1 | opcode u8 | device index u8 | value i16 | sequence u32
+ * ack     (7 bytes): magic 0xC1 | 0x80      | sequence u32    | status u8 (0 = OK)
+ * </pre>
+ * The sequence is the base-36 correlation id read as a number (0 = no ack requested); ids past
+ * 32 bits are rejected rather than truncated, since the ack would not match them. Payloads
+ * without the magic byte are decoded as text acks, so a fleet can switch firmware gradually.
+ */
+public class BinaryFrameCodec implements MqttPayloadCodec {
+
+    public static final byte MAGIC = (byte) 0xC1;
+    public static final int COMMAND_FRAME_LENGTH = 9;
+    public static final int ACK_FRAME_LENGTH = 7;
+
+    public static final byte OP_ON = 1;
+    public static final byte OP_OFF = 2;
+    public static final byte OP_TOGGLE = 3;
+    public static final byte OP_SET = 4;
+    public static final byte OP_ACK = (byte) 0x80;
+
+    private final TextPayloadCodec textFallback = new TextPayloadCodec();
+
+    @Override
+    public MqttPayloadFormat format() {
+        return MqttPayloadFormat.BINARY;
+    }
+
+    @Override
+    public int maxEncodedLength(DeviceCommand command) {
+        return COMMAND_FRAME_LENGTH;
+    }
+
+    @Override
+    public void encodeCommand(DeviceCommand command, ByteBuffer out) {
+        if (command.deviceIndex() < 0 || command.deviceIndex() > 0xFF) {
+            throw new IllegalArgumentException("Chỉ số thiết bị không hợp lệ: " + command.deviceIndex());
+        }
+        long sequence = sequenceOf(command.correlationId());
+        String text = command.command().trim();
+        byte opcode;
+        int value = 0;
+        if (text.equalsIgnoreCase("ON")) {
+            opcode = OP_ON;
+        } else if (text.equalsIgnoreCase("OFF")) {
+            opcode = OP_OFF;
+        } else if (text.equalsIgnoreCase("TOGGLE")) {
+            opcode = OP_TOGGLE;
+        } else {
+            // "SET 50", "SET:50", "SET=50" or just "50"
+            int from = text.regionMatches(true, 0, "SET", 0, 3) ? 3 : 0;
+            if (from == 3 && text.length() > 3 && (text.charAt(3) == ':' || text.charAt(3) == '=' || text.charAt(3) == ' ')) {
+                from = 4;
+            }
+            while (from < text.length() && text.charAt(from) == ' ') {
+                from++;
+            }
+            value = parseValue(text, from);
+            opcode = OP_SET;
+        }
+
+        out.put(MAGIC);
+        out.put(opcode);
+        out.put((byte) command.deviceIndex());
+        out.putShort((short) value);
+        out.putInt((int) sequence);
+    }
+
+    @Override
+    public CommandAck decodeAck(byte[] payload) {
+        if (payload.length == 0 || payload[0] != MAGIC) {
+            return textFallback.decodeAck(payload);
+        }
+        if (payload.length < ACK_FRAME_LENGTH || payload[1] != OP_ACK) {
+            return null;
+        }
+        long sequence = ((payload[2] & 0xFFL) << 24) | ((payload[3] & 0xFFL) << 16)
+                | ((payload[4] & 0xFFL) << 8) | (payload[5] & 0xFFL);
+        return new CommandAck(Long.toString(sequence, 36), payload[6] == 0 ? "OK" : "ERROR");
+    }
+
+    private static int parseValue(String text, int from) {
+        if (from >= text.length()) {
+            throw unsupported(text);
+        }
+        int value = 0;
+        boolean negative = text.charAt(from) == '-';
+        int i = negative ? from + 1 : from;
+        if (i >= text.length()) {
+            throw unsupported(text);
+        }
+        for (; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                throw unsupported(text);
+            }
+            value = value * 10 + (c - '0');
+            if (value > Short.MAX_VALUE + 1) {
+                throw unsupported(text);
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Short.MAX_VALUE) {
+            throw unsupported(text);
+        }
+        return value;
+    }
+
+    /**
+     * Correlation ids come from a base-36 counter that wraps within 32 bits.
+     */
+    private static long sequenceOf(String correlationId) {
+        if (correlationId == null) {
+            return 0;
+        }
+        long sequence = Long.parseLong(correlationId, 36);
+        if (sequence < 0 || sequence > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("Mã tương quan vượt quá 32 bit: " + correlationId);
+        }
+        return sequence;
+    }
+
+    private static IllegalArgumentException unsupported(String text) {
+        return new IllegalArgumentException("Lệnh không hỗ trợ ở định dạng nhị phân: " + text);
+    }
+}
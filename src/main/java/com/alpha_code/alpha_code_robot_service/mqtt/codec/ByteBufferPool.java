@@ -0,0 +1,39 @@
+package com.alpha_code.alpha_code_robot_service.mqtt.codec;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Bounded pool of equally sized heap buffers used as encode scratch space. Requests larger than
+ * the buffer size get a one-off buffer, and a full pool simply drops released buffers.
+ */
+public class ByteBufferPool {
+
+    private final BlockingQueue<ByteBuffer> free;
+    private final int bufferSize;
+
+    public ByteBufferPool(int poolSize, int bufferSize) {
+        this.free = new ArrayBlockingQueue<>(poolSize);
+        this.bufferSize = bufferSize;
+    }
+
+    public ByteBuffer acquire(int minCapacity) {
+        if (minCapacity > bufferSize) {
+            return ByteBuffer.allocate(minCapacity);
+        }
+        ByteBuffer buffer = free.poll();
+        return buffer != null ? buffer : ByteBuffer.allocate(bufferSize);
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (buffer.capacity() == bufferSize) {
+            buffer.clear();
+            free.offer(buffer);
+        }
+    }
+
+    public int available() {
+        return free.size();
+    }
+}
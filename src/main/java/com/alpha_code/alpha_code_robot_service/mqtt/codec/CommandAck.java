@@ -0,0 +1,4 @@
+package com.alpha_code.alpha_code_robot_service.mqtt.codec;
+
+public record CommandAck(String correlationId, String status) {
+}
@@ -0,0 +1,10 @@
+package com.alpha_code.alpha_code_robot_service.mqtt.codec;
+
+/**
+ * A command for one device of an ESP32.
+ *
+ * @param deviceIndex   position of the device in the ESP32's metadata "devices" array
+ * @param correlationId null when no ack is requested
+ */
+public record DeviceCommand(String command, int deviceIndex, String correlationId) {
+}
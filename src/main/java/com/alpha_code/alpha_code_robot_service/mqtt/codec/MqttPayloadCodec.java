@@ -0,0 +1,29 @@
+package com.alpha_code.alpha_code_robot_service.mqtt.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Wire format of device commands and their acks. Implementations write straight into the
+ * caller's buffer and read straight from the received bytes, without building payload Strings.
+ */
+public interface MqttPayloadCodec {
+
+    MqttPayloadFormat format();
+
+    /**
+     * Upper bound of the bytes encodeCommand writes, so callers can pick a pooled buffer.
+     */
+    int maxEncodedLength(DeviceCommand command);
+
+    /**
+     * Writes the frame at the buffer's position and advances it.
+     *
+     * @throws IllegalArgumentException if the command cannot be expressed in this format
+     */
+    void encodeCommand(DeviceCommand command, ByteBuffer out);
+
+    /**
+     * @return null if the payload is not a well-formed ack
+     */
+    CommandAck decodeAck(byte[] payload);
+}
@@ -0,0 +1,8 @@
+package com.alpha_code.alpha_code_robot_service.mqtt.codec;
+
+public enum MqttPayloadFormat {
+    // "COMMAND" or "COMMAND|correlationId", UTF-8
+    TEXT,
+    // fixed 9-byte frame, see BinaryFrameCodec
+    BINARY
+}
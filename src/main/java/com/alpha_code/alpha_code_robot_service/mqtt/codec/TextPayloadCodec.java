@@ -0,0 +1,95 @@
+package com.alpha_code.alpha_code_robot_service.mqtt.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The original text format: the upper-cased command, followed by "|correlationId" when an ack
+ * is requested. Acks are "correlationId|status", where a missing status means OK. Always UTF-8,
+ * whatever the platform charset.
+ */
+public class TextPayloadCodec implements MqttPayloadCodec {
+
+    @Override
+    public MqttPayloadFormat format() {
+        return MqttPayloadFormat.TEXT;
+    }
+
+    @Override
+    public int maxEncodedLength(DeviceCommand command) {
+        int length = command.command().length() * 3;
+        if (command.correlationId() != null) {
+            length += 1 + command.correlationId().length();
+        }
+        return length;
+    }
+
+    @Override
+    public void encodeCommand(DeviceCommand command, ByteBuffer out) {
+        String text = command.command();
+        for (int i = 0; i < text.length(); ) {
+            int cp = Character.toUpperCase(text.codePointAt(i));
+            i += Character.charCount(text.codePointAt(i));
+            putUtf8(cp, out);
+        }
+        if (command.correlationId() != null) {
+            out.put((byte) '|');
+            String id = command.correlationId();
+            for (int i = 0; i < id.length(); i++) {
+                out.put((byte) id.charAt(i));
+            }
+        }
+    }
+
+    @Override
+    public CommandAck decodeAck(byte[] payload) {
+        int start = skipSpaces(payload, 0, payload.length);
+        int sep = indexOf(payload, (byte) '|', start);
+        int idEnd = trimEnd(payload, start, sep < 0 ? payload.length : sep);
+        if (idEnd == start) {
+            return null;
+        }
+        String correlationId = new String(payload, start, idEnd - start, StandardCharsets.US_ASCII);
+        if (sep < 0) {
+            return new CommandAck(correlationId, "OK");
+        }
+        int statusStart = skipSpaces(payload, sep + 1, payload.length);
+        int statusEnd = trimEnd(payload, statusStart, payload.length);
+        return new CommandAck(correlationId, new String(payload, statusStart, statusEnd - statusStart, StandardCharsets.UTF_8));
+    }
+
+    private static void putUtf8(int cp, ByteBuffer out) {
+        if (cp < 0x80) {
+            out.put((byte) cp);
+        } else if (cp < 0x800) {
+            out.put((byte) (0xC0 | (cp >> 6)));
+            out.put((byte) (0x80 | (cp & 0x3F)));
+        } else if (cp < 0x10000) {
+            out.put((byte) (0xE0 | (cp >> 12)));
+            out.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+            out.put((byte) (0x80 | (cp & 0x3F)));
+        } else {
+            out.put((byte) (0xF0 | (cp >> 18)));
+            out.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+            out.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+            out.put((byte) (0x80 | (cp & 0x3F)));
+        }
+    }
+
+    private static int indexOf(byte[] bytes, byte b, int from) {
+        for (int i = from; i < bytes.length; i++) {
+            if (bytes[i] == b) return i;
+        }
+        return -1;
+    }
+
+    private static int skipSpaces(byte[] bytes, int from, int to) {
+        while (from < to && bytes[from] <= ' ') from++;
+        return from;
+    }
+
+    private static int trimEnd(byte[] bytes, int from, int to) {
+        while (to > from && bytes[to - 1] <= ' ') to--;
+        return to;
+    }
+}
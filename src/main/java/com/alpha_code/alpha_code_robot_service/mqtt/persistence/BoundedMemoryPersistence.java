@@ -0,0 +1,70 @@
+package com.alpha_code.alpha_code_robot_service.mqtt.persistence;
+
+import org.eclipse.paho.client.mqttv3.MqttClientPersistence;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttPersistable;
+import org.eclipse.paho.client.mqttv3.MqttPersistenceException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Heap-only Paho persistence holding at most {@code capacity} entries (QoS 1 in-flight state).
+ * Nothing touches the file system, so there is neither an fsync per publish nor a lock directory.
+ */
+public class BoundedMemoryPersistence implements MqttClientPersistence {
+
+    private final int capacity;
+    private final Map<String, byte[]> entries = new ConcurrentHashMap<>();
+
+    public BoundedMemoryPersistence(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void open(String clientId, String serverURI) {
+    }
+
+    @Override
+    public void close() {
+        entries.clear();
+    }
+
+    @Override
+    public void put(String key, MqttPersistable persistable) throws MqttPersistenceException {
+        if (!entries.containsKey(key) && entries.size() >= capacity) {
+            throw new MqttPersistenceException(MqttException.REASON_CODE_MAX_INFLIGHT);
+        }
+        entries.put(key, PersistableBytes.of(persistable));
+    }
+
+    @Override
+    public MqttPersistable get(String key) {
+        byte[] data = entries.get(key);
+        return data == null ? null : PersistedBytes.of(data);
+    }
+
+    @Override
+    public void remove(String key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public Enumeration<String> keys() {
+        return Collections.enumeration(new ArrayList<>(entries.keySet()));
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return entries.containsKey(key);
+    }
+}
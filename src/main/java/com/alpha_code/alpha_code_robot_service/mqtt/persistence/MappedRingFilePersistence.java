@@ -0,0 +1,253 @@
+package com.alpha_code.alpha_code_robot_service.mqtt.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.paho.client.mqttv3.MqttClientPersistence;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttPersistable;
+import org.eclipse.paho.client.mqttv3.MqttPersistenceException;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Paho persistence backed by one fixed-size memory-mapped file per client id. Puts and removes
+ * are appended as records; when the end of the file is reached the live entries are written to a
+ * fresh file that then atomically replaces the old one (the live set is only the in-flight window,
+ * so this is cheap), and a crash during compaction leaves the old file intact. A put whose entry
+ * does not fit next to the live set fails instead of dropping entries. Writes go to the page cache
+ * without an fsync per message, and recovery is a single sequential scan. A file with nothing
+ * in flight is deleted on close, so only client ids that still owe the broker messages keep one.
+ *
+ * <pre>
+ * file   = magic:int record* 0:int
+ * record = length:int op:byte keyLength:short key data
+ * </pre>
+ */
+@Slf4j
+public class MappedRingFilePersistence implements MqttClientPersistence {
+
+    private static final int FILE_MAGIC = 0x4D515452;
+    private static final int FILE_HEADER_BYTES = 4;
+    private static final byte OP_PUT = 1;
+    private static final byte OP_REMOVE = 2;
+
+    private final Path directory;
+    private final int fileSize;
+
+    private final Map<String, byte[]> live = new LinkedHashMap<>();
+    private Path file;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    public MappedRingFilePersistence(Path directory, int fileSize) {
+        this.directory = directory;
+        this.fileSize = fileSize;
+    }
+
+    @Override
+    public synchronized void open(String clientId, String serverURI) throws MqttPersistenceException {
+        try {
+            Files.createDirectories(directory);
+            file = directory.resolve(sanitize(clientId + "-" + serverURI) + ".ring");
+            // left over from a compaction that did not finish; the ring file itself is still whole
+            Files.deleteIfExists(compactionFile());
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+        } catch (IOException e) {
+            throw new MqttPersistenceException(e);
+        }
+
+        if (buffer.getInt(0) == FILE_MAGIC) {
+            recover();
+        } else {
+            buffer.putInt(0, FILE_MAGIC);
+            reset();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws MqttPersistenceException {
+        if (channel == null) return;
+        try {
+            buffer.force();
+            channel.close();
+            if (live.isEmpty()) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            throw new MqttPersistenceException(e);
+        } finally {
+            channel = null;
+            buffer = null;
+            live.clear();
+        }
+    }
+
+    @Override
+    public synchronized void put(String key, MqttPersistable persistable) throws MqttPersistenceException {
+        byte[] data = PersistableBytes.of(persistable);
+        append(OP_PUT, key, data);
+        live.put(key, data);
+    }
+
+    @Override
+    public synchronized MqttPersistable get(String key) {
+        byte[] data = live.get(key);
+        return data == null ? null : PersistedBytes.of(data);
+    }
+
+    @Override
+    public synchronized void remove(String key) throws MqttPersistenceException {
+        if (live.remove(key) != null) {
+            append(OP_REMOVE, key, new byte[0]);
+        }
+    }
+
+    @Override
+    public synchronized Enumeration<String> keys() {
+        return Collections.enumeration(new ArrayList<>(live.keySet()));
+    }
+
+    @Override
+    public synchronized void clear() {
+        live.clear();
+        reset();
+    }
+
+    @Override
+    public synchronized boolean containsKey(String key) {
+        return live.containsKey(key);
+    }
+
+    private void append(byte op, String key, byte[] data) throws MqttPersistenceException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int recordBytes = recordBytes(keyBytes, data);
+
+        // keep room for the 0 terminator
+        if (buffer.remaining() < recordBytes + 4) {
+            if (op == OP_REMOVE) {
+                // the key is already out of the live set, so the compacted file records the remove
+                compact(0);
+                return;
+            }
+            compact(recordBytes);
+        }
+        writeRecord(buffer, op, keyBytes, data);
+        terminate(buffer);
+    }
+
+    private static int recordBytes(byte[] keyBytes, byte[] data) {
+        return 4 + 1 + 2 + keyBytes.length + data.length;
+    }
+
+    private static void writeRecord(MappedByteBuffer target, byte op, byte[] keyBytes, byte[] data) {
+        target.putInt(1 + 2 + keyBytes.length + data.length);
+        target.put(op);
+        target.putShort((short) keyBytes.length);
+        target.put(keyBytes);
+        target.put(data);
+    }
+
+    /**
+     * Writes the live entries to a new file, leaving room for reserve more bytes, and atomically
+     * moves it over the ring file. Fails without touching the ring file when they do not fit.
+     */
+    private void compact(int reserve) throws MqttPersistenceException {
+        long needed = FILE_HEADER_BYTES + reserve + 4L;
+        for (Map.Entry<String, byte[]> entry : live.entrySet()) {
+            needed += recordBytes(entry.getKey().getBytes(StandardCharsets.UTF_8), entry.getValue());
+        }
+        if (needed > fileSize) {
+            throw new MqttPersistenceException(MqttException.REASON_CODE_MAX_INFLIGHT);
+        }
+
+        Path next = compactionFile();
+        FileChannel nextChannel = null;
+        try {
+            nextChannel = FileChannel.open(next, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer nextBuffer = nextChannel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            nextBuffer.putInt(0, FILE_MAGIC);
+            nextBuffer.position(FILE_HEADER_BYTES);
+            for (Map.Entry<String, byte[]> entry : live.entrySet()) {
+                writeRecord(nextBuffer, OP_PUT, entry.getKey().getBytes(StandardCharsets.UTF_8), entry.getValue());
+            }
+            terminate(nextBuffer);
+            nextBuffer.force();
+            Files.move(next, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            channel.close();
+            channel = nextChannel;
+            buffer = nextBuffer;
+        } catch (IOException e) {
+            try {
+                if (nextChannel != null) nextChannel.close();
+                Files.deleteIfExists(next);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw new MqttPersistenceException(e);
+        }
+    }
+
+    private Path compactionFile() {
+        return file.resolveSibling(file.getFileName() + ".compact");
+    }
+
+    private void recover() {
+        buffer.position(FILE_HEADER_BYTES);
+        while (buffer.remaining() >= 4) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            if (length < 3 || length > buffer.remaining()) {
+                buffer.position(start);
+                break;
+            }
+            byte op = buffer.get();
+            int keyLength = buffer.getShort() & 0xFFFF;
+            if (keyLength > length - 3) {
+                buffer.position(start);
+                break;
+            }
+            byte[] keyBytes = new byte[keyLength];
+            buffer.get(keyBytes);
+            byte[] data = new byte[length - 3 - keyLength];
+            buffer.get(data);
+
+            String key = new String(keyBytes, StandardCharsets.UTF_8);
+            if (op == OP_PUT) {
+                live.put(key, data);
+            } else {
+                live.remove(key);
+            }
+        }
+        terminate(buffer);
+        log.info("Recovered {} MQTT in-flight entries from {}", live.size(), directory);
+    }
+
+    private void reset() {
+        buffer.position(FILE_HEADER_BYTES);
+        terminate(buffer);
+    }
+
+    private static void terminate(MappedByteBuffer target) {
+        if (target.remaining() >= 4) {
+            target.putInt(target.position(), 0);
+        }
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]", "");
+    }
+}
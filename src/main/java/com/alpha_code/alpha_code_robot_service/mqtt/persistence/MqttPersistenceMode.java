@@ -0,0 +1,8 @@
+package com.alpha_code.alpha_code_robot_service.mqtt.persistence;
+
+public enum MqttPersistenceMode {
+    /** Bounded heap store, in-flight state is lost on restart. */
+    MEMORY,
+    /** Single memory-mapped ring file per client, recovered on startup. */
+    MAPPED
+}
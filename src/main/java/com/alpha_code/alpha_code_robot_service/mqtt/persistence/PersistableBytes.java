@@ -0,0 +1,25 @@
+package com.alpha_code.alpha_code_robot_service.mqtt.persistence;
+
+import org.eclipse.paho.client.mqttv3.MqttPersistable;
+import org.eclipse.paho.client.mqttv3.MqttPersistenceException;
+
+final class PersistableBytes {
+
+    private PersistableBytes() {
+    }
+
+    /**
+     * Header and payload of a Paho persistable in one array, the same shape Paho's own file
+     * persistence hands back (header only, null payload).
+     */
+    static byte[] of(MqttPersistable persistable) throws MqttPersistenceException {
+        int headerLength = persistable.getHeaderLength();
+        int payloadLength = persistable.getPayloadBytes() == null ? 0 : persistable.getPayloadLength();
+        byte[] data = new byte[headerLength + payloadLength];
+        System.arraycopy(persistable.getHeaderBytes(), persistable.getHeaderOffset(), data, 0, headerLength);
+        if (payloadLength > 0) {
+            System.arraycopy(persistable.getPayloadBytes(), persistable.getPayloadOffset(), data, headerLength, payloadLength);
+        }
+        return data;
+    }
+}
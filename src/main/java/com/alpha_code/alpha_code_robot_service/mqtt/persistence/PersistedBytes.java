@@ -0,0 +1,44 @@
+package com.alpha_code.alpha_code_robot_service.mqtt.persistence;
+
+import org.eclipse.paho.client.mqttv3.MqttPersistable;
+
+/**
+ * A stored entry handed back to Paho: header and payload as separate arrays, payload null when the
+ * entry was flattened by {@link PersistableBytes#of}.
+ */
+record PersistedBytes(byte[] header, byte[] payload) implements MqttPersistable {
+
+    static PersistedBytes of(byte[] data) {
+        return new PersistedBytes(data, null);
+    }
+
+    @Override
+    public byte[] getHeaderBytes() {
+        return header;
+    }
+
+    @Override
+    public int getHeaderLength() {
+        return header.length;
+    }
+
+    @Override
+    public int getHeaderOffset() {
+        return 0;
+    }
+
+    @Override
+    public byte[] getPayloadBytes() {
+        return payload;
+    }
+
+    @Override
+    public int getPayloadLength() {
+        return payload == null ? 0 : payload.length;
+    }
+
+    @Override
+    public int getPayloadOffset() {
+        return 0;
+    }
+}
@@ -0,0 +1,50 @@
+package com.alpha_code.alpha_code_robot_service.ota;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A firmware file mapped read-only into memory. One mapping serves every device of a rollout:
+ * chunks are copied straight from the page cache into the outgoing frame, so the image is never
+ * read onto the heap, let alone once per device. Reads use absolute gets and are thread-safe.
+ * The mapping is released when the image becomes unreachable.
+ */
+public final class FirmwareImage {
+
+    private final int version;
+    private final MappedByteBuffer mapped;
+
+    private FirmwareImage(int version, MappedByteBuffer mapped) {
+        this.version = version;
+        this.mapped = mapped;
+    }
+
+    public static FirmwareImage open(int version, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size <= 0 || size > Integer.MAX_VALUE) {
+                throw new IOException("Unsupported firmware size " + size + " for " + file);
+            }
+            // the mapping stays valid after the channel is closed
+            return new FirmwareImage(version, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    public int version() {
+        return version;
+    }
+
+    public int size() {
+        return mapped.capacity();
+    }
+
+    /**
+     * Copies length bytes starting at offset into dst at dstOffset.
+     */
+    public void read(int offset, byte[] dst, int dstOffset, int length) {
+        mapped.get(offset, dst, dstOffset, length);
+    }
+}
@@ -0,0 +1,94 @@
+package com.alpha_code.alpha_code_robot_service.ota;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Wire format of the OTA channel. Server to device on "{esp32Id}/ota", big-endian:
+ * <pre>
+ * begin (44 bytes): magic 0xF7 | 'B' | version u32 | size u32 | chunk size u16 | sha256 32 bytes
+ * chunk           : magic 0xF7 | 'C' | version u32 | offset u32 | data
+ * end   (10 bytes): magic 0xF7 | 'E' | version u32 | size u32
+ * abort  (6 bytes): magic 0xF7 | 'A' | version u32
+ * </pre>
+ * Device to server on "{esp32Id}/ota-ack", text: "{version}|{offset}" where offset is the number
+ * of contiguous bytes the device has written, optionally followed by "|DONE" once the image is
+ * verified and applied or "|ERR" when it was rejected. The device answers begin with the offset
+ * it already holds for that version (0 for none), which is how an interrupted transfer resumes.
+ */
+public final class OtaFrames {
+
+    public static final byte MAGIC = (byte) 0xF7;
+    public static final byte BEGIN = 'B';
+    public static final byte CHUNK = 'C';
+    public static final byte END = 'E';
+    public static final byte ABORT = 'A';
+
+    public static final int CHUNK_HEADER_LENGTH = 10;
+
+    public enum AckStatus {
+        PROGRESS,
+        DONE,
+        ERROR
+    }
+
+    public record Ack(int version, int offset, AckStatus status) {
+    }
+
+    private OtaFrames() {
+    }
+
+    public static byte[] begin(FirmwareImage image, int chunkSize, byte[] sha256) {
+        if (sha256.length != 32) throw new IllegalArgumentException("sha256 must be 32 bytes");
+        ByteBuffer out = ByteBuffer.allocate(44);
+        out.put(MAGIC).put(BEGIN).putInt(image.version()).putInt(image.size()).putShort((short) chunkSize).put(sha256);
+        return out.array();
+    }
+
+    /**
+     * One frame holding image bytes [offset, offset + length), copied from the mapping.
+     */
+    public static byte[] chunk(FirmwareImage image, int offset, int length) {
+        byte[] frame = new byte[CHUNK_HEADER_LENGTH + length];
+        ByteBuffer.wrap(frame).put(MAGIC).put(CHUNK).putInt(image.version()).putInt(offset);
+        image.read(offset, frame, CHUNK_HEADER_LENGTH, length);
+        return frame;
+    }
+
+    public static byte[] end(FirmwareImage image) {
+        ByteBuffer out = ByteBuffer.allocate(10);
+        out.put(MAGIC).put(END).putInt(image.version()).putInt(image.size());
+        return out.array();
+    }
+
+    public static byte[] abort(int version) {
+        ByteBuffer out = ByteBuffer.allocate(6);
+        out.put(MAGIC).put(ABORT).putInt(version);
+        return out.array();
+    }
+
+    /**
+     * @return null when the payload is not a valid ack
+     */
+    public static Ack parseAck(String payload) {
+        String[] parts = payload.trim().split("\\|");
+        if (parts.length < 2 || parts.length > 3) return null;
+        try {
+            int version = Integer.parseInt(parts[0]);
+            int offset = Integer.parseInt(parts[1]);
+            if (offset < 0) return null;
+            AckStatus status = AckStatus.PROGRESS;
+            if (parts.length == 3) {
+                if (parts[2].equalsIgnoreCase("DONE")) {
+                    status = AckStatus.DONE;
+                } else if (parts[2].equalsIgnoreCase("ERR")) {
+                    status = AckStatus.ERROR;
+                } else {
+                    return null;
+                }
+            }
+            return new Ack(version, offset, status);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.alpha_code.alpha_code_robot_service.ota;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Sends one firmware image to one ESP32 with a sliding window: at most window chunks are beyond
+ * the device's acknowledged offset at any time, each ack slides the window and releases the next
+ * chunks, and when no ack makes progress within the ack timeout everything after the acked offset
+ * is sent again (go-back-N). The transfer starts with a begin frame, which the device answers with
+ * the offset it already holds, so a transfer interrupted by a disconnect resumes instead of
+ * starting over. Acks only move the acknowledged offset; chunks are sent by {@link #pump}, which
+ * the caller runs off the MQTT callback thread, and by the tick. A chunk the publish window
+ * refuses, or whose publish fails later, is sent again by the next pump or tick. All methods are
+ * serialized on the instance and never block.
+ */
+public class OtaTransfer {
+
+    private static final int CONTROL_FRAME = -1;
+
+    public enum State {
+        // waiting for a slot, or for the ESP32 to come back online
+        PENDING,
+        // begin sent, waiting for the device's resume offset
+        STARTING,
+        SENDING,
+        // end sent, waiting for the device to verify and apply the image
+        VERIFYING,
+        DONE,
+        FAILED,
+        CANCELLED;
+
+        public boolean isTerminal() {
+            return this == DONE || this == FAILED || this == CANCELLED;
+        }
+
+        public boolean isActive() {
+            return this == STARTING || this == SENDING || this == VERIFYING;
+        }
+    }
+
+    private final UUID esp32Id;
+    private final FirmwareImage image;
+    private final byte[] sha256;
+    private final int chunkSize;
+    private final int windowBytes;
+    private final long ackTimeoutMs;
+    private final int maxRetries;
+    private final Function<byte[], CompletableFuture<?>> sender;
+
+    private State state = State.PENDING;
+    private int ackedOffset;
+    private int nextOffset;
+    private long lastProgressAt;
+    private int retries;
+    private long sentChunks;
+    private String error;
+    // a begin or end frame failed to publish: resend it on the next tick
+    private boolean resendControl;
+
+    /**
+     * @param sender publishes one frame to "{esp32Id}/ota" without waiting; throws when the publish
+     *               window is full, and its future fails when the publish does
+     */
+    public OtaTransfer(UUID esp32Id, FirmwareImage image, byte[] sha256, int chunkSize, int windowChunks,
+                       long ackTimeoutMs, int maxRetries, Function<byte[], CompletableFuture<?>> sender) {
+        if (chunkSize <= 0 || chunkSize > 0xFFFF) throw new IllegalArgumentException("chunkSize must be 1-65535");
+        if (windowChunks <= 0) throw new IllegalArgumentException("windowChunks must be positive");
+        this.esp32Id = esp32Id;
+        this.image = image;
+        this.sha256 = sha256;
+        this.chunkSize = chunkSize;
+        this.windowBytes = chunkSize * windowChunks;
+        this.ackTimeoutMs = ackTimeoutMs;
+        this.maxRetries = maxRetries;
+        this.sender = sender;
+    }
+
+    public synchronized void start(long now) {
+        if (state != State.PENDING) return;
+        state = State.STARTING;
+        retries = 0;
+        resendControl = false;
+        lastProgressAt = now;
+        send(OtaFrames.begin(image, chunkSize, sha256), CONTROL_FRAME);
+    }
+
+    /**
+     * @return whether chunks can be sent now; the caller then runs {@link #pump} on its own thread
+     */
+    public synchronized boolean onAck(OtaFrames.Ack ack, long now) {
+        if (!state.isActive() || ack.version() != image.version()) return false;
+        switch (ack.status()) {
+            case DONE -> {
+                if (state == State.VERIFYING || ack.offset() >= image.size()) {
+                    state = State.DONE;
+                    ackedOffset = image.size();
+                }
+            }
+            case ERROR -> {
+                state = State.FAILED;
+                error = "Thiết bị từ chối firmware tại offset " + ack.offset();
+            }
+            case PROGRESS -> onProgress(Math.min(ack.offset(), image.size()), now);
+        }
+        return state == State.SENDING;
+    }
+
+    private void onProgress(int offset, long now) {
+        if (state == State.STARTING) {
+            // the device's answer to begin: resume from what it already holds
+            ackedOffset = offset;
+            nextOffset = offset;
+            state = State.SENDING;
+        } else if (state == State.SENDING && offset > ackedOffset) {
+            ackedOffset = offset;
+            // after a go-back an ack can overtake what was re-sent so far
+            nextOffset = Math.max(nextOffset, offset);
+        } else {
+            return;
+        }
+        retries = 0;
+        lastProgressAt = now;
+    }
+
+    /**
+     * Sends what the publish window held back, retransmits on ack timeout or after a failed begin
+     * or end, and gives up after maxRetries attempts without progress.
+     */
+    public synchronized void onTick(long now) {
+        if (!state.isActive()) return;
+        if (now - lastProgressAt < ackTimeoutMs && !resendControl) {
+            pump(now);
+            return;
+        }
+        if (++retries > maxRetries) {
+            state = State.FAILED;
+            error = "Hết thời gian chờ phản hồi từ thiết bị";
+            return;
+        }
+        resendControl = false;
+        lastProgressAt = now;
+        switch (state) {
+            case STARTING -> send(OtaFrames.begin(image, chunkSize, sha256), CONTROL_FRAME);
+            case SENDING -> {
+                nextOffset = ackedOffset;
+                pump(now);
+            }
+            case VERIFYING -> send(OtaFrames.end(image), CONTROL_FRAME);
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * The ESP32 went offline: park the transfer so its slot can be reused. The acked offset is
+     * kept for reporting only; the device reports its own offset when the transfer restarts.
+     */
+    public synchronized void interrupt() {
+        if (state.isActive()) {
+            state = State.PENDING;
+        }
+    }
+
+    public synchronized void cancel() {
+        if (state.isTerminal()) return;
+        boolean notify = state.isActive();
+        state = State.CANCELLED;
+        if (notify) {
+            send(OtaFrames.abort(image.version()), CONTROL_FRAME);
+        }
+    }
+
+    public synchronized void fail(String reason) {
+        if (state.isTerminal()) return;
+        state = State.FAILED;
+        error = reason;
+    }
+
+    /**
+     * Sends chunks while the window allows. Stops at the first chunk the publish window refuses;
+     * the next ack or tick continues from there.
+     */
+    public synchronized void pump(long now) {
+        if (state != State.SENDING) return;
+        while (nextOffset < image.size() && nextOffset - ackedOffset < windowBytes) {
+            int length = Math.min(chunkSize, image.size() - nextOffset);
+            if (!send(OtaFrames.chunk(image, nextOffset, length), nextOffset)) {
+                return;
+            }
+            nextOffset += length;
+            sentChunks++;
+        }
+        if (ackedOffset == image.size()) {
+            state = State.VERIFYING;
+            lastProgressAt = now;
+            send(OtaFrames.end(image), CONTROL_FRAME);
+        }
+    }
+
+    /**
+     * @param offset image offset of a chunk, or CONTROL_FRAME
+     * @return false when the frame was refused or its publish already failed
+     */
+    private boolean send(byte[] frame, int offset) {
+        CompletableFuture<?> future;
+        try {
+            future = sender.apply(frame);
+        } catch (RuntimeException e) {
+            // a refused chunk is picked up again by pump; begin and end only by the tick
+            if (offset == CONTROL_FRAME) resendControl = true;
+            return false;
+        }
+        future.whenComplete((ignored, ex) -> {
+            if (ex != null) onSendFailed(offset);
+        });
+        // a publish that already failed has run the callback above on this thread
+        return !future.isCompletedExceptionally();
+    }
+
+    private synchronized void onSendFailed(int offset) {
+        if (!state.isActive()) return;
+        if (offset == CONTROL_FRAME) {
+            resendControl = true;
+        } else if (state == State.SENDING && offset < nextOffset) {
+            // go back to the lost chunk without waiting for the ack timeout
+            nextOffset = Math.max(offset, ackedOffset);
+        }
+    }
+
+    public UUID esp32Id() {
+        return esp32Id;
+    }
+
+    public int version() {
+        return image.version();
+    }
+
+    public int size() {
+        return image.size();
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    public synchronized int ackedOffset() {
+        return ackedOffset;
+    }
+
+    public synchronized long sentChunks() {
+        return sentChunks;
+    }
+
+    public synchronized String error() {
+        return error;
+    }
+}
@@ -0,0 +1,75 @@
+package com.alpha_code.alpha_code_robot_service.repository;
+
+import com.alpha_code.alpha_code_robot_service.entity.Esp32CommandSchedule;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface Esp32CommandScheduleRepository extends JpaRepository<Esp32CommandSchedule, UUID> {
+
+    @Query("""
+        SELECT s
+        FROM Esp32CommandSchedule s
+        WHERE (:esp32Id IS NULL OR s.esp32Id = :esp32Id)
+          AND (COALESCE(:status, s.status) = s.status)
+          AND s.status <> 0
+    """)
+    Page<Esp32CommandSchedule> searchSchedules(
+            @Param("esp32Id") UUID esp32Id,
+            @Param("status") Integer status,
+            Pageable pageable
+    );
+
+    // includes overdue rows, which is how fires missed while the service was down are picked up
+    @Query("""
+        SELECT s
+        FROM Esp32CommandSchedule s
+        WHERE s.status = 1
+          AND s.nextFireAt <= :horizon
+    """)
+    List<Esp32CommandSchedule> findDueBefore(@Param("horizon") LocalDateTime horizon);
+
+    /**
+     * Moves a schedule past the fire it is about to run. Only succeeds while the row still has the
+     * expected fire time, so an edited or deleted schedule, or one another instance already fired,
+     * updates nothing.
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE Esp32CommandSchedule s
+        SET s.nextFireAt = :next,
+            s.lastFiredAt = :firedAt,
+            s.lastUpdated = :firedAt,
+            s.status = :status
+        WHERE s.id = :id
+          AND s.status = 1
+          AND s.nextFireAt = :expected
+    """)
+    int claimFire(@Param("id") UUID id,
+                  @Param("expected") LocalDateTime expected,
+                  @Param("next") LocalDateTime next,
+                  @Param("firedAt") LocalDateTime firedAt,
+                  @Param("status") Integer status);
+
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE Esp32CommandSchedule s
+        SET s.status = 0,
+            s.lastUpdated = :now
+        WHERE s.esp32Id = :esp32Id
+          AND s.status <> 0
+    """)
+    int deleteAllByEsp32Id(@Param("esp32Id") UUID esp32Id, @Param("now") LocalDateTime now);
+}
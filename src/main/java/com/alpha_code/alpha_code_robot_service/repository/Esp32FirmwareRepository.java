@@ -0,0 +1,20 @@
+package com.alpha_code.alpha_code_robot_service.repository;
+
+import com.alpha_code.alpha_code_robot_service.entity.Esp32Firmware;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface Esp32FirmwareRepository extends JpaRepository<Esp32Firmware, UUID> {
+
+    Optional<Esp32Firmware> findByVersionAndStatusNot(Integer version, Integer status);
+
+    boolean existsByVersionAndStatusNot(Integer version, Integer status);
+
+    Page<Esp32Firmware> findAllByStatusNot(Integer status, Pageable pageable);
+}
@@ -9,6 +9,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import javax.swing.text.html.Option;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -33,6 +35,13 @@ public interface Esp32Repository extends JpaRepository<Esp32, UUID> {
 
     Optional<Esp32> findByAccountId(UUID accountId);
 
+    List<Esp32> findAllByAccountIdAndStatusNot(UUID accountId, Integer status);
+
+    List<Esp32> findAllByIdInAndStatusNot(Collection<UUID> ids, Integer status);
+
+    @Query("SELECT e.id FROM Esp32 e WHERE e.status <> 0")
+    List<UUID> findActiveIds();
+
     // Return an ESP32 for an account with the given status (e.g. status == 1 for active)
     Optional<Esp32> findByAccountIdAndStatus(UUID accountId, Integer status);
 }
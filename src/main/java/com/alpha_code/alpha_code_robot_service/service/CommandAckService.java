@@ -0,0 +1,26 @@
+package com.alpha_code.alpha_code_robot_service.service;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+public interface CommandAckService {
+    String newCorrelationId();
+
+    /**
+     * Track a command sent to an ESP32. The future completes with the ack status sent by the device,
+     * or exceptionally with a TimeoutException when no ack arrives in time.
+     */
+    CompletableFuture<String> register(UUID esp32Id, String correlationId);
+
+    /**
+     * Fail a pending command early, e.g. when the publish itself failed.
+     */
+    void fail(String correlationId, Throwable cause);
+
+    /**
+     * Handle a message on "{esp32Id}/ack" with payload "{correlationId}|{status}".
+     */
+    void onAck(String topic, String payload);
+
+    int pendingCount();
+}
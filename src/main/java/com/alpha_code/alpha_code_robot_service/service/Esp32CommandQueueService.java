@@ -0,0 +1,21 @@
+package com.alpha_code.alpha_code_robot_service.service;
+
+import com.alpha_code.alpha_code_robot_service.mqtt.codec.DeviceCommand;
+
+import java.util.UUID;
+
+public interface Esp32CommandQueueService {
+    /**
+     * Keep a command for an offline ESP32 until it reconnects. The oldest command is dropped when
+     * the queue is full.
+     * @return false when queueing is disabled or the store is unavailable; the caller then fails fast
+     */
+    boolean enqueue(UUID esp32Id, String deviceName, DeviceCommand command);
+
+    /**
+     * Whether queued commands are still being sent; new commands must queue behind them to keep order.
+     */
+    boolean isDraining(UUID esp32Id);
+
+    long depth(UUID esp32Id);
+}
@@ -0,0 +1,22 @@
+package com.alpha_code.alpha_code_robot_service.service;
+
+import com.alpha_code.alpha_code_robot_service.dto.Esp32CommandScheduleDto;
+import com.alpha_code.alpha_code_robot_service.dto.PagedResult;
+
+import java.util.UUID;
+
+public interface Esp32CommandScheduleService {
+
+    PagedResult<Esp32CommandScheduleDto> getAll(int page, int size, UUID esp32Id, Integer status);
+
+    Esp32CommandScheduleDto getById(UUID id);
+
+    Esp32CommandScheduleDto create(Esp32CommandScheduleDto dto);
+
+    void delete(UUID id);
+
+    /**
+     * @return number of schedules currently armed on the in-memory wheel
+     */
+    int armedCount();
+}
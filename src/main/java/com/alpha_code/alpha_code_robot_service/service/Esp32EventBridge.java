@@ -0,0 +1,22 @@
+package com.alpha_code.alpha_code_robot_service.service;
+
+import com.alpha_code.alpha_code_robot_service.dto.Esp32EventDto;
+
+import java.util.UUID;
+
+public interface Esp32EventBridge {
+    /**
+     * Whether a subscriber on this or (for relayed event types) another replica follows the ESP32.
+     */
+    boolean isWatched(UUID esp32Id);
+
+    /**
+     * Deliver to local subscribers and, when the event is not seen by every replica on its own,
+     * queue it for the other replicas. Never blocks on Redis.
+     */
+    void publish(Esp32EventDto event);
+
+    long relayedCount();
+
+    long receivedCount();
+}
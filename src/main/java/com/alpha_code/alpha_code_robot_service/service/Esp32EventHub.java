@@ -0,0 +1,37 @@
+package com.alpha_code.alpha_code_robot_service.service;
+
+import com.alpha_code.alpha_code_robot_service.dto.Esp32EventDto;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+import java.util.UUID;
+
+public interface Esp32EventHub {
+    /**
+     * Open a server-sent event stream of the account's ESP32 messages, presence changes and
+     * command results.
+     */
+    SseEmitter subscribe(UUID accountId);
+
+    /**
+     * Whether any local subscriber follows this ESP32, so callers can skip building events nobody reads.
+     */
+    boolean isWatched(UUID esp32Id);
+
+    /**
+     * ESP32s followed by a local subscriber.
+     */
+    Set<UUID> watchedIds();
+
+    /**
+     * Queue an event for every local subscriber of the ESP32's account. Never blocks.
+     */
+    void publish(Esp32EventDto event);
+
+    int subscriberCount();
+
+    /**
+     * Streams closed because their client did not keep up.
+     */
+    long evictedCount();
+}
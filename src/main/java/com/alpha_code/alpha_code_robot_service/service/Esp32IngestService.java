@@ -0,0 +1,8 @@
+package com.alpha_code.alpha_code_robot_service.service;
+
+public interface Esp32IngestService {
+    /**
+     * Handle one inbound MQTT message routed to a subscribed ESP32.
+     */
+    void onMessage(String topic, String payload);
+}
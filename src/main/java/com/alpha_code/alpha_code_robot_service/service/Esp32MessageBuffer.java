@@ -0,0 +1,18 @@
+package com.alpha_code.alpha_code_robot_service.service;
+
+import java.util.UUID;
+
+public interface Esp32MessageBuffer {
+    /**
+     * Record the latest inbound message of an ESP32. Older unflushed messages of the same device are replaced.
+     */
+    void offer(UUID esp32Id, String message);
+
+    /**
+     * Write all dirty devices to the database in one batch.
+     * @return number of devices written
+     */
+    int flush();
+
+    int pendingCount();
+}
@@ -0,0 +1,31 @@
+package com.alpha_code.alpha_code_robot_service.service;
+
+import com.alpha_code.alpha_code_robot_service.dto.Esp32FirmwareDto;
+import com.alpha_code.alpha_code_robot_service.dto.OtaRolloutDto;
+import com.alpha_code.alpha_code_robot_service.dto.PagedResult;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface Esp32OtaService {
+
+    PagedResult<Esp32FirmwareDto> getFirmwares(int page, int size);
+
+    Esp32FirmwareDto getFirmware(Integer version);
+
+    Esp32FirmwareDto uploadFirmware(Integer version, String notes, MultipartFile file);
+
+    void deleteFirmware(Integer version);
+
+    /**
+     * Starts sending the firmware to the given ESP32s, at most esp32.ota.max-concurrent at a time.
+     * ESP32s already on this version (or newer) are skipped; offline ones wait until they reconnect.
+     * Rollouts live on the instance that started them.
+     */
+    OtaRolloutDto startRollout(Integer version, List<UUID> esp32Ids);
+
+    OtaRolloutDto getRollout(UUID rolloutId);
+
+    OtaRolloutDto cancelRollout(UUID rolloutId);
+}
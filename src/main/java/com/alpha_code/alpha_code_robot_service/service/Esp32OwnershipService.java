@@ -0,0 +1,17 @@
+package com.alpha_code.alpha_code_robot_service.service;
+
+import com.alpha_code.alpha_code_robot_service.dto.ClusterStatusDto;
+
+import java.util.UUID;
+
+public interface Esp32OwnershipService {
+    /**
+     * Whether this replica does the durable work (Postgres writes, side effects) for the ESP32.
+     * Always true when cluster mode is off.
+     */
+    boolean isOwner(UUID esp32Id);
+
+    String nodeId();
+
+    ClusterStatusDto getStatus();
+}
@@ -0,0 +1,30 @@
+package com.alpha_code.alpha_code_robot_service.service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+public interface Esp32PresenceService {
+    /**
+     * Any sign of life: heartbeat, retained "online" status or a regular message.
+     */
+    void touch(UUID esp32Id);
+
+    void markOffline(UUID esp32Id);
+
+    boolean isOnline(UUID esp32Id);
+
+    /**
+     * True only when the ESP32 is known to be offline; ESP32s not heard from since startup are not offline.
+     */
+    boolean isOffline(UUID esp32Id);
+
+    Map<UUID, Boolean> getOnlineFlags(Collection<UUID> esp32Ids);
+
+    /**
+     * Handle "{esp32Id}/status" (LWT "offline" / "online") and "{esp32Id}/heartbeat".
+     */
+    void onStatus(String topic, String payload);
+
+    void onHeartbeat(String topic, String payload);
+}
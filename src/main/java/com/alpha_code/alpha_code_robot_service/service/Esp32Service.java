@@ -1,7 +1,10 @@
 package com.alpha_code.alpha_code_robot_service.service;
 
 import com.alpha_code.alpha_code_robot_service.dto.Esp32Dto;
+import com.alpha_code.alpha_code_robot_service.dto.Esp32StateDto;
 import com.alpha_code.alpha_code_robot_service.dto.PagedResult;
+import com.alpha_code.alpha_code_robot_service.dto.request.FanoutCommandRequest;
+import com.alpha_code.alpha_code_robot_service.dto.response.FanoutResponse;
 import com.alpha_code.alpha_code_robot_service.dto.response.VoiceResponse;
 import com.alpha_code.alpha_code_robot_service.entity.Esp32;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -9,7 +12,9 @@ import org.eclipse.paho.client.mqttv3.MqttException;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public interface Esp32Service {
     PagedResult<Esp32Dto> searchAll(
@@ -23,6 +28,10 @@ public interface Esp32Service {
 
     Esp32Dto getOne(UUID id);
 
+    Esp32StateDto getState(UUID id);
+
+    Map<UUID, Boolean> getPresence(List<UUID> ids);
+
     Esp32Dto create(Esp32Dto dto);
 
     Esp32Dto update(UUID id, Esp32Dto dto);
@@ -33,8 +42,26 @@ public interface Esp32Service {
 
     Esp32Dto changeStatus(UUID id, Integer status);
 
+    /**
+     * Records the firmware an ESP32 confirmed after an OTA update.
+     */
+    void updateFirmwareVersion(UUID id, Integer firmwareVersion);
+
+    /**
+     * Fire-and-forget command. While the ESP32 is offline the command is queued and sent when it reconnects.
+     */
     VoiceResponse sendMessage(UUID id, String name, String message, String language) throws MqttException;
 
+    /**
+     * Like sendMessage, but the response reflects the ESP32's ack instead of assuming success.
+     */
+    CompletableFuture<VoiceResponse> sendMessageAwaitAck(UUID id, String name, String message, String language);
+
+    /**
+     * Send one command to many devices at once; the result lists the outcome per target.
+     */
+    CompletableFuture<FanoutResponse> fanout(FanoutCommandRequest request);
+
     List<JsonNode> getDevices(UUID id);
 
     boolean deviceExists(UUID id, String name);
@@ -46,4 +73,9 @@ public interface Esp32Service {
     Esp32Dto updateDevice(UUID id, String name, String newName, String newType);
 
     Esp32Dto getEsp32ByUser(UUID id);
+
+    /**
+     * Whether the ESP32 belongs to the account; false when either does not exist.
+     */
+    boolean isOwnedBy(UUID id, UUID accountId);
 }
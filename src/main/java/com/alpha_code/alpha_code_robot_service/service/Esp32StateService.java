@@ -0,0 +1,14 @@
+package com.alpha_code.alpha_code_robot_service.service;
+
+import com.alpha_code.alpha_code_robot_service.dto.Esp32StateDto;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface Esp32StateService {
+    void record(UUID esp32Id, String message);
+
+    Optional<Esp32StateDto> get(UUID esp32Id);
+
+    int size();
+}
@@ -0,0 +1,14 @@
+package com.alpha_code.alpha_code_robot_service.service;
+
+import java.util.Set;
+import java.util.UUID;
+
+public interface Esp32SubscriptionRegistry {
+    void subscribe(UUID esp32Id);
+
+    void unsubscribe(UUID esp32Id);
+
+    boolean isSubscribed(UUID esp32Id);
+
+    Set<UUID> getSubscriptions();
+}
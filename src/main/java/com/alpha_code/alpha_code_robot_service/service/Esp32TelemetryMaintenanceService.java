@@ -0,0 +1,9 @@
+package com.alpha_code.alpha_code_robot_service.service;
+
+public interface Esp32TelemetryMaintenanceService {
+    /**
+     * Create upcoming daily partitions, roll recent hours up into the hourly table and drop data
+     * past retention. Idempotent; only one replica does the work per run.
+     */
+    void maintain();
+}
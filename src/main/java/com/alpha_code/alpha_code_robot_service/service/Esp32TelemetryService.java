@@ -0,0 +1,31 @@
+package com.alpha_code.alpha_code_robot_service.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public interface Esp32TelemetryService {
+    /**
+     * Queue one inbound message for the append-only telemetry table. Never blocks; samples are
+     * dropped (and counted) when the queue is full.
+     */
+    void record(UUID esp32Id, String message);
+
+    /**
+     * Write queued samples to the database in JDBC batches.
+     * @return number of samples written
+     */
+    int flush();
+
+    int pendingCount();
+
+    long droppedCount();
+
+    /**
+     * Validate the range up front and return a body that streams the samples as NDJSON, one
+     * object per line, without loading the range into memory.
+     * @param resolution "raw" or "hourly"
+     */
+    StreamingResponseBody streamRange(UUID esp32Id, LocalDateTime from, LocalDateTime to, String resolution);
+}
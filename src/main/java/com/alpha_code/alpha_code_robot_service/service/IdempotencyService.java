@@ -0,0 +1,16 @@
+package com.alpha_code.alpha_code_robot_service.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+    /**
+     * Run the action once per (operation, key). Repeats within the TTL get the stored response
+     * without running the action again; a repeat while the first call is still running waits for
+     * it on the same replica and gets a ConflictException on another one. Failed calls are not
+     * stored, so they can be retried with the same key.
+     * @param fingerprint the request parameters; reusing a key with different ones is rejected
+     */
+    <T> CompletableFuture<T> execute(String operation, String key, String fingerprint, Class<T> type,
+                                     Supplier<CompletableFuture<T>> action);
+}
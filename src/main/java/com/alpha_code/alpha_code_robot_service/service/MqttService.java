@@ -1,10 +1,78 @@
 package com.alpha_code.alpha_code_robot_service.service;
 
+import com.alpha_code.alpha_code_robot_service.dto.MqttStatsDto;
+import com.alpha_code.alpha_code_robot_service.mqtt.MqttCommandCoalescer;
+import com.alpha_code.alpha_code_robot_service.mqtt.MqttTrafficClass;
+import com.alpha_code.alpha_code_robot_service.mqtt.codec.DeviceCommand;
+import com.alpha_code.alpha_code_robot_service.mqtt.codec.MqttPayloadCodec;
 import org.eclipse.paho.client.mqttv3.MqttException;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
 
 public interface MqttService {
     void publish(String topic, String payload) throws MqttException;
+
+    /**
+     * Non-blocking publish on the CONTROL connection at its QoS. The returned future completes when
+     * the broker sends PUBACK (QoS 1) or the message is written (QoS 0).
+     * Throws MqttBackpressureException if the in-flight window stays full past the acquire timeout.
+     */
+    CompletableFuture<Void> publishAsync(String topic, String payload);
+
+    /**
+     * Non-blocking publish of a binary payload on the connection of trafficClass, at its QoS.
+     * The array is handed to Paho as is and must not be modified afterwards.
+     */
+    CompletableFuture<Void> publishAsync(MqttTrafficClass trafficClass, String topic, byte[] payload);
+
+    /**
+     * Like publishAsync, but never waits for the in-flight window: throws MqttBackpressureException
+     * at once when it is full. For bulk senders that retry on their own schedule.
+     */
+    CompletableFuture<Void> tryPublishAsync(MqttTrafficClass trafficClass, String topic, byte[] payload);
+
+    /**
+     * Device command, sent on the COMMAND connection, encoded with the configured payload codec (mqtt.codec.format) and sent through
+     * the per-topic coalescing window (mqtt.coalesce.window-ms). Completes with COALESCED when a
+     * later command to the same topic superseded this one.
+     * Throws IllegalArgumentException if the codec cannot express the command.
+     */
+    CompletableFuture<MqttCommandCoalescer.Outcome> publishCommand(String topic, DeviceCommand command);
+
+    /**
+     * Blocking variant of publishCommand that bypasses coalescing, for callers that already
+     * bound their own parallelism.
+     */
+    void publish(String topic, DeviceCommand command) throws MqttException;
+
+    MqttPayloadCodec codec();
+
     void subscribe(String topic, BiConsumer<String, String> callback);
-}
\ No newline at end of file
+
+    /**
+     * Route messages from the wildcard ingest subscription whose first topic level equals topicPrefix.
+     * Purely in-memory: no SUBSCRIBE is sent to the broker.
+     */
+    void registerHandler(String topicPrefix, BiConsumer<String, String> handler);
+    void unregisterHandler(String topicPrefix);
+
+    /**
+     * Route every "{prefix}/{channel}" message to handler. Sends one wildcard SUBSCRIBE ("+/{channel}")
+     * on the connection of trafficClass, whose dispatch stripes then run the handler.
+     */
+    void registerChannelHandler(String channel, MqttTrafficClass trafficClass, BiConsumer<String, String> handler);
+
+    /**
+     * Like registerChannelHandler, but the handler gets the raw payload bytes so it can decode
+     * them with codec() instead of going through a String.
+     */
+    void registerRawChannelHandler(String channel, MqttTrafficClass trafficClass, BiConsumer<String, byte[]> handler);
+
+    /**
+     * Handler for ingest messages whose prefix has no registered handler.
+     */
+    void setFallbackHandler(BiConsumer<String, String> handler);
+
+    MqttStatsDto getStats();
+}
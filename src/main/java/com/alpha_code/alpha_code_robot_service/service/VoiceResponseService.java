@@ -0,0 +1,22 @@
+package com.alpha_code.alpha_code_robot_service.service;
+
+import com.alpha_code.alpha_code_robot_service.voice.VoiceStatus;
+
+public interface VoiceResponseService {
+
+    /**
+     * Phrase the robot reads back after a command, chosen by language, command and device type.
+     * Unknown commands get the catalog's generic phrase, never the raw command.
+     */
+    String command(String language, String command, String deviceName, String deviceType);
+
+    String status(String language, VoiceStatus status);
+
+    /**
+     * Recompiles the catalog from esp32.voice.catalog-location. A broken source is logged and the
+     * current catalog is kept.
+     *
+     * @return whether the new catalog was installed
+     */
+    boolean reload();
+}
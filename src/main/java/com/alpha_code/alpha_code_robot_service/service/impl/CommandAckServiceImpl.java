@@ -0,0 +1,179 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import com.alpha_code.alpha_code_robot_service.event.Esp32CommandResultEvent;
+import com.alpha_code.alpha_code_robot_service.mqtt.Esp32Channels;
+import com.alpha_code.alpha_code_robot_service.mqtt.MqttTopicRouter;
+import com.alpha_code.alpha_code_robot_service.mqtt.MqttTrafficClass;
+import com.alpha_code.alpha_code_robot_service.mqtt.codec.CommandAck;
+import com.alpha_code.alpha_code_robot_service.mqtt.codec.TextPayloadCodec;
+import com.alpha_code.alpha_code_robot_service.service.CommandAckService;
+import com.alpha_code.alpha_code_robot_service.service.MqttService;
+import com.alpha_code.alpha_code_robot_service.util.HashedWheelTimer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pending-ack table for commands published with a correlation id. Timeouts live on a hashed
+ * timing wheel, so thousands of outstanding commands cost one map entry and one wheel slot each
+ * and no request thread waits for the device. Futures are completed on a separate thread, so
+ * callers' continuations never run on the wheel or on the MQTT command lane.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CommandAckServiceImpl implements CommandAckService {
+
+    private static final TextPayloadCodec TEXT = new TextPayloadCodec();
+    private static final long MAX_SEQUENCE = 0xFFFFFFFFL;
+
+    private static final class Pending {
+        private final UUID esp32Id;
+        private final CompletableFuture<String> future = new CompletableFuture<>();
+        // armed right after the entry is published, so it can still be null when an ack wins
+        private volatile HashedWheelTimer.Timeout timeout;
+
+        private Pending(UUID esp32Id) {
+            this.esp32Id = esp32Id;
+        }
+
+        private void disarm() {
+            HashedWheelTimer.Timeout t = timeout;
+            if (t != null) {
+                t.cancel();
+            }
+        }
+    }
+
+    private final MqttService mqttService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong(ThreadLocalRandom.current().nextInt(1 << 20));
+    private HashedWheelTimer timer;
+    private ExecutorService completionExecutor;
+
+    @Value("${esp32.command.ack-timeout-ms}")
+    private long ackTimeoutMs;
+
+    @PostConstruct
+    public void init() {
+        timer = new HashedWheelTimer("command-ack-timer", 100, TimeUnit.MILLISECONDS, 512);
+        completionExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "command-ack-complete");
+            t.setDaemon(true);
+            return t;
+        });
+        // acks share the command connection so telemetry load cannot delay them
+        mqttService.registerRawChannelHandler(Esp32Channels.ACK, MqttTrafficClass.COMMAND, this::onAckFrame);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.close();
+        completionExecutor.shutdown();
+    }
+
+    @Override
+    public String newCorrelationId() {
+        // wraps within the u32 sequence of binary frames, skipping 0 (no ack requested)
+        return Long.toString(sequence.updateAndGet(s -> s >= MAX_SEQUENCE ? 1 : s + 1), 36);
+    }
+
+    @Override
+    public CompletableFuture<String> register(UUID esp32Id, String correlationId) {
+        Pending p = new Pending(esp32Id);
+        // in the table before the timeout is armed, so the timeout always finds its entry
+        pending.put(correlationId, p);
+        p.timeout = timer.schedule(() -> {
+            if (pending.remove(correlationId, p)) {
+                settle(p, correlationId, "TIMEOUT",
+                        new TimeoutException("No ack from ESP32 " + esp32Id + " for command " + correlationId));
+            }
+        }, ackTimeoutMs, TimeUnit.MILLISECONDS);
+        if (pending.get(correlationId) != p) {
+            // acked or failed before the timeout was armed
+            p.disarm();
+        }
+        return p.future;
+    }
+
+    @Override
+    public void fail(String correlationId, Throwable cause) {
+        Pending p = pending.remove(correlationId);
+        if (p != null) {
+            p.disarm();
+            settle(p, correlationId, "FAILED", cause);
+        }
+    }
+
+    private void onAckFrame(String topic, byte[] payload) {
+        CommandAck ack = mqttService.codec().decodeAck(payload);
+        if (ack == null) {
+            log.debug("Malformed ack on {} ({} bytes)", topic, payload.length);
+            return;
+        }
+        complete(topic, ack.correlationId(), ack.status());
+    }
+
+    @Override
+    public void onAck(String topic, String payload) {
+        CommandAck ack = TEXT.decodeAck(payload.getBytes(StandardCharsets.UTF_8));
+        if (ack != null) {
+            complete(topic, ack.correlationId(), ack.status());
+        }
+    }
+
+    private void complete(String topic, String correlationId, String status) {
+        Pending p = pending.get(correlationId);
+        if (p == null) {
+            log.debug("Ack {} on {} has no pending command (late or unknown)", correlationId, topic);
+            return;
+        }
+        // an ESP32 can only ack its own commands
+        if (!p.esp32Id.toString().equals(MqttTopicRouter.prefixOf(topic))) {
+            log.warn("⚠️ Ack {} received on {} but was sent to ESP32 {}", correlationId, topic, p.esp32Id);
+            return;
+        }
+        if (pending.remove(correlationId, p)) {
+            p.disarm();
+            settle(p, correlationId, status, null);
+        }
+    }
+
+    /**
+     * Completes the future and publishes the result on the completion thread; the caller has
+     * already removed the entry, so this runs once per command.
+     */
+    private void settle(Pending p, String correlationId, String status, Throwable error) {
+        completionExecutor.execute(() -> {
+            if (error == null) {
+                p.future.complete(status);
+            } else {
+                p.future.completeExceptionally(error);
+            }
+            eventPublisher.publishEvent(new Esp32CommandResultEvent(p.esp32Id, correlationId, status));
+        });
+    }
+
+    @Override
+    public int pendingCount() {
+        return pending.size();
+    }
+}
@@ -0,0 +1,351 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import com.alpha_code.alpha_code_robot_service.event.Esp32PresenceEvent;
+import com.alpha_code.alpha_code_robot_service.exception.ServiceUnavailableException;
+import com.alpha_code.alpha_code_robot_service.mqtt.codec.DeviceCommand;
+import com.alpha_code.alpha_code_robot_service.service.Esp32CommandQueueService;
+import com.alpha_code.alpha_code_robot_service.service.Esp32OwnershipService;
+import com.alpha_code.alpha_code_robot_service.service.Esp32PresenceService;
+import com.alpha_code.alpha_code_robot_service.service.MqttService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisListCommands.Direction;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outbound queue for commands sent while an ESP32 is offline. Each ESP32 has a Redis list
+ * ("esp32:cmdq:{esp32Id}") of compact text entries, capped at max-length (oldest dropped) and
+ * expiring with the newest command's TTL; every entry also carries its own expiry and is skipped
+ * once stale.
+ * <p>
+ * One replica at a time drains a queue, the one holding "esp32:cmdq:{esp32Id}:drainer" (a lease
+ * renewed on every step). The owner takes it when the ESP32 comes back online, and a replica that
+ * queues behind pending commands takes it when nobody does, so a command queued just as a drain
+ * finishes is not stranded. Draining moves one entry at a time into
+ * "esp32:cmdq:{esp32Id}:processing" (LMOVE) and removes it there only after the broker acknowledged
+ * the publish: a crash in between puts it back at the head on the next drain, so commands are sent
+ * at least once and in order. The drain stops when the device drops off again; a failed publish
+ * is retried after retry-delay-ms.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class Esp32CommandQueueServiceImpl implements Esp32CommandQueueService {
+
+    private static final String KEY_PREFIX = "esp32:cmdq:";
+    private static final String PROCESSING_SUFFIX = ":processing";
+    private static final String DRAINER_SUFFIX = ":drainer";
+
+    // deletes the drainer lease only if this replica still holds it
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    /**
+     * Decoded entry "{expiresAtMillis}|{deviceIndex}|{deviceNameLength}|{deviceName}{command}".
+     */
+    record QueuedCommand(long expiresAt, String deviceName, DeviceCommand command) {
+
+        String encode() {
+            return expiresAt + "|" + command.deviceIndex() + "|" + deviceName.length() + "|" + deviceName + command.command();
+        }
+
+        static QueuedCommand decode(String entry) {
+            try {
+                int a = entry.indexOf('|');
+                int b = entry.indexOf('|', a + 1);
+                int c = entry.indexOf('|', b + 1);
+                long expiresAt = Long.parseLong(entry, 0, a, 10);
+                int index = Integer.parseInt(entry, a + 1, b, 10);
+                int nameEnd = c + 1 + Integer.parseInt(entry, b + 1, c, 10);
+                return new QueuedCommand(expiresAt, entry.substring(c + 1, nameEnd),
+                        new DeviceCommand(entry.substring(nameEnd), index, null));
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final MqttService mqttService;
+    private final Esp32PresenceService presenceService;
+    private final Esp32OwnershipService ownershipService;
+
+    // ESP32s this replica is draining (holding the drainer lease) or about to
+    private final Set<UUID> draining = ConcurrentHashMap.newKeySet();
+    private final AtomicLong drainedCount = new AtomicLong();
+    private final AtomicLong expiredCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong restoredCount = new AtomicLong();
+    private ScheduledExecutorService scheduler;
+
+    @Value("${esp32.offline-queue.enabled}")
+    private boolean enabled;
+
+    @Value("${esp32.offline-queue.max-length}")
+    private int maxLength;
+
+    @Value("${esp32.offline-queue.ttl-ms}")
+    private long ttlMs;
+
+    @Value("${esp32.offline-queue.drain-interval-ms}")
+    private long drainIntervalMs;
+
+    @Value("${esp32.offline-queue.drain-threads}")
+    private int drainThreads;
+
+    @Value("${esp32.offline-queue.retry-delay-ms}")
+    private long retryDelayMs;
+
+    // must cover retry-delay-ms, or another replica can take over a drain that is only waiting
+    @Value("${esp32.offline-queue.drainer-lease-ms}")
+    private long drainerLeaseMs;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        scheduler = Executors.newScheduledThreadPool(drainThreads, r -> {
+            Thread t = new Thread(r, "esp32-cmdq-drain-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // undrained commands stay in Redis for the next drainer
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public boolean enqueue(UUID esp32Id, String deviceName, DeviceCommand command) {
+        if (!enabled) return false;
+        String key = queueKey(esp32Id);
+        String entry = new QueuedCommand(System.currentTimeMillis() + ttlMs, deviceName, command).encode();
+        try {
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                redis.rPush(key, entry);
+                redis.lTrim(key, -maxLength, -1);
+                redis.pExpire(key, ttlMs);
+                return null;
+            });
+            long length = results.get(0) instanceof Long l ? l : 0;
+            if (length > maxLength) {
+                droppedCount.addAndGet(length - maxLength);
+                log.debug("Command queue of ESP32 {} is full, dropped the oldest", esp32Id);
+            }
+        } catch (Exception e) {
+            log.warn("Could not queue command for ESP32 {}: {}", esp32Id, e.getMessage());
+            return false;
+        }
+        if (!presenceService.isOffline(esp32Id)) {
+            // queued behind pending commands: make sure someone is draining them
+            kick(esp32Id);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isDraining(UUID esp32Id) {
+        if (!enabled) return false;
+        if (draining.contains(esp32Id)) return true;
+        // another replica may be draining; anything still pending must go out first
+        try {
+            Long pending = redisTemplate.countExistingKeys(List.of(queueKey(esp32Id), processingKey(esp32Id)));
+            return pending != null && pending > 0;
+        } catch (Exception e) {
+            log.debug("Could not read command queue of ESP32 {}: {}", esp32Id, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public long depth(UUID esp32Id) {
+        try {
+            Long size = redisTemplate.opsForList().size(queueKey(esp32Id));
+            return size == null ? 0 : size;
+        } catch (Exception e) {
+            log.warn("Could not read command queue of ESP32 {}: {}", esp32Id, e.getMessage());
+            throw new ServiceUnavailableException("Hàng đợi lệnh tạm thời không khả dụng");
+        }
+    }
+
+    public long drainedCount() {
+        return drainedCount.get();
+    }
+
+    public long expiredCount() {
+        return expiredCount.get();
+    }
+
+    public long droppedCount() {
+        return droppedCount.get();
+    }
+
+    public long restoredCount() {
+        return restoredCount.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPresence(Esp32PresenceEvent event) {
+        // every replica sees presence; the owner starts the drain, the lease keeps it to one replica
+        if (!enabled || !event.online() || !ownershipService.isOwner(event.esp32Id())) return;
+        kick(event.esp32Id());
+    }
+
+    private void kick(UUID esp32Id) {
+        if (draining.add(esp32Id)) {
+            scheduler.execute(() -> startDrain(esp32Id));
+        }
+    }
+
+    void startDrain(UUID esp32Id) {
+        try {
+            Boolean acquired = redisTemplate.opsForValue()
+                    .setIfAbsent(drainerKey(esp32Id), ownershipService.nodeId(), Duration.ofMillis(drainerLeaseMs));
+            if (!Boolean.TRUE.equals(acquired)) {
+                // the holder re-checks the queue after letting go, so nothing queued so far is stranded
+                draining.remove(esp32Id);
+                return;
+            }
+            // an entry left by a crash between taking and acknowledging it goes back to the head
+            while (redisTemplate.opsForList().move(processingKey(esp32Id), Direction.RIGHT,
+                    queueKey(esp32Id), Direction.LEFT) != null) {
+                restoredCount.incrementAndGet();
+            }
+        } catch (Exception e) {
+            log.warn("Could not start draining command queue of ESP32 {}: {}", esp32Id, e.getMessage());
+            release(esp32Id);
+            return;
+        }
+        drainNext(esp32Id);
+    }
+
+    void drainNext(UUID esp32Id) {
+        if (presenceService.isOffline(esp32Id)) {
+            release(esp32Id);
+            return;
+        }
+        String processing = processingKey(esp32Id);
+        String entry;
+        try {
+            redisTemplate.expire(drainerKey(esp32Id), drainerLeaseMs, TimeUnit.MILLISECONDS);
+            entry = redisTemplate.opsForList().move(queueKey(esp32Id), Direction.LEFT, processing, Direction.RIGHT);
+        } catch (Exception e) {
+            log.warn("Could not drain command queue of ESP32 {}: {}", esp32Id, e.getMessage());
+            release(esp32Id);
+            return;
+        }
+        if (entry == null) {
+            release(esp32Id);
+            // a command queued by another replica between the move above and the release
+            if (depthOrZero(esp32Id) > 0) {
+                kick(esp32Id);
+            }
+            return;
+        }
+
+        QueuedCommand queued = QueuedCommand.decode(entry);
+        if (queued == null || queued.expiresAt() < System.currentTimeMillis()) {
+            expiredCount.incrementAndGet();
+            scheduler.execute(() -> {
+                acknowledge(esp32Id, entry);
+                drainNext(esp32Id);
+            });
+            return;
+        }
+
+        try {
+            mqttService.publishCommand(esp32Id + "/" + queued.deviceName(), queued.command())
+                    .whenComplete((outcome, ex) -> {
+                        if (ex != null) {
+                            scheduler.execute(() -> pushBack(esp32Id, entry, ex));
+                            return;
+                        }
+                        drainedCount.incrementAndGet();
+                        scheduler.execute(() -> {
+                            acknowledge(esp32Id, entry);
+                            scheduler.schedule(() -> drainNext(esp32Id), drainIntervalMs, TimeUnit.MILLISECONDS);
+                        });
+                    });
+        } catch (RuntimeException e) {
+            pushBack(esp32Id, entry, e);
+        }
+    }
+
+    private void acknowledge(UUID esp32Id, String entry) {
+        try {
+            redisTemplate.opsForList().remove(processingKey(esp32Id), 1, entry);
+        } catch (Exception e) {
+            // stays in the processing list and is sent again by the next drain
+            log.warn("Could not acknowledge queued command to ESP32 {}: {}", esp32Id, e.getMessage());
+        }
+    }
+
+    private void pushBack(UUID esp32Id, String entry, Throwable cause) {
+        log.warn("Queued command to ESP32 {} not sent, retrying in {} ms: {}", esp32Id, retryDelayMs, cause.getMessage());
+        try {
+            String key = queueKey(esp32Id);
+            if (redisTemplate.opsForList().move(processingKey(esp32Id), Direction.RIGHT, key, Direction.LEFT) == null) {
+                redisTemplate.opsForList().leftPush(key, entry);
+            }
+            redisTemplate.expire(key, ttlMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            // still in the processing list, restored at the head by the next drain
+            log.warn("Could not push back queued command to ESP32 {}: {}", esp32Id, e.getMessage());
+        }
+        // keeps the lease while waiting; drainNext lets go if the device went offline meanwhile
+        scheduler.schedule(() -> drainNext(esp32Id), retryDelayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void release(UUID esp32Id) {
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(drainerKey(esp32Id)), ownershipService.nodeId());
+        } catch (Exception e) {
+            log.debug("Could not release drainer lease of ESP32 {}: {}", esp32Id, e.getMessage());
+        } finally {
+            draining.remove(esp32Id);
+        }
+    }
+
+    private long depthOrZero(UUID esp32Id) {
+        try {
+            return depth(esp32Id);
+        } catch (ServiceUnavailableException e) {
+            return 0;
+        }
+    }
+
+    private static String queueKey(UUID esp32Id) {
+        return KEY_PREFIX + esp32Id;
+    }
+
+    private static String processingKey(UUID esp32Id) {
+        return KEY_PREFIX + esp32Id + PROCESSING_SUFFIX;
+    }
+
+    private static String drainerKey(UUID esp32Id) {
+        return KEY_PREFIX + esp32Id + DRAINER_SUFFIX;
+    }
+}
@@ -0,0 +1,284 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import com.alpha_code.alpha_code_robot_service.dto.Esp32CommandScheduleDto;
+import com.alpha_code.alpha_code_robot_service.dto.PagedResult;
+import com.alpha_code.alpha_code_robot_service.entity.Esp32CommandSchedule;
+import com.alpha_code.alpha_code_robot_service.enums.Esp32CommandScheduleEnum;
+import com.alpha_code.alpha_code_robot_service.event.Esp32LifecycleEvent;
+import com.alpha_code.alpha_code_robot_service.exception.ResourceNotFoundException;
+import com.alpha_code.alpha_code_robot_service.mapper.Esp32CommandScheduleMapper;
+import com.alpha_code.alpha_code_robot_service.mqtt.codec.DeviceCommand;
+import com.alpha_code.alpha_code_robot_service.repository.Esp32CommandScheduleRepository;
+import com.alpha_code.alpha_code_robot_service.repository.Esp32Repository;
+import com.alpha_code.alpha_code_robot_service.service.Esp32CommandScheduleService;
+import com.alpha_code.alpha_code_robot_service.service.MqttService;
+import com.alpha_code.alpha_code_robot_service.util.Esp32Devices;
+import com.alpha_code.alpha_code_robot_service.util.HashedWheelTimer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persistent command schedules fired from a two-level timer: the table holds every pending
+ * command, and a loader moves only those due within the horizon onto a hashed timing wheel. Tens
+ * of thousands of schedules therefore cost one row each and a wheel slot only in their last
+ * minutes. Fires run on a fixed pool, so a burst (everyone's 22:00) is published with bounded
+ * parallelism. Overdue rows are picked up by the same loader, which is how fires missed during a
+ * restart are caught up; a recurring schedule fires once for all its missed occurrences.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class Esp32CommandScheduleServiceImpl implements Esp32CommandScheduleService {
+
+    private record Armed(UUID esp32Id, LocalDateTime fireAt, HashedWheelTimer.Timeout timeout) {
+    }
+
+    private final Esp32CommandScheduleRepository repository;
+    private final Esp32Repository esp32Repository;
+    private final MqttService mqttService;
+
+    private final Map<UUID, Armed> armed = new ConcurrentHashMap<>();
+    private HashedWheelTimer timer;
+    private ExecutorService fireExecutor;
+
+    @Value("${esp32.schedule.horizon-ms}")
+    private long horizonMs;
+
+    @Value("${esp32.schedule.misfire-grace-ms}")
+    private long misfireGraceMs;
+
+    @Value("${esp32.schedule.fire-parallelism}")
+    private int fireParallelism;
+
+    @Value("${esp32.schedule.zone}")
+    private String zone;
+
+    @PostConstruct
+    public void init() {
+        timer = new HashedWheelTimer("command-schedule-timer", 1, TimeUnit.SECONDS, 1024);
+        AtomicInteger threadIndex = new AtomicInteger();
+        fireExecutor = Executors.newFixedThreadPool(fireParallelism, r -> {
+            Thread t = new Thread(r, "command-schedule-fire-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.close();
+        fireExecutor.shutdown();
+    }
+
+    @Override
+    public PagedResult<Esp32CommandScheduleDto> getAll(int page, int size, UUID esp32Id, Integer status) {
+        Pageable pageable = PageRequest.of(page - 1, size, Sort.by(Sort.Direction.ASC, "nextFireAt"));
+        Page<Esp32CommandSchedule> pagedResult = repository.searchSchedules(esp32Id, status, pageable);
+        return new PagedResult<>(pagedResult.map(Esp32CommandScheduleMapper::toDto));
+    }
+
+    @Override
+    public Esp32CommandScheduleDto getById(UUID id) {
+        return Esp32CommandScheduleMapper.toDto(findActive(id));
+    }
+
+    @Override
+    @Transactional
+    public Esp32CommandScheduleDto create(Esp32CommandScheduleDto dto) {
+        esp32Repository.findById(dto.getEsp32Id())
+                .filter(esp32 -> esp32.getStatus() != 0)
+                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy ESP32"));
+
+        LocalDateTime now = LocalDateTime.now();
+        Esp32CommandSchedule schedule = Esp32CommandScheduleMapper.toEntity(dto);
+        if (schedule.getCronExpression() != null && !schedule.getCronExpression().isBlank()) {
+            if (schedule.getNextFireAt() != null) {
+                throw new IllegalArgumentException("Chỉ được đặt một trong cronExpression hoặc nextFireAt");
+            }
+            if (!CronExpression.isValidExpression(schedule.getCronExpression())) {
+                throw new IllegalArgumentException("Biểu thức cron không hợp lệ");
+            }
+            schedule.setNextFireAt(nextFire(schedule.getCronExpression(), now));
+        } else {
+            schedule.setCronExpression(null);
+            if (schedule.getNextFireAt() == null || !schedule.getNextFireAt().isAfter(now)) {
+                throw new IllegalArgumentException("Cần cronExpression hoặc nextFireAt trong tương lai");
+            }
+            schedule.setNextFireAt(schedule.getNextFireAt().truncatedTo(ChronoUnit.SECONDS));
+        }
+        schedule.setLastFiredAt(null);
+        schedule.setCreatedDate(now);
+        schedule.setLastUpdated(null);
+        schedule.setStatus(Esp32CommandScheduleEnum.ACTIVE.getCode());
+
+        Esp32CommandSchedule saved = repository.save(schedule);
+        if (!saved.getNextFireAt().isAfter(now.plus(Duration.ofMillis(horizonMs)))) {
+            arm(saved, now);
+        }
+        return Esp32CommandScheduleMapper.toDto(saved);
+    }
+
+    @Override
+    @Transactional
+    public void delete(UUID id) {
+        Esp32CommandSchedule schedule = findActive(id);
+        schedule.setStatus(Esp32CommandScheduleEnum.DELETED.getCode());
+        schedule.setLastUpdated(LocalDateTime.now());
+        repository.save(schedule);
+        disarm(id);
+    }
+
+    @Override
+    public int armedCount() {
+        return armed.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLifecycle(Esp32LifecycleEvent event) {
+        if (event.type() != Esp32LifecycleEvent.Type.DELETED) {
+            return;
+        }
+        int deleted = repository.deleteAllByEsp32Id(event.esp32Id(), LocalDateTime.now());
+        armed.forEach((id, entry) -> {
+            if (entry.esp32Id().equals(event.esp32Id())) {
+                disarm(id);
+            }
+        });
+        if (deleted > 0) {
+            log.info("Removed {} command schedules of deleted ESP32 {}", deleted, event.esp32Id());
+        }
+    }
+
+    /**
+     * Moves schedules due within the horizon from the table onto the wheel. Runs once right after
+     * startup, which arms every overdue row as well.
+     */
+    @Scheduled(fixedDelayString = "${esp32.schedule.load-interval-ms}")
+    public void loadDue() {
+        LocalDateTime now = LocalDateTime.now();
+        int loaded = 0;
+        for (Esp32CommandSchedule schedule : repository.findDueBefore(now.plus(Duration.ofMillis(horizonMs)))) {
+            if (arm(schedule, now)) {
+                loaded++;
+            }
+        }
+        if (loaded > 0) {
+            log.debug("Armed {} command schedules ({} on the wheel)", loaded, armed.size());
+        }
+    }
+
+    private boolean arm(Esp32CommandSchedule schedule, LocalDateTime now) {
+        Armed current = armed.get(schedule.getId());
+        if (current != null && current.fireAt().equals(schedule.getNextFireAt())) {
+            return false;
+        }
+        if (current != null) {
+            current.timeout().cancel();
+        }
+        long delayMs = Math.max(0, Duration.between(now, schedule.getNextFireAt()).toMillis());
+        Esp32CommandSchedule snapshot = copyOf(schedule);
+        HashedWheelTimer.Timeout timeout = timer.schedule(
+                () -> fireExecutor.execute(() -> fire(snapshot)), delayMs, TimeUnit.MILLISECONDS);
+        armed.put(schedule.getId(), new Armed(schedule.getEsp32Id(), schedule.getNextFireAt(), timeout));
+        return true;
+    }
+
+    private void disarm(UUID id) {
+        Armed entry = armed.remove(id);
+        if (entry != null) {
+            entry.timeout().cancel();
+        }
+    }
+
+    /**
+     * Claims the fire in the table before publishing, so each occurrence is sent at most once
+     * even if the schedule was edited meanwhile or several instances armed the same row.
+     */
+    void fire(Esp32CommandSchedule schedule) {
+        armed.computeIfPresent(schedule.getId(),
+                (id, entry) -> entry.fireAt().equals(schedule.getNextFireAt()) ? null : entry);
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = schedule.getCronExpression() == null
+                ? null
+                : nextFire(schedule.getCronExpression(), now);
+        int status = next == null
+                ? Esp32CommandScheduleEnum.COMPLETED.getCode()
+                : Esp32CommandScheduleEnum.ACTIVE.getCode();
+        if (repository.claimFire(schedule.getId(), schedule.getNextFireAt(), next, now, status) == 0) {
+            return;
+        }
+
+        long lateMs = Duration.between(schedule.getNextFireAt(), now).toMillis();
+        if (lateMs > misfireGraceMs) {
+            log.info("Skipping command schedule {}: missed by {} ms", schedule.getId(), lateMs);
+        } else {
+            String topic = schedule.getEsp32Id() + "/" + schedule.getDeviceName();
+            try {
+                int deviceIndex = esp32Repository.findById(schedule.getEsp32Id())
+                        .map(esp32 -> Esp32Devices.indexOf(esp32.getMetadata(), schedule.getDeviceName()))
+                        .orElse(-1);
+                mqttService.publish(topic, new DeviceCommand(schedule.getCommand(), deviceIndex, null));
+            } catch (Exception e) {
+                log.warn("Command schedule {} failed to publish to {}: {}", schedule.getId(), topic, e.getMessage());
+            }
+        }
+
+        if (next != null && !next.isAfter(now.plus(Duration.ofMillis(horizonMs)))) {
+            schedule.setNextFireAt(next);
+            arm(schedule, now);
+        }
+    }
+
+    private LocalDateTime nextFire(String cronExpression, LocalDateTime after) {
+        ZonedDateTime from = after.atZone(ZoneId.systemDefault()).withZoneSameInstant(ZoneId.of(zone));
+        ZonedDateTime next = CronExpression.parse(cronExpression).next(from);
+        if (next == null) {
+            return null;
+        }
+        return next.withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    private Esp32CommandSchedule findActive(UUID id) {
+        return repository.findById(id)
+                .filter(schedule -> schedule.getStatus() != Esp32CommandScheduleEnum.DELETED.getCode())
+                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy lịch lệnh"));
+    }
+
+    private static Esp32CommandSchedule copyOf(Esp32CommandSchedule schedule) {
+        return Esp32CommandSchedule.builder()
+                .id(schedule.getId())
+                .esp32Id(schedule.getEsp32Id())
+                .deviceName(schedule.getDeviceName())
+                .command(schedule.getCommand())
+                .cronExpression(schedule.getCronExpression())
+                .nextFireAt(schedule.getNextFireAt())
+                .status(schedule.getStatus())
+                .build();
+    }
+}
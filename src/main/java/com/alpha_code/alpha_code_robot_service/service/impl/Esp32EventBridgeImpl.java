@@ -0,0 +1,255 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import com.alpha_code.alpha_code_robot_service.dto.Esp32EventDto;
+import com.alpha_code.alpha_code_robot_service.event.Esp32CommandResultEvent;
+import com.alpha_code.alpha_code_robot_service.event.Esp32PresenceEvent;
+import com.alpha_code.alpha_code_robot_service.service.Esp32EventBridge;
+import com.alpha_code.alpha_code_robot_service.service.Esp32EventHub;
+import com.alpha_code.alpha_code_robot_service.service.Esp32OwnershipService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Relays device events between replicas over Redis pub/sub, so an SSE client sees events that
+ * another replica produced. Each ESP32 has its own channel ("esp32:events:{esp32Id}") and a
+ * replica subscribes only to the channels of ESP32s its local streams watch, so only interested
+ * replicas receive and deserialize a payload. Producers check a lease-based interest set
+ * ("esp32:events:watched", members "{esp32Id}|{nodeId}", score = lease expiry) before queueing,
+ * counting only other replicas' entries, and queued events are sent as one JSON array per channel
+ * per tick, all channels in one pipelined round trip. The listener container exists only while
+ * the bridge is enabled.
+ * Every replica subscribes the MQTT status/heartbeat/ack channels, and the ingest topics too
+ * unless they are shared subscriptions ("$share/..."), so only command results, plus messages
+ * and presence under shared ingest, need relaying; relaying the rest would deliver duplicates.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class Esp32EventBridgeImpl implements Esp32EventBridge {
+
+    private static final String CHANNEL_PREFIX = "esp32:events:";
+    private static final String WATCHED_KEY = "esp32:events:watched";
+    private static final TypeReference<List<Esp32EventDto>> BATCH_TYPE = new TypeReference<>() {
+    };
+
+    private final Esp32EventHub eventHub;
+    private final Esp32OwnershipService ownershipService;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectProvider<RedisMessageListenerContainer> listenerContainer;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, List<Esp32EventDto>> outbox = new ConcurrentHashMap<>();
+    private final Set<UUID> subscribedIds = new HashSet<>();
+    private volatile Set<String> remoteWatched = Set.of();
+    private final AtomicLong relayed = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final MessageListener listener = this::onRelay;
+    private ScheduledExecutorService ticker;
+    private boolean sharedIngest;
+
+    @Value("${esp32.events.bridge.enabled}")
+    private boolean enabled;
+
+    @Value("${esp32.events.bridge.tick-ms}")
+    private long tickMs;
+
+    @Value("${esp32.events.bridge.interest-lease-ms}")
+    private long interestLeaseMs;
+
+    @Value("${mqtt.ingest-topics}")
+    private String ingestTopics;
+
+    @PostConstruct
+    public void init() {
+        sharedIngest = ingestTopics.trim().startsWith("$share/");
+        if (!enabled) return;
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "esp32-events-bridge");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleWithFixedDelay(this::flush, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        log.info("✅ Event bridge on node {} (tick {} ms, shared ingest: {})", ownershipService.nodeId(), tickMs, sharedIngest);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (ticker == null) return;
+        ticker.shutdown();
+        flush();
+    }
+
+    @Override
+    public boolean isWatched(UUID esp32Id) {
+        return eventHub.isWatched(esp32Id) || (enabled && remoteWatched.contains(esp32Id.toString()));
+    }
+
+    @Override
+    public void publish(Esp32EventDto event) {
+        eventHub.publish(event);
+        if (!enabled || !needsRelay(event.getType())) return;
+        String id = event.getEsp32Id().toString();
+        if (!remoteWatched.contains(id)) return;
+        // flush() takes a channel's list with remove(), so a list is never appended to after it left
+        outbox.compute(CHANNEL_PREFIX + id, (c, batch) -> {
+            if (batch == null) batch = new ArrayList<>();
+            batch.add(event);
+            return batch;
+        });
+    }
+
+    @Override
+    public long relayedCount() {
+        return relayed.get();
+    }
+
+    @Override
+    public long receivedCount() {
+        return received.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPresence(Esp32PresenceEvent event) {
+        if (!isWatched(event.esp32Id())) return;
+        publish(Esp32EventDto.builder()
+                .type(Esp32EventDto.Type.PRESENCE)
+                .esp32Id(event.esp32Id())
+                .online(event.online())
+                .timestamp(LocalDateTime.now())
+                .build());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommandResult(Esp32CommandResultEvent event) {
+        if (!isWatched(event.esp32Id())) return;
+        publish(Esp32EventDto.builder()
+                .type(Esp32EventDto.Type.COMMAND)
+                .esp32Id(event.esp32Id())
+                .correlationId(event.correlationId())
+                .status(event.status())
+                .timestamp(LocalDateTime.now())
+                .build());
+    }
+
+    /**
+     * Follow the channels of locally watched ESP32s, renew their interest leases and reload which
+     * ESP32s other replicas watch. This replica's own entries are left out, so an ESP32 watched
+     * only here is never relayed, while one also watched elsewhere still is.
+     */
+    @Scheduled(fixedDelayString = "${esp32.events.bridge.interest-refresh-ms}")
+    public synchronized void refreshInterest() {
+        if (!enabled) return;
+        Set<UUID> watched = eventHub.watchedIds();
+        RedisMessageListenerContainer container = listenerContainer.getObject();
+        for (UUID id : watched) {
+            if (subscribedIds.add(id)) {
+                container.addMessageListener(listener, new ChannelTopic(CHANNEL_PREFIX + id));
+            }
+        }
+        subscribedIds.removeIf(id -> {
+            if (watched.contains(id)) return false;
+            container.removeMessageListener(listener, new ChannelTopic(CHANNEL_PREFIX + id));
+            return true;
+        });
+
+        String self = "|" + ownershipService.nodeId();
+        long now = System.currentTimeMillis();
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                for (UUID id : watched) {
+                    redis.zAdd(WATCHED_KEY, now + interestLeaseMs, id + self);
+                }
+                redis.zRemRangeByScore(WATCHED_KEY, Double.NEGATIVE_INFINITY, now);
+                return null;
+            });
+            Set<String> live = redisTemplate.opsForZSet().rangeByScore(WATCHED_KEY, now, Double.POSITIVE_INFINITY);
+            Set<String> remote = new HashSet<>();
+            if (live != null) {
+                for (String member : live) {
+                    int sep = member.indexOf('|');
+                    if (sep > 0 && !member.endsWith(self)) remote.add(member.substring(0, sep));
+                }
+            }
+            remoteWatched = Set.copyOf(remote);
+        } catch (Exception e) {
+            log.warn("Event bridge interest refresh failed, keeping {} watched ESP32s: {}", remoteWatched.size(), e.getMessage());
+        }
+    }
+
+    void flush() {
+        if (outbox.isEmpty()) return;
+        Map<String, List<Esp32EventDto>> due = new HashMap<>();
+        for (String channel : outbox.keySet()) {
+            List<Esp32EventDto> batch = outbox.remove(channel);
+            if (batch != null && !batch.isEmpty()) due.put(channel, batch);
+        }
+        if (due.isEmpty()) return;
+
+        // origin first, so a replica skips its own batches without parsing them
+        String origin = ownershipService.nodeId() + "\n";
+        try {
+            Map<String, String> payloads = new HashMap<>(due.size());
+            for (Map.Entry<String, List<Esp32EventDto>> e : due.entrySet()) {
+                payloads.put(e.getKey(), origin + objectMapper.writeValueAsString(e.getValue()));
+            }
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                payloads.forEach(redis::publish);
+                return null;
+            });
+            due.values().forEach(batch -> relayed.addAndGet(batch.size()));
+        } catch (Exception e) {
+            // events are live notifications; clients re-read state after a gap
+            log.warn("Event bridge dropped {} channel batches: {}", due.size(), e.getMessage());
+        }
+    }
+
+    void onRelay(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int sep = body.indexOf('\n');
+        if (sep < 0 || body.startsWith(ownershipService.nodeId() + "\n")) return;
+        try {
+            List<Esp32EventDto> batch = objectMapper.readValue(body.substring(sep + 1), BATCH_TYPE);
+            received.addAndGet(batch.size());
+            batch.forEach(eventHub::publish);
+        } catch (Exception e) {
+            log.debug("Malformed event batch on {}: {}", new String(message.getChannel(), StandardCharsets.UTF_8), e.getMessage());
+        }
+    }
+
+    private boolean needsRelay(Esp32EventDto.Type type) {
+        return type == Esp32EventDto.Type.COMMAND || sharedIngest;
+    }
+}
@@ -0,0 +1,233 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import com.alpha_code.alpha_code_robot_service.dto.Esp32EventDto;
+import com.alpha_code.alpha_code_robot_service.entity.Esp32;
+import com.alpha_code.alpha_code_robot_service.event.Esp32LifecycleEvent;
+import com.alpha_code.alpha_code_robot_service.exception.TooManyRequestsException;
+import com.alpha_code.alpha_code_robot_service.repository.Esp32Repository;
+import com.alpha_code.alpha_code_robot_service.service.Esp32EventHub;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fan-out of device events to server-sent event streams, keyed by account. Publishing only
+ * offers into each subscriber's bounded queue; a small shared pool writes the queues out, one
+ * drain at a time per subscriber. A subscriber whose queue overflows is a slow consumer and is
+ * disconnected rather than buffered without bound; clients reconnect and re-read the state.
+ * Only ESP32s of accounts with a local subscriber are routed, so unwatched traffic costs one map
+ * lookup.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class Esp32EventHubImpl implements Esp32EventHub {
+
+    // queued by the keepalive job, written as an SSE comment
+    private static final Esp32EventDto KEEPALIVE = new Esp32EventDto();
+
+    private final Esp32Repository repository;
+
+    private final Map<UUID, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    // esp32Id -> accountId, only for accounts in subscribers
+    private final Map<UUID, UUID> routes = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private ExecutorService sendExecutor;
+
+    @Value("${esp32.events.buffer-size}")
+    private int bufferSize;
+
+    @Value("${esp32.events.emitter-timeout-ms}")
+    private long emitterTimeoutMs;
+
+    @Value("${esp32.events.max-subscribers-per-account}")
+    private int maxSubscribersPerAccount;
+
+    @Value("${esp32.events.send-threads}")
+    private int sendThreads;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        sendExecutor = Executors.newFixedThreadPool(sendThreads, r -> {
+            Thread t = new Thread(r, "esp32-events-send-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(list -> list.forEach(s -> s.emitter.complete()));
+        sendExecutor.shutdownNow();
+    }
+
+    @Override
+    public SseEmitter subscribe(UUID accountId) {
+        // outside the lock: remove() runs on ingest threads when a slow consumer is evicted
+        List<Esp32> owned = repository.findAllByAccountIdAndStatusNot(accountId, 0);
+        Subscriber subscriber = new Subscriber(accountId, new SseEmitter(emitterTimeoutMs), new ArrayBlockingQueue<>(bufferSize));
+        synchronized (this) {
+            register(subscriber, owned);
+        }
+
+        subscriber.emitter.onCompletion(() -> remove(subscriber));
+        subscriber.emitter.onTimeout(() -> remove(subscriber));
+        subscriber.emitter.onError(e -> remove(subscriber));
+        // flush the response headers right away so proxies see an open stream
+        subscriber.enqueue(KEEPALIVE);
+        return subscriber.emitter;
+    }
+
+    private void register(Subscriber subscriber, List<Esp32> owned) {
+        UUID accountId = subscriber.accountId;
+        List<Subscriber> list = subscribers.get(accountId);
+        if (list == null) {
+            owned.forEach(esp32 -> routes.put(esp32.getId(), accountId));
+            list = new CopyOnWriteArrayList<>();
+            subscribers.put(accountId, list);
+        } else if (list.size() >= maxSubscribersPerAccount) {
+            // refuse rather than close an open stream, so extra connections cannot cut off the app
+            log.debug("Account {} already has {} event streams, refusing another", accountId, list.size());
+            throw new TooManyRequestsException("Tài khoản đã mở tối đa " + maxSubscribersPerAccount + " luồng sự kiện");
+        }
+        list.add(subscriber);
+        subscriberCount.incrementAndGet();
+    }
+
+    @Override
+    public boolean isWatched(UUID esp32Id) {
+        return routes.containsKey(esp32Id);
+    }
+
+    @Override
+    public Set<UUID> watchedIds() {
+        return Set.copyOf(routes.keySet());
+    }
+
+    @Override
+    public void publish(Esp32EventDto event) {
+        UUID accountId = routes.get(event.getEsp32Id());
+        if (accountId == null) return;
+        List<Subscriber> list = subscribers.get(accountId);
+        if (list == null) return;
+        for (Subscriber subscriber : list) {
+            subscriber.enqueue(event);
+        }
+    }
+
+    @Override
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @Override
+    public long evictedCount() {
+        return evictedCount.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLifecycle(Esp32LifecycleEvent event) {
+        if (!event.isActive()) {
+            routes.remove(event.esp32Id());
+            return;
+        }
+        if (subscribers.isEmpty() || routes.containsKey(event.esp32Id())) return;
+        repository.findById(event.esp32Id())
+                .map(Esp32::getAccountId)
+                .filter(subscribers::containsKey)
+                .ifPresent(accountId -> routes.put(event.esp32Id(), accountId));
+    }
+
+    @Scheduled(fixedDelayString = "${esp32.events.keepalive-interval-ms}")
+    public void keepalive() {
+        // also how dead connections are noticed: the write fails and the subscriber is removed
+        subscribers.values().forEach(list -> list.forEach(s -> s.enqueue(KEEPALIVE)));
+    }
+
+    private synchronized void remove(Subscriber subscriber) {
+        List<Subscriber> list = subscribers.get(subscriber.accountId);
+        if (list == null || !list.remove(subscriber)) return;
+        subscriberCount.decrementAndGet();
+        if (list.isEmpty()) {
+            subscribers.remove(subscriber.accountId);
+            routes.values().removeIf(subscriber.accountId::equals);
+        }
+    }
+
+    private final class Subscriber {
+        private final UUID accountId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Esp32EventDto> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(UUID accountId, SseEmitter emitter, BlockingQueue<Esp32EventDto> queue) {
+            this.accountId = accountId;
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+
+        void enqueue(Esp32EventDto event) {
+            if (!queue.offer(event)) {
+                evictedCount.incrementAndGet();
+                log.debug("Closing slow event stream of account {} ({} events pending)", accountId, queue.size());
+                remove(this);
+                emitter.complete();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                sendExecutor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                Esp32EventDto event;
+                while ((event = queue.poll()) != null) {
+                    if (event == KEEPALIVE) {
+                        emitter.send(SseEmitter.event().comment("keepalive"));
+                    } else {
+                        emitter.send(SseEmitter.event()
+                                .name(event.getType().name().toLowerCase(Locale.ROOT))
+                                .data(event, MediaType.APPLICATION_JSON));
+                    }
+                }
+            } catch (Exception e) {
+                // IOException from a closed connection, IllegalStateException after complete()
+                log.debug("Event stream of account {} closed: {}", accountId, e.toString());
+                queue.clear();
+                remove(this);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // an event may have been queued after the last poll but before draining was reset
+            if (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+                sendExecutor.execute(this::drain);
+            }
+        }
+    }
+}
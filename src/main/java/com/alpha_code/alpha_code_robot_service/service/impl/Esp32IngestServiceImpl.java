@@ -0,0 +1,62 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import com.alpha_code.alpha_code_robot_service.dto.Esp32EventDto;
+import com.alpha_code.alpha_code_robot_service.service.Esp32EventBridge;
+import com.alpha_code.alpha_code_robot_service.service.Esp32IngestService;
+import com.alpha_code.alpha_code_robot_service.service.Esp32MessageBuffer;
+import com.alpha_code.alpha_code_robot_service.service.Esp32OwnershipService;
+import com.alpha_code.alpha_code_robot_service.service.Esp32PresenceService;
+import com.alpha_code.alpha_code_robot_service.service.Esp32StateService;
+import com.alpha_code.alpha_code_robot_service.service.Esp32TelemetryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class Esp32IngestServiceImpl implements Esp32IngestService {
+
+    private final Esp32StateService stateService;
+    private final Esp32MessageBuffer messageBuffer;
+    private final Esp32PresenceService presenceService;
+    private final Esp32OwnershipService ownershipService;
+    private final Esp32TelemetryService telemetryService;
+    private final Esp32EventBridge eventBridge;
+
+    /**
+     * Inbound payload on topic "{esp32Id}". Sub-topics ("{esp32Id}/...") are not device messages.
+     */
+    @Override
+    public void onMessage(String topic, String payload) {
+        if (topic.indexOf('/') >= 0) return;
+
+        UUID id;
+        try {
+            id = UUID.fromString(topic);
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring MQTT message on non-ESP32 topic {}", topic);
+            return;
+        }
+
+        log.debug("ESP32[{}] -> {}", id, payload);
+        stateService.record(id, payload);
+        presenceService.touch(id);
+        // ghi xuống DB theo lô, chỉ giữ message mới nhất của mỗi ESP32; chỉ node sở hữu ESP32 mới ghi
+        if (ownershipService.isOwner(id)) {
+            messageBuffer.offer(id, payload);
+            telemetryService.record(id, payload);
+        }
+        if (eventBridge.isWatched(id)) {
+            eventBridge.publish(Esp32EventDto.builder()
+                    .type(Esp32EventDto.Type.MESSAGE)
+                    .esp32Id(id)
+                    .message(payload)
+                    .timestamp(LocalDateTime.now())
+                    .build());
+        }
+    }
+}
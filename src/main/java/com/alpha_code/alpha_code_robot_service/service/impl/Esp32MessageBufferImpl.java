@@ -0,0 +1,99 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import com.alpha_code.alpha_code_robot_service.service.Esp32MessageBuffer;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind stage for inbound ESP32 messages. Only the latest message per device is kept,
+ * and dirty devices are written with a single JDBC batch either every flush interval or as soon
+ * as the number of dirty devices reaches the size threshold.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class Esp32MessageBufferImpl implements Esp32MessageBuffer {
+
+    private static final String UPDATE_MESSAGE_SQL = "UPDATE esp_32 SET message = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<UUID, String> dirty = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "esp32-write-behind");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Value("${esp32.write-behind.max-pending}")
+    private int maxPending;
+
+    @Override
+    public void offer(UUID esp32Id, String message) {
+        dirty.put(esp32Id, message);
+
+        if (dirty.size() >= maxPending && flushRequested.compareAndSet(false, true)) {
+            flushExecutor.execute(() -> {
+                flushRequested.set(false);
+                flush();
+            });
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${esp32.write-behind.flush-interval-ms}")
+    public synchronized int flush() {
+        if (dirty.isEmpty()) return 0;
+
+        List<UUID> ids = new ArrayList<>(dirty.keySet());
+        List<Object[]> batch = new ArrayList<>(ids.size());
+        Map<UUID, String> drained = new HashMap<>(ids.size());
+        for (UUID id : ids) {
+            // remove() hands over the latest value; anything arriving afterwards waits for the next flush
+            String message = dirty.remove(id);
+            if (message == null) continue;
+            drained.put(id, message);
+            batch.add(new Object[]{message, id});
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_MESSAGE_SQL, batch);
+            log.debug("Flushed {} ESP32 messages", batch.size());
+            return batch.size();
+        } catch (Exception e) {
+            log.error("❌ Failed to flush {} ESP32 messages, will retry", batch.size(), e);
+            // keep newer values that arrived while flushing
+            drained.forEach(dirty::putIfAbsent);
+            return 0;
+        }
+    }
+
+    @Override
+    public int pendingCount() {
+        return dirty.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdown();
+        flush();
+    }
+}
@@ -0,0 +1,485 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import com.alpha_code.alpha_code_robot_service.dto.Esp32FirmwareDto;
+import com.alpha_code.alpha_code_robot_service.dto.OtaRolloutDto;
+import com.alpha_code.alpha_code_robot_service.dto.PagedResult;
+import com.alpha_code.alpha_code_robot_service.entity.Esp32;
+import com.alpha_code.alpha_code_robot_service.entity.Esp32Firmware;
+import com.alpha_code.alpha_code_robot_service.enums.Esp32FirmwareEnum;
+import com.alpha_code.alpha_code_robot_service.event.Esp32PresenceEvent;
+import com.alpha_code.alpha_code_robot_service.exception.ConflictException;
+import com.alpha_code.alpha_code_robot_service.exception.ResourceNotFoundException;
+import com.alpha_code.alpha_code_robot_service.mapper.Esp32FirmwareMapper;
+import com.alpha_code.alpha_code_robot_service.mqtt.Esp32Channels;
+import com.alpha_code.alpha_code_robot_service.mqtt.MqttTopicRouter;
+import com.alpha_code.alpha_code_robot_service.mqtt.MqttTrafficClass;
+import com.alpha_code.alpha_code_robot_service.ota.FirmwareImage;
+import com.alpha_code.alpha_code_robot_service.ota.OtaFrames;
+import com.alpha_code.alpha_code_robot_service.ota.OtaTransfer;
+import com.alpha_code.alpha_code_robot_service.repository.Esp32FirmwareRepository;
+import com.alpha_code.alpha_code_robot_service.repository.Esp32Repository;
+import com.alpha_code.alpha_code_robot_service.service.Esp32OtaService;
+import com.alpha_code.alpha_code_robot_service.service.Esp32PresenceService;
+import com.alpha_code.alpha_code_robot_service.service.Esp32Service;
+import com.alpha_code.alpha_code_robot_service.service.MqttService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Firmware images are stored under esp32.ota.dir (shared storage when running several replicas)
+ * and memory-mapped once per rollout. A rollout holds one {@link OtaTransfer} per ESP32; a tick
+ * starts pending transfers of online ESP32s while fewer than max-concurrent are active, drives
+ * retransmission, and frees the slot of transfers that finished or whose ESP32 went offline.
+ * Parked transfers restart with a begin frame, and the device resumes from the offset it holds.
+ * Acks arrive on the CONTROL lane next to presence and heartbeats, so the ack handler only records
+ * the offset and hands sending to a pump thread; chunks go out on the TELEMETRY lane without
+ * waiting for its publish window, and whatever the window refuses is picked up by the next ack or
+ * tick.
+ * Rollouts are kept in memory on the instance that started them; every instance receives the
+ * ota-ack channel, so acks reach it regardless of ingest sharing.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class Esp32OtaServiceImpl implements Esp32OtaService {
+
+    private static final class Rollout {
+        private final UUID id;
+        private final int version;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        // insertion order is the order ESP32s are started in
+        private final Map<UUID, OtaTransfer> transfers = new LinkedHashMap<>();
+        // when each ESP32 started waiting for a slot or to come back online
+        private final Map<UUID, Long> waitingSince = new ConcurrentHashMap<>();
+        private int skipped;
+        private volatile boolean cancelled;
+        private volatile LocalDateTime finishedAt;
+        private volatile long finishedAtMillis;
+
+        private Rollout(UUID id, int version) {
+            this.id = id;
+            this.version = version;
+        }
+    }
+
+    private record Slot(Rollout rollout, OtaTransfer transfer) {
+    }
+
+    private final Esp32FirmwareRepository firmwareRepository;
+    private final Esp32Repository esp32Repository;
+    private final Esp32Service esp32Service;
+    private final Esp32PresenceService presenceService;
+    private final MqttService mqttService;
+
+    private final Map<UUID, Rollout> rollouts = new ConcurrentHashMap<>();
+    // ESP32 id -> the transfer holding one of the max-concurrent slots; acks are routed through here
+    private final Map<UUID, Slot> active = new ConcurrentHashMap<>();
+    // ESP32s with a pump task queued, so a burst of acks sends one batch of chunks
+    private final Set<UUID> pumpQueued = ConcurrentHashMap.newKeySet();
+
+    private Path imageDir;
+    private ExecutorService pumpExecutor;
+
+    @Value("${esp32.ota.dir}")
+    private String dir;
+
+    @Value("${esp32.ota.max-image-bytes}")
+    private long maxImageBytes;
+
+    @Value("${esp32.ota.chunk-size}")
+    private int chunkSize;
+
+    @Value("${esp32.ota.window-chunks}")
+    private int windowChunks;
+
+    @Value("${esp32.ota.ack-timeout-ms}")
+    private long ackTimeoutMs;
+
+    @Value("${esp32.ota.max-retries}")
+    private int maxRetries;
+
+    @Value("${esp32.ota.max-concurrent}")
+    private int maxConcurrent;
+
+    @Value("${esp32.ota.pending-timeout-ms}")
+    private long pendingTimeoutMs;
+
+    @Value("${esp32.ota.rollout-retention-ms}")
+    private long rolloutRetentionMs;
+
+    @PostConstruct
+    public void init() throws IOException {
+        imageDir = Files.createDirectories(Path.of(dir));
+        pumpExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "esp32-ota-pump");
+            t.setDaemon(true);
+            return t;
+        });
+        mqttService.registerChannelHandler(Esp32Channels.OTA_ACK, MqttTrafficClass.CONTROL, this::onAck);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pumpExecutor.shutdownNow();
+    }
+
+    @Override
+    public PagedResult<Esp32FirmwareDto> getFirmwares(int page, int size) {
+        Pageable pageable = PageRequest.of(page - 1, size, Sort.by(Sort.Direction.DESC, "version"));
+        Page<Esp32Firmware> pagedResult = firmwareRepository.findAllByStatusNot(Esp32FirmwareEnum.DELETED.getCode(), pageable);
+        return new PagedResult<>(pagedResult.map(Esp32FirmwareMapper::toDto));
+    }
+
+    @Override
+    public Esp32FirmwareDto getFirmware(Integer version) {
+        return Esp32FirmwareMapper.toDto(findFirmware(version));
+    }
+
+    @Override
+    @Transactional
+    public Esp32FirmwareDto uploadFirmware(Integer version, String notes, MultipartFile file) {
+        if (version == null || version <= 0) {
+            throw new IllegalArgumentException("Phiên bản firmware không hợp lệ");
+        }
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("File firmware không được để trống");
+        }
+        if (file.getSize() > maxImageBytes) {
+            throw new IllegalArgumentException("File firmware vượt quá kích thước cho phép (" + maxImageBytes + " bytes)");
+        }
+        if (firmwareRepository.existsByVersionAndStatusNot(version, Esp32FirmwareEnum.DELETED.getCode())) {
+            throw new ConflictException("Phiên bản firmware đã tồn tại");
+        }
+
+        // a fresh name per upload, so a re-uploaded version never overwrites a file that is still mapped
+        String fileName = "esp32-fw-" + version + "-" + UUID.randomUUID() + ".bin";
+        Path target = imageDir.resolve(fileName);
+        Path part = imageDir.resolve(fileName + ".part");
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+            Files.copy(in, part, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(part, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            deleteQuietly(part);
+            throw new IllegalStateException("Không thể lưu file firmware", e);
+        }
+
+        Esp32Firmware firmware = Esp32Firmware.builder()
+                .version(version)
+                .sizeBytes((int) file.getSize())
+                .sha256(HexFormat.of().formatHex(digest.digest()))
+                .fileName(fileName)
+                .notes(notes)
+                .createdDate(LocalDateTime.now())
+                .status(Esp32FirmwareEnum.ACTIVE.getCode())
+                .build();
+        return Esp32FirmwareMapper.toDto(firmwareRepository.save(firmware));
+    }
+
+    @Override
+    @Transactional
+    public void deleteFirmware(Integer version) {
+        Esp32Firmware firmware = findFirmware(version);
+        boolean inUse = rollouts.values().stream().anyMatch(r -> r.version == version && r.finishedAt == null);
+        if (inUse) {
+            throw new ConflictException("Firmware đang được triển khai");
+        }
+        firmware.setStatus(Esp32FirmwareEnum.DELETED.getCode());
+        firmware.setLastUpdated(LocalDateTime.now());
+        firmwareRepository.save(firmware);
+
+        // finished rollouts may still map the file; the mapping outlives the unlink
+        Path image = imageDir.resolve(firmware.getFileName());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deleteImage(image);
+                }
+            });
+        } else {
+            deleteImage(image);
+        }
+    }
+
+    @Override
+    public OtaRolloutDto startRollout(Integer version, List<UUID> esp32Ids) {
+        Esp32Firmware firmware = findFirmware(version);
+        List<UUID> ids = new ArrayList<>(new LinkedHashSet<>(esp32Ids));
+        List<Esp32> targets = esp32Repository.findAllByIdInAndStatusNot(ids, 0);
+        if (targets.isEmpty()) {
+            throw new ResourceNotFoundException("Không tìm thấy ESP32");
+        }
+
+        FirmwareImage image;
+        try {
+            image = FirmwareImage.open(version, imageDir.resolve(firmware.getFileName()));
+        } catch (IOException e) {
+            throw new IllegalStateException("Không thể đọc file firmware phiên bản " + version, e);
+        }
+        byte[] sha256 = HexFormat.of().parseHex(firmware.getSha256());
+
+        // keep the requested order
+        Map<UUID, Esp32> byId = new LinkedHashMap<>();
+        for (Esp32 esp32 : targets) {
+            byId.put(esp32.getId(), esp32);
+        }
+        Rollout rollout = new Rollout(UUID.randomUUID(), version);
+        long now = System.currentTimeMillis();
+        for (UUID id : ids) {
+            Esp32 esp32 = byId.get(id);
+            if (esp32 == null || (esp32.getFirmwareVersion() != null && esp32.getFirmwareVersion() >= version)) {
+                rollout.skipped++;
+                continue;
+            }
+            String topic = id + "/" + Esp32Channels.OTA;
+            rollout.transfers.put(id, new OtaTransfer(id, image, sha256, chunkSize, windowChunks, ackTimeoutMs, maxRetries,
+                    frame -> mqttService.tryPublishAsync(MqttTrafficClass.TELEMETRY, topic, frame)));
+            rollout.waitingSince.put(id, now);
+        }
+        if (rollout.transfers.isEmpty()) {
+            rollout.finishedAt = LocalDateTime.now();
+            rollout.finishedAtMillis = now;
+        }
+        rollouts.put(rollout.id, rollout);
+        log.info("🚀 OTA rollout {} of firmware {} to {} ESP32s ({} skipped)",
+                rollout.id, version, rollout.transfers.size(), rollout.skipped);
+        return toDto(rollout);
+    }
+
+    @Override
+    public OtaRolloutDto getRollout(UUID rolloutId) {
+        return toDto(findRollout(rolloutId));
+    }
+
+    @Override
+    public OtaRolloutDto cancelRollout(UUID rolloutId) {
+        Rollout rollout = findRollout(rolloutId);
+        rollout.cancelled = true;
+        rollout.transfers.values().forEach(OtaTransfer::cancel);
+        return toDto(rollout);
+    }
+
+    /**
+     * Drives retransmission, frees finished slots and hands free slots to pending transfers,
+     * oldest rollout first.
+     */
+    @Scheduled(fixedDelayString = "${esp32.ota.tick-ms}")
+    public void tick() {
+        long now = System.currentTimeMillis();
+        for (Iterator<Slot> it = active.values().iterator(); it.hasNext(); ) {
+            Slot slot = it.next();
+            OtaTransfer transfer = slot.transfer();
+            transfer.onTick(now);
+            OtaTransfer.State state = transfer.state();
+            if (state.isActive()) continue;
+            it.remove();
+            switch (state) {
+                case DONE -> onSucceeded(transfer);
+                case PENDING -> slot.rollout().waitingSince.put(transfer.esp32Id(), now);
+                case FAILED -> log.warn("⚠️ OTA of firmware {} to {} failed at offset {}: {}",
+                        transfer.version(), transfer.esp32Id(), transfer.ackedOffset(), transfer.error());
+                default -> {
+                }
+            }
+        }
+
+        List<Rollout> ordered = new ArrayList<>(rollouts.values());
+        ordered.sort(Comparator.comparing(r -> r.createdAt));
+        for (Rollout rollout : ordered) {
+            if (rollout.finishedAt != null) {
+                if (now - rollout.finishedAtMillis > rolloutRetentionMs) {
+                    rollouts.remove(rollout.id);
+                }
+                continue;
+            }
+            if (!fill(rollout, now)) {
+                rollout.finishedAt = LocalDateTime.now();
+                rollout.finishedAtMillis = now;
+                log.info("✅ OTA rollout {} of firmware {} finished", rollout.id, rollout.version);
+            }
+        }
+    }
+
+    /**
+     * @return false once every transfer of the rollout is terminal
+     */
+    private boolean fill(Rollout rollout, long now) {
+        boolean open = false;
+        for (OtaTransfer transfer : rollout.transfers.values()) {
+            OtaTransfer.State state = transfer.state();
+            if (state.isActive()) {
+                open = true;
+                continue;
+            }
+            if (state != OtaTransfer.State.PENDING) continue;
+            UUID esp32Id = transfer.esp32Id();
+            if (now - rollout.waitingSince.getOrDefault(esp32Id, now) > pendingTimeoutMs) {
+                transfer.fail("ESP32 không trực tuyến trong thời gian chờ cho phép");
+                continue;
+            }
+            open = true;
+            // another rollout may still be sending to the same ESP32
+            if (active.size() >= maxConcurrent || active.containsKey(esp32Id) || !presenceService.isOnline(esp32Id)) {
+                continue;
+            }
+            active.put(esp32Id, new Slot(rollout, transfer));
+            transfer.start(now);
+        }
+        return open;
+    }
+
+    private void onAck(String topic, String payload) {
+        UUID esp32Id;
+        try {
+            esp32Id = UUID.fromString(MqttTopicRouter.prefixOf(topic));
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        Slot slot = active.get(esp32Id);
+        if (slot == null) return;
+        OtaFrames.Ack ack = OtaFrames.parseAck(payload);
+        if (ack == null) {
+            log.debug("Ignoring malformed OTA ack from {}: {}", esp32Id, payload);
+            return;
+        }
+        OtaTransfer transfer = slot.transfer();
+        if (transfer.onAck(ack, System.currentTimeMillis()) && pumpQueued.add(esp32Id)) {
+            pumpExecutor.execute(() -> {
+                pumpQueued.remove(esp32Id);
+                transfer.pump(System.currentTimeMillis());
+            });
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPresence(Esp32PresenceEvent event) {
+        if (event.online()) return;
+        Slot slot = active.get(event.esp32Id());
+        if (slot != null) {
+            // the tick releases the slot; the transfer resumes when the ESP32 is back
+            slot.transfer().interrupt();
+        }
+    }
+
+    private void onSucceeded(OtaTransfer transfer) {
+        log.info("✅ ESP32 {} updated to firmware {}", transfer.esp32Id(), transfer.version());
+        try {
+            esp32Service.updateFirmwareVersion(transfer.esp32Id(), transfer.version());
+        } catch (Exception e) {
+            log.error("❌ Failed to record firmware {} for ESP32 {}", transfer.version(), transfer.esp32Id(), e);
+        }
+    }
+
+    private OtaRolloutDto toDto(Rollout rollout) {
+        int pending = 0, running = 0, succeeded = 0, failed = 0;
+        List<OtaRolloutDto.Transfer> transfers = new ArrayList<>(rollout.transfers.size());
+        for (OtaTransfer transfer : rollout.transfers.values()) {
+            OtaTransfer.State state = transfer.state();
+            switch (state) {
+                case PENDING -> pending++;
+                case DONE -> succeeded++;
+                case FAILED -> failed++;
+                case CANCELLED -> {
+                }
+                default -> running++;
+            }
+            transfers.add(OtaRolloutDto.Transfer.builder()
+                    .esp32Id(transfer.esp32Id())
+                    .state(state.name())
+                    .ackedOffset(transfer.ackedOffset())
+                    .sizeBytes(transfer.size())
+                    .sentChunks(transfer.sentChunks())
+                    .error(transfer.error())
+                    .build());
+        }
+        String state = rollout.finishedAt == null ? "RUNNING" : rollout.cancelled ? "CANCELLED" : "COMPLETED";
+        return OtaRolloutDto.builder()
+                .id(rollout.id)
+                .version(rollout.version)
+                .state(state)
+                .createdAt(rollout.createdAt)
+                .finishedAt(rollout.finishedAt)
+                .skipped(rollout.skipped)
+                .pending(pending)
+                .active(running)
+                .succeeded(succeeded)
+                .failed(failed)
+                .transfers(transfers)
+                .build();
+    }
+
+    private Esp32Firmware findFirmware(Integer version) {
+        return firmwareRepository.findByVersionAndStatusNot(version, Esp32FirmwareEnum.DELETED.getCode())
+                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy firmware phiên bản " + version));
+    }
+
+    private Rollout findRollout(UUID rolloutId) {
+        Rollout rollout = rollouts.get(rolloutId);
+        if (rollout == null) {
+            throw new ResourceNotFoundException("Không tìm thấy đợt cập nhật firmware");
+        }
+        return rollout;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteImage(Path image) {
+        try {
+            Files.deleteIfExists(image);
+        } catch (IOException e) {
+            log.warn("Could not delete firmware image {}: {}", image, e.getMessage());
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // best effort
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import com.alpha_code.alpha_code_robot_service.dto.ClusterStatusDto;
+import com.alpha_code.alpha_code_robot_service.event.ClusterMembershipEvent;
+import com.alpha_code.alpha_code_robot_service.service.Esp32OwnershipService;
+import com.alpha_code.alpha_code_robot_service.util.ConsistentHashRing;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Splits ESP32s between replicas with a consistent-hash ring over the live members. Each replica
+ * holds a lease in a Redis sorted set (member = node id, score = lease expiry) and renews it on
+ * every heartbeat; expired leases are pruned by whoever runs next, so a crashed replica's
+ * devices move to the survivors within one lease. Renew, prune and read run as one script on
+ * Redis's clock, so clock skew between replicas cannot expire a live lease or keep a dead one. Every replica still receives every MQTT
+ * message and keeps its in-memory state and presence, so any of them can serve reads; only the
+ * owner writes to Postgres.
+ * If Redis is unreachable the last known ring is kept, which may briefly give a device two
+ * owners (duplicate writes) but never none.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class Esp32OwnershipServiceImpl implements Esp32OwnershipService {
+
+    private static final String MEMBERS_KEY = "esp32:cluster:members";
+
+    // KEYS[1] members, ARGV[1] node id, ARGV[2] lease ms; returns the live members
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> HEARTBEAT_SCRIPT = new DefaultRedisScript<>("""
+            local time = redis.call('time')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            redis.call('zadd', KEYS[1], now + tonumber(ARGV[2]), ARGV[1])
+            redis.call('zremrangebyscore', KEYS[1], '-inf', now)
+            return redis.call('zrange', KEYS[1], 0, -1)
+            """, List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private volatile ConsistentHashRing ring;
+    private String nodeId;
+
+    @Value("${esp32.cluster.enabled}")
+    private boolean enabled;
+
+    @Value("${esp32.cluster.lease-ms}")
+    private long leaseMs;
+
+    @Value("${esp32.cluster.virtual-nodes}")
+    private int virtualNodes;
+
+    @Value("${mqtt.instance-id}")
+    private String instanceId;
+
+    @PostConstruct
+    public void init() {
+        nodeId = instanceId == null || instanceId.isBlank() ? UUID.randomUUID().toString() : instanceId;
+        ring = new ConsistentHashRing(List.of(nodeId), virtualNodes);
+        if (enabled) {
+            heartbeat();
+        }
+    }
+
+    @PreDestroy
+    public void leave() {
+        if (!enabled) return;
+        try {
+            // hand devices over now instead of after the lease runs out
+            redisTemplate.opsForZSet().remove(MEMBERS_KEY, nodeId);
+        } catch (Exception e) {
+            log.warn("Could not leave cluster: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${esp32.cluster.heartbeat-interval-ms}")
+    public void heartbeat() {
+        if (!enabled) return;
+        List<?> live;
+        try {
+            live = redisTemplate.execute(HEARTBEAT_SCRIPT, List.of(MEMBERS_KEY), nodeId, String.valueOf(leaseMs));
+        } catch (Exception e) {
+            log.warn("Cluster heartbeat failed, keeping members {}: {}", ring.members(), e.getMessage());
+            return;
+        }
+        List<String> members = new ArrayList<>();
+        if (live != null) {
+            live.forEach(member -> members.add(member.toString()));
+        }
+        if (!members.contains(nodeId)) {
+            members.add(nodeId);
+        }
+        if (!members.stream().sorted().toList().equals(ring.members())) {
+            ring = new ConsistentHashRing(members, virtualNodes);
+            log.info("Cluster members changed, now {} (this node: {})", ring.members(), nodeId);
+            eventPublisher.publishEvent(new ClusterMembershipEvent(nodeId, ring.members()));
+        }
+    }
+
+    @Override
+    public boolean isOwner(UUID esp32Id) {
+        return !enabled || nodeId.equals(ring.ownerOf(esp32Id));
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public ClusterStatusDto getStatus() {
+        return new ClusterStatusDto(enabled, nodeId, ring.members());
+    }
+}
@@ -0,0 +1,170 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import com.alpha_code.alpha_code_robot_service.event.Esp32PresenceEvent;
+import com.alpha_code.alpha_code_robot_service.mqtt.Esp32Channels;
+import com.alpha_code.alpha_code_robot_service.mqtt.MqttTopicRouter;
+import com.alpha_code.alpha_code_robot_service.mqtt.MqttTrafficClass;
+import com.alpha_code.alpha_code_robot_service.service.Esp32PresenceService;
+import com.alpha_code.alpha_code_robot_service.service.MqttService;
+import com.alpha_code.alpha_code_robot_service.util.HashedWheelTimer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Online/offline tracking from the broker's Last Will ("{esp32Id}/status" = "offline") and
+ * periodic heartbeats. A heartbeat only stores a timestamp; each online ESP32 has at most one
+ * entry on a hashed timing wheel, which on expiry re-checks the timestamp and either marks the
+ * device offline or re-arms itself for the remaining time.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class Esp32PresenceServiceImpl implements Esp32PresenceService {
+
+    private static final class Presence {
+        // written under the instance lock; volatile for the lock-free readers
+        volatile long lastSeenMillis;
+        volatile boolean online;
+        volatile boolean armed;
+    }
+
+    private final MqttService mqttService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<UUID, Presence> presences = new ConcurrentHashMap<>();
+    private HashedWheelTimer timer;
+
+    @Value("${esp32.presence.heartbeat-timeout-ms}")
+    private long heartbeatTimeoutMs;
+
+    @PostConstruct
+    public void init() {
+        timer = new HashedWheelTimer("esp32-presence-timer", 1, TimeUnit.SECONDS, 256);
+        mqttService.registerChannelHandler(Esp32Channels.STATUS, MqttTrafficClass.CONTROL, this::onStatus);
+        mqttService.registerChannelHandler(Esp32Channels.HEARTBEAT, MqttTrafficClass.CONTROL, this::onHeartbeat);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.close();
+    }
+
+    @Override
+    public void touch(UUID esp32Id) {
+        Presence presence = presences.computeIfAbsent(esp32Id, id -> new Presence());
+        // lastSeen, online and armed change together so a heartbeat cannot slip between the
+        // expiry check and the offline flip
+        synchronized (presence) {
+            presence.lastSeenMillis = System.currentTimeMillis();
+            if (!presence.armed) {
+                presence.armed = true;
+                arm(esp32Id, heartbeatTimeoutMs);
+            }
+            if (!presence.online) {
+                presence.online = true;
+                log.info("ESP32 {} is online", esp32Id);
+                // published under the lock so listeners see transitions in the order they happened
+                eventPublisher.publishEvent(new Esp32PresenceEvent(esp32Id, true));
+            }
+        }
+    }
+
+    @Override
+    public void markOffline(UUID esp32Id) {
+        Presence presence = presences.computeIfAbsent(esp32Id, id -> new Presence());
+        synchronized (presence) {
+            goOffline(esp32Id, presence);
+        }
+    }
+
+    private void goOffline(UUID esp32Id, Presence presence) {
+        if (presence.online) {
+            presence.online = false;
+            log.info("ESP32 {} is offline", esp32Id);
+            eventPublisher.publishEvent(new Esp32PresenceEvent(esp32Id, false));
+        }
+    }
+
+    private void arm(UUID esp32Id, long delayMs) {
+        timer.schedule(() -> expire(esp32Id), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs on the timer thread; must stay cheap.
+     */
+    void expire(UUID esp32Id) {
+        Presence presence = presences.get(esp32Id);
+        if (presence == null) return;
+
+        synchronized (presence) {
+            long idle = System.currentTimeMillis() - presence.lastSeenMillis;
+            if (idle < heartbeatTimeoutMs) {
+                // heard from it since the entry was armed: wait for the remaining time only
+                arm(esp32Id, heartbeatTimeoutMs - idle);
+                return;
+            }
+            presence.armed = false;
+            goOffline(esp32Id, presence);
+        }
+    }
+
+    @Override
+    public boolean isOnline(UUID esp32Id) {
+        Presence presence = presences.get(esp32Id);
+        return presence != null && presence.online;
+    }
+
+    @Override
+    public boolean isOffline(UUID esp32Id) {
+        Presence presence = presences.get(esp32Id);
+        return presence != null && !presence.online;
+    }
+
+    @Override
+    public Map<UUID, Boolean> getOnlineFlags(Collection<UUID> esp32Ids) {
+        Map<UUID, Boolean> flags = new LinkedHashMap<>();
+        for (UUID id : esp32Ids) {
+            flags.put(id, isOnline(id));
+        }
+        return flags;
+    }
+
+    @Override
+    public void onStatus(String topic, String payload) {
+        UUID id = parseId(topic);
+        if (id == null) return;
+        if ("offline".equalsIgnoreCase(payload.trim())) {
+            markOffline(id);
+        } else {
+            touch(id);
+        }
+    }
+
+    @Override
+    public void onHeartbeat(String topic, String payload) {
+        UUID id = parseId(topic);
+        if (id != null) {
+            touch(id);
+        }
+    }
+
+    private static UUID parseId(String topic) {
+        try {
+            return UUID.fromString(MqttTopicRouter.prefixOf(topic));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
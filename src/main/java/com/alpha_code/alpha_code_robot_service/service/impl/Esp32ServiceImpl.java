@@ -1,25 +1,40 @@
 package com.alpha_code.alpha_code_robot_service.service.impl;
 
 import com.alpha_code.alpha_code_robot_service.dto.Esp32Dto;
+import com.alpha_code.alpha_code_robot_service.dto.Esp32StateDto;
 import com.alpha_code.alpha_code_robot_service.dto.PagedResult;
+import com.alpha_code.alpha_code_robot_service.dto.request.FanoutCommandRequest;
+import com.alpha_code.alpha_code_robot_service.dto.response.FanoutResponse;
 import com.alpha_code.alpha_code_robot_service.dto.response.VoiceResponse;
 import com.alpha_code.alpha_code_robot_service.entity.Esp32;
+import com.alpha_code.alpha_code_robot_service.event.Esp32LifecycleEvent;
+import com.alpha_code.alpha_code_robot_service.exception.ConflictException;
 import com.alpha_code.alpha_code_robot_service.exception.ResourceNotFoundException;
 import com.alpha_code.alpha_code_robot_service.mapper.Esp32Mapper;
+import com.alpha_code.alpha_code_robot_service.mqtt.Esp32Channels;
+import com.alpha_code.alpha_code_robot_service.mqtt.MqttCommandCoalescer;
+import com.alpha_code.alpha_code_robot_service.mqtt.codec.DeviceCommand;
 import com.alpha_code.alpha_code_robot_service.repository.Esp32Repository;
+import com.alpha_code.alpha_code_robot_service.service.CommandAckService;
+import com.alpha_code.alpha_code_robot_service.service.Esp32CommandQueueService;
+import com.alpha_code.alpha_code_robot_service.service.Esp32PresenceService;
 import com.alpha_code.alpha_code_robot_service.service.Esp32Service;
+import com.alpha_code.alpha_code_robot_service.service.Esp32StateService;
 import com.alpha_code.alpha_code_robot_service.service.MqttService;
+import com.alpha_code.alpha_code_robot_service.service.VoiceResponseService;
+import com.alpha_code.alpha_code_robot_service.util.Esp32Devices;
+import com.alpha_code.alpha_code_robot_service.voice.VoiceStatus;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.paho.client.mqttv3.MqttException;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -28,8 +43,14 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
@@ -38,6 +59,12 @@ public class Esp32ServiceImpl implements Esp32Service {
 
     private final Esp32Repository repository;
     private final MqttService mqttService;
+    private final Esp32StateService stateService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CommandAckService ackService;
+    private final Esp32PresenceService presenceService;
+    private final Esp32CommandQueueService commandQueueService;
+    private final VoiceResponseService voiceResponses;
 
     @Override
     @Cacheable(value = "esp32_list", key = "{#page, #size, #accountId, #name, #firmwareVersion, #status}")
@@ -69,10 +96,13 @@ public class Esp32ServiceImpl implements Esp32Service {
     public Esp32Dto create(Esp32Dto dto) {
         // ensure an account has only one esp32
         ensureSingleEsp32ForAccount(dto.getAccountId(), null);
+        ensureNoReservedDevices(dto.getMetadata());
+        Esp32Devices.ensureIndexes(dto.getMetadata(), null);
 
         var esp32 = Esp32Mapper.toEntity(dto);
         esp32.setCreatedAt(LocalDateTime.now());
         Esp32 savedEntity = repository.save(esp32);
+        eventPublisher.publishEvent(new Esp32LifecycleEvent(savedEntity.getId(), Esp32LifecycleEvent.Type.CREATED, savedEntity.getStatus()));
         return Esp32Mapper.toDto(savedEntity);
     }
 
@@ -90,6 +120,8 @@ public class Esp32ServiceImpl implements Esp32Service {
             esp32.setAccountId(dto.getAccountId());
         }
 
+        ensureNoReservedDevices(dto.getMetadata());
+        Esp32Devices.ensureIndexes(dto.getMetadata(), esp32.getMetadata());
         esp32.setName(dto.getName());
         esp32.setFirmwareVersion(dto.getFirmwareVersion());
         esp32.setMetadata(dto.getMetadata());
@@ -103,6 +135,7 @@ public class Esp32ServiceImpl implements Esp32Service {
         }
 
         Esp32 savedEntity = repository.save(esp32);
+        eventPublisher.publishEvent(new Esp32LifecycleEvent(id, Esp32LifecycleEvent.Type.STATUS_CHANGED, savedEntity.getStatus()));
         return Esp32Mapper.toDto(savedEntity);
     }
 
@@ -125,6 +158,8 @@ public class Esp32ServiceImpl implements Esp32Service {
             esp32.setFirmwareVersion(dto.getFirmwareVersion());
         }
         if (dto.getMetadata() != null) {
+            ensureNoReservedDevices(dto.getMetadata());
+            Esp32Devices.ensureIndexes(dto.getMetadata(), esp32.getMetadata());
             esp32.setMetadata(dto.getMetadata());
         }
         if (dto.getMessage() != null) {
@@ -142,6 +177,7 @@ public class Esp32ServiceImpl implements Esp32Service {
         }
 
         Esp32 savedEntity = repository.save(esp32);
+        eventPublisher.publishEvent(new Esp32LifecycleEvent(id, Esp32LifecycleEvent.Type.STATUS_CHANGED, savedEntity.getStatus()));
         return Esp32Mapper.toDto(savedEntity);
     }
 
@@ -162,6 +198,7 @@ public class Esp32ServiceImpl implements Esp32Service {
         esp32.setLastUpdated(LocalDateTime.now());
 
         Esp32 savedEntity = repository.save(esp32);
+        eventPublisher.publishEvent(new Esp32LifecycleEvent(id, Esp32LifecycleEvent.Type.STATUS_CHANGED, savedEntity.getStatus()));
         return Esp32Mapper.toDto(savedEntity);
     }
 
@@ -176,9 +213,22 @@ public class Esp32ServiceImpl implements Esp32Service {
         esp32.setLastUpdated(LocalDateTime.now());
 
         repository.save(esp32);
+        eventPublisher.publishEvent(new Esp32LifecycleEvent(id, Esp32LifecycleEvent.Type.DELETED, 0));
         return "Esp32 deleted successfully";
     }
 
+    @Override
+    @Transactional
+    @CacheEvict(value = {"esp32_list", "esp32"}, allEntries = true)
+    public void updateFirmwareVersion(UUID id, Integer firmwareVersion) {
+        var esp32 = repository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy ESP32"));
+
+        esp32.setFirmwareVersion(firmwareVersion);
+        esp32.setLastUpdated(LocalDateTime.now());
+        repository.save(esp32);
+    }
+
     /**
      * Ensure that the given accountId does not already have an Esp32 assigned to a different Esp32 id.
      * Only ESP32 with status == 1 (active) count toward the "one per account" rule.
@@ -192,17 +242,27 @@ public class Esp32ServiceImpl implements Esp32Service {
         }
     }
 
-    @PostConstruct
-    public void init() {
-        // Subscribe các topicSub trong DB khi service khởi chạy
-        repository.findAll().forEach(esp32 -> {
-            mqttService.subscribe(esp32.getId().toString(), (topic, payload) -> {
-                log.info("ESP32[{}] -> {}", esp32.getId(), payload);
+    /**
+     * Commands go to "{id}/{deviceName}", so a device named after a service channel would have its
+     * commands read back as service traffic, and would receive that traffic as commands.
+     */
+    private static void ensureNotReserved(String deviceName) {
+        if (Esp32Channels.isReserved(deviceName)) {
+            throw new IllegalArgumentException("Tên thiết bị " + deviceName + " được hệ thống dành riêng");
+        }
+    }
 
-                esp32.setMessage(payload);
-                repository.save(esp32);
-            });
-        });
+    private static void ensureNoReservedDevices(JsonNode metadata) {
+        if (metadata == null || !metadata.path("devices").isArray()) return;
+        for (JsonNode device : metadata.get("devices")) {
+            ensureNotReserved(device.path("name").asText(null));
+        }
+    }
+
+    @Override
+    public Esp32StateDto getState(UUID id) {
+        return stateService.get(id)
+                .orElseThrow(() -> new ResourceNotFoundException("ESP32 chưa gửi trạng thái nào"));
     }
 
 
@@ -217,38 +277,156 @@ public class Esp32ServiceImpl implements Esp32Service {
             throw new IllegalArgumentException("Thiết bị " + name + " không tồn tại");
         }
 
-        // 3. Gửi lệnh MQTT
-        mqttService.publish(id + "/" + name, message.toUpperCase());
+        DeviceCommand command = new DeviceCommand(message, Esp32Devices.indexOf(esp32.getMetadata(), name), null);
+
+        // 3. ESP32 ngoại tuyến (hoặc đang gửi hàng đợi cũ): xếp hàng, gửi theo thứ tự khi kết nối lại
+        if ((presenceService.isOffline(id) || commandQueueService.isDraining(id))
+                && commandQueueService.enqueue(id, name, command)) {
+            return new VoiceResponse(true, voiceResponses.status(language, VoiceStatus.QUEUED));
+        }
+        ensureNotOffline(id);
+
+        // 4. Gửi lệnh MQTT (không chờ PUBACK trên request thread)
+        String topic = id + "/" + name;
+        mqttService.publishCommand(topic, command)
+                .whenComplete((outcome, ex) -> {
+                    if (ex != null) log.error("Command to {} was not acknowledged by broker", topic, ex);
+                    else if (outcome == MqttCommandCoalescer.Outcome.COALESCED) log.debug("Command to {} superseded by a newer one", topic);
+                });
 
-        // 4. Chuẩn hóa message theo language
-        String responseMessage = localizeMessage(message, language);
+        // 5. Câu trả lời theo language, lệnh và loại thiết bị
+        String responseMessage = voiceResponses.command(language, message, name, Esp32Devices.typeOf(esp32.getMetadata(), name));
 
-        // 5. Trả về message cho robot đọc
+        // 6. Trả về message cho robot đọc
         return new VoiceResponse(true, responseMessage);
     }
 
-    private String localizeMessage(String message, String language) {
-        if ("en".equalsIgnoreCase(language)) {
-            switch (message.toLowerCase()) {
-                case "on":
-                    return "The device is turned on.";
-                case "off":
-                    return "The device is turned off.";
-                default:
-                    return message; // fallback: trả nguyên message
+    @Override
+    public CompletableFuture<VoiceResponse> sendMessageAwaitAck(UUID id, String name, String message, String language) {
+        var esp32 = repository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy ESP32"));
+
+        if (!deviceExists(id, name)) {
+            throw new IllegalArgumentException("Thiết bị " + name + " không tồn tại");
+        }
+
+        ensureNotOffline(id);
+
+        // Lệnh kèm correlation id, ESP32 trả lời trên "{id}/ack" với "{correlationId}|{status}"
+        String correlationId = ackService.newCorrelationId();
+        CompletableFuture<String> ack = ackService.register(id, correlationId);
+        try {
+            mqttService.publishCommand(id + "/" + name, new DeviceCommand(message, Esp32Devices.indexOf(esp32.getMetadata(), name), correlationId))
+                    .whenComplete((outcome, ex) -> {
+                        if (ex != null) ackService.fail(correlationId, ex);
+                        else if (outcome == MqttCommandCoalescer.Outcome.COALESCED)
+                            ackService.fail(correlationId, new CancellationException("coalesced"));
+                    });
+        } catch (RuntimeException e) {
+            ackService.fail(correlationId, e);
+            throw e;
+        }
+
+        return ack.handle((status, ex) -> {
+            if (ex == null && "OK".equalsIgnoreCase(status)) {
+                return new VoiceResponse(true, voiceResponses.command(language, message, name, Esp32Devices.typeOf(esp32.getMetadata(), name)));
+            }
+            if (ex instanceof CancellationException) {
+                // a newer command to the same device replaced this one before it was sent
+                return new VoiceResponse(false, voiceResponses.status(language, VoiceStatus.COALESCED));
             }
-        } else if ("vi".equalsIgnoreCase(language)) {
-            switch (message.toLowerCase()) {
-                case "on":
-                    return "Thiết bị đã được bật.";
-                case "off":
-                    return "Thiết bị đã được tắt.";
-                default:
-                    return message; // fallback
+            log.warn("Command {} to {}/{} failed: {}", correlationId, id, name, ex != null ? ex.getMessage() : status);
+            return new VoiceResponse(false, voiceResponses.status(language, ex != null ? VoiceStatus.NO_RESPONSE : VoiceStatus.FAILED));
+        });
+    }
+
+    @Override
+    public CompletableFuture<FanoutResponse> fanout(FanoutCommandRequest request) {
+        // 1. Resolve targets in one query
+        List<Esp32> esp32s;
+        if (request.getEsp32Ids() != null && !request.getEsp32Ids().isEmpty()) {
+            esp32s = repository.findAllByIdInAndStatusNot(request.getEsp32Ids(), 0);
+        } else if (request.getAccountId() != null) {
+            esp32s = repository.findAllByAccountIdAndStatusNot(request.getAccountId(), 0);
+        } else {
+            throw new IllegalArgumentException("Cần accountId hoặc esp32Ids");
+        }
+
+        // 2. Publish to every matching device without waiting in between
+        String command = request.getMessage();
+        List<CompletableFuture<FanoutResponse.TargetResult>> futures = new ArrayList<>();
+        Set<UUID> found = new HashSet<>();
+        for (Esp32 esp32 : esp32s) {
+            found.add(esp32.getId());
+            matchingDevices(esp32, request.getDeviceType(), request.getDeviceName()).forEach((deviceName, index) ->
+                    futures.add(publishToTarget(esp32.getId(), deviceName, new DeviceCommand(command, index, null))));
+        }
+        if (request.getEsp32Ids() != null) {
+            for (UUID id : request.getEsp32Ids()) {
+                if (found.add(id)) {
+                    futures.add(CompletableFuture.completedFuture(
+                            new FanoutResponse.TargetResult(id, null, false, "Không tìm thấy ESP32")));
+                }
             }
         }
 
-        return message; // default fallback
+        // 3. Aggregate once every broker ack (or failure) is in
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    List<FanoutResponse.TargetResult> results = futures.stream().map(CompletableFuture::join).toList();
+                    int succeeded = (int) results.stream().filter(FanoutResponse.TargetResult::isSuccess).count();
+                    return new FanoutResponse(results.size(), succeeded, results.size() - succeeded, results);
+                });
+    }
+
+    private CompletableFuture<FanoutResponse.TargetResult> publishToTarget(UUID esp32Id, String deviceName, DeviceCommand command) {
+        if (presenceService.isOffline(esp32Id)) {
+            return CompletableFuture.completedFuture(
+                    new FanoutResponse.TargetResult(esp32Id, deviceName, false, "ESP32 đang ngoại tuyến"));
+        }
+        try {
+            return mqttService.publishCommand(esp32Id + "/" + deviceName, command)
+                    .handle((ignored, ex) -> new FanoutResponse.TargetResult(
+                            esp32Id, deviceName, ex == null, ex == null ? null : ex.getMessage()));
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(
+                    new FanoutResponse.TargetResult(esp32Id, deviceName, false, e.getMessage()));
+        }
+    }
+
+    /**
+     * @return matching device names mapped to their stable index
+     */
+    private Map<String, Integer> matchingDevices(Esp32 esp32, String deviceType, String deviceName) {
+        JsonNode metadata = esp32.getMetadata();
+        if (metadata == null || metadata.get("devices") == null || !metadata.get("devices").isArray())
+            return Map.of();
+
+        Map<String, Integer> names = new LinkedHashMap<>();
+        int index = 0;
+        for (JsonNode device : metadata.get("devices")) {
+            int current = index++;
+            String name = device.path("name").asText(null);
+            if (name == null) continue;
+            if (deviceName != null && !deviceName.equalsIgnoreCase(name)) continue;
+            if (deviceType != null && !deviceType.equalsIgnoreCase(device.path("type").asText())) continue;
+            names.put(name, Esp32Devices.indexOf(device, current));
+        }
+        return names;
+    }
+
+    /**
+     * Fail fast instead of publishing into the void when the ESP32 is known to be offline.
+     */
+    private void ensureNotOffline(UUID id) {
+        if (presenceService.isOffline(id)) {
+            throw new ConflictException("ESP32 đang ngoại tuyến");
+        }
+    }
+
+    @Override
+    public Map<UUID, Boolean> getPresence(List<UUID> ids) {
+        return presenceService.getOnlineFlags(ids);
     }
 
 
@@ -300,6 +478,8 @@ public class Esp32ServiceImpl implements Esp32Service {
             ((ObjectNode) root).set("devices", devicesNode);
         }
 
+        ensureNotReserved(name);
+
         // check trùng
         if (deviceExists(id, name)) {
             throw new IllegalArgumentException("Thiết bị " + name + " đã tồn tại");
@@ -309,6 +489,7 @@ public class Esp32ServiceImpl implements Esp32Service {
         ObjectNode dev = mapper.createObjectNode();
         dev.put("name", name);
         dev.put("type", type.toLowerCase());
+        Esp32Devices.assignIndex((ObjectNode) root, dev);
 
         devicesNode.add(dev);
 
@@ -329,6 +510,8 @@ public class Esp32ServiceImpl implements Esp32Service {
         if (root == null || root.get("devices") == null)
             return Esp32Mapper.toDto(esp32);
 
+        // the devices that stay keep the indexes they had before this removal
+        Esp32Devices.ensureIndexes(root, null);
         ArrayNode devicesNode = (ArrayNode) root.get("devices");
         ArrayNode newList = mapper.createArrayNode();
 
@@ -351,6 +534,9 @@ public class Esp32ServiceImpl implements Esp32Service {
     public Esp32Dto updateDevice(UUID id, String name, String newName, String newType) {
         var esp32 = repository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy ESP32"));
+        if (newName != null) {
+            ensureNotReserved(newName);
+        }
         JsonNode root = esp32.getMetadata();
         ArrayNode devicesNode = (ArrayNode) root.get("devices");
 
@@ -373,4 +559,11 @@ public class Esp32ServiceImpl implements Esp32Service {
         return Esp32Mapper.toDto(esp32);
     }
 
+    @Override
+    public boolean isOwnedBy(UUID id, UUID accountId) {
+        if (accountId == null) return false;
+        return repository.findById(id)
+                .map(esp32 -> accountId.equals(esp32.getAccountId()))
+                .orElse(false);
+    }
 }
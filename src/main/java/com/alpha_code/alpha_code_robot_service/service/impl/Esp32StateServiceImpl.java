@@ -0,0 +1,74 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import com.alpha_code.alpha_code_robot_service.dto.Esp32StateDto;
+import com.alpha_code.alpha_code_robot_service.event.Esp32LifecycleEvent;
+import com.alpha_code.alpha_code_robot_service.service.Esp32StateService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live state of every ESP32 that has sent something since startup. MQTT ingest is the only
+ * writer; reads never touch Postgres, which only receives the write-behind snapshots.
+ * Entries go away with their ESP32, and any UUID topic can create one, so the map is capped:
+ * a new ESP32 beyond max-entries evicts the one seen least recently.
+ */
+@Slf4j
+@Service
+public class Esp32StateServiceImpl implements Esp32StateService {
+
+    private record LiveState(String message, LocalDateTime lastSeen, long messageCount) {
+    }
+
+    private final Map<UUID, LiveState> states = new ConcurrentHashMap<>();
+
+    @Value("${esp32.state.max-entries}")
+    private int maxEntries;
+
+    @Override
+    public void record(UUID esp32Id, String message) {
+        if (states.size() >= maxEntries && !states.containsKey(esp32Id)) {
+            evictOldest();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        states.compute(esp32Id, (id, prev) ->
+                new LiveState(message, now, prev == null ? 1 : prev.messageCount() + 1));
+    }
+
+    @Override
+    public Optional<Esp32StateDto> get(UUID esp32Id) {
+        LiveState state = states.get(esp32Id);
+        if (state == null) return Optional.empty();
+        return Optional.of(new Esp32StateDto(esp32Id, state.message(), state.lastSeen(), state.messageCount()));
+    }
+
+    @Override
+    public int size() {
+        return states.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLifecycle(Esp32LifecycleEvent event) {
+        if (event.type() == Esp32LifecycleEvent.Type.DELETED) {
+            states.remove(event.esp32Id());
+        }
+    }
+
+    // a full scan, but only when an unseen ESP32 arrives at the cap
+    private void evictOldest() {
+        states.entrySet().stream()
+                .min(Comparator.comparing(entry -> entry.getValue().lastSeen()))
+                .ifPresent(oldest -> {
+                    states.remove(oldest.getKey(), oldest.getValue());
+                    log.debug("Evicted live state of ESP32 {} (cap {})", oldest.getKey(), maxEntries);
+                });
+    }
+}
@@ -0,0 +1,75 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import com.alpha_code.alpha_code_robot_service.event.Esp32LifecycleEvent;
+import com.alpha_code.alpha_code_robot_service.repository.Esp32Repository;
+import com.alpha_code.alpha_code_robot_service.service.Esp32IngestService;
+import com.alpha_code.alpha_code_robot_service.service.Esp32SubscriptionRegistry;
+import com.alpha_code.alpha_code_robot_service.service.MqttService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Set of ESP32s whose inbound traffic is handled. Subscribing only registers a route on the
+ * wildcard ingest subscription, so it follows create / status change / delete immediately and
+ * without a broker round trip; messages from unknown or soft-deleted ESP32s are dropped.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class Esp32SubscriptionRegistryImpl implements Esp32SubscriptionRegistry {
+
+    private final Esp32Repository repository;
+    private final MqttService mqttService;
+    private final Esp32IngestService ingestService;
+
+    private final Set<UUID> subscriptions = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        // only ids are loaded, no entity or jsonb metadata
+        repository.findActiveIds().forEach(this::subscribe);
+        log.info("✅ Routing MQTT ingest for {} ESP32s", subscriptions.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLifecycle(Esp32LifecycleEvent event) {
+        if (event.isActive()) {
+            subscribe(event.esp32Id());
+        } else {
+            unsubscribe(event.esp32Id());
+        }
+    }
+
+    @Override
+    public void subscribe(UUID esp32Id) {
+        if (subscriptions.add(esp32Id)) {
+            mqttService.registerHandler(esp32Id.toString(), ingestService::onMessage);
+            log.debug("Subscribed ESP32 {}", esp32Id);
+        }
+    }
+
+    @Override
+    public void unsubscribe(UUID esp32Id) {
+        if (subscriptions.remove(esp32Id)) {
+            mqttService.unregisterHandler(esp32Id.toString());
+            log.debug("Unsubscribed ESP32 {}", esp32Id);
+        }
+    }
+
+    @Override
+    public boolean isSubscribed(UUID esp32Id) {
+        return subscriptions.contains(esp32Id);
+    }
+
+    @Override
+    public Set<UUID> getSubscriptions() {
+        return Set.copyOf(subscriptions);
+    }
+}
@@ -0,0 +1,196 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import com.alpha_code.alpha_code_robot_service.service.Esp32TelemetryMaintenanceService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Owns the layout of the telemetry tables. Raw samples go to "esp32_telemetry", range-partitioned
+ * by day so retention is a DROP TABLE per expired day instead of a large DELETE; a default
+ * partition catches rows if partition creation ever falls behind. "esp32_telemetry_hourly" keeps
+ * one row per ESP32 and hour (sample count and last message) for long-range queries. JPA cannot
+ * declare partitioned tables, so the DDL lives here and is applied at startup.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class Esp32TelemetryMaintenanceServiceImpl implements Esp32TelemetryMaintenanceService {
+
+    static final String TABLE = "esp32_telemetry";
+    static final String HOURLY_TABLE = "esp32_telemetry_hourly";
+
+    private static final String PARTITION_PREFIX = TABLE + "_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+    // arbitrary constant shared by all replicas for pg_try_advisory_lock
+    private static final long MAINTENANCE_LOCK_KEY = 0x45535033_32544CL;
+
+    private static final List<String> SCHEMA_DDL = List.of(
+            "CREATE TABLE IF NOT EXISTS " + TABLE + " ("
+                    + "esp32_id uuid NOT NULL, "
+                    + "recorded_at timestamp NOT NULL, "
+                    + "message text NOT NULL"
+                    + ") PARTITION BY RANGE (recorded_at)",
+            "CREATE INDEX IF NOT EXISTS idx_esp32_telemetry_device_time ON " + TABLE + " (esp32_id, recorded_at)",
+            "CREATE TABLE IF NOT EXISTS " + TABLE + "_default PARTITION OF " + TABLE + " DEFAULT",
+            "CREATE TABLE IF NOT EXISTS " + HOURLY_TABLE + " ("
+                    + "esp32_id uuid NOT NULL, "
+                    + "bucket timestamp NOT NULL, "
+                    + "sample_count bigint NOT NULL, "
+                    + "last_message text NOT NULL, "
+                    + "PRIMARY KEY (esp32_id, bucket))"
+    );
+
+    private static final String ROLLUP_SQL =
+            "INSERT INTO " + HOURLY_TABLE + " (esp32_id, bucket, sample_count, last_message) "
+                    + "SELECT esp32_id, date_trunc('hour', recorded_at), count(*), "
+                    + "(array_agg(message ORDER BY recorded_at DESC))[1] "
+                    + "FROM " + TABLE + " WHERE recorded_at >= ? AND recorded_at < ? "
+                    + "GROUP BY esp32_id, date_trunc('hour', recorded_at) "
+                    + "ON CONFLICT (esp32_id, bucket) DO UPDATE "
+                    + "SET sample_count = EXCLUDED.sample_count, last_message = EXCLUDED.last_message";
+
+    private static final String LIST_PARTITIONS_SQL =
+            "SELECT c.relname FROM pg_inherits i "
+                    + "JOIN pg_class c ON c.oid = i.inhrelid "
+                    + "JOIN pg_class p ON p.oid = i.inhparent "
+                    + "WHERE p.relname = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${esp32.telemetry.partitions-ahead}")
+    private int partitionsAhead;
+
+    @Value("${esp32.telemetry.raw-retention-days}")
+    private int rawRetentionDays;
+
+    @Value("${esp32.telemetry.hourly-retention-days}")
+    private int hourlyRetentionDays;
+
+    // hours re-aggregated on every run, so late samples still land in their bucket
+    @Value("${esp32.telemetry.rollup-lookback-hours}")
+    private int rollupLookbackHours;
+
+    @PostConstruct
+    public void init() {
+        try {
+            SCHEMA_DDL.forEach(jdbcTemplate::execute);
+            ensurePartitions(LocalDate.now());
+        } catch (Exception e) {
+            // không chặn khởi động; lần maintain() kế tiếp sẽ thử lại
+            log.error("❌ Failed to prepare telemetry tables", e);
+        }
+    }
+
+    @Override
+    @Scheduled(cron = "${esp32.telemetry.maintenance-cron}")
+    public void maintain() {
+        Boolean ran = jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+            if (!tryLock(con)) return false;
+            try {
+                LocalDateTime now = LocalDateTime.now();
+                SCHEMA_DDL.forEach(jdbcTemplate::execute);
+                ensurePartitions(now.toLocalDate());
+                int rolled = rollup(now);
+                int dropped = dropExpiredPartitions(now.toLocalDate());
+                int pruned = pruneHourly(now);
+                log.info("Telemetry maintenance: {} hourly rows rolled up, {} partitions dropped, {} hourly rows pruned",
+                        rolled, dropped, pruned);
+                return true;
+            } finally {
+                try (PreparedStatement ps = con.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+                    ps.setLong(1, MAINTENANCE_LOCK_KEY);
+                    ps.execute();
+                }
+            }
+        });
+        if (!Boolean.TRUE.equals(ran)) {
+            log.debug("Telemetry maintenance is running on another replica");
+        }
+    }
+
+    void ensurePartitions(LocalDate today) {
+        for (int d = 0; d <= partitionsAhead; d++) {
+            LocalDate day = today.plusDays(d);
+            try {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(day)
+                        + " PARTITION OF " + TABLE
+                        + " FOR VALUES FROM ('" + day.atStartOfDay() + "') TO ('" + day.plusDays(1).atStartOfDay() + "')");
+            } catch (Exception e) {
+                // e.g. rows for that day already sit in the default partition
+                log.error("❌ Failed to create telemetry partition for {}", day, e);
+            }
+        }
+    }
+
+    int rollup(LocalDateTime now) {
+        LocalDateTime currentHour = now.truncatedTo(ChronoUnit.HOURS);
+        // includes the running hour so hourly queries see it too; it is recomputed next run
+        return jdbcTemplate.update(ROLLUP_SQL,
+                Timestamp.valueOf(currentHour.minusHours(rollupLookbackHours)),
+                Timestamp.valueOf(currentHour.plusHours(1)));
+    }
+
+    int dropExpiredPartitions(LocalDate today) {
+        LocalDate cutoff = today.minusDays(rawRetentionDays);
+        int dropped = 0;
+        for (String name : jdbcTemplate.queryForList(LIST_PARTITIONS_SQL, String.class, TABLE)) {
+            LocalDate day = partitionDay(name);
+            if (day != null && day.isBefore(cutoff)) {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + name);
+                dropped++;
+            }
+        }
+        jdbcTemplate.update("DELETE FROM " + TABLE + "_default WHERE recorded_at < ?",
+                Timestamp.valueOf(cutoff.atStartOfDay()));
+        return dropped;
+    }
+
+    int pruneHourly(LocalDateTime now) {
+        return jdbcTemplate.update("DELETE FROM " + HOURLY_TABLE + " WHERE bucket < ?",
+                Timestamp.valueOf(now.truncatedTo(ChronoUnit.DAYS).minusDays(hourlyRetentionDays)));
+    }
+
+    static String partitionName(LocalDate day) {
+        return PARTITION_PREFIX + day.format(PARTITION_SUFFIX);
+    }
+
+    /**
+     * @return the day of a daily partition, or null for the default partition and foreign tables
+     */
+    static LocalDate partitionDay(String name) {
+        if (!name.startsWith(PARTITION_PREFIX)) return null;
+        try {
+            return LocalDate.parse(name.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static boolean tryLock(Connection con) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            ps.setLong(1, MAINTENANCE_LOCK_KEY);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+}
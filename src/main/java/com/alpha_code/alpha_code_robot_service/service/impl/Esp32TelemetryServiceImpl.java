@@ -0,0 +1,235 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import com.alpha_code.alpha_code_robot_service.service.Esp32TelemetryMaintenanceService;
+import com.alpha_code.alpha_code_robot_service.service.Esp32TelemetryService;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Appends every inbound ESP32 message to the telemetry table. Samples wait in a bounded queue and
+ * are written with JDBC batch inserts every flush interval, or early once a full batch is queued;
+ * with "reWriteBatchedInserts=true" on the JDBC URL the driver turns each batch into multi-row
+ * INSERTs. Reads stream straight from a server-side cursor to the response.
+ */
+@Slf4j
+@Service
+public class Esp32TelemetryServiceImpl implements Esp32TelemetryService {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO " + Esp32TelemetryMaintenanceServiceImpl.TABLE + " (esp32_id, recorded_at, message) VALUES (?, ?, ?)";
+
+    private static final String RAW_RANGE_SQL =
+            "SELECT recorded_at, message FROM " + Esp32TelemetryMaintenanceServiceImpl.TABLE
+                    + " WHERE esp32_id = ? AND recorded_at >= ? AND recorded_at < ? ORDER BY recorded_at";
+
+    private static final String HOURLY_RANGE_SQL =
+            "SELECT bucket, sample_count, last_message FROM " + Esp32TelemetryMaintenanceServiceImpl.HOURLY_TABLE
+                    + " WHERE esp32_id = ? AND bucket >= ? AND bucket < ? ORDER BY bucket";
+
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    // the servlet container owns the response stream
+    private static final JsonFactory JSON = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    record Sample(UUID esp32Id, LocalDateTime recordedAt, String message) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTx;
+    private final BlockingQueue<Sample> queue;
+    private final int batchSize;
+    private final int maxRangeDays;
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "esp32-telemetry-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * @param maintenanceService only injected so the tables exist before the first flush
+     */
+    public Esp32TelemetryServiceImpl(JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     Esp32TelemetryMaintenanceService maintenanceService,
+                                     @Value("${esp32.telemetry.queue-capacity}") int queueCapacity,
+                                     @Value("${esp32.telemetry.batch-size}") int batchSize,
+                                     @Value("${esp32.telemetry.max-range-days}") int maxRangeDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.maxRangeDays = maxRangeDays;
+    }
+
+    @Override
+    public void record(UUID esp32Id, String message) {
+        if (!queue.offer(new Sample(esp32Id, LocalDateTime.now(), message))) {
+            // telemetry is lossy under overload rather than stalling the ingest threads
+            dropped.incrementAndGet();
+            return;
+        }
+
+        if (queue.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            flushExecutor.execute(() -> {
+                flushRequested.set(false);
+                flush();
+            });
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${esp32.telemetry.flush-interval-ms}")
+    public synchronized int flush() {
+        int written = 0;
+        List<Sample> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            try {
+                insert(batch);
+                written += batch.size();
+                batch.clear();
+            } catch (Exception e) {
+                log.error("❌ Failed to write {} telemetry samples, will retry", batch.size(), e);
+                requeue(batch);
+                break;
+            }
+        }
+        if (written > 0) log.debug("Wrote {} telemetry samples", written);
+        return written;
+    }
+
+    @Override
+    public int pendingCount() {
+        return queue.size();
+    }
+
+    @Override
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    @Override
+    public StreamingResponseBody streamRange(UUID esp32Id, LocalDateTime from, LocalDateTime to, String resolution) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("Khoảng thời gian không hợp lệ: 'from' phải trước 'to'");
+        }
+        if (Duration.between(from, to).toDays() >= maxRangeDays) {
+            throw new IllegalArgumentException("Khoảng thời gian tối đa là " + maxRangeDays + " ngày");
+        }
+        boolean hourly;
+        if ("raw".equalsIgnoreCase(resolution)) {
+            hourly = false;
+        } else if ("hourly".equalsIgnoreCase(resolution)) {
+            hourly = true;
+        } else {
+            throw new IllegalArgumentException("resolution phải là 'raw' hoặc 'hourly'");
+        }
+
+        return out -> {
+            try {
+                // PostgreSQL only uses a cursor (fetch size) inside a transaction
+                readOnlyTx.executeWithoutResult(status -> query(esp32Id, from, to, hourly, out));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdown();
+        flush();
+    }
+
+    private void insert(List<Sample> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Sample sample = batch.get(i);
+                ps.setObject(1, sample.esp32Id());
+                ps.setTimestamp(2, Timestamp.valueOf(sample.recordedAt()));
+                ps.setString(3, sample.message());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return batch.size();
+            }
+        });
+    }
+
+    private void requeue(List<Sample> batch) {
+        for (Sample sample : batch) {
+            if (!queue.offer(sample)) dropped.incrementAndGet();
+        }
+    }
+
+    private void query(UUID esp32Id, LocalDateTime from, LocalDateTime to, boolean hourly, OutputStream out) {
+        long[] rows = new long[1];
+        try (JsonGenerator json = JSON.createGenerator(out)) {
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(hourly ? HOURLY_RANGE_SQL : RAW_RANGE_SQL);
+                ps.setFetchSize(STREAM_FETCH_SIZE);
+                ps.setObject(1, esp32Id);
+                ps.setTimestamp(2, Timestamp.valueOf(from));
+                ps.setTimestamp(3, Timestamp.valueOf(to));
+                return ps;
+            }, rs -> {
+                try {
+                    json.writeStartObject();
+                    if (hourly) {
+                        json.writeStringField("bucket", rs.getTimestamp(1).toLocalDateTime().toString());
+                        json.writeNumberField("count", rs.getLong(2));
+                        json.writeStringField("lastMessage", rs.getString(3));
+                    } else {
+                        json.writeStringField("recordedAt", rs.getTimestamp(1).toLocalDateTime().toString());
+                        json.writeStringField("message", rs.getString(2));
+                    }
+                    json.writeEndObject();
+                    json.writeRaw('\n');
+                    if (++rows[0] % STREAM_FETCH_SIZE == 0) json.flush();
+                } catch (IOException e) {
+                    // client went away; abort the query instead of reading the rest of the range
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
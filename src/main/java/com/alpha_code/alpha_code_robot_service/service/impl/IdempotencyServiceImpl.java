@@ -0,0 +1,209 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import com.alpha_code.alpha_code_robot_service.exception.ConflictException;
+import com.alpha_code.alpha_code_robot_service.service.IdempotencyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key store: a local LRU in front of Redis. A retry that lands on the same replica is
+ * answered from memory, one on another replica costs a single Redis GET; neither touches
+ * Postgres or the broker. In Redis the key holds "P|{fingerprint}" while the first call runs
+ * (so two replicas cannot both run it) and "D|{fingerprint}\n{json}" once it finished. Redis
+ * writes after completion run off the completing thread, which may be the MQTT ack timer.
+ * If Redis is down, keys are only deduplicated per replica.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final String KEY_PREFIX = "idempotency:";
+    private static final String PENDING = "P|";
+    private static final String DONE = "D|";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private record Stored(String fingerprint, Object value, long expiresAt) {
+    }
+
+    private record InFlight(String fingerprint, CompletableFuture<Object> future) {
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private Map<String, Stored> local;
+    private ExecutorService storeExecutor;
+
+    @Value("${esp32.idempotency.ttl-ms}")
+    private long ttlMs;
+
+    // upper bound for a call to finish before another replica may run the key again
+    @Value("${esp32.idempotency.pending-ttl-ms}")
+    private long pendingTtlMs;
+
+    @Value("${esp32.idempotency.local-capacity}")
+    private int localCapacity;
+
+    @PostConstruct
+    public void init() {
+        local = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Stored> eldest) {
+                return size() > localCapacity;
+            }
+        };
+        storeExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "idempotency-store");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        storeExecutor.shutdown();
+    }
+
+    @Override
+    public <T> CompletableFuture<T> execute(String operation, String key, String fingerprint, Class<T> type,
+                                            Supplier<CompletableFuture<T>> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key không hợp lệ (1-" + MAX_KEY_LENGTH + " ký tự)");
+        }
+        String storeKey = KEY_PREFIX + operation + ":" + key;
+        String digest = UUID.nameUUIDFromBytes(fingerprint.getBytes(StandardCharsets.UTF_8)).toString();
+
+        Stored stored = localGet(storeKey);
+        if (stored != null) {
+            checkFingerprint(stored.fingerprint(), digest);
+            return CompletableFuture.completedFuture(type.cast(stored.value()));
+        }
+
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        InFlight running = inFlight.putIfAbsent(storeKey, new InFlight(digest, result));
+        if (running != null) {
+            checkFingerprint(running.fingerprint(), digest);
+            return running.future().thenApply(type::cast);
+        }
+
+        try {
+            T replayed = claimOrReplay(storeKey, digest, type);
+            if (replayed != null) {
+                inFlight.remove(storeKey);
+                localPut(storeKey, new Stored(digest, replayed, System.currentTimeMillis() + ttlMs));
+                result.complete(replayed);
+                return CompletableFuture.completedFuture(replayed);
+            }
+        } catch (RuntimeException e) {
+            inFlight.remove(storeKey);
+            result.completeExceptionally(e);
+            throw e;
+        }
+
+        CompletableFuture<T> call;
+        try {
+            call = action.get();
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        call.whenComplete((value, ex) -> {
+            if (ex == null) {
+                localPut(storeKey, new Stored(digest, value, System.currentTimeMillis() + ttlMs));
+            }
+            inFlight.remove(storeKey);
+            storeExecutor.execute(() -> persist(storeKey, digest, value, ex));
+            if (ex != null) {
+                result.completeExceptionally(ex);
+            } else {
+                result.complete(value);
+            }
+        });
+        return call;
+    }
+
+    /**
+     * @return the stored response of a finished call, or null once this replica owns the key
+     */
+    private <T> T claimOrReplay(String storeKey, String digest, Class<T> type) {
+        try {
+            // two rounds: the stored value may expire between SETNX and GET
+            for (int attempt = 0; attempt < 2; attempt++) {
+                Boolean claimed = redisTemplate.opsForValue()
+                        .setIfAbsent(storeKey, PENDING + digest, Duration.ofMillis(pendingTtlMs));
+                if (Boolean.TRUE.equals(claimed)) return null;
+
+                String value = redisTemplate.opsForValue().get(storeKey);
+                if (value == null) continue;
+                if (value.startsWith(PENDING)) {
+                    checkFingerprint(value.substring(PENDING.length()), digest);
+                    throw new ConflictException("Yêu cầu với Idempotency-Key này đang được xử lý");
+                }
+                int sep = value.indexOf('\n');
+                checkFingerprint(value.substring(DONE.length(), sep), digest);
+                return objectMapper.readValue(value.substring(sep + 1), type);
+            }
+            return null;
+        } catch (ConflictException | IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            log.warn("Idempotency store unavailable, deduplicating {} on this replica only: {}", storeKey, e.getMessage());
+            return null;
+        }
+    }
+
+    private void persist(String storeKey, String digest, Object value, Throwable failure) {
+        try {
+            if (failure != null) {
+                // let the client retry with the same key
+                redisTemplate.delete(storeKey);
+            } else {
+                redisTemplate.opsForValue().set(storeKey, DONE + digest + "\n" + objectMapper.writeValueAsString(value),
+                        Duration.ofMillis(ttlMs));
+            }
+        } catch (Exception e) {
+            log.warn("Could not store idempotent response for {}: {}", storeKey, e.getMessage());
+        }
+    }
+
+    private static void checkFingerprint(String stored, String digest) {
+        if (!stored.equals(digest)) {
+            throw new IllegalArgumentException("Idempotency-Key đã được dùng cho một yêu cầu khác");
+        }
+    }
+
+    private Stored localGet(String storeKey) {
+        synchronized (local) {
+            Stored stored = local.get(storeKey);
+            if (stored != null && stored.expiresAt() < System.currentTimeMillis()) {
+                local.remove(storeKey);
+                return null;
+            }
+            return stored;
+        }
+    }
+
+    private void localPut(String storeKey, Stored stored) {
+        synchronized (local) {
+            local.put(storeKey, stored);
+        }
+    }
+}
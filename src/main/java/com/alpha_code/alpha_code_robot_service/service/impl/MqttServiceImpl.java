@@ -1,25 +1,86 @@
 package com.alpha_code.alpha_code_robot_service.service.impl;
 
+import com.alpha_code.alpha_code_robot_service.dto.MqttLaneStatsDto;
+import com.alpha_code.alpha_code_robot_service.dto.MqttStatsDto;
+import com.alpha_code.alpha_code_robot_service.exception.MqttBackpressureException;
+import com.alpha_code.alpha_code_robot_service.mqtt.MqttCommandCoalescer;
+import com.alpha_code.alpha_code_robot_service.mqtt.MqttConnectionManager;
+import com.alpha_code.alpha_code_robot_service.mqtt.MqttInboundDispatcher;
+import com.alpha_code.alpha_code_robot_service.mqtt.MqttMetrics;
+import com.alpha_code.alpha_code_robot_service.mqtt.MqttPublishWindow;
+import com.alpha_code.alpha_code_robot_service.mqtt.MqttTopicRouter;
+import com.alpha_code.alpha_code_robot_service.mqtt.MqttTrafficClass;
+import com.alpha_code.alpha_code_robot_service.mqtt.MqttTrafficLane;
+import com.alpha_code.alpha_code_robot_service.mqtt.codec.BinaryFrameCodec;
+import com.alpha_code.alpha_code_robot_service.mqtt.codec.ByteBufferPool;
+import com.alpha_code.alpha_code_robot_service.mqtt.codec.DeviceCommand;
+import com.alpha_code.alpha_code_robot_service.mqtt.codec.MqttPayloadCodec;
+import com.alpha_code.alpha_code_robot_service.mqtt.codec.MqttPayloadFormat;
+import com.alpha_code.alpha_code_robot_service.mqtt.codec.TextPayloadCodec;
+import com.alpha_code.alpha_code_robot_service.mqtt.persistence.BoundedMemoryPersistence;
+import com.alpha_code.alpha_code_robot_service.mqtt.persistence.MappedRingFilePersistence;
+import com.alpha_code.alpha_code_robot_service.mqtt.persistence.MqttPersistenceMode;
 import com.alpha_code.alpha_code_robot_service.service.MqttService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import lombok.extern.slf4j.Slf4j;
-import org.eclipse.paho.client.mqttv3.IMqttClient;
-import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttClientPersistence;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
 import org.eclipse.paho.client.mqttv3.MqttMessage;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 
 @Slf4j
 @Service
 public class MqttServiceImpl implements MqttService {
 
-    private IMqttClient client;
+    private final MqttMetrics metrics;
+
+    // one connection, publish window and dispatcher per traffic class
+    private final Map<MqttTrafficClass, MqttTrafficLane> lanes = new EnumMap<>(MqttTrafficClass.class);
+
+    private final MqttTopicRouter router = new MqttTopicRouter();
+
+    private String baseClientId;
+
+    // null when coalescing is disabled
+    private MqttCommandCoalescer coalescer;
+
+    private ExecutorService coalesceFlushExecutor;
+
+    private MqttPayloadCodec codec;
+
+    // scratch space for encoding; Paho keeps the published array, so frames are copied out once
+    private final ByteBufferPool encodeBuffers = new ByteBufferPool(64, 256);
+
+    private final Map<String, BiConsumer<String, byte[]>> rawChannelHandlers = new ConcurrentHashMap<>();
 
     @Value("${mqtt.broker}")
     private String brokerUrl;
@@ -27,46 +88,245 @@ public class MqttServiceImpl implements MqttService {
     @Value("${mqtt.clientId}")
     private String clientId;
 
+    @Value("${mqtt.instance-id}")
+    private String instanceId;
+
+    @Value("${mqtt.clean-session}")
+    private boolean cleanSession;
+
+    @Value("${mqtt.ingest-topics}")
+    private String[] ingestTopics;
+
+    @Value("${mqtt.persistence.mode}")
+    private MqttPersistenceMode persistenceMode;
+
+    @Value("${mqtt.persistence.memory-capacity}")
+    private int persistenceMemoryCapacity;
+
+    @Value("${mqtt.persistence.dir}")
+    private String persistenceDir;
+
+    @Value("${mqtt.persistence.file-size-bytes}")
+    private int persistenceFileSize;
+
+    @Value("${mqtt.reconnect.initial-backoff-ms}")
+    private long initialBackoffMs;
+
+    @Value("${mqtt.reconnect.max-backoff-ms}")
+    private long maxBackoffMs;
+
+    @Value("${mqtt.publish.acquire-timeout-ms}")
+    private long acquireTimeoutMs;
+
+    @Value("${mqtt.publish.timeout-ms}")
+    private long publishTimeoutMs;
+
+    @Value("${mqtt.dispatch.queue-capacity}")
+    private int dispatchQueueCapacity;
+
+    @Value("${mqtt.dispatch.overflow-policy}")
+    private MqttInboundDispatcher.OverflowPolicy dispatchOverflowPolicy;
+
+    @Value("${mqtt.coalesce.window-ms}")
+    private long coalesceWindowMs;
+
+    @Value("${mqtt.codec.format}")
+    private MqttPayloadFormat payloadFormat;
+
+    @Value("${mqtt.traffic.telemetry.qos}")
+    private int telemetryQos;
+
+    @Value("${mqtt.traffic.telemetry.max-in-flight}")
+    private int telemetryMaxInFlight;
+
+    @Value("${mqtt.traffic.telemetry.priority}")
+    private int telemetryPriority;
+
+    @Value("${mqtt.traffic.telemetry.stripes}")
+    private int telemetryStripes;
+
+    @Value("${mqtt.traffic.command.qos}")
+    private int commandQos;
+
+    @Value("${mqtt.traffic.command.max-in-flight}")
+    private int commandMaxInFlight;
+
+    @Value("${mqtt.traffic.command.priority}")
+    private int commandPriority;
+
+    @Value("${mqtt.traffic.command.stripes}")
+    private int commandStripes;
+
+    @Value("${mqtt.traffic.control.qos}")
+    private int controlQos;
+
+    @Value("${mqtt.traffic.control.max-in-flight}")
+    private int controlMaxInFlight;
+
+    @Value("${mqtt.traffic.control.priority}")
+    private int controlPriority;
+
+    @Value("${mqtt.traffic.control.stripes}")
+    private int controlStripes;
+
+    public MqttServiceImpl(MeterRegistry meterRegistry) {
+        this.metrics = new MqttMetrics(meterRegistry);
+    }
+
     @PostConstruct
     public void init() {
+        codec = switch (payloadFormat) {
+            case TEXT -> new TextPayloadCodec();
+            case BINARY -> new BinaryFrameCodec();
+        };
+        if (coalesceWindowMs > 0) {
+            // one thread keeps trailing sends in window order
+            coalesceFlushExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "mqtt-coalesce-flush");
+                t.setDaemon(true);
+                return t;
+            });
+            coalescer = new MqttCommandCoalescer(
+                    (topic, frame) -> publishBytes(lane(MqttTrafficClass.COMMAND), topic, frame),
+                    coalesceFlushExecutor, coalesceWindowMs);
+        }
+        // stable identity: the same client ids are reused for every reconnect of this instance
+        baseClientId = clientId + "-" + resolveInstanceId();
+        lanes.put(MqttTrafficClass.TELEMETRY, createLane(MqttTrafficClass.TELEMETRY,
+                new MqttTrafficLane.Settings(telemetryQos, telemetryMaxInFlight, telemetryPriority, telemetryStripes)));
+        lanes.put(MqttTrafficClass.COMMAND, createLane(MqttTrafficClass.COMMAND,
+                new MqttTrafficLane.Settings(commandQos, commandMaxInFlight, commandPriority, commandStripes)));
+        lanes.put(MqttTrafficClass.CONTROL, createLane(MqttTrafficClass.CONTROL,
+                new MqttTrafficLane.Settings(controlQos, controlMaxInFlight, controlPriority, controlStripes)));
+
+        // One wildcard SUBSCRIBE per configured filter, independent of how many ESP32s exist
+        MqttTrafficLane telemetry = lane(MqttTrafficClass.TELEMETRY);
+        for (String topic : ingestTopics) {
+            telemetry.connection().subscribe(topic, telemetry.qos(), null);
+        }
+        bindMeters();
+        lanes.values().stream()
+                .sorted(Comparator.comparingInt(MqttTrafficLane::priority).reversed())
+                .forEach(lane -> lane.connection().start());
+    }
+
+    private MqttTrafficLane createLane(MqttTrafficClass trafficClass, MqttTrafficLane.Settings settings) {
+        MqttPublishWindow window = new MqttPublishWindow(settings.maxInFlight(), acquireTimeoutMs);
+        MqttInboundDispatcher dispatcher = new MqttInboundDispatcher("mqtt-" + trafficClass.tag(),
+                settings.stripes(), dispatchQueueCapacity, dispatchOverflowPolicy, settings.priority());
         try {
-            client = new MqttClient(brokerUrl, clientId + "-" + UUID.randomUUID());
+            IMqttAsyncClient client = createClient(baseClientId + "-" + trafficClass.tag());
             MqttConnectOptions options = new MqttConnectOptions();
-            options.setAutomaticReconnect(true);
-            options.setCleanSession(true);
-            client.connect(options);
-            log.info("✅ MQTT connected to broker: {}", brokerUrl);
-
+            options.setCleanSession(cleanSession);
+            options.setMaxInflight(settings.maxInFlight());
+            MqttConnectionManager connection = new MqttConnectionManager(client, options, initialBackoffMs, maxBackoffMs,
+                    (topic, message) -> onIngest(trafficClass, topic, message));
+            return new MqttTrafficLane(trafficClass, settings, connection, window, dispatcher);
         } catch (Exception e) {
-            log.error("❌ Failed to connect MQTT broker", e);
+            dispatcher.shutdown();
+            throw new IllegalStateException("Invalid MQTT client configuration for broker " + brokerUrl, e);
         }
     }
 
+    // package-private so tests can run the lanes against fake clients
+    IMqttAsyncClient createClient(String laneClientId) throws MqttException {
+        return new MqttAsyncClient(brokerUrl, laneClientId, createPersistence());
+    }
+
+    private MqttTrafficLane lane(MqttTrafficClass trafficClass) {
+        return lanes.get(trafficClass);
+    }
+
+    private void bindMeters() {
+        MeterRegistry registry = metrics.registry();
+        for (MqttTrafficLane lane : lanes.values()) {
+            String tag = lane.trafficClass().tag();
+            Gauge.builder("mqtt.connected", lane.connection(), c -> c.isConnected() ? 1 : 0)
+                    .description("1 while the client is connected to the broker")
+                    .tag("lane", tag)
+                    .register(registry);
+            FunctionCounter.builder("mqtt.reconnects", lane.connection(), MqttConnectionManager::reconnectCount)
+                    .tag("lane", tag)
+                    .register(registry);
+            Gauge.builder("mqtt.publish.inflight", lane.publishWindow(), MqttPublishWindow::inFlight)
+                    .description("Publishes awaiting PUBACK (QoS 1) or the socket write (QoS 0)")
+                    .tag("lane", tag)
+                    .register(registry);
+            Gauge.builder("mqtt.publish.window", lane.publishWindow(), MqttPublishWindow::capacity)
+                    .tag("lane", tag)
+                    .register(registry);
+            Gauge.builder("mqtt.dispatch.queue.depth", lane.dispatcher(), MqttInboundDispatcher::queueDepth)
+                    .tag("lane", tag)
+                    .register(registry);
+            Gauge.builder("mqtt.dispatch.stripe.depth.max", lane.dispatcher(), MqttInboundDispatcher::maxStripeDepth)
+                    .tag("lane", tag)
+                    .register(registry);
+            FunctionCounter.builder("mqtt.inbound.dropped", lane.dispatcher(), MqttInboundDispatcher::droppedCount)
+                    .description("Inbound messages dropped because a dispatch stripe was full")
+                    .tag("lane", tag)
+                    .register(registry);
+        }
+        if (coalescer != null) {
+            FunctionCounter.builder("mqtt.commands.coalesced", coalescer, MqttCommandCoalescer::coalescedCount)
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Replaces Paho's default file persistence, which creates a lock directory per client id in the working directory.
+     */
+    private MqttClientPersistence createPersistence() {
+        return switch (persistenceMode) {
+            case MAPPED -> new MappedRingFilePersistence(Path.of(persistenceDir), persistenceFileSize);
+            case MEMORY -> new BoundedMemoryPersistence(persistenceMemoryCapacity);
+        };
+    }
+
+    private String resolveInstanceId() {
+        if (instanceId != null && !instanceId.isBlank()) return instanceId;
+        // ring files are named after the client id; a random one would orphan them on every restart
+        if (persistenceMode == MqttPersistenceMode.MAPPED) {
+            throw new IllegalStateException("mqtt.instance-id (MQTT_INSTANCE_ID) must be set when mqtt.persistence.mode is MAPPED");
+        }
+        return UUID.randomUUID().toString();
+    }
+
     @PreDestroy
     public void cleanup() {
-        try {
-            if (client != null && client.isConnected()) {
-                client.disconnect();
-                client.close();
+        if (coalescer != null) {
+            coalescer.close();
+            coalesceFlushExecutor.shutdown();
+            try {
+                coalesceFlushExecutor.awaitTermination(publishTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
-        } catch (Exception e) {
-            log.error("Error closing MQTT client", e);
+        }
+        for (MqttTrafficLane lane : lanes.values()) {
+            lane.connection().stop();
+            lane.dispatcher().shutdown();
         }
     }
 
     @Override
     public void publish(String topic, String payload) {
-        try {
-            if (client == null || !client.isConnected()) {
-                log.warn("⚠️ MQTT client not connected, reconnecting...");
-                init();
-            }
+        awaitPublish(publishAsync(topic, payload));
+    }
 
-            MqttMessage message = new MqttMessage(payload.getBytes());
-            message.setQos(1);
-            client.publish(topic, message);
+    @Override
+    public void publish(String topic, DeviceCommand command) {
+        awaitPublish(publishBytes(lane(MqttTrafficClass.COMMAND), topic, encode(command)));
+    }
 
-            log.info("📤 Published MQTT -> topic: {}, payload: {}", topic, payload);
+    private void awaitPublish(CompletableFuture<Void> future) {
+        try {
+            future.get(publishTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            log.error("❌ Failed to publish MQTT message", e.getCause());
+            throw new RuntimeException("Failed to publish MQTT message", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while publishing MQTT message", e);
         } catch (Exception e) {
             log.error("❌ Failed to publish MQTT message", e);
             throw new RuntimeException("Failed to publish MQTT message", e);
@@ -74,24 +334,214 @@ public class MqttServiceImpl implements MqttService {
     }
 
     @Override
-    public void subscribe(String topic, BiConsumer<String, String> callback) {
+    public CompletableFuture<Void> publishAsync(String topic, String payload) {
+        return publishBytes(lane(MqttTrafficClass.CONTROL), topic, payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public CompletableFuture<Void> publishAsync(MqttTrafficClass trafficClass, String topic, byte[] payload) {
+        return publishBytes(lane(trafficClass), topic, payload);
+    }
+
+    @Override
+    public CompletableFuture<Void> tryPublishAsync(MqttTrafficClass trafficClass, String topic, byte[] payload) {
+        return publishBytes(lane(trafficClass), topic, payload, false);
+    }
+
+    private CompletableFuture<Void> publishBytes(MqttTrafficLane lane, String topic, byte[] payload) {
+        return publishBytes(lane, topic, payload, true);
+    }
+
+    private CompletableFuture<Void> publishBytes(MqttTrafficLane lane, String topic, byte[] payload, boolean wait) {
+        String publishClass = lane.trafficClass().tag();
+        MqttPublishWindow publishWindow = lane.publishWindow();
         try {
-            if (client == null || !client.isConnected()) {
-                log.warn("⚠️ MQTT client not connected, reconnecting...");
-                init();
+            if (wait) {
+                publishWindow.acquire();
+            } else if (!publishWindow.tryAcquire()) {
+                throw new MqttBackpressureException("MQTT publish window full (" + publishWindow.capacity() + " in flight)");
             }
+        } catch (RuntimeException e) {
+            metrics.publishFailed(publishClass);
+            throw e;
+        }
+        long start = System.nanoTime();
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            MqttMessage message = new MqttMessage(payload);
+            message.setQos(lane.qos());
+            // fails fast with REASON_CODE_CLIENT_NOT_CONNECTED while the manager is reconnecting;
+            // at QoS 0 onSuccess fires once the message is written to the socket
+            lane.connection().client().publish(topic, message, null, new IMqttActionListener() {
+                @Override
+                public void onSuccess(IMqttToken token) {
+                    publishWindow.release();
+                    metrics.publishAcked(publishClass, start);
+                    log.debug("📤 Published MQTT -> topic: {}, {} bytes", topic, payload.length);
+                    future.complete(null);
+                }
 
-            client.subscribe(topic, (t, msg) -> {
-                String payload = new String(msg.getPayload());
-                log.info("📥 MQTT received -> topic: {}, payload: {}", t, payload);
-                callback.accept(t, payload);
+                @Override
+                public void onFailure(IMqttToken token, Throwable cause) {
+                    publishWindow.release();
+                    metrics.publishFailed(publishClass);
+                    log.error("❌ Failed to publish MQTT message to {}", topic, cause);
+                    future.completeExceptionally(cause);
+                }
             });
-
-            log.info("✅ Subscribed to topic: {}", topic);
         } catch (Exception e) {
-            log.error("❌ Failed to subscribe MQTT topic {}", topic, e);
-            throw new RuntimeException("Failed to subscribe MQTT topic " + topic, e);
+            publishWindow.release();
+            metrics.publishFailed(publishClass);
+            log.error("❌ Failed to publish MQTT message to {}", topic, e);
+            future.completeExceptionally(e);
         }
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<MqttCommandCoalescer.Outcome> publishCommand(String topic, DeviceCommand command) {
+        byte[] frame = encode(command);
+        if (coalescer == null) {
+            return publishBytes(lane(MqttTrafficClass.COMMAND), topic, frame).thenApply(ignored -> MqttCommandCoalescer.Outcome.SENT);
+        }
+        return coalescer.submit(topic, frame);
     }
-}
 
+    @Override
+    public MqttPayloadCodec codec() {
+        return codec;
+    }
+
+    private byte[] encode(DeviceCommand command) {
+        ByteBuffer buffer = encodeBuffers.acquire(codec.maxEncodedLength(command));
+        try {
+            codec.encodeCommand(command, buffer);
+            return Arrays.copyOf(buffer.array(), buffer.position());
+        } finally {
+            encodeBuffers.release(buffer);
+        }
+    }
+
+    @Override
+    public void subscribe(String topic, BiConsumer<String, String> callback) {
+        MqttTrafficLane control = lane(MqttTrafficClass.CONTROL);
+        control.connection().subscribe(topic, control.qos(), (t, msg) -> {
+            String payload = new String(msg.getPayload(), StandardCharsets.UTF_8);
+            log.debug("📥 MQTT received -> topic: {}, payload: {}", t, payload);
+            String topicClass = metrics.classify(t);
+            metrics.inbound(topicClass);
+            control.dispatcher().dispatch(MqttTopicRouter.prefixOf(t),
+                    metrics.timed(topicClass, () -> callback.accept(t, payload)));
+        });
+        log.info("✅ Subscribed to topic: {}", topic);
+    }
+
+    @Override
+    public void registerHandler(String topicPrefix, BiConsumer<String, String> handler) {
+        router.register(topicPrefix, handler);
+    }
+
+    @Override
+    public void unregisterHandler(String topicPrefix) {
+        router.unregister(topicPrefix);
+    }
+
+    @Override
+    public void registerChannelHandler(String channel, MqttTrafficClass trafficClass,
+                                       BiConsumer<String, String> handler) {
+        router.registerChannel(channel, handler);
+        subscribeChannel(channel, trafficClass);
+    }
+
+    @Override
+    public void registerRawChannelHandler(String channel, MqttTrafficClass trafficClass,
+                                          BiConsumer<String, byte[]> handler) {
+        rawChannelHandlers.put(channel, handler);
+        subscribeChannel(channel, trafficClass);
+    }
+
+    private void subscribeChannel(String channel, MqttTrafficClass trafficClass) {
+        MqttTrafficLane lane = lane(trafficClass);
+        metrics.registerChannel(channel);
+        lane.connection().subscribe("+/" + channel, lane.qos(), null);
+        log.info("✅ Subscribed to channel: +/{} on the {} connection", channel, trafficClass.tag());
+    }
+
+    @Override
+    public void setFallbackHandler(BiConsumer<String, String> handler) {
+        router.setFallbackHandler(handler);
+    }
+
+    @Override
+    public MqttStatsDto getStats() {
+        // top-level figures add up the lanes; connected only when every lane is
+        MqttStatsDto stats = new MqttStatsDto();
+        stats.setConnected(true);
+        stats.setClientId(baseClientId);
+        stats.setDispatchQueueCapacity(dispatchQueueCapacity);
+        List<MqttLaneStatsDto> laneStats = new ArrayList<>(lanes.size());
+        for (MqttTrafficLane lane : lanes.values()) {
+            MqttConnectionManager connection = lane.connection();
+            MqttPublishWindow window = lane.publishWindow();
+            MqttInboundDispatcher dispatcher = lane.dispatcher();
+            stats.setConnected(stats.isConnected() && connection.isConnected());
+            stats.setReconnectCount(stats.getReconnectCount() + connection.reconnectCount());
+            stats.setFailedConnectAttempts(stats.getFailedConnectAttempts() + connection.failedAttempts());
+            stats.setDowntimeMs(Math.max(stats.getDowntimeMs(), connection.downtimeMs()));
+            stats.setSubscriptionCount(stats.getSubscriptionCount() + connection.subscriptionCount());
+            stats.setPublishInFlight(stats.getPublishInFlight() + window.inFlight());
+            stats.setPublishWindow(stats.getPublishWindow() + window.capacity());
+            stats.setDispatchStripes(stats.getDispatchStripes() + dispatcher.stripeCount());
+            stats.setDispatchQueueDepth(stats.getDispatchQueueDepth() + dispatcher.queueDepth());
+            stats.setDispatchMaxStripeDepth(Math.max(stats.getDispatchMaxStripeDepth(), dispatcher.maxStripeDepth()));
+            stats.setDispatchedMessages(stats.getDispatchedMessages() + dispatcher.dispatchedCount());
+            stats.setDroppedMessages(stats.getDroppedMessages() + dispatcher.droppedCount());
+
+            MqttLaneStatsDto laneDto = new MqttLaneStatsDto();
+            laneDto.setTrafficClass(lane.trafficClass().name());
+            laneDto.setClientId(connection.clientId());
+            laneDto.setConnected(connection.isConnected());
+            laneDto.setQos(lane.qos());
+            laneDto.setPriority(lane.priority());
+            laneDto.setReconnectCount(connection.reconnectCount());
+            laneDto.setSubscriptionCount(connection.subscriptionCount());
+            laneDto.setPublishInFlight(window.inFlight());
+            laneDto.setPublishWindow(window.capacity());
+            laneDto.setDispatchStripes(dispatcher.stripeCount());
+            laneDto.setDispatchQueueDepth(dispatcher.queueDepth());
+            laneDto.setDroppedMessages(dispatcher.droppedCount());
+            laneStats.add(laneDto);
+        }
+        stats.setLanes(laneStats);
+        stats.setPayloadFormat(codec.format().name());
+        if (coalescer != null) {
+            stats.setCoalesceWindowMs(coalescer.windowMs());
+            stats.setCoalesceActiveTopics(coalescer.activeTopics());
+            stats.setCoalescedCommands(coalescer.coalescedCount());
+        }
+        return stats;
+    }
+
+    /**
+     * Everything matched by the wildcard ingest and channel subscriptions lands here on the Paho
+     * callback thread of the lane's connection and is handed to that lane's dispatcher, so handlers
+     * never run on that thread and a telemetry backlog never sits in front of command acks.
+     */
+    private void onIngest(MqttTrafficClass trafficClass, String topic, MqttMessage message) {
+        MqttInboundDispatcher dispatcher = lane(trafficClass).dispatcher();
+        String topicClass = metrics.classify(topic);
+        metrics.inbound(topicClass);
+        int slash = topic.indexOf('/');
+        if (slash >= 0 && !rawChannelHandlers.isEmpty()) {
+            BiConsumer<String, byte[]> raw = rawChannelHandlers.get(topic.substring(slash + 1));
+            if (raw != null) {
+                byte[] bytes = message.getPayload();
+                dispatcher.dispatch(MqttTopicRouter.prefixOf(topic), metrics.timed(topicClass, () -> raw.accept(topic, bytes)));
+                return;
+            }
+        }
+        String payload = new String(message.getPayload(), StandardCharsets.UTF_8);
+        log.debug("📥 MQTT received -> topic: {}, payload: {}", topic, payload);
+        dispatcher.dispatch(MqttTopicRouter.prefixOf(topic), metrics.timed(topicClass, () -> router.route(topic, payload)));
+    }
+}
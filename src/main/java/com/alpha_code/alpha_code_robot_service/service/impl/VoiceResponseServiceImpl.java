@@ -0,0 +1,92 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import com.alpha_code.alpha_code_robot_service.service.VoiceResponseService;
+import com.alpha_code.alpha_code_robot_service.voice.VoiceCatalog;
+import com.alpha_code.alpha_code_robot_service.voice.VoiceStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Holds the compiled voice catalog behind a volatile reference, so lookups never lock and a
+ * reload swaps the whole table at once. File-based catalogs are reloaded when their modification
+ * time changes; classpath ones only through reload().
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VoiceResponseServiceImpl implements VoiceResponseService {
+
+    private final ResourceLoader resourceLoader;
+    private final ObjectMapper objectMapper;
+
+    // e.g. classpath:voice/responses.json or file:/etc/robot/voice.json
+    @Value("${esp32.voice.catalog-location}")
+    private String location;
+
+    private volatile VoiceCatalog catalog;
+    // modification time of the last source we tried, so a broken file is reported once
+    private volatile long seenModified;
+
+    @PostConstruct
+    public void init() {
+        if (!reload()) {
+            throw new IllegalStateException("Không thể tải danh mục phản hồi giọng nói từ " + location);
+        }
+    }
+
+    @Override
+    public String command(String language, String command, String deviceName, String deviceType) {
+        return catalog.command(language, command, deviceName, deviceType);
+    }
+
+    @Override
+    public String status(String language, VoiceStatus status) {
+        return catalog.status(language, status);
+    }
+
+    @Override
+    public synchronized boolean reload() {
+        Resource resource = resourceLoader.getResource(location);
+        try {
+            seenModified = lastModified(resource);
+            VoiceCatalog compiled;
+            try (InputStream in = resource.getInputStream()) {
+                compiled = VoiceCatalog.compile(objectMapper.readTree(in));
+            }
+            catalog = compiled;
+            log.info("Loaded voice catalog {}: {} languages, {} commands, {} device types",
+                    location, compiled.languageCount(), compiled.commandCount(), compiled.deviceTypeCount());
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Voice catalog {} not loaded, keeping the current one: {}", location, e.getMessage());
+            return false;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${esp32.voice.reload-interval-ms}")
+    public void reloadIfChanged() {
+        Resource resource = resourceLoader.getResource(location);
+        if (!resource.isFile()) return;
+        try {
+            if (lastModified(resource) != seenModified) {
+                reload();
+            }
+        } catch (IOException e) {
+            log.debug("Voice catalog {} not readable: {}", location, e.getMessage());
+        }
+    }
+
+    private static long lastModified(Resource resource) throws IOException {
+        return resource.isFile() ? resource.lastModified() : 0L;
+    }
+}
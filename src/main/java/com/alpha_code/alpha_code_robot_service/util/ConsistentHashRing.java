@@ -0,0 +1,68 @@
+package com.alpha_code.alpha_code_robot_service.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Immutable consistent-hash ring over cluster members, with virtual nodes to even out the
+ * share each member gets. Hashes depend only on member names and ids, so every node that sees
+ * the same membership computes the same owner, and a join or leave only moves the keys of
+ * the ring segments that changed hands.
+ */
+public final class ConsistentHashRing {
+
+    private final long[] points;
+    private final String[] owners;
+    private final List<String> members;
+
+    public ConsistentHashRing(Collection<String> members, int virtualNodes) {
+        this.members = members.stream().sorted().distinct().toList();
+        int size = this.members.size() * virtualNodes;
+        long[] hashes = new long[size];
+        String[] names = new String[size];
+        int i = 0;
+        for (String member : this.members) {
+            for (int v = 0; v < virtualNodes; v++) {
+                UUID point = UUID.nameUUIDFromBytes((member + "#" + v).getBytes(StandardCharsets.UTF_8));
+                hashes[i] = mix(point.getMostSignificantBits() ^ point.getLeastSignificantBits());
+                names[i] = member;
+                i++;
+            }
+        }
+        // sort points and owners together
+        Integer[] order = new Integer[size];
+        for (int k = 0; k < size; k++) order[k] = k;
+        Arrays.sort(order, (a, b) -> Long.compare(hashes[a], hashes[b]));
+        this.points = new long[size];
+        this.owners = new String[size];
+        for (int k = 0; k < size; k++) {
+            points[k] = hashes[order[k]];
+            owners[k] = names[order[k]];
+        }
+    }
+
+    /**
+     * @return null when the ring has no members
+     */
+    public String ownerOf(UUID key) {
+        if (points.length == 0) return null;
+        long hash = mix(key.getMostSignificantBits() ^ key.getLeastSignificantBits());
+        int index = Arrays.binarySearch(points, hash);
+        if (index < 0) index = -index - 1;
+        return owners[index == points.length ? 0 : index];
+    }
+
+    public List<String> members() {
+        return members;
+    }
+
+    // splitmix64 finalizer: spreads sequential or similar ids over the whole ring
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
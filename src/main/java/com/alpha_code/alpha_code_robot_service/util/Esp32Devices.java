@@ -0,0 +1,109 @@
+package com.alpha_code.alpha_code_robot_service.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+public class Esp32Devices {
+
+    // per device: its address in binary command frames, assigned once and never reused
+    public static final String INDEX = "index";
+    // in the metadata root: the index the next added device gets
+    public static final String NEXT_INDEX = "nextDeviceIndex";
+    // the device index is one unsigned byte in binary command frames
+    public static final int MAX_INDEX = 0xFF;
+
+    /**
+     * Stable index of the named device in the ESP32 metadata, or -1. Binary command frames address
+     * devices by this index. Devices stored before indexes were assigned fall back to their
+     * position in the "devices" array.
+     */
+    public static int indexOf(JsonNode metadata, String deviceName) {
+        if (metadata == null || !metadata.path("devices").isArray()) return -1;
+        int position = 0;
+        for (JsonNode device : metadata.get("devices")) {
+            if (deviceName.equalsIgnoreCase(device.path("name").asText())) return indexOf(device, position);
+            position++;
+        }
+        return -1;
+    }
+
+    /**
+     * Stable index of a device entry found at the given position of the "devices" array.
+     */
+    public static int indexOf(JsonNode device, int position) {
+        return device.path(INDEX).isInt() ? device.get(INDEX).asInt() : position;
+    }
+
+    /**
+     * The "type" of the named device in the ESP32 metadata (e.g. "light", "fan"), or null.
+     */
+    public static String typeOf(JsonNode metadata, String deviceName) {
+        if (metadata == null || !metadata.path("devices").isArray()) return null;
+        for (JsonNode device : metadata.get("devices")) {
+            if (deviceName.equalsIgnoreCase(device.path("name").asText())) return device.path("type").textValue();
+        }
+        return null;
+    }
+
+    /**
+     * Gives every device in the metadata an index, so that later removals cannot shift them. A device
+     * without one keeps the index it had in the previous metadata (matched by name) or, when nothing
+     * was assigned yet, its position; otherwise it gets a fresh one. The counter never goes below the
+     * previous one, so indexes of removed devices are not handed out again.
+     */
+    public static void ensureIndexes(JsonNode metadata, JsonNode previous) {
+        if (metadata == null || !metadata.isObject() || !metadata.path("devices").isArray()) return;
+
+        int next = Math.max(metadata.path(NEXT_INDEX).asInt(0), previous == null ? 0 : previous.path(NEXT_INDEX).asInt(0));
+        boolean assigned = next > 0;
+        for (JsonNode device : metadata.get("devices")) {
+            if (device.path(INDEX).isInt()) {
+                next = Math.max(next, device.get(INDEX).asInt() + 1);
+                assigned = true;
+            }
+        }
+        if (previous != null && previous.path("devices").isArray()) {
+            for (JsonNode device : previous.get("devices")) {
+                if (device.path(INDEX).isInt()) {
+                    next = Math.max(next, device.get(INDEX).asInt() + 1);
+                    assigned = true;
+                }
+            }
+        }
+
+        int position = 0;
+        for (JsonNode device : metadata.get("devices")) {
+            int current = position++;
+            if (!device.isObject() || device.path(INDEX).isInt()) continue;
+            int kept = previous == null ? -1 : stableIndexOf(previous, device.path("name").asText());
+            int index = kept >= 0 ? kept : assigned ? next : current;
+            ((ObjectNode) device).put(INDEX, index);
+            next = Math.max(next, index + 1);
+        }
+        ((ObjectNode) metadata).put(NEXT_INDEX, next);
+    }
+
+    /**
+     * Assigns the next index to a device that is about to be added to the metadata. Fails once
+     * every index a binary frame can carry has been handed out.
+     */
+    public static void assignIndex(ObjectNode metadata, ObjectNode device) {
+        ensureIndexes(metadata, null);
+        int index = metadata.path(NEXT_INDEX).asInt(0);
+        if (index > MAX_INDEX) {
+            throw new IllegalArgumentException("ESP32 đã dùng hết " + (MAX_INDEX + 1) + " chỉ số thiết bị");
+        }
+        device.put(INDEX, index);
+        metadata.put(NEXT_INDEX, index + 1);
+    }
+
+    private static int stableIndexOf(JsonNode metadata, String deviceName) {
+        if (!metadata.path("devices").isArray()) return -1;
+        for (JsonNode device : metadata.get("devices")) {
+            if (deviceName.equalsIgnoreCase(device.path("name").asText()) && device.path(INDEX).isInt()) {
+                return device.get(INDEX).asInt();
+            }
+        }
+        return -1;
+    }
+}
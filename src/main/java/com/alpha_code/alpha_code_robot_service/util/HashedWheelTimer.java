@@ -0,0 +1,157 @@
+package com.alpha_code.alpha_code_robot_service.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashed timing wheel for large numbers of short-lived timeouts (pending acks, presence expiry).
+ * Scheduling and cancelling are O(1) and never take a lock; a single worker thread advances the
+ * wheel every tick and runs expired tasks, so tasks must be short and hand real work elsewhere.
+ * Delays longer than one revolution are kept in their bucket with a remaining-rounds counter.
+ */
+@Slf4j
+public class HashedWheelTimer implements AutoCloseable {
+
+    public interface Timeout {
+        /**
+         * @return false if the task already ran or was cancelled
+         */
+        boolean cancel();
+
+        boolean isExpired();
+    }
+
+    private static final int ST_WAITING = 0;
+    private static final int ST_CANCELLED = 1;
+    private static final int ST_EXPIRED = 2;
+
+    private final class Entry implements Timeout {
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(ST_WAITING);
+        private long remainingRounds;
+
+        private Entry(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (state.compareAndSet(ST_WAITING, ST_CANCELLED)) {
+                pending.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return state.get() == ST_EXPIRED;
+        }
+    }
+
+    private final long tickNanos;
+    private final int mask;
+    private final List<Entry>[] wheel;
+    private final Queue<Entry> newEntries = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final long startNanos = System.nanoTime();
+    private final Thread worker;
+    private volatile boolean running = true;
+    private long tick;
+
+    @SuppressWarnings("unchecked")
+    public HashedWheelTimer(String name, long tickDuration, TimeUnit unit, int wheelSize) {
+        if (tickDuration <= 0) throw new IllegalArgumentException("tickDuration must be positive");
+        int size = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.mask = size - 1;
+        this.wheel = new List[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ArrayList<>();
+        }
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (!running) throw new IllegalStateException("Timer stopped");
+        Entry entry = new Entry(task, System.nanoTime() - startNanos + unit.toNanos(Math.max(delay, 0)));
+        pending.incrementAndGet();
+        newEntries.add(entry);
+        return entry;
+    }
+
+    public int pendingCount() {
+        return pending.get();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            long sleepNanos = tickNanos * (tick + 1) - (System.nanoTime() - startNanos);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) return;
+                }
+                continue;
+            }
+            transferNewEntries();
+            expire(wheel[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private void transferNewEntries() {
+        Entry entry;
+        while ((entry = newEntries.poll()) != null) {
+            if (entry.state.get() != ST_WAITING) continue;
+            long expiryTick = entry.deadline / tickNanos;
+            entry.remainingRounds = (expiryTick - tick) / wheel.length;
+            long slot = Math.max(expiryTick, tick);
+            wheel[(int) (slot & mask)].add(entry);
+        }
+    }
+
+    private void expire(List<Entry> bucket) {
+        int keep = 0;
+        for (int i = 0; i < bucket.size(); i++) {
+            Entry entry = bucket.get(i);
+            if (entry.state.get() != ST_WAITING) continue;
+            if (entry.remainingRounds > 0) {
+                entry.remainingRounds--;
+                bucket.set(keep++, entry);
+                continue;
+            }
+            if (entry.state.compareAndSet(ST_WAITING, ST_EXPIRED)) {
+                pending.decrementAndGet();
+                try {
+                    entry.task.run();
+                } catch (Throwable t) {
+                    log.error("Timer task failed", t);
+                }
+            }
+        }
+        bucket.subList(keep, bucket.size()).clear();
+    }
+}
@@ -0,0 +1,78 @@
+package com.alpha_code.alpha_code_robot_service.voice;
+
+import java.util.List;
+
+/**
+ * Immutable open-addressing map from case-insensitive tokens to dense ids. Lookups take a
+ * region of any CharSequence and fold case per char, so finding "ON" in "ON 50" allocates nothing.
+ */
+final class TokenIndex {
+
+    private final String[] keys;
+    // id + 1 per slot, 0 when empty
+    private final int[] slots;
+    private final int mask;
+
+    /**
+     * @param keys distinct tokens, already passed through {@link #fold}
+     */
+    TokenIndex(List<String> keys) {
+        this.keys = keys.stream().map(String::intern).toArray(String[]::new);
+        int capacity = Integer.highestOneBit(Math.max(2, keys.size() * 2 - 1)) << 1;
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        for (int id = 0; id < this.keys.length; id++) {
+            String key = this.keys[id];
+            int slot = hash(key, 0, key.length()) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    int size() {
+        return keys.length;
+    }
+
+    /**
+     * @return the id of s[from, to), ignoring case, or -1
+     */
+    int indexOf(CharSequence s, int from, int to) {
+        if (s == null || from >= to) return -1;
+        int slot = hash(s, from, to) & mask;
+        int entry;
+        while ((entry = slots[slot]) != 0) {
+            if (matches(keys[entry - 1], s, from, to)) return entry - 1;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * The case folding lookups apply, for building keys.
+     */
+    static String fold(String token) {
+        StringBuilder folded = new StringBuilder(token.length());
+        for (int i = 0; i < token.length(); i++) {
+            folded.append(Character.toLowerCase(token.charAt(i)));
+        }
+        return folded.toString();
+    }
+
+    private static boolean matches(String key, CharSequence s, int from, int to) {
+        if (key.length() != to - from) return false;
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) != Character.toLowerCase(s.charAt(from + i))) return false;
+        }
+        return true;
+    }
+
+    private static int hash(CharSequence s, int from, int to) {
+        int h = 0;
+        for (int i = from; i < to; i++) {
+            h = 31 * h + Character.toLowerCase(s.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,243 @@
+package com.alpha_code.alpha_code_robot_service.voice;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Voice responses compiled into dense tables indexed by (language, command, device type). Every
+ * fallback is resolved at compile time, in this order:
+ * <pre>
+ * (language, command, type) -> (language, command, *) -> (language, *, type) -> (language, *, *)
+ * </pre>
+ * then the same chain in the default language. The default language must define the generic
+ * "*" command and every status, so each cell holds a phrase and the raw command is never read
+ * back. A lookup is three case-insensitive probes and an array read, without allocation.
+ * <p>
+ * Source format:
+ * <pre>
+ * {
+ *   "defaultLanguage": "vi",
+ *   "languages": {
+ *     "vi": {
+ *       "commands": { "on": { "*": "Thiết bị đã được bật.", "light": "Đã bật đèn {device}." },
+ *                     "*":  { "*": "Đã gửi lệnh tới {device}." } },
+ *       "statuses": { "queued": "...", "coalesced": "...", "no-response": "...", "failed": "..." }
+ *     }
+ *   }
+ * }
+ * </pre>
+ */
+public final class VoiceCatalog {
+
+    public static final String WILDCARD = "*";
+
+    private static final VoiceStatus[] STATUSES = VoiceStatus.values();
+
+    private final TokenIndex languages;
+    private final TokenIndex commands;
+    private final TokenIndex deviceTypes;
+    private final int defaultLanguage;
+    // [language][command, or commands.size() for *][type, or deviceTypes.size() for *]
+    private final VoiceTemplate[][][] commandTable;
+    // [language][status ordinal]
+    private final String[][] statusTable;
+
+    private VoiceCatalog(TokenIndex languages, TokenIndex commands, TokenIndex deviceTypes, int defaultLanguage,
+                         VoiceTemplate[][][] commandTable, String[][] statusTable) {
+        this.languages = languages;
+        this.commands = commands;
+        this.deviceTypes = deviceTypes;
+        this.defaultLanguage = defaultLanguage;
+        this.commandTable = commandTable;
+        this.statusTable = statusTable;
+    }
+
+    /**
+     * Phrase confirming command (e.g. "on", "SET 50") on a device. Unknown languages use the
+     * default language, unknown commands and types the "*" entries.
+     */
+    public String command(String language, String command, String deviceName, String deviceType) {
+        int start = 0;
+        int end = 0;
+        int length = 0;
+        if (command != null) {
+            length = command.length();
+            start = skipSeparators(command, 0, length);
+            end = start;
+            while (end < length && !isSeparator(command.charAt(end))) {
+                end++;
+            }
+        }
+        int c = commands.indexOf(command, start, end);
+        int t = deviceType == null ? -1 : deviceTypes.indexOf(deviceType, 0, deviceType.length());
+        VoiceTemplate template = commandTable[language(language)]
+                [c < 0 ? commands.size() : c]
+                [t < 0 ? deviceTypes.size() : t];
+
+        int valueFrom = end;
+        int valueTo = length;
+        if (command != null) {
+            valueFrom = skipSeparators(command, end, length);
+            while (valueTo > valueFrom && command.charAt(valueTo - 1) == ' ') {
+                valueTo--;
+            }
+        }
+        return template.render(deviceName, command, valueFrom, valueTo);
+    }
+
+    public String status(String language, VoiceStatus status) {
+        return statusTable[language(language)][status.ordinal()];
+    }
+
+    public int languageCount() {
+        return languages.size();
+    }
+
+    public int commandCount() {
+        return commands.size();
+    }
+
+    public int deviceTypeCount() {
+        return deviceTypes.size();
+    }
+
+    private int language(String language) {
+        int l = language == null ? -1 : languages.indexOf(language, 0, language.length());
+        return l < 0 ? defaultLanguage : l;
+    }
+
+    private static int skipSeparators(String s, int from, int to) {
+        while (from < to && isSeparator(s.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    // "SET 50", "SET:50" and "SET=50" all split into "SET" and "50"
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == ':' || c == '=';
+    }
+
+    /**
+     * @throws IllegalArgumentException when the source is malformed or incomplete
+     */
+    public static VoiceCatalog compile(JsonNode root) {
+        JsonNode languagesNode = root.path("languages");
+        if (!languagesNode.isObject() || languagesNode.isEmpty()) {
+            throw new IllegalArgumentException("Voice catalog has no languages");
+        }
+
+        // 1. collect the vocabularies
+        Set<String> languageKeys = new LinkedHashSet<>();
+        Set<String> commandKeys = new LinkedHashSet<>();
+        Set<String> typeKeys = new LinkedHashSet<>();
+        for (Iterator<Map.Entry<String, JsonNode>> it = languagesNode.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> language = it.next();
+            if (!languageKeys.add(TokenIndex.fold(language.getKey()))) {
+                throw new IllegalArgumentException("Duplicate language " + language.getKey());
+            }
+            for (Iterator<Map.Entry<String, JsonNode>> cmds = language.getValue().path("commands").fields(); cmds.hasNext(); ) {
+                Map.Entry<String, JsonNode> command = cmds.next();
+                if (!command.getKey().equals(WILDCARD)) {
+                    if (command.getKey().chars().anyMatch(ch -> isSeparator((char) ch))) {
+                        throw new IllegalArgumentException("Command \"" + command.getKey() + "\" must be a single word");
+                    }
+                    commandKeys.add(TokenIndex.fold(command.getKey()));
+                }
+                for (Iterator<String> types = command.getValue().fieldNames(); types.hasNext(); ) {
+                    String type = types.next();
+                    if (!type.equals(WILDCARD)) typeKeys.add(TokenIndex.fold(type));
+                }
+            }
+        }
+        TokenIndex languages = new TokenIndex(new ArrayList<>(languageKeys));
+        TokenIndex commands = new TokenIndex(new ArrayList<>(commandKeys));
+        TokenIndex types = new TokenIndex(new ArrayList<>(typeKeys));
+
+        String defaultKey = root.path("defaultLanguage").asText("");
+        int defaultLanguage = languages.indexOf(defaultKey, 0, defaultKey.length());
+        if (defaultLanguage < 0) {
+            throw new IllegalArgumentException("defaultLanguage \"" + defaultKey + "\" is not in languages");
+        }
+
+        // 2. the entries as written, null where absent
+        int wildcardCommand = commands.size();
+        int wildcardType = types.size();
+        VoiceTemplate[][][] raw = new VoiceTemplate[languages.size()][commands.size() + 1][types.size() + 1];
+        String[][] rawStatuses = new String[languages.size()][STATUSES.length];
+        for (Iterator<Map.Entry<String, JsonNode>> it = languagesNode.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> language = it.next();
+            int l = languages.indexOf(language.getKey(), 0, language.getKey().length());
+            for (Iterator<Map.Entry<String, JsonNode>> cmds = language.getValue().path("commands").fields(); cmds.hasNext(); ) {
+                Map.Entry<String, JsonNode> command = cmds.next();
+                boolean anyCommand = command.getKey().equals(WILDCARD);
+                int c = anyCommand ? wildcardCommand : commands.indexOf(command.getKey(), 0, command.getKey().length());
+                for (Iterator<Map.Entry<String, JsonNode>> phrases = command.getValue().fields(); phrases.hasNext(); ) {
+                    Map.Entry<String, JsonNode> phrase = phrases.next();
+                    int t = phrase.getKey().equals(WILDCARD) ? wildcardType : types.indexOf(phrase.getKey(), 0, phrase.getKey().length());
+                    VoiceTemplate template = compilePhrase(phrase.getValue(), language.getKey(), command.getKey(), phrase.getKey());
+                    if (anyCommand && template.uses(VoiceTemplate.Param.VALUE)) {
+                        // the generic phrase must not read back arguments of commands it does not know
+                        throw new IllegalArgumentException("{value} is not allowed in \"*\" commands (" + language.getKey() + ")");
+                    }
+                    raw[l][c][t] = template;
+                }
+            }
+            JsonNode statuses = language.getValue().path("statuses");
+            for (VoiceStatus status : STATUSES) {
+                JsonNode phrase = statuses.get(status.key());
+                if (phrase == null) continue;
+                VoiceTemplate template = compilePhrase(phrase, language.getKey(), "statuses", status.key());
+                if (template.uses(VoiceTemplate.Param.DEVICE) || template.uses(VoiceTemplate.Param.VALUE)) {
+                    throw new IllegalArgumentException("Statuses take no placeholders (" + language.getKey() + "." + status.key() + ")");
+                }
+                rawStatuses[l][status.ordinal()] = template.render(null, null, 0, 0);
+            }
+        }
+
+        if (raw[defaultLanguage][wildcardCommand][wildcardType] == null) {
+            throw new IllegalArgumentException("defaultLanguage must define commands.*.*");
+        }
+        for (VoiceStatus status : STATUSES) {
+            if (rawStatuses[defaultLanguage][status.ordinal()] == null) {
+                throw new IllegalArgumentException("defaultLanguage must define statuses." + status.key());
+            }
+        }
+
+        // 3. resolve every cell once
+        VoiceTemplate[][][] table = new VoiceTemplate[languages.size()][commands.size() + 1][types.size() + 1];
+        String[][] statusTable = new String[languages.size()][STATUSES.length];
+        for (int l = 0; l < languages.size(); l++) {
+            for (int c = 0; c <= wildcardCommand; c++) {
+                for (int t = 0; t <= wildcardType; t++) {
+                    VoiceTemplate template = resolve(raw[l], c, t, wildcardCommand, wildcardType);
+                    table[l][c][t] = template != null ? template : resolve(raw[defaultLanguage], c, t, wildcardCommand, wildcardType);
+                }
+            }
+            for (VoiceStatus status : STATUSES) {
+                String phrase = rawStatuses[l][status.ordinal()];
+                statusTable[l][status.ordinal()] = phrase != null ? phrase : rawStatuses[defaultLanguage][status.ordinal()];
+            }
+        }
+        return new VoiceCatalog(languages, commands, types, defaultLanguage, table, statusTable);
+    }
+
+    private static VoiceTemplate resolve(VoiceTemplate[][] language, int c, int t, int anyCommand, int anyType) {
+        if (language[c][t] != null) return language[c][t];
+        if (language[c][anyType] != null) return language[c][anyType];
+        if (language[anyCommand][t] != null) return language[anyCommand][t];
+        return language[anyCommand][anyType];
+    }
+
+    private static VoiceTemplate compilePhrase(JsonNode phrase, String language, String command, String type) {
+        if (!phrase.isTextual() || phrase.asText().isBlank()) {
+            throw new IllegalArgumentException("Phrase " + language + "." + command + "." + type + " must be a non-empty string");
+        }
+        return VoiceTemplate.compile(phrase.asText());
+    }
+}
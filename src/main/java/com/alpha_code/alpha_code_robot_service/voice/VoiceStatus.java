@@ -0,0 +1,22 @@
+package com.alpha_code.alpha_code_robot_service.voice;
+
+/**
+ * Outcomes the robot announces instead of a command confirmation. The key is the name used in
+ * the "statuses" section of the catalog.
+ */
+public enum VoiceStatus {
+    QUEUED("queued"),
+    COALESCED("coalesced"),
+    NO_RESPONSE("no-response"),
+    FAILED("failed");
+
+    private final String key;
+
+    VoiceStatus(String key) {
+        this.key = key;
+    }
+
+    public String key() {
+        return key;
+    }
+}
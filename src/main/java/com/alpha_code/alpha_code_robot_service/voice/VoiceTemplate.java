@@ -0,0 +1,79 @@
+package com.alpha_code.alpha_code_robot_service.voice;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A response phrase split once into literal parts and placeholders. "{device}" is the device name
+ * and "{value}" the argument after the command word ("50" in "SET 50"); nothing else of the
+ * command text can be spoken. Phrases without placeholders render to the same interned String.
+ */
+final class VoiceTemplate {
+
+    enum Param {
+        DEVICE,
+        VALUE
+    }
+
+    // set when the phrase has no placeholders
+    private final String constant;
+    private final String[] literals;
+    private final Param[] params;
+
+    private VoiceTemplate(String constant, String[] literals, Param[] params) {
+        this.constant = constant;
+        this.literals = literals;
+        this.params = params;
+    }
+
+    static VoiceTemplate compile(String text) {
+        List<String> literals = new ArrayList<>();
+        List<Param> params = new ArrayList<>();
+        int from = 0;
+        int open;
+        while ((open = text.indexOf('{', from)) >= 0) {
+            int close = text.indexOf('}', open);
+            if (close < 0) throw new IllegalArgumentException("Unclosed placeholder in \"" + text + "\"");
+            String name = text.substring(open + 1, close);
+            Param param = switch (name) {
+                case "device" -> Param.DEVICE;
+                case "value" -> Param.VALUE;
+                default -> throw new IllegalArgumentException("Unknown placeholder {" + name + "} in \"" + text + "\"");
+            };
+            literals.add(text.substring(from, open).intern());
+            params.add(param);
+            from = close + 1;
+        }
+        literals.add(text.substring(from).intern());
+        if (params.isEmpty()) {
+            return new VoiceTemplate(literals.get(0), null, null);
+        }
+        return new VoiceTemplate(null, literals.toArray(String[]::new), params.toArray(Param[]::new));
+    }
+
+    boolean uses(Param param) {
+        if (params == null) return false;
+        for (Param p : params) {
+            if (p == param) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param message the command; its [valueFrom, valueTo) region is substituted for "{value}"
+     */
+    String render(String device, CharSequence message, int valueFrom, int valueTo) {
+        if (constant != null) return constant;
+        StringBuilder out = new StringBuilder(64);
+        for (int i = 0; i < params.length; i++) {
+            out.append(literals[i]);
+            switch (params[i]) {
+                case DEVICE -> out.append(device == null ? "" : device);
+                case VALUE -> {
+                    if (message != null && valueFrom < valueTo) out.append(message, valueFrom, valueTo);
+                }
+            }
+        }
+        return out.append(literals[params.length]).toString();
+    }
+}
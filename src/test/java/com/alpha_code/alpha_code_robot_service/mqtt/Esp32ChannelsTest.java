@@ -0,0 +1,29 @@
+package com.alpha_code.alpha_code_robot_service.mqtt;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Esp32Channels Tests")
+class Esp32ChannelsTest {
+
+    @Test
+    @DisplayName("Should reserve every service channel regardless of case and padding")
+    void testIsReserved() {
+        assertTrue(Esp32Channels.isReserved(Esp32Channels.STATUS));
+        assertTrue(Esp32Channels.isReserved(Esp32Channels.HEARTBEAT));
+        assertTrue(Esp32Channels.isReserved(Esp32Channels.ACK));
+        assertTrue(Esp32Channels.isReserved(Esp32Channels.OTA));
+        assertTrue(Esp32Channels.isReserved(Esp32Channels.OTA_ACK));
+        assertTrue(Esp32Channels.isReserved(" Ack "));
+    }
+
+    @Test
+    @DisplayName("Should leave ordinary device names available")
+    void testIsReserved_DeviceName() {
+        assertFalse(Esp32Channels.isReserved("light"));
+        assertFalse(Esp32Channels.isReserved("ack-light"));
+        assertFalse(Esp32Channels.isReserved(null));
+    }
+}
@@ -0,0 +1,86 @@
+package com.alpha_code.alpha_code_robot_service.mqtt;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("MqttCommandCoalescer Tests")
+class MqttCommandCoalescerTest {
+
+    private final List<String> published = new CopyOnWriteArrayList<>();
+    private MqttCommandCoalescer coalescer;
+
+    @AfterEach
+    void tearDown() {
+        if (coalescer != null) coalescer.close();
+    }
+
+    private CompletableFuture<Void> publish(String topic, byte[] payload) {
+        published.add(topic + "=" + new String(payload, StandardCharsets.UTF_8));
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private static byte[] bytes(String payload) {
+        return payload.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("Should send the first command at once and only the last of a burst after the window")
+    void testSubmit_BurstCollapsesToLast() throws Exception {
+        // Given
+        coalescer = new MqttCommandCoalescer(this::publish, Runnable::run, 100);
+
+        // When
+        CompletableFuture<MqttCommandCoalescer.Outcome> first = coalescer.submit("e1/light", bytes("ON"));
+        CompletableFuture<MqttCommandCoalescer.Outcome> second = coalescer.submit("e1/light", bytes("OFF"));
+        CompletableFuture<MqttCommandCoalescer.Outcome> third = coalescer.submit("e1/light", bytes("ON"));
+
+        // Then
+        assertEquals(MqttCommandCoalescer.Outcome.SENT, first.get(1, TimeUnit.SECONDS));
+        assertEquals(MqttCommandCoalescer.Outcome.COALESCED, second.get(1, TimeUnit.SECONDS));
+        assertEquals(MqttCommandCoalescer.Outcome.SENT, third.get(1, TimeUnit.SECONDS));
+        assertEquals(List.of("e1/light=ON", "e1/light=ON"), published);
+        assertEquals(1, coalescer.coalescedCount());
+    }
+
+    @Test
+    @DisplayName("Should not hold back commands to other topics")
+    void testSubmit_TopicsIndependent() throws Exception {
+        // Given
+        coalescer = new MqttCommandCoalescer(this::publish, Runnable::run, 10_000);
+
+        // When
+        coalescer.submit("e1/light", bytes("ON"));
+        CompletableFuture<MqttCommandCoalescer.Outcome> other = coalescer.submit("e1/fan", bytes("ON"));
+
+        // Then
+        assertTrue(other.isDone());
+        assertEquals(MqttCommandCoalescer.Outcome.SENT, other.get());
+        assertEquals(List.of("e1/light=ON", "e1/fan=ON"), published);
+    }
+
+    @Test
+    @DisplayName("Should flush the held command on close")
+    void testClose_FlushesPending() throws Exception {
+        // Given
+        coalescer = new MqttCommandCoalescer(this::publish, Runnable::run, 10_000);
+        coalescer.submit("e1/light", bytes("ON"));
+        CompletableFuture<MqttCommandCoalescer.Outcome> held = coalescer.submit("e1/light", bytes("OFF"));
+
+        // When
+        coalescer.close();
+        coalescer = null;
+
+        // Then
+        assertEquals(MqttCommandCoalescer.Outcome.SENT, held.get(1, TimeUnit.SECONDS));
+        assertEquals(List.of("e1/light=ON", "e1/light=OFF"), published);
+    }
+}
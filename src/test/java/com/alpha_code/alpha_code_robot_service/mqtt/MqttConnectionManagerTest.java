@@ -0,0 +1,204 @@
+package com.alpha_code.alpha_code_robot_service.mqtt;
+
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.IMqttMessageListener;
+import org.eclipse.paho.client.mqttv3.MqttCallbackExtended;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.stubbing.Answer;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("MqttConnectionManager Tests")
+class MqttConnectionManagerTest {
+
+    private IMqttAsyncClient client;
+    private MqttConnectOptions options;
+    private List<String> inbound;
+    private MqttConnectionManager manager;
+
+    @BeforeEach
+    void setUp() {
+        client = mock(IMqttAsyncClient.class);
+        options = new MqttConnectOptions();
+        options.setAutomaticReconnect(true);
+        inbound = new CopyOnWriteArrayList<>();
+        manager = new MqttConnectionManager(client, options, 10, 80, (topic, message) -> inbound.add(topic));
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.stop();
+    }
+
+    private void connectAnswers(boolean... succeed) throws MqttException {
+        var stub = doAnswer(connect(succeed[0]));
+        for (int i = 1; i < succeed.length; i++) {
+            stub = stub.doAnswer(connect(succeed[i]));
+        }
+        stub.when(client).connect(same(options), any(), any(IMqttActionListener.class));
+    }
+
+    private static Answer<Object> connect(boolean succeed) {
+        return invocation -> {
+            IMqttActionListener listener = invocation.getArgument(2);
+            if (succeed) {
+                listener.onSuccess(null);
+            } else {
+                listener.onFailure(null, new MqttException(MqttException.REASON_CODE_BROKER_UNAVAILABLE));
+            }
+            return null;
+        };
+    }
+
+    private MqttCallbackExtended callback() {
+        ArgumentCaptor<MqttCallbackExtended> callback = ArgumentCaptor.forClass(MqttCallbackExtended.class);
+        verify(client).setCallback(callback.capture());
+        return callback.getValue();
+    }
+
+    @Test
+    @DisplayName("Should take over reconnects from Paho")
+    void testDisablesAutomaticReconnect() {
+        assertFalse(options.isAutomaticReconnect());
+    }
+
+    @Test
+    @DisplayName("Should draw each delay from the upper half of a doubling ceiling capped at the max")
+    void testBackoffDelay() {
+        long[] ceilings = {10, 20, 40, 80, 80, 80};
+        for (int n = 0; n < ceilings.length; n++) {
+            for (int sample = 0; sample < 200; sample++) {
+                long delay = manager.backoffDelay(n);
+                assertTrue(delay >= ceilings[n] / 2 && delay <= ceilings[n],
+                        "attempt " + n + " delay " + delay + " outside [" + ceilings[n] / 2 + ", " + ceilings[n] + "]");
+            }
+        }
+        // the shift is capped, so a long outage cannot overflow the ceiling
+        assertTrue(manager.backoffDelay(1_000) <= 80);
+    }
+
+    @Test
+    @DisplayName("Should spread reconnect delays instead of retrying in lock step")
+    void testBackoffDelay_Jitter() {
+        long first = manager.backoffDelay(3);
+        boolean varied = false;
+        for (int sample = 0; sample < 100 && !varied; sample++) {
+            varied = manager.backoffDelay(3) != first;
+        }
+        assertTrue(varied);
+    }
+
+    @Test
+    @DisplayName("Should retry a failed connect after a backoff")
+    void testConnectFailure_Retries() throws Exception {
+        // Given
+        connectAnswers(false, false, true);
+
+        // When
+        manager.start();
+
+        // Then
+        verify(client, timeout(2000).times(3)).connect(same(options), any(), any(IMqttActionListener.class));
+        assertEquals(2, manager.failedAttempts());
+        assertEquals(0, manager.reconnectCount());
+    }
+
+    @Test
+    @DisplayName("Should retry when connect throws instead of calling back")
+    void testConnectThrows_Retries() throws Exception {
+        // Given
+        doThrow(new MqttException(MqttException.REASON_CODE_CLIENT_CONNECTED))
+                .doAnswer(connect(true))
+                .when(client).connect(same(options), any(), any(IMqttActionListener.class));
+
+        // When
+        manager.start();
+
+        // Then
+        verify(client, timeout(2000).times(2)).connect(same(options), any(), any(IMqttActionListener.class));
+        assertEquals(1, manager.failedAttempts());
+    }
+
+    @Test
+    @DisplayName("Should send subscriptions on connect and replay them after a reconnect")
+    void testResubscribeOnReconnect() throws Exception {
+        // Given - registered while disconnected
+        connectAnswers(true, true);
+        IMqttMessageListener listener = (topic, message) -> {
+        };
+        manager.subscribe("+/telemetry", 0, null);
+        manager.subscribe("robots/+/status", 1, listener);
+        verify(client, never()).subscribe(anyString(), anyInt());
+
+        // When
+        manager.start();
+
+        // Then
+        verify(client).subscribe("+/telemetry", 0);
+        verify(client).subscribe("robots/+/status", 1, listener);
+
+        // When - the broker drops the connection
+        callback().connectionLost(new MqttException(MqttException.REASON_CODE_CONNECTION_LOST));
+
+        // Then
+        verify(client, timeout(2000).times(2)).subscribe("+/telemetry", 0);
+        verify(client, timeout(2000).times(2)).subscribe("robots/+/status", 1, listener);
+        assertEquals(1, manager.reconnectCount());
+        assertEquals(2, manager.subscriptionCount());
+    }
+
+    @Test
+    @DisplayName("Should not replay an unsubscribed filter")
+    void testUnsubscribe() throws Exception {
+        // Given
+        connectAnswers(true);
+        manager.subscribe("+/telemetry", 0, null);
+        manager.unsubscribe("+/telemetry");
+
+        // When
+        manager.start();
+
+        // Then
+        verify(client, never()).subscribe(anyString(), anyInt());
+        assertEquals(0, manager.subscriptionCount());
+    }
+
+    @Test
+    @DisplayName("Should hand arriving messages to the inbound consumer")
+    void testMessageArrived() throws Exception {
+        // When
+        callback().messageArrived("esp-1/telemetry", new MqttMessage(new byte[0]));
+
+        // Then
+        assertEquals(List.of("esp-1/telemetry"), inbound);
+    }
+
+    @Test
+    @DisplayName("Should stop reconnecting once stopped")
+    void testStop_NoReconnect() throws Exception {
+        // Given
+        connectAnswers(false);
+
+        // When
+        manager.stop();
+        manager.start();
+        Thread.sleep(100);
+
+        // Then
+        verify(client, never()).connect(any(MqttConnectOptions.class), any(), any(IMqttActionListener.class));
+        verify(client).close();
+    }
+}
@@ -0,0 +1,84 @@
+package com.alpha_code.alpha_code_robot_service.mqtt;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("MqttInboundDispatcher Tests")
+class MqttInboundDispatcherTest {
+
+    private MqttInboundDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) dispatcher.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should keep per-key order")
+    void testDispatch_OrderedPerKey() throws InterruptedException {
+        // Given
+        dispatcher = new MqttInboundDispatcher(4, 100, MqttInboundDispatcher.OverflowPolicy.BLOCK);
+        List<Integer> seen = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(50);
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            int n = i;
+            dispatcher.dispatch("device-1", () -> {
+                seen.add(n);
+                done.countDown();
+            });
+        }
+
+        // Then
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i, seen.get(i));
+        }
+        assertEquals(50, dispatcher.dispatchedCount());
+        assertEquals(0, dispatcher.droppedCount());
+    }
+
+    @Test
+    @DisplayName("Should drop oldest queued message when the stripe queue is full")
+    void testDispatch_DropOldest() throws InterruptedException {
+        // Given
+        dispatcher = new MqttInboundDispatcher(1, 2, MqttInboundDispatcher.OverflowPolicy.DROP_OLDEST);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        List<String> seen = new CopyOnWriteArrayList<>();
+        dispatcher.dispatch("k", () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // When
+        CountDownLatch done = new CountDownLatch(2);
+        for (String msg : List.of("a", "b", "c")) {
+            dispatcher.dispatch("k", () -> {
+                seen.add(msg);
+                done.countDown();
+            });
+        }
+        assertEquals(2, dispatcher.queueDepth());
+        release.countDown();
+
+        // Then
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("b", "c"), seen);
+        assertEquals(1, dispatcher.droppedCount());
+    }
+}
@@ -0,0 +1,76 @@
+package com.alpha_code.alpha_code_robot_service.mqtt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("MqttMetrics Tests")
+class MqttMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private MqttMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new MqttMetrics(registry);
+    }
+
+    @Test
+    @DisplayName("Should classify topics by registered channel only")
+    void testClassify() {
+        // Given
+        metrics.registerChannel("ack");
+
+        // Then
+        assertEquals(MqttMetrics.TELEMETRY, metrics.classify("esp-1"));
+        assertEquals("ack", metrics.classify("esp-1/ack"));
+        assertEquals(MqttMetrics.OTHER, metrics.classify("esp-1/whatever"));
+    }
+
+    @Test
+    @DisplayName("Should count inbound messages per topic class")
+    void testInbound_CountsPerClass() {
+        // When
+        metrics.inbound(MqttMetrics.TELEMETRY);
+        metrics.inbound(MqttMetrics.TELEMETRY);
+        metrics.inbound(MqttMetrics.OTHER);
+
+        // Then
+        assertEquals(2.0, registry.get("mqtt.inbound.messages").tag("class", "telemetry").counter().count());
+        assertEquals(1.0, registry.get("mqtt.inbound.messages").tag("class", "other").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should time the handler even when it throws")
+    void testTimed_RecordsOnFailure() {
+        // Given
+        Runnable handler = metrics.timed("ack", () -> {
+            throw new IllegalStateException("boom");
+        });
+
+        // When
+        assertThrows(IllegalStateException.class, handler::run);
+
+        // Then
+        assertEquals(1, registry.get("mqtt.handler.duration").tag("class", "ack").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should record publish ack latency and failures")
+    void testPublish_AckAndFailure() {
+        // When
+        metrics.publishAcked("command", System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(5));
+        metrics.publishFailed("command");
+
+        // Then
+        assertEquals(1, registry.get("mqtt.publish.ack").tag("class", "command").timer().count());
+        assertTrue(registry.get("mqtt.publish.ack").timer().totalTime(TimeUnit.MILLISECONDS) >= 5);
+        assertEquals(1.0, registry.get("mqtt.publish.failures").tag("class", "command").counter().count());
+    }
+}
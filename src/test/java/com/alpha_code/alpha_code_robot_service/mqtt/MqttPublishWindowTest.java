@@ -0,0 +1,112 @@
+package com.alpha_code.alpha_code_robot_service.mqtt;
+
+import com.alpha_code.alpha_code_robot_service.exception.MqttBackpressureException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("MqttPublishWindow Tests")
+class MqttPublishWindowTest {
+
+    @Test
+    @DisplayName("Should reject a window without slots")
+    void testCapacity_MustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new MqttPublishWindow(0, 100));
+    }
+
+    @Test
+    @DisplayName("Should count taken slots as in flight until released")
+    void testInFlight() {
+        // Given
+        MqttPublishWindow window = new MqttPublishWindow(3, 100);
+
+        // When
+        window.acquire();
+        window.acquire();
+
+        // Then
+        assertEquals(2, window.inFlight());
+        window.release();
+        assertEquals(1, window.inFlight());
+        assertEquals(3, window.capacity());
+    }
+
+    @Test
+    @DisplayName("Should time out with backpressure when the window stays full")
+    void testAcquire_TimesOutWhenFull() {
+        // Given
+        MqttPublishWindow window = new MqttPublishWindow(1, 100);
+        window.acquire();
+
+        // When
+        long start = System.nanoTime();
+        assertThrows(MqttBackpressureException.class, window::acquire);
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        assertTrue(waitedMs >= 90, "gave up after " + waitedMs + " ms");
+        assertEquals(1, window.inFlight());
+    }
+
+    @Test
+    @DisplayName("Should hand a waiting caller the slot released by an acknowledgement")
+    void testAcquire_WakesOnRelease() throws Exception {
+        // Given
+        MqttPublishWindow window = new MqttPublishWindow(1, 5_000);
+        window.acquire();
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            window.acquire();
+            acquired.countDown();
+        });
+        waiter.start();
+
+        // When
+        window.release();
+
+        // Then
+        assertTrue(acquired.await(1, TimeUnit.SECONDS));
+        waiter.join(1000);
+        assertEquals(1, window.inFlight());
+    }
+
+    @Test
+    @DisplayName("Should give up at once without blocking when the window is full")
+    void testTryAcquire_DoesNotBlock() {
+        // Given: a timeout far longer than the assertion allows
+        MqttPublishWindow window = new MqttPublishWindow(1, 10_000);
+        assertTrue(window.tryAcquire());
+
+        // When
+        long start = System.nanoTime();
+        boolean acquired = window.tryAcquire();
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        assertFalse(acquired);
+        assertTrue(waitedMs < 1000, "blocked for " + waitedMs + " ms");
+        window.release();
+        assertTrue(window.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("Should report backpressure when interrupted while waiting")
+    void testAcquire_Interrupted() {
+        // Given
+        MqttPublishWindow window = new MqttPublishWindow(1, 10_000);
+        window.acquire();
+        Thread.currentThread().interrupt();
+
+        // When & Then
+        try {
+            assertThrows(MqttBackpressureException.class, window::acquire);
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
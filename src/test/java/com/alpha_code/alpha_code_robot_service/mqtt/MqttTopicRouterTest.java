@@ -0,0 +1,90 @@
+package com.alpha_code.alpha_code_robot_service.mqtt;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("MqttTopicRouter Tests")
+class MqttTopicRouterTest {
+
+    private MqttTopicRouter router;
+    private List<String> received;
+
+    @BeforeEach
+    void setUp() {
+        router = new MqttTopicRouter();
+        received = new ArrayList<>();
+    }
+
+    @Test
+    @DisplayName("Should route to the handler registered for the topic prefix")
+    void testRoute_PrefixHandler() {
+        // Given
+        router.register("device-1", (topic, payload) -> received.add("device-1:" + topic + ":" + payload));
+        router.setFallbackHandler((topic, payload) -> received.add("fallback:" + topic));
+
+        // When
+        boolean routed = router.route("device-1/status", "online");
+
+        // Then
+        assertTrue(routed);
+        assertEquals(List.of("device-1:device-1/status:online"), received);
+    }
+
+    @Test
+    @DisplayName("Should use fallback handler when prefix is unknown")
+    void testRoute_Fallback() {
+        // Given
+        router.setFallbackHandler((topic, payload) -> received.add("fallback:" + topic));
+
+        // When
+        boolean routed = router.route("device-2", "ON");
+
+        // Then
+        assertTrue(routed);
+        assertEquals(List.of("fallback:device-2"), received);
+    }
+
+    @Test
+    @DisplayName("Should report unrouted message when no handler matches")
+    void testRoute_NoHandler() {
+        // Given
+        router.register("device-1", (topic, payload) -> received.add(topic));
+        router.unregister("device-1");
+
+        // When
+        boolean routed = router.route("device-1", "ON");
+
+        // Then
+        assertFalse(routed);
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should prefer channel handler for sub-topics")
+    void testRoute_ChannelHandler() {
+        // Given
+        router.register("device-1", (topic, payload) -> received.add("device:" + topic));
+        router.registerChannel("ack", (topic, payload) -> received.add("ack:" + topic + ":" + payload));
+
+        // When
+        router.route("device-1/ack", "c1|OK");
+        router.route("device-1", "ON");
+
+        // Then
+        assertEquals(List.of("ack:device-1/ack:c1|OK", "device:device-1"), received);
+    }
+
+    @Test
+    @DisplayName("Should extract first topic level as prefix")
+    void testPrefixOf() {
+        assertEquals("abc", MqttTopicRouter.prefixOf("abc"));
+        assertEquals("abc", MqttTopicRouter.prefixOf("abc/status"));
+        assertEquals("", MqttTopicRouter.prefixOf("/status"));
+    }
+}
@@ -0,0 +1,79 @@
+package com.alpha_code.alpha_code_robot_service.mqtt.codec;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("BinaryFrameCodec Tests")
+class BinaryFrameCodecTest {
+
+    private final BinaryFrameCodec codec = new BinaryFrameCodec();
+
+    @Test
+    @DisplayName("Should encode a command into a 9-byte frame")
+    void testEncode_Frame() {
+        // Given
+        ByteBuffer out = ByteBuffer.allocate(32);
+
+        // When
+        codec.encodeCommand(new DeviceCommand("set: 75", 3, Long.toString(1234, 36)), out);
+
+        // Then
+        assertEquals(BinaryFrameCodec.COMMAND_FRAME_LENGTH, out.position());
+        out.flip();
+        assertEquals(BinaryFrameCodec.MAGIC, out.get());
+        assertEquals(BinaryFrameCodec.OP_SET, out.get());
+        assertEquals(3, out.get());
+        assertEquals(75, out.getShort());
+        assertEquals(1234, out.getInt());
+    }
+
+    @Test
+    @DisplayName("Should reject commands the frame cannot express")
+    void testEncode_Unsupported() {
+        ByteBuffer out = ByteBuffer.allocate(32);
+        assertThrows(IllegalArgumentException.class, () -> codec.encodeCommand(new DeviceCommand("blink fast", 0, null), out));
+        assertThrows(IllegalArgumentException.class, () -> codec.encodeCommand(new DeviceCommand("ON", -1, null), out));
+    }
+
+    @Test
+    @DisplayName("Should carry the full 32-bit sequence and reject ids past it")
+    void testEncode_SequenceRange() {
+        // Given
+        ByteBuffer out = ByteBuffer.allocate(32);
+        String max = Long.toString(0xFFFFFFFFL, 36);
+
+        // When
+        codec.encodeCommand(new DeviceCommand("ON", 0, max), out);
+
+        // Then
+        out.flip();
+        out.position(5);
+        assertEquals(-1, out.getInt());
+        byte[] ack = {BinaryFrameCodec.MAGIC, BinaryFrameCodec.OP_ACK, -1, -1, -1, -1, 0};
+        assertEquals(new CommandAck(max, "OK"), codec.decodeAck(ack));
+        // truncating would answer the ack under a different id
+        assertThrows(IllegalArgumentException.class, () -> codec.encodeCommand(
+                new DeviceCommand("ON", 0, Long.toString(0x100000001L, 36)), ByteBuffer.allocate(32)));
+    }
+
+    @Test
+    @DisplayName("Should decode binary acks and fall back to text acks")
+    void testDecodeAck() {
+        // Given
+        byte[] frame = {BinaryFrameCodec.MAGIC, BinaryFrameCodec.OP_ACK, 0, 0, 0x04, (byte) 0xD2, 1};
+
+        // When
+        CommandAck binary = codec.decodeAck(frame);
+        CommandAck text = codec.decodeAck("ab12| OK ".getBytes(StandardCharsets.UTF_8));
+
+        // Then
+        assertEquals(new CommandAck(Long.toString(1234, 36), "ERROR"), binary);
+        assertEquals(new CommandAck("ab12", "OK"), text);
+        assertNull(codec.decodeAck(new byte[]{BinaryFrameCodec.MAGIC, BinaryFrameCodec.OP_ACK}));
+    }
+}
@@ -0,0 +1,38 @@
+package com.alpha_code.alpha_code_robot_service.mqtt.codec;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TextPayloadCodec Tests")
+class TextPayloadCodecTest {
+
+    private final TextPayloadCodec codec = new TextPayloadCodec();
+
+    @Test
+    @DisplayName("Should upper-case the command as UTF-8 and append the correlation id")
+    void testEncode() {
+        // Given
+        DeviceCommand command = new DeviceCommand("bật đèn", 0, "c1");
+        ByteBuffer out = ByteBuffer.allocate(codec.maxEncodedLength(command));
+
+        // When
+        codec.encodeCommand(command, out);
+
+        // Then
+        String encoded = new String(Arrays.copyOf(out.array(), out.position()), StandardCharsets.UTF_8);
+        assertEquals("BẬT ĐÈN|c1", encoded);
+    }
+
+    @Test
+    @DisplayName("Should treat an ack without status as OK")
+    void testDecodeAck_NoStatus() {
+        assertEquals(new CommandAck("c1", "OK"), codec.decodeAck(" c1 ".getBytes(StandardCharsets.UTF_8)));
+        assertNull(codec.decodeAck("|OK".getBytes(StandardCharsets.UTF_8)));
+    }
+}
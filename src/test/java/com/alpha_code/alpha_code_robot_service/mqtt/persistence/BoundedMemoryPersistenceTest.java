@@ -0,0 +1,90 @@
+package com.alpha_code.alpha_code_robot_service.mqtt.persistence;
+
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttPersistable;
+import org.eclipse.paho.client.mqttv3.MqttPersistenceException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("BoundedMemoryPersistence Tests")
+class BoundedMemoryPersistenceTest {
+
+    private BoundedMemoryPersistence persistence;
+
+    @BeforeEach
+    void setUp() {
+        persistence = new BoundedMemoryPersistence(2);
+        persistence.open("client-1", "tcp://localhost:1883");
+    }
+
+    private static MqttPersistable persistable(String header, String payload) {
+        return new PersistedBytes(header.getBytes(), payload.getBytes());
+    }
+
+    @Test
+    @DisplayName("Should return header and payload as one entry")
+    void testPutGet() throws MqttPersistenceException {
+        // When
+        persistence.put("s-1", persistable("H1", "P1"));
+
+        // Then
+        MqttPersistable stored = persistence.get("s-1");
+        assertEquals("H1P1", new String(stored.getHeaderBytes(), 0, stored.getHeaderLength()));
+        assertEquals(0, stored.getPayloadLength());
+        assertNull(persistence.get("s-2"));
+    }
+
+    @Test
+    @DisplayName("Should reject new keys beyond capacity")
+    void testPut_OverCapacity() throws MqttPersistenceException {
+        // Given
+        persistence.put("s-1", persistable("H", "1"));
+        persistence.put("s-2", persistable("H", "2"));
+
+        // When
+        MqttPersistenceException e = assertThrows(MqttPersistenceException.class,
+                () -> persistence.put("s-3", persistable("H", "3")));
+
+        // Then
+        assertEquals(MqttException.REASON_CODE_MAX_INFLIGHT, e.getReasonCode());
+        assertFalse(persistence.containsKey("s-3"));
+        assertEquals(2, Collections.list(persistence.keys()).size());
+    }
+
+    @Test
+    @DisplayName("Should replace an existing key when full")
+    void testPut_ReplaceAtCapacity() throws MqttPersistenceException {
+        // Given
+        persistence.put("s-1", persistable("H", "1"));
+        persistence.put("s-2", persistable("H", "2"));
+
+        // When
+        persistence.put("s-2", persistable("H", "22"));
+
+        // Then
+        MqttPersistable stored = persistence.get("s-2");
+        assertEquals("H22", new String(stored.getHeaderBytes(), 0, stored.getHeaderLength()));
+    }
+
+    @Test
+    @DisplayName("Should free a slot on remove and drop everything on close")
+    void testRemoveAndClose() throws MqttPersistenceException {
+        // Given
+        persistence.put("s-1", persistable("H", "1"));
+        persistence.put("s-2", persistable("H", "2"));
+
+        // When
+        persistence.remove("s-1");
+        persistence.put("s-3", persistable("H", "3"));
+
+        // Then
+        assertTrue(persistence.containsKey("s-3"));
+        persistence.close();
+        assertFalse(persistence.keys().hasMoreElements());
+    }
+}
@@ -0,0 +1,199 @@
+package com.alpha_code.alpha_code_robot_service.mqtt.persistence;
+
+import org.eclipse.paho.client.mqttv3.MqttPersistable;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttPersistenceException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("MappedRingFilePersistence Tests")
+class MappedRingFilePersistenceTest {
+
+    @TempDir
+    Path dir;
+
+    private static MqttPersistable persistable(String header, String payload) {
+        byte[] h = header.getBytes();
+        byte[] p = payload.getBytes();
+        return new PersistedBytes(h, p);
+    }
+
+    @Test
+    @DisplayName("Should recover live entries after reopening the file")
+    void testRecovery() throws MqttPersistenceException {
+        // Given
+        MappedRingFilePersistence persistence = new MappedRingFilePersistence(dir, 64 * 1024);
+        persistence.open("client-1", "tcp://localhost:1883");
+        persistence.put("s-1", persistable("H1", "P1"));
+        persistence.put("s-2", persistable("H2", "P2"));
+        persistence.remove("s-1");
+        persistence.close();
+
+        // When
+        MappedRingFilePersistence reopened = new MappedRingFilePersistence(dir, 64 * 1024);
+        reopened.open("client-1", "tcp://localhost:1883");
+
+        // Then
+        assertFalse(reopened.containsKey("s-1"));
+        assertTrue(reopened.containsKey("s-2"));
+        MqttPersistable restored = reopened.get("s-2");
+        assertEquals("H2P2", new String(restored.getHeaderBytes(), 0, restored.getHeaderLength()));
+        assertEquals(1, Collections.list(reopened.keys()).size());
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("Should compact when the ring wraps instead of growing")
+    void testCompactionOnWrap() throws MqttPersistenceException {
+        // Given
+        MappedRingFilePersistence persistence = new MappedRingFilePersistence(dir, 1024);
+        persistence.open("client-2", "tcp://localhost:1883");
+
+        // When: far more writes than fit in 1 KB, with at most two live entries
+        for (int i = 0; i < 500; i++) {
+            persistence.put("s-" + i, persistable("HEADER", "PAYLOAD-" + i));
+            if (i > 0) persistence.remove("s-" + (i - 1));
+        }
+
+        // Then
+        assertEquals(1, Collections.list(persistence.keys()).size());
+        assertTrue(persistence.containsKey("s-499"));
+        persistence.close();
+    }
+
+    @Test
+    @DisplayName("Should recover the compacted live set after reopening")
+    void testRecoveryAfterCompaction() throws MqttPersistenceException {
+        // Given
+        MappedRingFilePersistence persistence = new MappedRingFilePersistence(dir, 1024);
+        persistence.open("client-3", "tcp://localhost:1883");
+        persistence.put("keep", persistable("HK", "PK"));
+        for (int i = 0; i < 200; i++) {
+            persistence.put("s-" + i, persistable("HEADER", "PAYLOAD-" + i));
+            persistence.remove("s-" + i);
+        }
+        persistence.close();
+
+        // When
+        MappedRingFilePersistence reopened = new MappedRingFilePersistence(dir, 1024);
+        reopened.open("client-3", "tcp://localhost:1883");
+
+        // Then
+        assertEquals(Collections.singletonList("keep"), Collections.list(reopened.keys()));
+        MqttPersistable restored = reopened.get("keep");
+        assertEquals("HKPK", new String(restored.getHeaderBytes(), 0, restored.getHeaderLength()));
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("Should fail the put and keep every live entry when the file is full")
+    void testOverflow_FailsPutKeepsEntries() throws MqttPersistenceException {
+        // Given: a ring that holds only a few entries
+        MappedRingFilePersistence persistence = new MappedRingFilePersistence(dir, 256);
+        persistence.open("client-4", "tcp://localhost:1883");
+        int stored = 0;
+        MqttPersistenceException failure = null;
+
+        // When
+        for (int i = 0; i < 50 && failure == null; i++) {
+            try {
+                persistence.put("s-" + i, persistable("HEADER", "PAYLOAD-" + i));
+                stored++;
+            } catch (MqttPersistenceException e) {
+                failure = e;
+            }
+        }
+
+        // Then
+        assertNotNull(failure);
+        assertEquals(MqttException.REASON_CODE_MAX_INFLIGHT, failure.getReasonCode());
+        assertTrue(stored > 0);
+        assertEquals(stored, Collections.list(persistence.keys()).size());
+        persistence.close();
+
+        MappedRingFilePersistence reopened = new MappedRingFilePersistence(dir, 256);
+        reopened.open("client-4", "tcp://localhost:1883");
+        assertEquals(stored, Collections.list(reopened.keys()).size());
+        for (int i = 0; i < stored; i++) {
+            assertTrue(reopened.containsKey("s-" + i));
+        }
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("Should accept puts again once entries are removed after an overflow")
+    void testOverflow_RecoversAfterRemove() throws MqttPersistenceException {
+        // Given
+        MappedRingFilePersistence persistence = new MappedRingFilePersistence(dir, 256);
+        persistence.open("client-5", "tcp://localhost:1883");
+        int stored = 0;
+        try {
+            while (stored < 50) {
+                persistence.put("s-" + stored, persistable("HEADER", "PAYLOAD"));
+                stored++;
+            }
+        } catch (MqttPersistenceException expected) {
+            // full
+        }
+
+        // When
+        for (int i = 0; i < stored; i++) {
+            persistence.remove("s-" + i);
+        }
+        persistence.put("after", persistable("HEADER", "PAYLOAD"));
+
+        // Then
+        assertEquals(Collections.singletonList("after"), Collections.list(persistence.keys()));
+        persistence.close();
+    }
+
+    @Test
+    @DisplayName("Should delete the file on close when nothing is in flight")
+    void testClose_DeletesEmptyFile() throws Exception {
+        // Given
+        MappedRingFilePersistence persistence = new MappedRingFilePersistence(dir, 1024);
+        persistence.open("client-7", "tcp://localhost:1883");
+        persistence.put("s-1", persistable("H1", "P1"));
+        persistence.remove("s-1");
+
+        // When
+        persistence.close();
+
+        // Then
+        try (var files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("Should ignore a compaction file left by a crash")
+    void testOpen_IgnoresLeftoverCompactionFile() throws Exception {
+        // Given
+        MappedRingFilePersistence persistence = new MappedRingFilePersistence(dir, 1024);
+        persistence.open("client-6", "tcp://localhost:1883");
+        persistence.put("s-1", persistable("H1", "P1"));
+        persistence.close();
+        Path ring;
+        try (var files = Files.list(dir)) {
+            ring = files.filter(p -> p.toString().endsWith(".ring")).findFirst().orElseThrow();
+        }
+        Path leftover = ring.resolveSibling(ring.getFileName() + ".compact");
+        Files.write(leftover, new byte[]{1, 2, 3});
+
+        // When
+        MappedRingFilePersistence reopened = new MappedRingFilePersistence(dir, 1024);
+        reopened.open("client-6", "tcp://localhost:1883");
+
+        // Then
+        assertTrue(reopened.containsKey("s-1"));
+        assertFalse(Files.exists(leftover));
+        reopened.close();
+    }
+}
@@ -0,0 +1,53 @@
+package com.alpha_code.alpha_code_robot_service.mqtt.sim;
+
+import io.moquette.broker.Server;
+import io.moquette.broker.config.MemoryConfig;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * In-process Moquette broker on a free loopback port, standing in for the real broker in
+ * benchmarks. Nothing is persisted beyond a temp directory.
+ */
+public class EmbeddedMqttBroker implements AutoCloseable {
+
+    private final Server server = new Server();
+    private final int port;
+
+    public EmbeddedMqttBroker() {
+        this.port = freePort();
+        Properties properties = new Properties();
+        properties.setProperty("host", "127.0.0.1");
+        properties.setProperty("port", String.valueOf(port));
+        properties.setProperty("allow_anonymous", "true");
+        properties.setProperty("persistence_enabled", "false");
+        try {
+            properties.setProperty("data_path", Files.createTempDirectory("moquette").toString());
+            server.startServer(new MemoryConfig(properties));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start embedded MQTT broker", e);
+        }
+    }
+
+    public String url() {
+        return "tcp://127.0.0.1:" + port;
+    }
+
+    @Override
+    public void close() {
+        server.stopServer();
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
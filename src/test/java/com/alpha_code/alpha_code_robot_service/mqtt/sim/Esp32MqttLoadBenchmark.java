@@ -0,0 +1,251 @@
+package com.alpha_code.alpha_code_robot_service.mqtt.sim;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.alpha_code.alpha_code_robot_service.dto.Esp32StateDto;
+import com.alpha_code.alpha_code_robot_service.entity.Esp32;
+import com.alpha_code.alpha_code_robot_service.mqtt.MqttInboundDispatcher;
+import com.alpha_code.alpha_code_robot_service.mqtt.codec.MqttPayloadFormat;
+import com.alpha_code.alpha_code_robot_service.mqtt.persistence.MqttPersistenceMode;
+import com.alpha_code.alpha_code_robot_service.repository.Esp32Repository;
+import com.alpha_code.alpha_code_robot_service.service.Esp32CommandQueueService;
+import com.alpha_code.alpha_code_robot_service.service.Esp32EventBridge;
+import com.alpha_code.alpha_code_robot_service.service.Esp32OwnershipService;
+import com.alpha_code.alpha_code_robot_service.service.Esp32TelemetryService;
+import com.alpha_code.alpha_code_robot_service.service.Esp32StateService;
+import com.alpha_code.alpha_code_robot_service.service.VoiceResponseService;
+import com.alpha_code.alpha_code_robot_service.service.impl.CommandAckServiceImpl;
+import com.alpha_code.alpha_code_robot_service.service.impl.Esp32IngestServiceImpl;
+import com.alpha_code.alpha_code_robot_service.service.impl.Esp32MessageBufferImpl;
+import com.alpha_code.alpha_code_robot_service.service.impl.Esp32PresenceServiceImpl;
+import com.alpha_code.alpha_code_robot_service.service.impl.Esp32ServiceImpl;
+import com.alpha_code.alpha_code_robot_service.service.impl.Esp32StateServiceImpl;
+import com.alpha_code.alpha_code_robot_service.service.impl.MqttServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * End-to-end load run of the MQTT path against an embedded broker: simulated ESP32s publish
+ * telemetry into the real ingest pipeline, then commands are sent through
+ * Esp32ServiceImpl.sendMessage / sendMessageAwaitAck and acked by the simulated devices.
+ * Only Postgres is mocked. Excluded from the normal build; run with
+ * <pre>mvn test -Pbenchmark -Dsim.devices=10000 -Dsim.duration-seconds=30</pre>
+ */
+@Tag("benchmark")
+@DisplayName("ESP32 MQTT load benchmark")
+class Esp32MqttLoadBenchmark {
+
+    private static final int DEVICES = Integer.getInteger("sim.devices", 10_000);
+    private static final int CONNECTIONS = Integer.getInteger("sim.connections", 50);
+    private static final int DURATION_SECONDS = Integer.getInteger("sim.duration-seconds", 30);
+    // fleet-wide telemetry messages per second
+    private static final int TELEMETRY_RATE = Integer.getInteger("sim.telemetry-rate", 20_000);
+    private static final int COMMANDS = Integer.getInteger("sim.commands", 20_000);
+    private static final int COMMAND_CONCURRENCY = Integer.getInteger("sim.command-concurrency", 200);
+
+    @Test
+    @DisplayName("Report ingest and command latency percentiles and throughput")
+    void runLoad() throws Exception {
+        quietLoggers();
+        LatencyRecorder ingestLatency = new LatencyRecorder("ingest (device->state)", 2_000_000);
+        LatencyRecorder sendLatency = new LatencyRecorder("sendMessage (call)", COMMANDS);
+        LatencyRecorder ackLatency = new LatencyRecorder("sendMessage awaitAck", COMMANDS);
+
+        try (EmbeddedMqttBroker broker = new EmbeddedMqttBroker()) {
+            MqttServiceImpl mqttService = newMqttService(broker.url());
+            SimulatedEsp32Fleet fleet = new SimulatedEsp32Fleet(broker.url(), DEVICES, CONNECTIONS);
+            try {
+                Esp32StateService stateService = timedStateService(new Esp32StateServiceImpl(), ingestLatency);
+                Esp32PresenceServiceImpl presenceService = new Esp32PresenceServiceImpl(mqttService, event -> { });
+                ReflectionTestUtils.setField(presenceService, "heartbeatTimeoutMs", 90_000L);
+                presenceService.init();
+                CommandAckServiceImpl ackService = new CommandAckServiceImpl(mqttService, event -> { });
+                ReflectionTestUtils.setField(ackService, "ackTimeoutMs", 10_000L);
+                ackService.init();
+                Esp32MessageBufferImpl messageBuffer = new Esp32MessageBufferImpl(mock(JdbcTemplate.class, withSettings().stubOnly()));
+                ReflectionTestUtils.setField(messageBuffer, "maxPending", Integer.MAX_VALUE);
+                Esp32OwnershipService ownershipService = mock(Esp32OwnershipService.class, withSettings().stubOnly());
+                when(ownershipService.isOwner(any())).thenReturn(true);
+                Esp32IngestServiceImpl ingestService = new Esp32IngestServiceImpl(stateService, messageBuffer, presenceService, ownershipService,
+                        mock(Esp32TelemetryService.class, withSettings().stubOnly()), mock(Esp32EventBridge.class, withSettings().stubOnly()));
+                for (UUID id : fleet.devices()) {
+                    mqttService.registerHandler(id.toString(), ingestService::onMessage);
+                }
+                Esp32ServiceImpl esp32Service = new Esp32ServiceImpl(fleetRepository(fleet), mqttService, stateService,
+                        event -> { }, ackService, presenceService, mock(Esp32CommandQueueService.class, withSettings().stubOnly()),
+                        mock(VoiceResponseService.class, withSettings().stubOnly()));
+
+                runTelemetry(fleet, ingestLatency);
+                runCommands(fleet, esp32Service, sendLatency, ackLatency);
+
+                System.out.printf("%n=== %d devices over %d connections, %d s telemetry at %d msg/s, %d commands (%d concurrent) ===%n",
+                        DEVICES, CONNECTIONS, DURATION_SECONDS, TELEMETRY_RATE, COMMANDS, COMMAND_CONCURRENCY);
+                System.out.println(ingestLatency.report());
+                System.out.println(sendLatency.report());
+                System.out.println(ackLatency.report());
+                System.out.printf("telemetry sent=%d, commands received by devices=%d, simulator publish errors=%d%n",
+                        fleet.telemetrySent(), fleet.commandsReceived(), fleet.publishErrors());
+                System.out.println("mqtt stats: " + mqttService.getStats());
+
+                ackService.shutdown();
+                presenceService.shutdown();
+            } finally {
+                fleet.close();
+                mqttService.cleanup();
+            }
+        }
+
+        assertTrue(ingestLatency.count() > 0, "no telemetry reached the ingest pipeline");
+        assertTrue(ackLatency.count() > 0, "no command was acknowledged");
+    }
+
+    private void runTelemetry(SimulatedEsp32Fleet fleet, LatencyRecorder ingestLatency) throws InterruptedException {
+        ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+        AtomicInteger next = new AtomicInteger();
+        int perTick = Math.max(1, TELEMETRY_RATE / 100);
+        ticker.scheduleAtFixedRate(() -> {
+            for (int i = 0; i < perTick; i++) {
+                fleet.publishTelemetry(Math.floorMod(next.getAndIncrement(), DEVICES));
+            }
+        }, 0, 10, TimeUnit.MILLISECONDS);
+        TimeUnit.SECONDS.sleep(DURATION_SECONDS);
+        ticker.shutdownNow();
+
+        // let the dispatcher drain what is still queued
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (ingestLatency.count() < fleet.telemetrySent() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+    }
+
+    private void runCommands(SimulatedEsp32Fleet fleet, Esp32ServiceImpl esp32Service,
+                             LatencyRecorder sendLatency, LatencyRecorder ackLatency) throws Exception {
+        // fire-and-forget: time the request thread spends in sendMessage
+        for (int i = 0; i < COMMANDS; i++) {
+            long start = System.nanoTime();
+            esp32Service.sendMessage(fleet.devices().get(i % DEVICES), "light", i % 2 == 0 ? "on" : "off", "en");
+            sendLatency.record(System.nanoTime() - start);
+        }
+
+        // round trip: publish, device receives, device acks on {id}/ack
+        Semaphore outstanding = new Semaphore(COMMAND_CONCURRENCY);
+        AtomicLong failures = new AtomicLong();
+        for (int i = 0; i < COMMANDS; i++) {
+            outstanding.acquire();
+            long start = System.nanoTime();
+            esp32Service.sendMessageAwaitAck(fleet.devices().get(i % DEVICES), "light", "on", "en")
+                    .whenComplete((response, ex) -> {
+                        if (ex == null && response.isSuccess()) {
+                            ackLatency.record(System.nanoTime() - start);
+                        } else {
+                            failures.incrementAndGet();
+                        }
+                        outstanding.release();
+                    });
+        }
+        outstanding.acquire(COMMAND_CONCURRENCY);
+        System.out.println("awaitAck failures: " + failures.get());
+    }
+
+    private static MqttServiceImpl newMqttService(String brokerUrl) throws InterruptedException {
+        MqttServiceImpl service = new MqttServiceImpl(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "brokerUrl", brokerUrl);
+        ReflectionTestUtils.setField(service, "clientId", "bench-service");
+        ReflectionTestUtils.setField(service, "instanceId", "0");
+        ReflectionTestUtils.setField(service, "cleanSession", true);
+        ReflectionTestUtils.setField(service, "ingestTopics", new String[]{"+"});
+        ReflectionTestUtils.setField(service, "persistenceMode", MqttPersistenceMode.MEMORY);
+        ReflectionTestUtils.setField(service, "persistenceMemoryCapacity", 10_000);
+        ReflectionTestUtils.setField(service, "initialBackoffMs", 100L);
+        ReflectionTestUtils.setField(service, "maxBackoffMs", 1_000L);
+        ReflectionTestUtils.setField(service, "acquireTimeoutMs", 1_000L);
+        ReflectionTestUtils.setField(service, "publishTimeoutMs", 10_000L);
+        ReflectionTestUtils.setField(service, "dispatchQueueCapacity", 10_000);
+        ReflectionTestUtils.setField(service, "dispatchOverflowPolicy", MqttInboundDispatcher.OverflowPolicy.BLOCK);
+        ReflectionTestUtils.setField(service, "coalesceWindowMs", 0L);
+        ReflectionTestUtils.setField(service, "payloadFormat", MqttPayloadFormat.TEXT);
+        for (String lane : new String[]{"telemetry", "command", "control"}) {
+            ReflectionTestUtils.setField(service, lane + "Qos", lane.equals("telemetry") ? 0 : 1);
+            ReflectionTestUtils.setField(service, lane + "MaxInFlight", 1_000);
+            ReflectionTestUtils.setField(service, lane + "Priority", Thread.NORM_PRIORITY);
+            ReflectionTestUtils.setField(service, lane + "Stripes", lane.equals("telemetry") ? 8 : 2);
+        }
+        service.init();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!service.getStats().isConnected()) {
+            if (System.nanoTime() > deadline) fail("service did not connect to the embedded broker");
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+        return service;
+    }
+
+    /**
+     * Every simulated ESP32 has one device named "light".
+     */
+    private static Esp32Repository fleetRepository(SimulatedEsp32Fleet fleet) {
+        ObjectMapper mapper = new ObjectMapper();
+        Map<UUID, Esp32> esp32s = new HashMap<>();
+        for (UUID id : fleet.devices()) {
+            ObjectNode metadata = mapper.createObjectNode();
+            metadata.putArray("devices").addObject().put("name", "light").put("type", "light");
+            Esp32 esp32 = new Esp32();
+            esp32.setId(id);
+            esp32.setStatus(1);
+            esp32.setMetadata(metadata);
+            esp32s.put(id, esp32);
+        }
+        Esp32Repository repository = mock(Esp32Repository.class, withSettings().stubOnly());
+        when(repository.findById(any())).thenAnswer(invocation -> Optional.ofNullable(esp32s.get(invocation.<UUID>getArgument(0))));
+        return repository;
+    }
+
+    private static Esp32StateService timedStateService(Esp32StateService delegate, LatencyRecorder latency) {
+        return new Esp32StateService() {
+            @Override
+            public void record(UUID esp32Id, String message) {
+                long sentAt = SimulatedEsp32Fleet.sentAtNanos(message);
+                if (sentAt > 0) latency.record(System.nanoTime() - sentAt);
+                delegate.record(esp32Id, message);
+            }
+
+            @Override
+            public Optional<Esp32StateDto> get(UUID esp32Id) {
+                return delegate.get(esp32Id);
+            }
+
+            @Override
+            public int size() {
+                return delegate.size();
+            }
+        };
+    }
+
+    private static void quietLoggers() {
+        ((Logger) LoggerFactory.getLogger("com.alpha_code")).setLevel(Level.WARN);
+        ((Logger) LoggerFactory.getLogger("io.moquette")).setLevel(Level.WARN);
+        ((Logger) LoggerFactory.getLogger("io.netty")).setLevel(Level.WARN);
+    }
+}
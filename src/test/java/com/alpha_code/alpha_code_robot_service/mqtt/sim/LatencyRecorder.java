@@ -0,0 +1,58 @@
+package com.alpha_code.alpha_code_robot_service.mqtt.sim;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-capacity latency samples, safe to record from many threads. Samples past the capacity
+ * still count towards throughput but are not kept for percentiles.
+ */
+public class LatencyRecorder {
+
+    private final String name;
+    private final AtomicLongArray samples;
+    private final AtomicInteger count = new AtomicInteger();
+    private volatile long firstNanos;
+    private volatile long lastNanos;
+
+    public LatencyRecorder(String name, int capacity) {
+        this.name = name;
+        this.samples = new AtomicLongArray(capacity);
+    }
+
+    public void record(long latencyNanos) {
+        long now = System.nanoTime();
+        int i = count.getAndIncrement();
+        if (i == 0) firstNanos = now;
+        lastNanos = now;
+        if (i < samples.length()) {
+            samples.set(i, latencyNanos);
+        }
+    }
+
+    public int count() {
+        return count.get();
+    }
+
+    public String report() {
+        int n = Math.min(count.get(), samples.length());
+        if (n == 0) {
+            return String.format("%-22s no samples", name);
+        }
+        long[] sorted = new long[n];
+        for (int i = 0; i < n; i++) sorted[i] = samples.get(i);
+        Arrays.sort(sorted);
+        double seconds = Math.max(1, lastNanos - firstNanos) / 1e9;
+        return String.format("%-22s n=%-8d %10.0f msg/s  p50=%8.2fms  p90=%8.2fms  p99=%8.2fms  p99.9=%8.2fms  max=%8.2fms",
+                name, count.get(), count.get() / seconds,
+                millis(sorted, 0.50), millis(sorted, 0.90), millis(sorted, 0.99), millis(sorted, 0.999),
+                sorted[n - 1] / 1e6);
+    }
+
+    private static double millis(long[] sorted, double quantile) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return TimeUnit.NANOSECONDS.toMicros(sorted[Math.max(index, 0)]) / 1000.0;
+    }
+}
@@ -0,0 +1,139 @@
+package com.alpha_code.alpha_code_robot_service.mqtt.sim;
+
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttCallback;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thousands of simulated ESP32s multiplexed over a few MQTT connections, since a Paho client per
+ * device would cost several threads each. Devices publish telemetry on "{esp32Id}" carrying the
+ * send time ("t={nanoTime}"), and answer every command on "{esp32Id}/{device}" that carries a
+ * correlation id with "{correlationId}|OK" on "{esp32Id}/ack". Text payload format only.
+ */
+public class SimulatedEsp32Fleet implements AutoCloseable {
+
+    private static final String[] OWN_CHANNELS = {"ack", "status", "heartbeat"};
+
+    private final List<UUID> devices = new ArrayList<>();
+    private final List<MqttAsyncClient> connections = new ArrayList<>();
+    private final AtomicLong commandsReceived = new AtomicLong();
+    private final AtomicLong telemetrySent = new AtomicLong();
+    private final AtomicLong publishErrors = new AtomicLong();
+
+    public SimulatedEsp32Fleet(String brokerUrl, int deviceCount, int connectionCount) throws MqttException {
+        for (int i = 0; i < deviceCount; i++) {
+            devices.add(UUID.randomUUID());
+        }
+        for (int c = 0; c < connectionCount; c++) {
+            MqttAsyncClient client = new MqttAsyncClient(brokerUrl, "sim-esp32-" + c, new MemoryPersistence());
+            client.setCallback(new CommandResponder(client));
+            MqttConnectOptions options = new MqttConnectOptions();
+            options.setCleanSession(true);
+            options.setMaxInflight(10_000);
+            client.connect(options).waitForCompletion();
+            connections.add(client);
+        }
+        for (int i = 0; i < devices.size(); i++) {
+            connectionOf(i).subscribe(devices.get(i) + "/+", 1).waitForCompletion();
+        }
+    }
+
+    public List<UUID> devices() {
+        return devices;
+    }
+
+    /**
+     * Publishes one QoS 0 telemetry message from the i-th device.
+     */
+    public void publishTelemetry(int deviceIndex) {
+        byte[] payload = ("t=" + System.nanoTime()).getBytes(StandardCharsets.US_ASCII);
+        try {
+            connectionOf(deviceIndex).publish(devices.get(deviceIndex).toString(), payload, 0, false);
+            telemetrySent.incrementAndGet();
+        } catch (MqttException e) {
+            publishErrors.incrementAndGet();
+        }
+    }
+
+    public long commandsReceived() {
+        return commandsReceived.get();
+    }
+
+    public long telemetrySent() {
+        return telemetrySent.get();
+    }
+
+    public long publishErrors() {
+        return publishErrors.get();
+    }
+
+    /**
+     * Parses the send time written by publishTelemetry.
+     */
+    public static long sentAtNanos(String payload) {
+        return payload.startsWith("t=") ? Long.parseLong(payload, 2, payload.length(), 10) : -1;
+    }
+
+    @Override
+    public void close() {
+        for (MqttAsyncClient client : connections) {
+            try {
+                client.disconnectForcibly(1000);
+                client.close();
+            } catch (MqttException ignored) {
+                // shutting down anyway
+            }
+        }
+    }
+
+    private MqttAsyncClient connectionOf(int deviceIndex) {
+        return connections.get(deviceIndex % connections.size());
+    }
+
+    private final class CommandResponder implements MqttCallback {
+        private final MqttAsyncClient client;
+
+        private CommandResponder(MqttAsyncClient client) {
+            this.client = client;
+        }
+
+        @Override
+        public void messageArrived(String topic, MqttMessage message) {
+            int slash = topic.indexOf('/');
+            String channel = topic.substring(slash + 1);
+            for (String own : OWN_CHANNELS) {
+                if (own.equals(channel)) return;
+            }
+            commandsReceived.incrementAndGet();
+
+            String payload = new String(message.getPayload(), StandardCharsets.UTF_8);
+            int sep = payload.indexOf('|');
+            if (sep < 0) return;
+            byte[] ack = (payload.substring(sep + 1) + "|OK").getBytes(StandardCharsets.US_ASCII);
+            try {
+                client.publish(topic.substring(0, slash) + "/ack", ack, 1, false);
+            } catch (MqttException e) {
+                publishErrors.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void connectionLost(Throwable cause) {
+            publishErrors.incrementAndGet();
+        }
+
+        @Override
+        public void deliveryComplete(IMqttDeliveryToken token) {
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.alpha_code.alpha_code_robot_service.ota;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("OtaTransfer Tests")
+class OtaTransferTest {
+
+    private static final int VERSION = 7;
+    private static final int CHUNK = 100;
+
+    @TempDir
+    Path dir;
+
+    private byte[] content;
+    private FirmwareImage image;
+    private List<byte[]> sent;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        content = new byte[1050];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        Path file = dir.resolve("fw.bin");
+        Files.write(file, content);
+        image = FirmwareImage.open(VERSION, file);
+        sent = new ArrayList<>();
+    }
+
+    private OtaTransfer transfer(int windowChunks) {
+        return transfer(windowChunks, frame -> {
+            sent.add(frame);
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    private OtaTransfer transfer(int windowChunks, Function<byte[], CompletableFuture<?>> sender) {
+        return new OtaTransfer(UUID.randomUUID(), image, new byte[32], CHUNK, windowChunks, 1000, 2, sender);
+    }
+
+    // what the service does: record the ack on the MQTT thread, send on the pump thread
+    private static void ack(OtaTransfer transfer, OtaFrames.Ack ack, long now) {
+        if (transfer.onAck(ack, now)) {
+            transfer.pump(now);
+        }
+    }
+
+    private static OtaFrames.Ack progress(int offset) {
+        return new OtaFrames.Ack(VERSION, offset, OtaFrames.AckStatus.PROGRESS);
+    }
+
+    private static byte type(byte[] frame) {
+        return frame[1];
+    }
+
+    private static int offsetOf(byte[] chunk) {
+        return ByteBuffer.wrap(chunk).getInt(6);
+    }
+
+    @Test
+    @DisplayName("Should keep at most the window beyond the acked offset")
+    void testWindow() {
+        // Given
+        OtaTransfer transfer = transfer(3);
+        transfer.start(0);
+        assertEquals(OtaFrames.BEGIN, type(sent.get(0)));
+
+        // When - the device holds nothing yet
+        ack(transfer, progress(0), 10);
+
+        // Then
+        assertEquals(4, sent.size());
+        assertEquals(List.of(0, 100, 200), sent.subList(1, 4).stream().map(OtaTransferTest::offsetOf).toList());
+
+        // When - one chunk acked slides the window by one
+        ack(transfer, progress(100), 20);
+
+        // Then
+        assertEquals(5, sent.size());
+        assertEquals(300, offsetOf(sent.get(4)));
+    }
+
+    @Test
+    @DisplayName("Should resume from the offset the device reports for begin")
+    void testResume() {
+        // Given
+        OtaTransfer transfer = transfer(2);
+        transfer.start(0);
+
+        // When
+        ack(transfer, progress(900), 10);
+
+        // Then - the last chunk is short and carries the image bytes from the mapping
+        assertEquals(3, sent.size());
+        assertEquals(900, offsetOf(sent.get(1)));
+        byte[] last = sent.get(2);
+        assertEquals(1000, offsetOf(last));
+        assertEquals(OtaFrames.CHUNK_HEADER_LENGTH + 50, last.length);
+        assertArrayEquals(Arrays.copyOfRange(content, 1000, 1050),
+                Arrays.copyOfRange(last, OtaFrames.CHUNK_HEADER_LENGTH, last.length));
+    }
+
+    @Test
+    @DisplayName("Should send end once everything is acked and finish on DONE")
+    void testVerifyAndDone() {
+        // Given
+        OtaTransfer transfer = transfer(20);
+        transfer.start(0);
+        ack(transfer, progress(0), 10);
+
+        // When
+        ack(transfer, progress(1050), 20);
+
+        // Then
+        assertEquals(OtaTransfer.State.VERIFYING, transfer.state());
+        assertEquals(OtaFrames.END, type(sent.get(sent.size() - 1)));
+
+        // When
+        ack(transfer, new OtaFrames.Ack(VERSION, 1050, OtaFrames.AckStatus.DONE), 30);
+
+        // Then
+        assertEquals(OtaTransfer.State.DONE, transfer.state());
+    }
+
+    @Test
+    @DisplayName("Should go back to the acked offset on timeout and fail after max retries")
+    void testTimeout() {
+        // Given
+        OtaTransfer transfer = transfer(2);
+        transfer.start(0);
+        ack(transfer, progress(0), 0);
+        ack(transfer, progress(100), 0);
+        sent.clear();
+
+        // When - no progress for the ack timeout
+        transfer.onTick(1000);
+
+        // Then - the unacked chunks are sent again
+        assertEquals(List.of(100, 200), sent.stream().map(OtaTransferTest::offsetOf).toList());
+
+        // When
+        transfer.onTick(2000);
+        transfer.onTick(3000);
+
+        // Then
+        assertEquals(OtaTransfer.State.FAILED, transfer.state());
+        assertNotNull(transfer.error());
+    }
+
+    @Test
+    @DisplayName("Should ignore acks for another version and restart with begin after an interruption")
+    void testInterruptAndOtherVersion() {
+        // Given
+        OtaTransfer transfer = transfer(2);
+        transfer.start(0);
+        ack(transfer, new OtaFrames.Ack(VERSION + 1, 0, OtaFrames.AckStatus.PROGRESS), 0);
+        assertEquals(OtaTransfer.State.STARTING, transfer.state());
+        ack(transfer, progress(0), 0);
+
+        // When
+        transfer.interrupt();
+        sent.clear();
+        transfer.start(5000);
+
+        // Then
+        assertEquals(OtaTransfer.State.STARTING, transfer.state());
+        assertEquals(List.of(OtaFrames.BEGIN), sent.stream().map(OtaTransferTest::type).toList());
+    }
+
+    @Test
+    @DisplayName("Should parse text acks")
+    void testParseAck() {
+        assertEquals(new OtaFrames.Ack(3, 4096, OtaFrames.AckStatus.PROGRESS), OtaFrames.parseAck("3|4096"));
+        assertEquals(new OtaFrames.Ack(3, 8000, OtaFrames.AckStatus.DONE), OtaFrames.parseAck("3|8000|DONE"));
+        assertEquals(OtaFrames.AckStatus.ERROR, OtaFrames.parseAck("3|0|err").status());
+        assertNull(OtaFrames.parseAck("3"));
+        assertNull(OtaFrames.parseAck("3|x"));
+        assertNull(OtaFrames.parseAck("3|1|MAYBE"));
+    }
+
+    @Test
+    @DisplayName("Should resend a chunk whose publish failed without waiting for the ack timeout")
+    void testFailedPublishResent() {
+        // Given - the publish of the chunk at offset 100 fails once, after being handed over
+        CompletableFuture<Void> lost = new CompletableFuture<>();
+        OtaTransfer transfer = transfer(3, frame -> {
+            sent.add(frame);
+            if (frame[1] == OtaFrames.CHUNK && offsetOf(frame) == 100 && !lost.isDone()) return lost;
+            return CompletableFuture.completedFuture(null);
+        });
+        transfer.start(0);
+        ack(transfer, progress(0), 10);
+        assertEquals(List.of(0, 100, 200), sent.subList(1, 4).stream().map(OtaTransferTest::offsetOf).toList());
+        sent.clear();
+
+        // When
+        lost.completeExceptionally(new IllegalStateException("client not connected"));
+        transfer.onTick(20);
+
+        // Then - well inside the ack timeout
+        assertEquals(List.of(100, 200), sent.stream().map(OtaTransferTest::offsetOf).toList());
+        assertEquals(OtaTransfer.State.SENDING, transfer.state());
+    }
+
+    @Test
+    @DisplayName("Should continue after the publish window refused a chunk without counting a retry")
+    void testWindowFullContinuesOnTick() {
+        // Given - the window takes one chunk, then refuses
+        int[] room = {1};
+        OtaTransfer transfer = transfer(3, frame -> {
+            if (frame[1] == OtaFrames.CHUNK && room[0]-- <= 0) throw new IllegalStateException("window full");
+            sent.add(frame);
+            return CompletableFuture.completedFuture(null);
+        });
+        transfer.start(0);
+        ack(transfer, progress(0), 10);
+        assertEquals(2, sent.size());
+
+        // When - the window drains before the ack timeout
+        room[0] = 10;
+        transfer.onTick(20);
+
+        // Then
+        assertEquals(List.of(0, 100, 200), sent.subList(1, sent.size()).stream().map(OtaTransferTest::offsetOf).toList());
+        assertEquals(OtaTransfer.State.SENDING, transfer.state());
+    }
+
+    @Test
+    @DisplayName("Should resend begin on the next tick when its publish failed")
+    void testFailedBeginResent() {
+        // Given
+        boolean[] fail = {true};
+        OtaTransfer transfer = transfer(3, frame -> {
+            sent.add(frame);
+            return fail[0]
+                    ? CompletableFuture.failedFuture(new IllegalStateException("client not connected"))
+                    : CompletableFuture.completedFuture(null);
+        });
+        transfer.start(0);
+
+        // When
+        fail[0] = false;
+        transfer.onTick(10);
+
+        // Then
+        assertEquals(List.of(OtaFrames.BEGIN, OtaFrames.BEGIN), sent.stream().map(OtaTransferTest::type).toList());
+        assertEquals(OtaTransfer.State.STARTING, transfer.state());
+    }
+
+    @Test
+    @DisplayName("Should not send from the ack itself")
+    void testAckDoesNotSend() {
+        // Given
+        OtaTransfer transfer = transfer(3);
+        transfer.start(0);
+
+        // When
+        boolean ready = transfer.onAck(progress(0), 10);
+
+        // Then
+        assertTrue(ready);
+        assertEquals(1, sent.size());
+    }
+}
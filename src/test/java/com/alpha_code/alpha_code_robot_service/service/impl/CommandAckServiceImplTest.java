@@ -0,0 +1,147 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import com.alpha_code.alpha_code_robot_service.event.Esp32CommandResultEvent;
+import com.alpha_code.alpha_code_robot_service.service.MqttService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CommandAckServiceImpl Tests")
+class CommandAckServiceImplTest {
+
+    @Mock
+    private MqttService mqttService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private CommandAckServiceImpl ackService;
+
+    private UUID esp32Id;
+
+    @BeforeEach
+    void setUp() {
+        esp32Id = UUID.randomUUID();
+        ReflectionTestUtils.setField(ackService, "ackTimeoutMs", 60_000L);
+        ackService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ackService.shutdown();
+    }
+
+    private static AtomicReference<String> completingThread(CompletableFuture<String> future) {
+        AtomicReference<String> thread = new AtomicReference<>();
+        future.whenComplete((status, ex) -> thread.set(Thread.currentThread().getName()));
+        return thread;
+    }
+
+    @Test
+    @DisplayName("Should complete the future with the acked status off the MQTT thread")
+    void testAck_Completes() throws Exception {
+        // Given
+        String correlationId = ackService.newCorrelationId();
+        CompletableFuture<String> future = ackService.register(esp32Id, correlationId);
+        AtomicReference<String> thread = completingThread(future);
+
+        // When
+        ackService.onAck(esp32Id + "/ack", correlationId + "|DONE");
+
+        // Then
+        assertEquals("DONE", future.get(2, TimeUnit.SECONDS));
+        assertEquals("command-ack-complete", thread.get());
+        assertEquals(0, ackService.pendingCount());
+        verify(eventPublisher, timeout(1000)).publishEvent(new Esp32CommandResultEvent(esp32Id, correlationId, "DONE"));
+    }
+
+    @Test
+    @DisplayName("Should time out off the timer thread when the ESP32 never acks")
+    void testTimeout() {
+        // Given
+        ReflectionTestUtils.setField(ackService, "ackTimeoutMs", 50L);
+        String correlationId = ackService.newCorrelationId();
+
+        // When
+        CompletableFuture<String> future = ackService.register(esp32Id, correlationId);
+        AtomicReference<String> thread = completingThread(future);
+
+        // Then
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> future.get(2, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, ex.getCause());
+        assertEquals("command-ack-complete", thread.get());
+        assertEquals(0, ackService.pendingCount());
+        verify(eventPublisher, timeout(1000)).publishEvent(new Esp32CommandResultEvent(esp32Id, correlationId, "TIMEOUT"));
+    }
+
+    @Test
+    @DisplayName("Should ignore an ack from another ESP32")
+    void testAck_WrongEsp32() {
+        // Given
+        String correlationId = ackService.newCorrelationId();
+        CompletableFuture<String> future = ackService.register(esp32Id, correlationId);
+
+        // When
+        ackService.onAck(UUID.randomUUID() + "/ack", correlationId);
+
+        // Then
+        assertFalse(future.isDone());
+        assertEquals(1, ackService.pendingCount());
+    }
+
+    @Test
+    @DisplayName("Should fail the future and drop the entry when the publish failed")
+    void testFail() {
+        // Given
+        String correlationId = ackService.newCorrelationId();
+        CompletableFuture<String> future = ackService.register(esp32Id, correlationId);
+        IllegalStateException cause = new IllegalStateException("not connected");
+
+        // When
+        ackService.fail(correlationId, cause);
+
+        // Then
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> future.get(2, TimeUnit.SECONDS));
+        assertSame(cause, ex.getCause());
+        assertEquals(0, ackService.pendingCount());
+        // a late ack changes nothing
+        ackService.onAck(esp32Id + "/ack", correlationId);
+        verify(eventPublisher, timeout(1000)).publishEvent(new Esp32CommandResultEvent(esp32Id, correlationId, "FAILED"));
+        verifyNoMoreInteractions(eventPublisher);
+    }
+
+    @Test
+    @DisplayName("Should wrap correlation ids within 32 bits and skip zero")
+    void testNewCorrelationId_Wraps() {
+        // Given
+        ((AtomicLong) ReflectionTestUtils.getField(ackService, "sequence")).set(0xFFFFFFFEL);
+
+        // When
+        String last = ackService.newCorrelationId();
+        String wrapped = ackService.newCorrelationId();
+
+        // Then
+        assertEquals(0xFFFFFFFFL, Long.parseLong(last, 36));
+        assertEquals("1", wrapped);
+    }
+}
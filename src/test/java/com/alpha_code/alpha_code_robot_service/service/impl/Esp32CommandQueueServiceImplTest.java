@@ -0,0 +1,304 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import com.alpha_code.alpha_code_robot_service.event.Esp32PresenceEvent;
+import com.alpha_code.alpha_code_robot_service.exception.ServiceUnavailableException;
+import com.alpha_code.alpha_code_robot_service.mqtt.MqttCommandCoalescer;
+import com.alpha_code.alpha_code_robot_service.mqtt.codec.DeviceCommand;
+import com.alpha_code.alpha_code_robot_service.service.Esp32OwnershipService;
+import com.alpha_code.alpha_code_robot_service.service.Esp32PresenceService;
+import com.alpha_code.alpha_code_robot_service.service.MqttService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisListCommands.Direction;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Esp32CommandQueueServiceImpl Tests")
+class Esp32CommandQueueServiceImplTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private MqttService mqttService;
+
+    @Mock
+    private Esp32PresenceService presenceService;
+
+    @Mock
+    private Esp32OwnershipService ownershipService;
+
+    @Mock
+    private ListOperations<String, String> listOps;
+
+    @Mock
+    private ValueOperations<String, String> valueOps;
+
+    @Mock
+    private ScheduledExecutorService scheduler;
+
+    @InjectMocks
+    private Esp32CommandQueueServiceImpl queueService;
+
+    // in-memory stand-in for the Redis lists
+    private final Map<String, Deque<String>> lists = new HashMap<>();
+    private UUID esp32Id;
+    private String queueKey;
+    private String processingKey;
+
+    @BeforeEach
+    void setUp() {
+        esp32Id = UUID.randomUUID();
+        queueKey = "esp32:cmdq:" + esp32Id;
+        processingKey = queueKey + ":processing";
+        ReflectionTestUtils.setField(queueService, "enabled", true);
+        ReflectionTestUtils.setField(queueService, "maxLength", 3);
+        ReflectionTestUtils.setField(queueService, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(queueService, "drainIntervalMs", 200L);
+        ReflectionTestUtils.setField(queueService, "retryDelayMs", 5_000L);
+        ReflectionTestUtils.setField(queueService, "drainerLeaseMs", 30_000L);
+        ReflectionTestUtils.setField(queueService, "scheduler", scheduler);
+
+        lenient().when(redisTemplate.opsForList()).thenReturn(listOps);
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOps);
+        lenient().when(ownershipService.nodeId()).thenReturn("node-1");
+        lenient().when(listOps.move(anyString(), any(Direction.class), anyString(), any(Direction.class))).thenAnswer(inv -> {
+            Deque<String> from = lists.get(inv.<String>getArgument(0));
+            if (from == null || from.isEmpty()) return null;
+            String value = inv.getArgument(1) == Direction.LEFT ? from.pollFirst() : from.pollLast();
+            Deque<String> to = lists.computeIfAbsent(inv.getArgument(2), k -> new ArrayDeque<>());
+            if (inv.getArgument(3) == Direction.LEFT) to.addFirst(value);
+            else to.addLast(value);
+            return value;
+        });
+        lenient().when(listOps.remove(anyString(), anyLong(), any())).thenAnswer(inv ->
+                lists.getOrDefault(inv.<String>getArgument(0), new ArrayDeque<>()).removeFirstOccurrence(inv.getArgument(2)) ? 1L : 0L);
+        lenient().when(listOps.leftPush(anyString(), anyString())).thenAnswer(inv -> {
+            lists.computeIfAbsent(inv.getArgument(0), k -> new ArrayDeque<>()).addFirst(inv.getArgument(1));
+            return 1L;
+        });
+        lenient().when(listOps.size(anyString())).thenAnswer(inv ->
+                (long) lists.getOrDefault(inv.<String>getArgument(0), new ArrayDeque<>()).size());
+        lenient().when(valueOps.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        // tasks run inline, so a whole drain completes inside the call
+        lenient().doAnswer(inv -> {
+            inv.<Runnable>getArgument(0).run();
+            return null;
+        }).when(scheduler).execute(any(Runnable.class));
+        lenient().when(scheduler.schedule(any(Runnable.class), anyLong(), any())).thenAnswer(inv -> {
+            inv.<Runnable>getArgument(0).run();
+            return null;
+        });
+    }
+
+    private String entry(String command, long expiresAt) {
+        return new Esp32CommandQueueServiceImpl.QueuedCommand(expiresAt, "light", new DeviceCommand(command, 0, null)).encode();
+    }
+
+    private void queue(String... commands) {
+        Deque<String> list = lists.computeIfAbsent(queueKey, k -> new ArrayDeque<>());
+        for (String command : commands) {
+            list.addLast(entry(command, System.currentTimeMillis() + 60_000));
+        }
+    }
+
+    private List<String> published() {
+        ArgumentCaptor<DeviceCommand> captor = ArgumentCaptor.forClass(DeviceCommand.class);
+        verify(mqttService, atLeast(0)).publishCommand(anyString(), captor.capture());
+        return captor.getAllValues().stream().map(DeviceCommand::command).toList();
+    }
+
+    @Test
+    @DisplayName("Queue entries round-trip, even with separators in the device name and command")
+    void entryRoundTrip() {
+        Esp32CommandQueueServiceImpl.QueuedCommand queued = new Esp32CommandQueueServiceImpl.QueuedCommand(
+                1_760_000_000_000L, "đèn|phòng khách", new DeviceCommand("set|75", 3, null));
+
+        Esp32CommandQueueServiceImpl.QueuedCommand decoded =
+                Esp32CommandQueueServiceImpl.QueuedCommand.decode(queued.encode());
+
+        assertEquals(queued, decoded);
+    }
+
+    @Test
+    @DisplayName("Malformed entries decode to null and are skipped while draining")
+    void malformedEntry() {
+        assertNull(Esp32CommandQueueServiceImpl.QueuedCommand.decode("garbage"));
+        assertNull(Esp32CommandQueueServiceImpl.QueuedCommand.decode("123|0|99|short"));
+    }
+
+    @Test
+    @DisplayName("Enqueue appends, trims to max-length and sets the TTL in one pipeline")
+    void enqueueTrimsAndExpires() {
+        StringRedisConnection connection = mock(StringRedisConnection.class);
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(inv -> {
+            inv.<RedisCallback<?>>getArgument(0).doInRedis(connection);
+            return List.of(5L, true, true);
+        });
+        when(presenceService.isOffline(esp32Id)).thenReturn(true);
+
+        assertTrue(queueService.enqueue(esp32Id, "light", new DeviceCommand("ON", 0, null)));
+
+        verify(connection).rPush(eq(queueKey), anyString());
+        verify(connection).lTrim(queueKey, -3, -1);
+        verify(connection).pExpire(queueKey, 60_000L);
+        assertEquals(2, queueService.droppedCount());
+        // offline: nothing to drain yet
+        verify(scheduler, never()).execute(any(Runnable.class));
+    }
+
+    @Test
+    @DisplayName("Enqueue reports failure when Redis is down so the caller can fail fast")
+    void enqueueRedisDown() {
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        assertFalse(queueService.enqueue(esp32Id, "light", new DeviceCommand("ON", 0, null)));
+    }
+
+    @Test
+    @DisplayName("The owner drains queued commands in order when the ESP32 comes online")
+    void drainsInOrder() {
+        queue("ON", "SET 50", "OFF");
+        when(ownershipService.isOwner(esp32Id)).thenReturn(true);
+        when(mqttService.publishCommand(anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(MqttCommandCoalescer.Outcome.SENT));
+
+        queueService.onPresence(new Esp32PresenceEvent(esp32Id, true));
+
+        assertEquals(List.of("ON", "SET 50", "OFF"), published());
+        assertTrue(lists.get(queueKey).isEmpty());
+        assertTrue(lists.get(processingKey).isEmpty());
+        assertEquals(3, queueService.drainedCount());
+        assertFalse(queueService.isDraining(esp32Id));
+        verify(redisTemplate, atLeastOnce()).execute(any(RedisScript.class), eq(List.of(queueKey + ":drainer")), eq("node-1"));
+    }
+
+    @Test
+    @DisplayName("Non-owners do not start a drain on presence")
+    void nonOwnerDoesNotDrain() {
+        queue("ON");
+        when(ownershipService.isOwner(esp32Id)).thenReturn(false);
+
+        queueService.onPresence(new Esp32PresenceEvent(esp32Id, true));
+
+        verifyNoInteractions(mqttService);
+    }
+
+    @Test
+    @DisplayName("Expired entries are dropped without being sent")
+    void skipsExpired() {
+        lists.computeIfAbsent(queueKey, k -> new ArrayDeque<>()).add(entry("OLD", System.currentTimeMillis() - 1));
+        queue("NEW");
+        when(mqttService.publishCommand(anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(MqttCommandCoalescer.Outcome.SENT));
+
+        queueService.startDrain(esp32Id);
+
+        assertEquals(List.of("NEW"), published());
+        assertEquals(1, queueService.expiredCount());
+        assertTrue(lists.get(processingKey).isEmpty());
+    }
+
+    @Test
+    @DisplayName("A failed publish puts the command back at the head and retries it")
+    void pushBackOnFailure() {
+        queue("ON", "OFF");
+        when(mqttService.publishCommand(anyString(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("not connected")))
+                .thenReturn(CompletableFuture.completedFuture(MqttCommandCoalescer.Outcome.SENT));
+
+        queueService.startDrain(esp32Id);
+
+        assertEquals(List.of("ON", "ON", "OFF"), published());
+        verify(scheduler).schedule(any(Runnable.class), eq(5_000L), any());
+        assertTrue(lists.get(queueKey).isEmpty());
+        assertTrue(lists.get(processingKey).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Draining stops when the ESP32 goes offline and keeps the rest queued")
+    void stopsWhenOffline() {
+        queue("ON", "OFF");
+        when(presenceService.isOffline(esp32Id)).thenReturn(false, true);
+        when(mqttService.publishCommand(anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(MqttCommandCoalescer.Outcome.SENT));
+
+        queueService.startDrain(esp32Id);
+
+        assertEquals(List.of("ON"), published());
+        assertEquals(1, lists.get(queueKey).size());
+        assertTrue(lists.get(processingKey).isEmpty());
+    }
+
+    @Test
+    @DisplayName("A command left in processing by a crash is sent first on the next drain")
+    void restoresProcessingEntry() {
+        queue("OFF");
+        lists.computeIfAbsent(processingKey, k -> new ArrayDeque<>())
+                .add(entry("ON", System.currentTimeMillis() + 60_000));
+        when(mqttService.publishCommand(anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(MqttCommandCoalescer.Outcome.SENT));
+
+        queueService.startDrain(esp32Id);
+
+        assertEquals(List.of("ON", "OFF"), published());
+        assertEquals(1, queueService.restoredCount());
+    }
+
+    @Test
+    @DisplayName("Only the replica holding the drainer lease drains")
+    void leaseHeldElsewhere() {
+        queue("ON");
+        when(valueOps.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+
+        queueService.startDrain(esp32Id);
+
+        verifyNoInteractions(mqttService);
+        assertEquals(1, lists.get(queueKey).size());
+    }
+
+    @Test
+    @DisplayName("Commands queued on another replica count as draining there")
+    void isDrainingSeesOtherReplicas() {
+        when(redisTemplate.countExistingKeys(List.of(queueKey, processingKey))).thenReturn(1L);
+
+        assertTrue(queueService.isDraining(esp32Id));
+    }
+
+    @Test
+    @DisplayName("Depth reports Redis outages as service unavailable")
+    void depthRedisDown() {
+        when(listOps.size(queueKey)).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertThrows(ServiceUnavailableException.class, () -> queueService.depth(esp32Id));
+    }
+}
@@ -0,0 +1,292 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import com.alpha_code.alpha_code_robot_service.dto.Esp32CommandScheduleDto;
+import com.alpha_code.alpha_code_robot_service.entity.Esp32;
+import com.alpha_code.alpha_code_robot_service.entity.Esp32CommandSchedule;
+import com.alpha_code.alpha_code_robot_service.enums.Esp32CommandScheduleEnum;
+import com.alpha_code.alpha_code_robot_service.event.Esp32LifecycleEvent;
+import com.alpha_code.alpha_code_robot_service.mqtt.codec.DeviceCommand;
+import com.alpha_code.alpha_code_robot_service.repository.Esp32CommandScheduleRepository;
+import com.alpha_code.alpha_code_robot_service.repository.Esp32Repository;
+import com.alpha_code.alpha_code_robot_service.service.MqttService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Esp32CommandScheduleServiceImpl Tests")
+class Esp32CommandScheduleServiceImplTest {
+
+    @Mock
+    private Esp32CommandScheduleRepository repository;
+
+    @Mock
+    private Esp32Repository esp32Repository;
+
+    @Mock
+    private MqttService mqttService;
+
+    @InjectMocks
+    private Esp32CommandScheduleServiceImpl scheduleService;
+
+    private UUID esp32Id;
+
+    @BeforeEach
+    void setUp() {
+        esp32Id = UUID.randomUUID();
+        // horizon 0 keeps the next occurrence in the table; tests that arm widen it
+        ReflectionTestUtils.setField(scheduleService, "horizonMs", 0L);
+        ReflectionTestUtils.setField(scheduleService, "misfireGraceMs", 60_000L);
+        ReflectionTestUtils.setField(scheduleService, "zone", "Asia/Ho_Chi_Minh");
+        ReflectionTestUtils.setField(scheduleService, "fireParallelism", 1);
+        scheduleService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduleService.shutdown();
+    }
+
+    private Esp32CommandScheduleDto dto(String cron, LocalDateTime fireAt) {
+        Esp32CommandScheduleDto dto = new Esp32CommandScheduleDto();
+        dto.setEsp32Id(esp32Id);
+        dto.setDeviceName("light");
+        dto.setCommand("OFF");
+        dto.setCronExpression(cron);
+        dto.setNextFireAt(fireAt);
+        return dto;
+    }
+
+    private void givenEsp32Exists() {
+        when(esp32Repository.findById(esp32Id)).thenReturn(Optional.of(Esp32.builder().id(esp32Id).status(1).build()));
+    }
+
+    private Esp32CommandSchedule schedule(String cron, LocalDateTime fireAt) {
+        return Esp32CommandSchedule.builder()
+                .id(UUID.randomUUID())
+                .esp32Id(esp32Id)
+                .deviceName("light")
+                .command("OFF")
+                .cronExpression(cron)
+                .nextFireAt(fireAt)
+                .status(Esp32CommandScheduleEnum.ACTIVE.getCode())
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should publish a claimed one-shot schedule and mark it completed")
+    void testFire_OneShot() throws Exception {
+        // Given
+        Esp32CommandSchedule schedule = schedule(null, LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+        when(repository.claimFire(eq(schedule.getId()), eq(schedule.getNextFireAt()), isNull(), any(),
+                eq(Esp32CommandScheduleEnum.COMPLETED.getCode()))).thenReturn(1);
+
+        // When
+        scheduleService.fire(schedule);
+
+        // Then
+        verify(mqttService).publish(esp32Id + "/light", new DeviceCommand("OFF", -1, null));
+    }
+
+    @Test
+    @DisplayName("Should advance a recurring schedule to its next cron occurrence")
+    void testFire_RecurringAdvances() throws Exception {
+        // Given
+        Esp32CommandSchedule schedule = schedule("0 0 22 * * *", LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+        ArgumentCaptor<LocalDateTime> next = ArgumentCaptor.forClass(LocalDateTime.class);
+        when(repository.claimFire(eq(schedule.getId()), eq(schedule.getNextFireAt()), next.capture(), any(),
+                eq(Esp32CommandScheduleEnum.ACTIVE.getCode()))).thenReturn(1);
+
+        // When
+        scheduleService.fire(schedule);
+
+        // Then
+        verify(mqttService).publish(esp32Id + "/light", new DeviceCommand("OFF", -1, null));
+        assertTrue(next.getValue().isAfter(LocalDateTime.now()));
+        assertTrue(next.getValue().isBefore(LocalDateTime.now().plusDays(1).plusMinutes(1)));
+    }
+
+    @Test
+    @DisplayName("Should not publish when the fire was already claimed")
+    void testFire_NotClaimed() throws Exception {
+        // Given
+        Esp32CommandSchedule schedule = schedule(null, LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+        when(repository.claimFire(any(), any(), any(), any(), anyInt())).thenReturn(0);
+
+        // When
+        scheduleService.fire(schedule);
+
+        // Then
+        verify(mqttService, never()).publish(anyString(), any(DeviceCommand.class));
+    }
+
+    @Test
+    @DisplayName("Should skip a fire missed by more than the grace period")
+    void testFire_MissedBeyondGrace() throws Exception {
+        // Given
+        Esp32CommandSchedule schedule = schedule("0 0 22 * * *", LocalDateTime.now().minusDays(2).truncatedTo(ChronoUnit.SECONDS));
+        when(repository.claimFire(any(), any(), any(), any(), anyInt())).thenReturn(1);
+
+        // When
+        scheduleService.fire(schedule);
+
+        // Then
+        verify(repository).claimFire(eq(schedule.getId()), eq(schedule.getNextFireAt()), notNull(), any(),
+                eq(Esp32CommandScheduleEnum.ACTIVE.getCode()));
+        verify(mqttService, never()).publish(anyString(), any(DeviceCommand.class));
+    }
+
+    @Test
+    @DisplayName("Should reject an invalid cron expression")
+    void testCreate_InvalidCron() {
+        // Given
+        givenEsp32Exists();
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> scheduleService.create(dto("every night", null)));
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should reject a one-shot schedule in the past")
+    void testCreate_OneShotInPast() {
+        // Given
+        givenEsp32Exists();
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+                () -> scheduleService.create(dto(null, LocalDateTime.now().minusMinutes(1))));
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should reject a schedule with both or neither of cron and fire time")
+    void testCreate_BothOrNeither() {
+        // Given
+        givenEsp32Exists();
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+                () -> scheduleService.create(dto("0 0 22 * * *", LocalDateTime.now().plusHours(1))));
+        assertThrows(IllegalArgumentException.class, () -> scheduleService.create(dto(null, null)));
+        assertThrows(IllegalArgumentException.class, () -> scheduleService.create(dto("  ", null)));
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should arm a new schedule only when it is due within the horizon")
+    void testCreate_ArmsWithinHorizon() {
+        // Given
+        ReflectionTestUtils.setField(scheduleService, "horizonMs", 60_000L);
+        givenEsp32Exists();
+        when(repository.save(any())).thenAnswer(invocation -> {
+            Esp32CommandSchedule saved = invocation.getArgument(0);
+            saved.setId(UUID.randomUUID());
+            return saved;
+        });
+
+        // When
+        Esp32CommandScheduleDto soon = scheduleService.create(dto(null, LocalDateTime.now().plusSeconds(30)));
+        scheduleService.create(dto(null, LocalDateTime.now().plusDays(1)));
+
+        // Then
+        assertEquals(Esp32CommandScheduleEnum.ACTIVE.getCode(), soon.getStatus());
+        assertEquals(1, scheduleService.armedCount());
+    }
+
+    @Test
+    @DisplayName("Should arm the rows due within the horizon once")
+    void testLoadDue_ArmsWithinHorizon() {
+        // Given
+        ReflectionTestUtils.setField(scheduleService, "horizonMs", 60_000L);
+        List<Esp32CommandSchedule> due = List.of(
+                schedule(null, LocalDateTime.now().plusSeconds(30)),
+                schedule("0 * * * * *", LocalDateTime.now().plusSeconds(45)));
+        ArgumentCaptor<LocalDateTime> horizon = ArgumentCaptor.forClass(LocalDateTime.class);
+        when(repository.findDueBefore(horizon.capture())).thenReturn(due);
+        LocalDateTime before = LocalDateTime.now();
+
+        // When
+        scheduleService.loadDue();
+        scheduleService.loadDue();
+
+        // Then
+        assertEquals(2, scheduleService.armedCount());
+        assertFalse(horizon.getValue().isBefore(before.plusSeconds(60)));
+        assertTrue(horizon.getValue().isBefore(LocalDateTime.now().plusSeconds(61)));
+    }
+
+    @Test
+    @DisplayName("Should disarm a deleted schedule")
+    void testDelete_Disarms() {
+        // Given
+        ReflectionTestUtils.setField(scheduleService, "horizonMs", 60_000L);
+        Esp32CommandSchedule schedule = schedule(null, LocalDateTime.now().plusSeconds(30));
+        when(repository.findDueBefore(any())).thenReturn(List.of(schedule));
+        when(repository.findById(schedule.getId())).thenReturn(Optional.of(schedule));
+        scheduleService.loadDue();
+
+        // When
+        scheduleService.delete(schedule.getId());
+
+        // Then
+        assertEquals(0, scheduleService.armedCount());
+        assertEquals(Esp32CommandScheduleEnum.DELETED.getCode(), schedule.getStatus());
+        verify(repository).save(schedule);
+    }
+
+    @Test
+    @DisplayName("Should delete and disarm the schedules of a deleted ESP32 only")
+    void testLifecycle_DeletedEsp32() {
+        // Given
+        ReflectionTestUtils.setField(scheduleService, "horizonMs", 60_000L);
+        Esp32CommandSchedule other = schedule(null, LocalDateTime.now().plusSeconds(30));
+        other.setEsp32Id(UUID.randomUUID());
+        when(repository.findDueBefore(any())).thenReturn(List.of(
+                schedule(null, LocalDateTime.now().plusSeconds(30)),
+                schedule("0 * * * * *", LocalDateTime.now().plusSeconds(40)),
+                other));
+        scheduleService.loadDue();
+
+        // When
+        scheduleService.onLifecycle(new Esp32LifecycleEvent(esp32Id, Esp32LifecycleEvent.Type.STATUS_CHANGED, 0));
+        scheduleService.onLifecycle(new Esp32LifecycleEvent(esp32Id, Esp32LifecycleEvent.Type.DELETED, 0));
+
+        // Then
+        assertEquals(1, scheduleService.armedCount());
+        verify(repository, times(1)).deleteAllByEsp32Id(eq(esp32Id), any());
+    }
+
+    @Test
+    @DisplayName("Should neither publish nor re-arm when another instance won the fire")
+    void testFire_LostRaceNotRearmed() throws Exception {
+        // Given - the next occurrence would be inside the horizon
+        ReflectionTestUtils.setField(scheduleService, "horizonMs", 120_000L);
+        Esp32CommandSchedule schedule = schedule("0 * * * * *", LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+        when(repository.claimFire(any(), any(), any(), any(), anyInt())).thenReturn(0);
+
+        // When
+        scheduleService.fire(schedule);
+
+        // Then
+        verify(mqttService, never()).publish(anyString(), any(DeviceCommand.class));
+        assertEquals(0, scheduleService.armedCount());
+    }
+}
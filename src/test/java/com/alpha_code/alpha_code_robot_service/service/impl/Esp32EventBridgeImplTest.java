@@ -0,0 +1,146 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import com.alpha_code.alpha_code_robot_service.dto.Esp32EventDto;
+import com.alpha_code.alpha_code_robot_service.service.Esp32EventHub;
+import com.alpha_code.alpha_code_robot_service.service.Esp32OwnershipService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Esp32EventBridgeImpl Tests")
+class Esp32EventBridgeImplTest {
+
+    @Mock
+    private Esp32EventHub eventHub;
+
+    @Mock
+    private Esp32OwnershipService ownershipService;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Mock
+    private ObjectProvider<RedisMessageListenerContainer> listenerContainers;
+
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+
+    private Esp32EventBridgeImpl bridge;
+
+    private UUID esp32Id;
+
+    @BeforeEach
+    void setUp() {
+        esp32Id = UUID.randomUUID();
+        bridge = new Esp32EventBridgeImpl(eventHub, ownershipService, redisTemplate, listenerContainers,
+                new ObjectMapper().findAndRegisterModules());
+        // enabled without init(): flush() is called by the test instead of the ticker
+        ReflectionTestUtils.setField(bridge, "enabled", true);
+        ReflectionTestUtils.setField(bridge, "remoteWatched", Set.of(esp32Id.toString()));
+    }
+
+    private Esp32EventDto event(Esp32EventDto.Type type) {
+        return Esp32EventDto.builder().type(type).esp32Id(esp32Id).status("OK").build();
+    }
+
+    @Test
+    @DisplayName("Command results are delivered locally and relayed once per tick")
+    void relaysCommandResults() {
+        when(ownershipService.nodeId()).thenReturn("node-a");
+
+        bridge.publish(event(Esp32EventDto.Type.COMMAND));
+        bridge.publish(event(Esp32EventDto.Type.COMMAND));
+        bridge.flush();
+
+        verify(eventHub, times(2)).publish(any());
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+        assertEquals(2, bridge.relayedCount());
+    }
+
+    @Test
+    @DisplayName("Messages are not relayed when every replica receives the ingest topics")
+    void doesNotRelayMessagesWithoutSharedIngest() {
+        bridge.publish(event(Esp32EventDto.Type.MESSAGE));
+        bridge.flush();
+
+        verify(eventHub).publish(any());
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    @DisplayName("Batches from other replicas are delivered, own batches are skipped unparsed")
+    void deliversRemoteBatchesOnly() {
+        when(ownershipService.nodeId()).thenReturn("node-a");
+        String batch = "[{\"type\":\"COMMAND\",\"esp32Id\":\"" + esp32Id + "\",\"correlationId\":\"c1\",\"status\":\"OK\"}]";
+        byte[] channel = ("esp32:events:" + esp32Id).getBytes(StandardCharsets.UTF_8);
+
+        bridge.onRelay(new DefaultMessage(channel, ("node-a\n" + batch).getBytes(StandardCharsets.UTF_8)), null);
+        verifyNoInteractions(eventHub);
+
+        bridge.onRelay(new DefaultMessage(channel, ("node-b\n" + batch).getBytes(StandardCharsets.UTF_8)), null);
+        ArgumentCaptor<Esp32EventDto> captor = ArgumentCaptor.forClass(Esp32EventDto.class);
+        verify(eventHub).publish(captor.capture());
+        assertEquals("c1", captor.getValue().getCorrelationId());
+        assertEquals(1, bridge.receivedCount());
+    }
+
+    @Test
+    @DisplayName("Interest counts other replicas' entries only, so a locally watched ESP32 is not relayed to itself")
+    void refreshInterestSkipsOwnEntries() {
+        UUID other = UUID.randomUUID();
+        UUID shared = UUID.randomUUID();
+        when(ownershipService.nodeId()).thenReturn("node-a");
+        when(eventHub.watchedIds()).thenReturn(Set.of(esp32Id, shared));
+        when(listenerContainers.getObject()).thenReturn(listenerContainer);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.rangeByScore(eq("esp32:events:watched"), anyDouble(), eq(Double.POSITIVE_INFINITY)))
+                .thenReturn(Set.of(esp32Id + "|node-a", shared + "|node-a", shared + "|node-b", other + "|node-b"));
+
+        bridge.refreshInterest();
+
+        verify(listenerContainer).addMessageListener(any(), eq(new ChannelTopic("esp32:events:" + esp32Id)));
+        assertEquals(Set.of(shared.toString(), other.toString()), ReflectionTestUtils.getField(bridge, "remoteWatched"));
+
+        // watched only here: delivered locally, nothing queued for the other replicas
+        bridge.publish(event(Esp32EventDto.Type.COMMAND));
+        bridge.flush();
+        verify(eventHub).publish(any());
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+        assertEquals(0, bridge.relayedCount());
+    }
+
+    @Test
+    @DisplayName("A disabled bridge never asks for the listener container")
+    void disabledBridgeNeedsNoContainer() {
+        ReflectionTestUtils.setField(bridge, "enabled", false);
+
+        bridge.refreshInterest();
+
+        verifyNoInteractions(listenerContainers, eventHub, redisTemplate);
+    }
+}
@@ -0,0 +1,101 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import com.alpha_code.alpha_code_robot_service.dto.Esp32EventDto;
+import com.alpha_code.alpha_code_robot_service.entity.Esp32;
+import com.alpha_code.alpha_code_robot_service.event.Esp32LifecycleEvent;
+import com.alpha_code.alpha_code_robot_service.exception.TooManyRequestsException;
+import com.alpha_code.alpha_code_robot_service.repository.Esp32Repository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Esp32EventHubImpl Tests")
+class Esp32EventHubImplTest {
+
+    @Mock
+    private Esp32Repository repository;
+
+    @InjectMocks
+    private Esp32EventHubImpl eventHub;
+
+    private UUID accountId;
+    private UUID esp32Id;
+
+    @BeforeEach
+    void setUp() {
+        accountId = UUID.randomUUID();
+        esp32Id = UUID.randomUUID();
+        ReflectionTestUtils.setField(eventHub, "bufferSize", 2);
+        ReflectionTestUtils.setField(eventHub, "emitterTimeoutMs", 60_000L);
+        ReflectionTestUtils.setField(eventHub, "maxSubscribersPerAccount", 2);
+        // sends never run, so queued events pile up as with a client that stopped reading
+        ReflectionTestUtils.setField(eventHub, "sendExecutor", mock(ExecutorService.class));
+        when(repository.findAllByAccountIdAndStatusNot(accountId, 0))
+                .thenReturn(List.of(Esp32.builder().id(esp32Id).accountId(accountId).build()));
+    }
+
+    private Esp32EventDto message(String text) {
+        return Esp32EventDto.builder().type(Esp32EventDto.Type.MESSAGE).esp32Id(esp32Id).message(text).build();
+    }
+
+    @Test
+    @DisplayName("Routes the account's ESP32s only while it has subscribers")
+    void routesWhileSubscribed() {
+        assertFalse(eventHub.isWatched(esp32Id));
+
+        eventHub.subscribe(accountId);
+
+        assertTrue(eventHub.isWatched(esp32Id));
+        assertEquals(1, eventHub.subscriberCount());
+    }
+
+    @Test
+    @DisplayName("A subscriber that overflows its buffer is evicted and its routes dropped")
+    void evictsSlowConsumer() {
+        eventHub.subscribe(accountId);
+        // the initial keepalive takes one of the two slots
+        eventHub.publish(message("ON"));
+        assertEquals(0, eventHub.evictedCount());
+
+        eventHub.publish(message("OFF"));
+
+        assertEquals(1, eventHub.evictedCount());
+        assertEquals(0, eventHub.subscriberCount());
+        assertFalse(eventHub.isWatched(esp32Id));
+    }
+
+    @Test
+    @DisplayName("Opening more streams than allowed is refused and keeps the open ones")
+    void capsSubscribersPerAccount() {
+        eventHub.subscribe(accountId);
+        eventHub.subscribe(accountId);
+
+        assertThrows(TooManyRequestsException.class, () -> eventHub.subscribe(accountId));
+
+        assertEquals(2, eventHub.subscriberCount());
+        assertTrue(eventHub.isWatched(esp32Id));
+    }
+
+    @Test
+    @DisplayName("Deleting an ESP32 stops routing its events")
+    void lifecycleDeleteRemovesRoute() {
+        eventHub.subscribe(accountId);
+
+        eventHub.onLifecycle(new Esp32LifecycleEvent(esp32Id, Esp32LifecycleEvent.Type.DELETED, 0));
+
+        assertFalse(eventHub.isWatched(esp32Id));
+    }
+}
@@ -0,0 +1,83 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Esp32MessageBufferImpl Tests")
+class Esp32MessageBufferImplTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private Esp32MessageBufferImpl buffer;
+
+    @Captor
+    private ArgumentCaptor<List<Object[]>> batchCaptor;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(buffer, "maxPending", 1000);
+    }
+
+    @Test
+    @DisplayName("Should coalesce messages of the same ESP32 into one row")
+    void testFlush_CoalescesPerDevice() {
+        // Given
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        buffer.offer(first, "ON");
+        buffer.offer(first, "OFF");
+        buffer.offer(second, "ON");
+
+        // When
+        int written = buffer.flush();
+
+        // Then
+        assertEquals(2, written);
+        assertEquals(0, buffer.pendingCount());
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), batchCaptor.capture());
+        List<Object[]> batch = batchCaptor.getValue();
+        assertEquals(2, batch.size());
+        assertTrue(batch.stream().anyMatch(row -> row[0].equals("OFF") && row[1].equals(first)));
+    }
+
+    @Test
+    @DisplayName("Should not touch the database when nothing is dirty")
+    void testFlush_Empty() {
+        assertEquals(0, buffer.flush());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Should keep messages for retry when the batch fails")
+    void testFlush_FailureRetainsMessages() {
+        // Given
+        buffer.offer(UUID.randomUUID(), "ON");
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new RuntimeException("db down"));
+
+        // When
+        int written = buffer.flush();
+
+        // Then
+        assertEquals(0, written);
+        assertEquals(1, buffer.pendingCount());
+    }
+}
@@ -0,0 +1,258 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import com.alpha_code.alpha_code_robot_service.dto.OtaRolloutDto;
+import com.alpha_code.alpha_code_robot_service.entity.Esp32;
+import com.alpha_code.alpha_code_robot_service.entity.Esp32Firmware;
+import com.alpha_code.alpha_code_robot_service.enums.Esp32FirmwareEnum;
+import com.alpha_code.alpha_code_robot_service.event.Esp32PresenceEvent;
+import com.alpha_code.alpha_code_robot_service.exception.ConflictException;
+import com.alpha_code.alpha_code_robot_service.mqtt.MqttTrafficClass;
+import com.alpha_code.alpha_code_robot_service.ota.OtaFrames;
+import com.alpha_code.alpha_code_robot_service.repository.Esp32FirmwareRepository;
+import com.alpha_code.alpha_code_robot_service.repository.Esp32Repository;
+import com.alpha_code.alpha_code_robot_service.service.Esp32PresenceService;
+import com.alpha_code.alpha_code_robot_service.service.Esp32Service;
+import com.alpha_code.alpha_code_robot_service.service.MqttService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Esp32OtaServiceImpl Tests")
+class Esp32OtaServiceImplTest {
+
+    private static final int VERSION = 7;
+    private static final String FILE_NAME = "esp32-fw-7.bin";
+
+    @Mock
+    private Esp32FirmwareRepository firmwareRepository;
+
+    @Mock
+    private Esp32Repository esp32Repository;
+
+    @Mock
+    private Esp32Service esp32Service;
+
+    @Mock
+    private Esp32PresenceService presenceService;
+
+    @Mock
+    private MqttService mqttService;
+
+    @InjectMocks
+    private Esp32OtaServiceImpl otaService;
+
+    @TempDir
+    Path dir;
+
+    private Esp32Firmware firmware;
+    private BiConsumer<String, String> ackHandler;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.write(dir.resolve(FILE_NAME), new byte[1050]);
+        firmware = Esp32Firmware.builder()
+                .version(VERSION)
+                .sizeBytes(1050)
+                .sha256("0".repeat(64))
+                .fileName(FILE_NAME)
+                .status(Esp32FirmwareEnum.ACTIVE.getCode())
+                .build();
+
+        ReflectionTestUtils.setField(otaService, "dir", dir.toString());
+        ReflectionTestUtils.setField(otaService, "maxImageBytes", 1_048_576L);
+        ReflectionTestUtils.setField(otaService, "chunkSize", 100);
+        ReflectionTestUtils.setField(otaService, "windowChunks", 4);
+        ReflectionTestUtils.setField(otaService, "ackTimeoutMs", 60_000L);
+        ReflectionTestUtils.setField(otaService, "maxRetries", 3);
+        ReflectionTestUtils.setField(otaService, "maxConcurrent", 1);
+        ReflectionTestUtils.setField(otaService, "pendingTimeoutMs", 60_000L);
+        ReflectionTestUtils.setField(otaService, "rolloutRetentionMs", 60_000L);
+        otaService.init();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<BiConsumer<String, String>> handler = ArgumentCaptor.forClass(BiConsumer.class);
+        verify(mqttService).registerChannelHandler(eq("ota-ack"), eq(MqttTrafficClass.CONTROL), handler.capture());
+        ackHandler = handler.getValue();
+
+        lenient().when(firmwareRepository.findByVersionAndStatusNot(eq(VERSION), anyInt())).thenReturn(Optional.of(firmware));
+        lenient().when(mqttService.tryPublishAsync(eq(MqttTrafficClass.TELEMETRY), anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        otaService.shutdown();
+    }
+
+    private OtaRolloutDto rollout(UUID... ids) {
+        List<Esp32> targets = Arrays.stream(ids).map(id -> Esp32.builder().id(id).firmwareVersion(6).build()).toList();
+        when(esp32Repository.findAllByIdInAndStatusNot(anyList(), eq(0))).thenReturn(targets);
+        return otaService.startRollout(VERSION, List.of(ids));
+    }
+
+    private List<Byte> framesSentTo(UUID esp32Id) {
+        ArgumentCaptor<byte[]> frames = ArgumentCaptor.forClass(byte[].class);
+        verify(mqttService, atLeast(0)).tryPublishAsync(eq(MqttTrafficClass.TELEMETRY), eq(esp32Id + "/ota"), frames.capture());
+        return frames.getAllValues().stream().map(frame -> frame[1]).toList();
+    }
+
+    @Test
+    @DisplayName("Should start no more transfers than max-concurrent")
+    void testTick_SlotCap() {
+        // Given
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        when(presenceService.isOnline(any())).thenReturn(true);
+        OtaRolloutDto dto = rollout(first, second);
+
+        // When
+        otaService.tick();
+
+        // Then
+        OtaRolloutDto state = otaService.getRollout(dto.getId());
+        assertEquals(1, state.getActive());
+        assertEquals(1, state.getPending());
+        assertEquals(List.of(OtaFrames.BEGIN), framesSentTo(first));
+        assertTrue(framesSentTo(second).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should skip ESP32s already on the version")
+    void testStartRollout_SkipsUpToDate() {
+        // Given
+        UUID id = UUID.randomUUID();
+        when(esp32Repository.findAllByIdInAndStatusNot(anyList(), eq(0)))
+                .thenReturn(List.of(Esp32.builder().id(id).firmwareVersion(VERSION).build()));
+
+        // When
+        OtaRolloutDto dto = otaService.startRollout(VERSION, List.of(id));
+
+        // Then
+        assertEquals(1, dto.getSkipped());
+        assertEquals("COMPLETED", dto.getState());
+    }
+
+    @Test
+    @DisplayName("Should fail a transfer whose ESP32 stays offline past the pending timeout")
+    void testTick_PendingTimeout() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(otaService, "pendingTimeoutMs", 1L);
+        UUID id = UUID.randomUUID();
+        OtaRolloutDto dto = rollout(id);
+        Thread.sleep(10);
+
+        // When
+        otaService.tick();
+
+        // Then
+        OtaRolloutDto state = otaService.getRollout(dto.getId());
+        assertEquals(1, state.getFailed());
+        assertEquals("COMPLETED", state.getState());
+        assertTrue(framesSentTo(id).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should free the slot when the ESP32 goes offline and restart with begin when it is back")
+    void testPresence_InterruptAndResume() {
+        // Given
+        UUID id = UUID.randomUUID();
+        when(presenceService.isOnline(id)).thenReturn(true);
+        OtaRolloutDto dto = rollout(id);
+        otaService.tick();
+
+        // When - offline
+        when(presenceService.isOnline(id)).thenReturn(false);
+        otaService.onPresence(new Esp32PresenceEvent(id, false));
+        otaService.tick();
+
+        // Then
+        OtaRolloutDto parked = otaService.getRollout(dto.getId());
+        assertEquals(0, parked.getActive());
+        assertEquals(1, parked.getPending());
+
+        // When - back online
+        when(presenceService.isOnline(id)).thenReturn(true);
+        otaService.tick();
+
+        // Then
+        assertEquals(1, otaService.getRollout(dto.getId()).getActive());
+        assertEquals(List.of(OtaFrames.BEGIN, OtaFrames.BEGIN), framesSentTo(id));
+    }
+
+    @Test
+    @DisplayName("Should record the new firmware version when the ESP32 reports DONE")
+    void testAck_DoneUpdatesFirmwareVersion() {
+        // Given
+        UUID id = UUID.randomUUID();
+        when(presenceService.isOnline(id)).thenReturn(true);
+        OtaRolloutDto dto = rollout(id);
+        otaService.tick();
+
+        // When - the device already holds the whole image and verifies it
+        ackHandler.accept(id + "/ota-ack", VERSION + "|1050");
+        ackHandler.accept(id + "/ota-ack", VERSION + "|1050|DONE");
+        otaService.tick();
+
+        // Then
+        verify(esp32Service).updateFirmwareVersion(id, VERSION);
+        OtaRolloutDto state = otaService.getRollout(dto.getId());
+        assertEquals(1, state.getSucceeded());
+        assertEquals("COMPLETED", state.getState());
+    }
+
+    @Test
+    @DisplayName("Should ignore acks from ESP32s without an active transfer")
+    void testAck_Unknown() {
+        // When
+        ackHandler.accept(UUID.randomUUID() + "/ota-ack", VERSION + "|0");
+        ackHandler.accept("not-a-uuid/ota-ack", VERSION + "|0");
+
+        // Then
+        verify(mqttService, never()).tryPublishAsync(any(), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Should delete the image file with the firmware")
+    void testDeleteFirmware_DeletesImage() {
+        // When
+        otaService.deleteFirmware(VERSION);
+
+        // Then
+        assertEquals(Esp32FirmwareEnum.DELETED.getCode(), firmware.getStatus());
+        verify(firmwareRepository).save(firmware);
+        assertFalse(Files.exists(dir.resolve(FILE_NAME)));
+    }
+
+    @Test
+    @DisplayName("Should refuse to delete firmware of a running rollout")
+    void testDeleteFirmware_InUse() {
+        // Given
+        rollout(UUID.randomUUID());
+
+        // When & Then
+        assertThrows(ConflictException.class, () -> otaService.deleteFirmware(VERSION));
+        assertTrue(Files.exists(dir.resolve(FILE_NAME)));
+    }
+}
@@ -0,0 +1,146 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import com.alpha_code.alpha_code_robot_service.event.ClusterMembershipEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Esp32OwnershipServiceImpl Tests")
+class Esp32OwnershipServiceImplTest {
+
+    private static final String NODE = "node-a";
+    private static final String OTHER = "node-b";
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private Esp32OwnershipServiceImpl ownershipService;
+
+    private final List<UUID> devices = IntStream.range(0, 200).mapToObj(i -> UUID.randomUUID()).toList();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(ownershipService, "enabled", true);
+        ReflectionTestUtils.setField(ownershipService, "leaseMs", 15_000L);
+        ReflectionTestUtils.setField(ownershipService, "virtualNodes", 64);
+        ReflectionTestUtils.setField(ownershipService, "instanceId", NODE);
+    }
+
+    private void liveMembers(String... members) {
+        doReturn(List.of(members)).when(redisTemplate)
+                .execute(any(RedisScript.class), eq(List.of("esp32:cluster:members")), eq(NODE), eq("15000"));
+    }
+
+    private long owned() {
+        return devices.stream().filter(ownershipService::isOwner).count();
+    }
+
+    @Test
+    @DisplayName("Should renew the lease on Redis time and own every ESP32 when alone")
+    void testHeartbeat_Alone() {
+        // Given
+        liveMembers(NODE);
+
+        // When
+        ownershipService.init();
+
+        // Then - the script computes expiry from Redis TIME, only the lease length is passed
+        verify(redisTemplate).execute(any(RedisScript.class), anyList(), eq(NODE), eq("15000"));
+        assertEquals(devices.size(), owned());
+        assertEquals(List.of(NODE), ownershipService.getStatus().getMembers());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    @DisplayName("Should split ESP32s when a member joins and take them back when its lease expires")
+    void testHeartbeat_Rebalance() {
+        // Given
+        liveMembers(NODE);
+        ownershipService.init();
+
+        // When - another replica joins
+        liveMembers(NODE, OTHER);
+        ownershipService.heartbeat();
+
+        // Then
+        long shared = owned();
+        assertTrue(shared > 0 && shared < devices.size());
+        verify(eventPublisher).publishEvent(new ClusterMembershipEvent(NODE, List.of(NODE, OTHER)));
+
+        // When - its lease expired and the script pruned it
+        liveMembers(NODE);
+        ownershipService.heartbeat();
+
+        // Then
+        assertEquals(devices.size(), owned());
+        verify(eventPublisher).publishEvent(new ClusterMembershipEvent(NODE, List.of(NODE)));
+    }
+
+    @Test
+    @DisplayName("Should keep itself in the ring when its own lease is missing from the reply")
+    void testHeartbeat_SelfAlwaysMember() {
+        // Given
+        liveMembers(OTHER);
+
+        // When
+        ownershipService.init();
+
+        // Then
+        assertEquals(List.of(NODE, OTHER), ownershipService.getStatus().getMembers());
+    }
+
+    @Test
+    @DisplayName("Should keep the last known ring when Redis is unreachable")
+    void testHeartbeat_RedisDown() {
+        // Given
+        liveMembers(NODE, OTHER);
+        ownershipService.init();
+        long before = owned();
+
+        // When
+        doThrow(new RedisConnectionFailureException("down")).when(redisTemplate)
+                .execute(any(RedisScript.class), anyList(), any(), any());
+        ownershipService.heartbeat();
+
+        // Then
+        assertEquals(before, owned());
+        assertEquals(List.of(NODE, OTHER), ownershipService.getStatus().getMembers());
+    }
+
+    @Test
+    @DisplayName("Should own everything without touching Redis when cluster mode is off")
+    void testDisabled() {
+        // Given
+        ReflectionTestUtils.setField(ownershipService, "enabled", false);
+
+        // When
+        ownershipService.init();
+        ownershipService.heartbeat();
+
+        // Then
+        assertEquals(devices.size(), owned());
+        verifyNoInteractions(redisTemplate);
+    }
+}
@@ -0,0 +1,142 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import com.alpha_code.alpha_code_robot_service.event.Esp32PresenceEvent;
+import com.alpha_code.alpha_code_robot_service.service.MqttService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Esp32PresenceServiceImpl Tests")
+class Esp32PresenceServiceImplTest {
+
+    @Mock
+    private MqttService mqttService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private Esp32PresenceServiceImpl presenceService;
+
+    private UUID esp32Id;
+
+    @BeforeEach
+    void setUp() {
+        esp32Id = UUID.randomUUID();
+        ReflectionTestUtils.setField(presenceService, "heartbeatTimeoutMs", 60_000L);
+        presenceService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        presenceService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should not report an ESP32 never heard from as offline")
+    void testUnknown() {
+        assertFalse(presenceService.isOnline(esp32Id));
+        assertFalse(presenceService.isOffline(esp32Id));
+    }
+
+    @Test
+    @DisplayName("Should go online on the first heartbeat only")
+    void testHeartbeat_OnlineTransition() {
+        // When
+        presenceService.onHeartbeat(esp32Id + "/heartbeat", "");
+        presenceService.onHeartbeat(esp32Id + "/heartbeat", "");
+
+        // Then
+        assertTrue(presenceService.isOnline(esp32Id));
+        verify(eventPublisher, times(1)).publishEvent(new Esp32PresenceEvent(esp32Id, true));
+    }
+
+    @Test
+    @DisplayName("Should go offline on the Last Will and back online on the next heartbeat")
+    void testLastWill_OfflineThenOnline() {
+        // Given
+        presenceService.onStatus(esp32Id + "/status", "online");
+
+        // When
+        presenceService.onStatus(esp32Id + "/status", " offline ");
+
+        // Then
+        assertTrue(presenceService.isOffline(esp32Id));
+        verify(eventPublisher).publishEvent(new Esp32PresenceEvent(esp32Id, false));
+
+        // When
+        presenceService.onHeartbeat(esp32Id + "/heartbeat", "");
+
+        // Then
+        assertTrue(presenceService.isOnline(esp32Id));
+        verify(eventPublisher, times(2)).publishEvent(new Esp32PresenceEvent(esp32Id, true));
+    }
+
+    @Test
+    @DisplayName("Should publish offline once for repeated Last Wills")
+    void testLastWill_Repeated() {
+        // Given
+        presenceService.touch(esp32Id);
+
+        // When
+        presenceService.markOffline(esp32Id);
+        presenceService.markOffline(esp32Id);
+
+        // Then
+        verify(eventPublisher, times(1)).publishEvent(new Esp32PresenceEvent(esp32Id, false));
+    }
+
+    @Test
+    @DisplayName("Should mark the ESP32 offline when the heartbeat times out")
+    void testExpire_Timeout() {
+        // Given
+        presenceService.touch(esp32Id);
+        ReflectionTestUtils.setField(presenceService, "heartbeatTimeoutMs", 0L);
+
+        // When
+        presenceService.expire(esp32Id);
+
+        // Then
+        assertTrue(presenceService.isOffline(esp32Id));
+        verify(eventPublisher).publishEvent(new Esp32PresenceEvent(esp32Id, false));
+    }
+
+    @Test
+    @DisplayName("Should keep the ESP32 online when a heartbeat arrived before expiry")
+    void testExpire_RecentHeartbeat() {
+        // Given
+        presenceService.touch(esp32Id);
+
+        // When: the wheel entry fires while the last heartbeat is still fresh
+        presenceService.expire(esp32Id);
+
+        // Then
+        assertTrue(presenceService.isOnline(esp32Id));
+        verify(eventPublisher, never()).publishEvent(new Esp32PresenceEvent(esp32Id, false));
+    }
+
+    @Test
+    @DisplayName("Should ignore topics without an ESP32 id")
+    void testStatus_InvalidTopic() {
+        // When
+        presenceService.onStatus("not-a-uuid/status", "offline");
+        presenceService.onHeartbeat("not-a-uuid/heartbeat", "");
+
+        // Then
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+}
@@ -1,12 +1,24 @@
 package com.alpha_code.alpha_code_robot_service.service.impl;
 
 import com.alpha_code.alpha_code_robot_service.dto.Esp32Dto;
+import com.alpha_code.alpha_code_robot_service.dto.Esp32StateDto;
 import com.alpha_code.alpha_code_robot_service.dto.PagedResult;
+import com.alpha_code.alpha_code_robot_service.dto.request.FanoutCommandRequest;
+import com.alpha_code.alpha_code_robot_service.dto.response.FanoutResponse;
 import com.alpha_code.alpha_code_robot_service.dto.response.VoiceResponse;
 import com.alpha_code.alpha_code_robot_service.entity.Esp32;
+import com.alpha_code.alpha_code_robot_service.exception.ConflictException;
 import com.alpha_code.alpha_code_robot_service.exception.ResourceNotFoundException;
+import com.alpha_code.alpha_code_robot_service.mqtt.MqttCommandCoalescer;
+import com.alpha_code.alpha_code_robot_service.mqtt.codec.DeviceCommand;
 import com.alpha_code.alpha_code_robot_service.repository.Esp32Repository;
+import com.alpha_code.alpha_code_robot_service.service.CommandAckService;
+import com.alpha_code.alpha_code_robot_service.service.Esp32CommandQueueService;
+import com.alpha_code.alpha_code_robot_service.service.Esp32PresenceService;
+import com.alpha_code.alpha_code_robot_service.service.Esp32StateService;
 import com.alpha_code.alpha_code_robot_service.service.MqttService;
+import com.alpha_code.alpha_code_robot_service.service.VoiceResponseService;
+import com.alpha_code.alpha_code_robot_service.util.Esp32Devices;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
@@ -18,15 +30,21 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -42,6 +60,25 @@ class Esp32ServiceImplTest {
     @Mock
     private MqttService mqttService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CommandAckService ackService;
+
+    @Mock
+    private Esp32PresenceService presenceService;
+
+    @Mock
+    private Esp32StateService stateService;
+
+    @Mock
+    private Esp32CommandQueueService commandQueueService;
+
+    // the bundled catalog, so the phrases asserted below are the ones the robot reads
+    @Spy
+    private VoiceResponseService voiceResponses = bundledVoiceResponses();
+
     @InjectMocks
     private Esp32ServiceImpl esp32Service;
 
@@ -77,6 +114,17 @@ class Esp32ServiceImplTest {
         esp32Dto.setMessage("");
     }
 
+    // an ESP32 whose metadata lists one device; a null type leaves the type out
+    private void esp32WithDevice(String name, String type) {
+        ObjectNode device = objectMapper.createObjectNode().put("name", name);
+        if (type != null) {
+            device.put("type", type);
+        }
+        ObjectNode metadata = objectMapper.createObjectNode();
+        metadata.putArray("devices").add(device);
+        esp32.setMetadata(metadata);
+    }
+
     @Test
     @DisplayName("Should get ESP32 by id successfully")
     void testGetOne_Success() {
@@ -230,7 +278,7 @@ class Esp32ServiceImplTest {
 
         esp32.setMetadata(metadata);
         when(repository.findById(esp32Id)).thenReturn(Optional.of(esp32));
-        doNothing().when(mqttService).publish(anyString(), anyString());
+        when(mqttService.publishCommand(anyString(), any(DeviceCommand.class))).thenReturn(CompletableFuture.completedFuture(MqttCommandCoalescer.Outcome.SENT));
 
         // When
         VoiceResponse result = esp32Service.sendMessage(esp32Id, deviceName, message, language);
@@ -240,7 +288,101 @@ class Esp32ServiceImplTest {
         assertTrue(result.isSuccess());
         assertNotNull(result.getMessage());
         verify(repository, times(3)).findById(esp32Id);
-        verify(mqttService, times(1)).publish(anyString(), anyString());
+        verify(mqttService, times(1)).publishCommand(anyString(), any(DeviceCommand.class));
+    }
+
+    @Test
+    @DisplayName("Should answer from the ESP32 ack when awaiting acknowledgement")
+    void testSendMessageAwaitAck_Acked() {
+        // Given
+        esp32WithDevice("light", "switch");
+
+        when(repository.findById(esp32Id)).thenReturn(Optional.of(esp32));
+        when(ackService.newCorrelationId()).thenReturn("c1");
+        when(ackService.register(esp32Id, "c1")).thenReturn(CompletableFuture.completedFuture("OK"));
+        when(mqttService.publishCommand(esp32Id + "/light", new DeviceCommand("on", 0, "c1"))).thenReturn(CompletableFuture.completedFuture(MqttCommandCoalescer.Outcome.SENT));
+
+        // When
+        VoiceResponse result = esp32Service.sendMessageAwaitAck(esp32Id, "light", "on", "en").join();
+
+        // Then
+        assertTrue(result.isSuccess());
+        assertEquals("The device is turned on.", result.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should report failure when the ESP32 does not ack in time")
+    void testSendMessageAwaitAck_Timeout() {
+        // Given
+        esp32WithDevice("light", null);
+
+        when(repository.findById(esp32Id)).thenReturn(Optional.of(esp32));
+        when(ackService.newCorrelationId()).thenReturn("c2");
+        when(ackService.register(esp32Id, "c2")).thenReturn(CompletableFuture.failedFuture(new TimeoutException()));
+        when(mqttService.publishCommand(anyString(), any(DeviceCommand.class))).thenReturn(CompletableFuture.completedFuture(MqttCommandCoalescer.Outcome.SENT));
+
+        // When
+        VoiceResponse result = esp32Service.sendMessageAwaitAck(esp32Id, "light", "on", "vi").join();
+
+        // Then
+        assertFalse(result.isSuccess());
+        assertEquals("Thiết bị không phản hồi.", result.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should report a coalesced command when a newer one replaced it")
+    void testSendMessageAwaitAck_Coalesced() {
+        // Given
+        esp32WithDevice("light", null);
+
+        CompletableFuture<String> ack = new CompletableFuture<>();
+        when(repository.findById(esp32Id)).thenReturn(Optional.of(esp32));
+        when(ackService.newCorrelationId()).thenReturn("c3");
+        when(ackService.register(esp32Id, "c3")).thenReturn(ack);
+        doAnswer(invocation -> ack.completeExceptionally(invocation.getArgument(1)))
+                .when(ackService).fail(eq("c3"), any());
+        when(mqttService.publishCommand(anyString(), any(DeviceCommand.class)))
+                .thenReturn(CompletableFuture.completedFuture(MqttCommandCoalescer.Outcome.COALESCED));
+
+        // When
+        VoiceResponse result = esp32Service.sendMessageAwaitAck(esp32Id, "light", "on", "en").join();
+
+        // Then
+        assertFalse(result.isSuccess());
+        assertEquals("A newer command replaced this one.", result.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should fail fast without publishing when the ESP32 is offline")
+    void testSendMessage_Offline() {
+        // Given
+        esp32WithDevice("light", null);
+
+        when(repository.findById(esp32Id)).thenReturn(Optional.of(esp32));
+        when(presenceService.isOffline(esp32Id)).thenReturn(true);
+
+        // When & Then
+        assertThrows(ConflictException.class, () -> esp32Service.sendMessage(esp32Id, "light", "on", "vi"));
+        verify(mqttService, never()).publishCommand(anyString(), any(DeviceCommand.class));
+    }
+
+    @Test
+    @DisplayName("Should queue the command instead of publishing when the ESP32 is offline")
+    void testSendMessage_OfflineQueued() throws Exception {
+        // Given
+        esp32WithDevice("light", null);
+
+        when(repository.findById(esp32Id)).thenReturn(Optional.of(esp32));
+        when(presenceService.isOffline(esp32Id)).thenReturn(true);
+        when(commandQueueService.enqueue(esp32Id, "light", new DeviceCommand("on", 0, null))).thenReturn(true);
+
+        // When
+        VoiceResponse result = esp32Service.sendMessage(esp32Id, "light", "on", "en");
+
+        // Then
+        assertTrue(result.isSuccess());
+        assertEquals("The device is offline. The command will be sent when it reconnects.", result.getMessage());
+        verify(mqttService, never()).publishCommand(anyString(), any(DeviceCommand.class));
     }
 
     @Test
@@ -273,6 +415,44 @@ class Esp32ServiceImplTest {
         verify(repository, times(3)).findById(esp32Id);
     }
 
+    @Test
+    @DisplayName("Should fan out a command to every device of a type and aggregate results")
+    void testFanout_ByAccountAndType() {
+        // Given
+        ObjectNode metadata = objectMapper.createObjectNode();
+        ArrayNode devices = objectMapper.createArrayNode();
+        devices.add(objectMapper.createObjectNode().put("name", "light1").put("type", "light"));
+        devices.add(objectMapper.createObjectNode().put("name", "light2").put("type", "LIGHT"));
+        devices.add(objectMapper.createObjectNode().put("name", "fan").put("type", "fan"));
+        metadata.set("devices", devices);
+        esp32.setMetadata(metadata);
+
+        when(repository.findAllByAccountIdAndStatusNot(accountId, 0)).thenReturn(List.of(esp32));
+        when(mqttService.publishCommand(eq(esp32Id + "/light1"), any(DeviceCommand.class)))
+                .thenReturn(CompletableFuture.completedFuture(MqttCommandCoalescer.Outcome.SENT));
+        when(mqttService.publishCommand(eq(esp32Id + "/light2"), any(DeviceCommand.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker down")));
+
+        FanoutCommandRequest request = new FanoutCommandRequest(accountId, null, "light", null, "off");
+
+        // When
+        FanoutResponse result = esp32Service.fanout(request).join();
+
+        // Then
+        assertEquals(2, result.getTotal());
+        assertEquals(1, result.getSucceeded());
+        assertEquals(1, result.getFailed());
+        verify(mqttService, never()).publishCommand(eq(esp32Id + "/fan"), any(DeviceCommand.class));
+        verify(repository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Should reject fan-out without targets")
+    void testFanout_NoTargets() {
+        FanoutCommandRequest request = new FanoutCommandRequest(null, null, null, null, "off");
+        assertThrows(IllegalArgumentException.class, () -> esp32Service.fanout(request));
+    }
+
     @Test
     @DisplayName("Should get devices successfully")
     void testGetDevices_Success() {
@@ -390,6 +570,41 @@ class Esp32ServiceImplTest {
         verify(repository, never()).save(any(Esp32.class));
     }
 
+    @Test
+    @DisplayName("Should reject a device named after a service channel")
+    void testAddDevice_ReservedName() {
+        // Given
+        when(repository.findById(esp32Id)).thenReturn(Optional.of(esp32));
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> esp32Service.addDevice(esp32Id, "Heartbeat", "switch"));
+        verify(repository, never()).save(any(Esp32.class));
+    }
+
+    @Test
+    @DisplayName("Should reject renaming a device to a service channel")
+    void testUpdateDevice_ReservedName() {
+        // Given
+        esp32WithDevice("light", "switch");
+        when(repository.findById(esp32Id)).thenReturn(Optional.of(esp32));
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> esp32Service.updateDevice(esp32Id, "light", "status", null));
+        verify(repository, never()).save(any(Esp32.class));
+    }
+
+    @Test
+    @DisplayName("Should reject metadata listing a device named after a service channel")
+    void testCreate_ReservedDeviceInMetadata() {
+        // Given
+        esp32WithDevice("status", "switch");
+        esp32Dto.setMetadata(esp32.getMetadata());
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> esp32Service.create(esp32Dto));
+        verify(repository, never()).save(any(Esp32.class));
+    }
+
     @Test
     @DisplayName("Should remove device successfully")
     void testRemoveDevice_Success() {
@@ -417,6 +632,28 @@ class Esp32ServiceImplTest {
         verify(repository, times(1)).save(any(Esp32.class));
     }
 
+    @Test
+    @DisplayName("Should keep the frame index of the remaining devices after a removal")
+    void testRemoveDevice_KeepsIndexes() {
+        // Given
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode metadata = mapper.createObjectNode();
+        ArrayNode devices = metadata.putArray("devices");
+        devices.addObject().put("name", "lamp").put("type", "light");
+        devices.addObject().put("name", "fan").put("type", "fan");
+        esp32.setMetadata(metadata);
+
+        when(repository.findById(esp32Id)).thenReturn(Optional.of(esp32));
+        when(repository.save(any(Esp32.class))).thenReturn(esp32);
+
+        // When
+        esp32Service.removeDevice(esp32Id, "lamp");
+
+        // Then
+        assertEquals(1, Esp32Devices.indexOf(esp32.getMetadata(), "fan"));
+        assertEquals(2, esp32.getMetadata().get(Esp32Devices.NEXT_INDEX).asInt());
+    }
+
     @Test
     @DisplayName("Should get ESP32 by user successfully")
     void testGetEsp32ByUser_Success() {
@@ -442,5 +679,59 @@ class Esp32ServiceImplTest {
         assertThrows(ResourceNotFoundException.class, () -> esp32Service.getEsp32ByUser(accountId));
         verify(repository, times(1)).findByAccountId(accountId);
     }
-}
 
+    @Test
+    @DisplayName("Should report ownership only for the ESP32's own account")
+    void testIsOwnedBy() {
+        // Given
+        when(repository.findById(esp32Id)).thenReturn(Optional.of(esp32));
+
+        // When & Then
+        assertTrue(esp32Service.isOwnedBy(esp32Id, accountId));
+        assertFalse(esp32Service.isOwnedBy(esp32Id, UUID.randomUUID()));
+    }
+
+    @Test
+    @DisplayName("Should deny ownership without an account or for an unknown ESP32")
+    void testIsOwnedBy_Denied() {
+        // Given
+        when(repository.findById(esp32Id)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertFalse(esp32Service.isOwnedBy(esp32Id, accountId));
+        assertFalse(esp32Service.isOwnedBy(esp32Id, null));
+        verify(repository, times(1)).findById(esp32Id);
+    }
+
+    @Test
+    @DisplayName("Should return the live state from memory")
+    void testGetState_Success() {
+        // Given
+        Esp32StateDto state = new Esp32StateDto(esp32Id, "{\"t\":1}", LocalDateTime.now(), 3);
+        when(stateService.get(esp32Id)).thenReturn(Optional.of(state));
+
+        // When
+        Esp32StateDto result = esp32Service.getState(esp32Id);
+
+        // Then
+        assertSame(state, result);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    @DisplayName("Should throw ResourceNotFoundException when the ESP32 has sent no state")
+    void testGetState_NotFound() {
+        // Given
+        when(stateService.get(esp32Id)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThrows(ResourceNotFoundException.class, () -> esp32Service.getState(esp32Id));
+    }
+
+    static VoiceResponseService bundledVoiceResponses() {
+        VoiceResponseServiceImpl service = new VoiceResponseServiceImpl(new DefaultResourceLoader(), new ObjectMapper());
+        ReflectionTestUtils.setField(service, "location", "classpath:voice/responses.json");
+        service.init();
+        return service;
+    }
+}
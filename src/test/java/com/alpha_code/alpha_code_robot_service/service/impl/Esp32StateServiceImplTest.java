@@ -0,0 +1,92 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import com.alpha_code.alpha_code_robot_service.dto.Esp32StateDto;
+import com.alpha_code.alpha_code_robot_service.event.Esp32LifecycleEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Esp32StateServiceImpl Tests")
+class Esp32StateServiceImplTest {
+
+    private Esp32StateServiceImpl stateService;
+    private UUID esp32Id;
+
+    @BeforeEach
+    void setUp() {
+        stateService = new Esp32StateServiceImpl();
+        ReflectionTestUtils.setField(stateService, "maxEntries", 3);
+        esp32Id = UUID.randomUUID();
+    }
+
+    @Test
+    @DisplayName("Should keep the latest message and count every message")
+    void testRecord() {
+        // When
+        stateService.record(esp32Id, "{\"t\":1}");
+        stateService.record(esp32Id, "{\"t\":2}");
+
+        // Then
+        Esp32StateDto state = stateService.get(esp32Id).orElseThrow();
+        assertEquals(esp32Id, state.getId());
+        assertEquals("{\"t\":2}", state.getMessage());
+        assertEquals(2, state.getMessageCount());
+        assertNotNull(state.getLastSeen());
+        assertEquals(1, stateService.size());
+    }
+
+    @Test
+    @DisplayName("Should return empty for an ESP32 that has sent nothing")
+    void testGet_Unknown() {
+        assertTrue(stateService.get(esp32Id).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should drop the state of a deleted ESP32 only")
+    void testLifecycle_Deleted() {
+        // Given
+        UUID other = UUID.randomUUID();
+        stateService.record(esp32Id, "{}");
+        stateService.record(other, "{}");
+
+        // When
+        stateService.onLifecycle(new Esp32LifecycleEvent(esp32Id, Esp32LifecycleEvent.Type.STATUS_CHANGED, 0));
+        stateService.onLifecycle(new Esp32LifecycleEvent(other, Esp32LifecycleEvent.Type.DELETED, 0));
+
+        // Then
+        assertTrue(stateService.get(esp32Id).isPresent());
+        assertTrue(stateService.get(other).isEmpty());
+        assertEquals(1, stateService.size());
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently seen ESP32 when a new one arrives at the cap")
+    void testRecord_Cap() throws InterruptedException {
+        // Given
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        stateService.record(esp32Id, "{}");
+        Thread.sleep(5);
+        stateService.record(second, "{}");
+        Thread.sleep(5);
+        stateService.record(third, "{}");
+        Thread.sleep(5);
+        // seen again, so no longer the oldest
+        stateService.record(esp32Id, "{}");
+
+        // When
+        UUID fourth = UUID.randomUUID();
+        stateService.record(fourth, "{}");
+
+        // Then
+        assertEquals(3, stateService.size());
+        assertTrue(stateService.get(second).isEmpty());
+        assertTrue(stateService.get(esp32Id).isPresent());
+        assertTrue(stateService.get(fourth).isPresent());
+    }
+}
@@ -0,0 +1,141 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import com.alpha_code.alpha_code_robot_service.event.Esp32LifecycleEvent;
+import com.alpha_code.alpha_code_robot_service.repository.Esp32Repository;
+import com.alpha_code.alpha_code_robot_service.service.Esp32IngestService;
+import com.alpha_code.alpha_code_robot_service.service.MqttService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Esp32SubscriptionRegistryImpl Tests")
+class Esp32SubscriptionRegistryImplTest {
+
+    @Mock
+    private Esp32Repository repository;
+
+    @Mock
+    private MqttService mqttService;
+
+    @Mock
+    private Esp32IngestService ingestService;
+
+    @InjectMocks
+    private Esp32SubscriptionRegistryImpl registry;
+
+    private UUID esp32Id;
+
+    @BeforeEach
+    void setUp() {
+        esp32Id = UUID.randomUUID();
+    }
+
+    @Test
+    @DisplayName("Should route every active ESP32 on startup")
+    void testInit() {
+        // Given
+        UUID other = UUID.randomUUID();
+        when(repository.findActiveIds()).thenReturn(List.of(esp32Id, other));
+
+        // When
+        registry.init();
+
+        // Then
+        assertEquals(Set.of(esp32Id, other), registry.getSubscriptions());
+        verify(mqttService).registerHandler(eq(esp32Id.toString()), any());
+        verify(mqttService).registerHandler(eq(other.toString()), any());
+    }
+
+    @Test
+    @DisplayName("Should register a route once however often the ESP32 is subscribed")
+    void testSubscribe_Idempotent() {
+        // When
+        registry.subscribe(esp32Id);
+        registry.subscribe(esp32Id);
+
+        // Then
+        assertTrue(registry.isSubscribed(esp32Id));
+        assertEquals(1, registry.getSubscriptions().size());
+        verify(mqttService, times(1)).registerHandler(eq(esp32Id.toString()), any());
+    }
+
+    @Test
+    @DisplayName("Should drop the route on the first unsubscribe and ignore the rest")
+    void testUnsubscribe_Idempotent() {
+        // Given
+        registry.subscribe(esp32Id);
+        registry.subscribe(esp32Id);
+
+        // When
+        registry.unsubscribe(esp32Id);
+        registry.unsubscribe(esp32Id);
+
+        // Then
+        assertFalse(registry.isSubscribed(esp32Id));
+        verify(mqttService, times(1)).unregisterHandler(esp32Id.toString());
+    }
+
+    @Test
+    @DisplayName("Should not touch routes when unsubscribing an unknown ESP32")
+    void testUnsubscribe_Unknown() {
+        // When
+        registry.unsubscribe(esp32Id);
+
+        // Then
+        verifyNoInteractions(mqttService);
+    }
+
+    @Test
+    @DisplayName("Should route a subscribed ESP32 to the ingest service")
+    void testSubscribe_RoutesToIngest() {
+        // Given
+        registry.subscribe(esp32Id);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<BiConsumer<String, String>> handler = ArgumentCaptor.forClass(BiConsumer.class);
+        verify(mqttService).registerHandler(eq(esp32Id.toString()), handler.capture());
+
+        // When
+        handler.getValue().accept(esp32Id + "/telemetry", "{}");
+
+        // Then
+        verify(ingestService).onMessage(esp32Id + "/telemetry", "{}");
+    }
+
+    @Test
+    @DisplayName("Should follow create, status change and delete")
+    void testOnLifecycle() {
+        // Created
+        registry.onLifecycle(new Esp32LifecycleEvent(esp32Id, Esp32LifecycleEvent.Type.CREATED, 1));
+        assertTrue(registry.isSubscribed(esp32Id));
+
+        // Deactivated
+        registry.onLifecycle(new Esp32LifecycleEvent(esp32Id, Esp32LifecycleEvent.Type.STATUS_CHANGED, 0));
+        assertFalse(registry.isSubscribed(esp32Id));
+
+        // Reactivated
+        registry.onLifecycle(new Esp32LifecycleEvent(esp32Id, Esp32LifecycleEvent.Type.STATUS_CHANGED, 1));
+        assertTrue(registry.isSubscribed(esp32Id));
+
+        // Deleted
+        registry.onLifecycle(new Esp32LifecycleEvent(esp32Id, Esp32LifecycleEvent.Type.DELETED, 1));
+        assertFalse(registry.isSubscribed(esp32Id));
+
+        verify(mqttService, times(2)).registerHandler(eq(esp32Id.toString()), any());
+        verify(mqttService, times(2)).unregisterHandler(esp32Id.toString());
+    }
+}
@@ -0,0 +1,73 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Esp32TelemetryMaintenanceServiceImpl Tests")
+class Esp32TelemetryMaintenanceServiceImplTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private Esp32TelemetryMaintenanceServiceImpl maintenanceService;
+
+    private final LocalDate today = LocalDate.of(2026, 10, 17);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(maintenanceService, "partitionsAhead", 2);
+        ReflectionTestUtils.setField(maintenanceService, "rawRetentionDays", 7);
+    }
+
+    @Test
+    @DisplayName("Partition names round-trip to their day; other tables are ignored")
+    void partitionNameRoundTrip() {
+        assertEquals("esp32_telemetry_p20261017", Esp32TelemetryMaintenanceServiceImpl.partitionName(today));
+        assertEquals(today, Esp32TelemetryMaintenanceServiceImpl.partitionDay("esp32_telemetry_p20261017"));
+        assertNull(Esp32TelemetryMaintenanceServiceImpl.partitionDay("esp32_telemetry_default"));
+        assertNull(Esp32TelemetryMaintenanceServiceImpl.partitionDay("esp32_telemetry_pbroken"));
+    }
+
+    @Test
+    @DisplayName("Creates today's partition plus the configured days ahead")
+    void ensurePartitionsCreatesDaysAhead() {
+        maintenanceService.ensurePartitions(today);
+
+        verify(jdbcTemplate).execute(contains("esp32_telemetry_p20261017 PARTITION OF esp32_telemetry "
+                + "FOR VALUES FROM ('2026-10-17T00:00') TO ('2026-10-18T00:00')"));
+        verify(jdbcTemplate).execute(contains("esp32_telemetry_p20261018"));
+        verify(jdbcTemplate).execute(contains("esp32_telemetry_p20261019"));
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Drops only daily partitions older than the retention window")
+    void dropsExpiredPartitionsOnly() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("esp32_telemetry")))
+                .thenReturn(List.of("esp32_telemetry_default", "esp32_telemetry_p20261009",
+                        "esp32_telemetry_p20261010", "esp32_telemetry_p20261017"));
+
+        int dropped = maintenanceService.dropExpiredPartitions(today);
+
+        assertEquals(1, dropped);
+        verify(jdbcTemplate).execute("DROP TABLE IF EXISTS esp32_telemetry_p20261009");
+        verify(jdbcTemplate, never()).execute("DROP TABLE IF EXISTS esp32_telemetry_p20261010");
+        verify(jdbcTemplate, never()).execute("DROP TABLE IF EXISTS esp32_telemetry_default");
+    }
+}
@@ -0,0 +1,219 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import com.alpha_code.alpha_code_robot_service.service.Esp32TelemetryMaintenanceService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Esp32TelemetryServiceImpl Tests")
+class Esp32TelemetryServiceImplTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private Esp32TelemetryMaintenanceService maintenanceService;
+
+    private final UUID esp32Id = UUID.randomUUID();
+    private final LocalDateTime from = LocalDateTime.of(2026, 10, 17, 10, 0);
+    private Esp32TelemetryServiceImpl telemetryService;
+
+    private Esp32TelemetryServiceImpl service(int queueCapacity, int batchSize) {
+        telemetryService = new Esp32TelemetryServiceImpl(jdbcTemplate, transactionManager, maintenanceService,
+                queueCapacity, batchSize, 31);
+        return telemetryService;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (telemetryService != null) {
+            telemetryService.shutdown();
+        }
+    }
+
+    private BatchPreparedStatementSetter capturedBatch() {
+        ArgumentCaptor<BatchPreparedStatementSetter> batch = ArgumentCaptor.forClass(BatchPreparedStatementSetter.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO esp32_telemetry "), batch.capture());
+        return batch.getValue();
+    }
+
+    @Test
+    @DisplayName("Should drop samples instead of blocking when the queue is full")
+    void testRecord_DropsWhenFull() {
+        // Given
+        Esp32TelemetryServiceImpl service = service(3, 100);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            service.record(esp32Id, "{\"t\":" + i + "}");
+        }
+
+        // Then
+        assertEquals(3, service.pendingCount());
+        assertEquals(2, service.droppedCount());
+    }
+
+    @Test
+    @DisplayName("Should write queued samples with one JDBC batch")
+    void testFlush_BatchUpdate() throws Exception {
+        // Given
+        Esp32TelemetryServiceImpl service = service(100, 10);
+        service.record(esp32Id, "{\"t\":1}");
+        service.record(esp32Id, "{\"t\":2}");
+        service.record(esp32Id, "{\"t\":3}");
+
+        // When
+        int written = service.flush();
+
+        // Then
+        assertEquals(3, written);
+        assertEquals(0, service.pendingCount());
+        BatchPreparedStatementSetter batch = capturedBatch();
+        assertEquals(3, batch.getBatchSize());
+        PreparedStatement ps = mock(PreparedStatement.class);
+        batch.setValues(ps, 1);
+        verify(ps).setObject(1, esp32Id);
+        verify(ps).setTimestamp(eq(2), any(Timestamp.class));
+        verify(ps).setString(3, "{\"t\":2}");
+    }
+
+    @Test
+    @DisplayName("Should flush early once a full batch is queued")
+    void testRecord_FlushesFullBatch() {
+        // Given
+        Esp32TelemetryServiceImpl service = service(100, 2);
+
+        // When
+        service.record(esp32Id, "{\"t\":1}");
+        service.record(esp32Id, "{\"t\":2}");
+
+        // Then
+        verify(jdbcTemplate, timeout(1000)).batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+    }
+
+    @Test
+    @DisplayName("Should requeue a batch that failed to write and retry it on the next flush")
+    void testFlush_RequeueOnFailure() {
+        // Given
+        Esp32TelemetryServiceImpl service = service(100, 10);
+        service.record(esp32Id, "{\"t\":1}");
+        service.record(esp32Id, "{\"t\":2}");
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class)))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"))
+                .thenReturn(new int[]{1, 1});
+
+        // When
+        int failed = service.flush();
+
+        // Then
+        assertEquals(0, failed);
+        assertEquals(2, service.pendingCount());
+        assertEquals(0, service.droppedCount());
+
+        // When
+        int written = service.flush();
+
+        // Then
+        assertEquals(2, written);
+        assertEquals(0, service.pendingCount());
+    }
+
+    @Test
+    @DisplayName("Should stream raw rows as NDJSON from a cursor")
+    void testStreamRange_RawNdjson() throws Exception {
+        // Given
+        Esp32TelemetryServiceImpl service = service(100, 10);
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getTimestamp(1)).thenReturn(Timestamp.valueOf(from), Timestamp.valueOf(from.plusMinutes(1)));
+        when(rs.getString(2)).thenReturn("{\"t\":1}", "{\"t\":2}");
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(rs);
+            handler.processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        service.streamRange(esp32Id, from, from.plusHours(1), "raw").writeTo(out);
+
+        // Then
+        assertEquals("""
+                {"recordedAt":"2026-10-17T10:00","message":"{\\"t\\":1}"}
+                {"recordedAt":"2026-10-17T10:01","message":"{\\"t\\":2}"}
+                """, out.toString(StandardCharsets.UTF_8));
+
+        // the statement reads through a cursor
+        ArgumentCaptor<PreparedStatementCreator> creator = ArgumentCaptor.forClass(PreparedStatementCreator.class);
+        verify(jdbcTemplate).query(creator.capture(), any(RowCallbackHandler.class));
+        Connection connection = mock(Connection.class);
+        PreparedStatement ps = mock(PreparedStatement.class);
+        when(connection.prepareStatement(contains("FROM esp32_telemetry WHERE"))).thenReturn(ps);
+        creator.getValue().createPreparedStatement(connection);
+        verify(ps).setFetchSize(1000);
+        verify(ps).setObject(1, esp32Id);
+    }
+
+    @Test
+    @DisplayName("Should stream hourly buckets from the rollup table")
+    void testStreamRange_Hourly() throws Exception {
+        // Given
+        Esp32TelemetryServiceImpl service = service(100, 10);
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getTimestamp(1)).thenReturn(Timestamp.valueOf(from));
+        when(rs.getLong(2)).thenReturn(42L);
+        when(rs.getString(3)).thenReturn("{}");
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        service.streamRange(esp32Id, from, from.plusDays(1), "HOURLY").writeTo(out);
+
+        // Then
+        assertEquals("{\"bucket\":\"2026-10-17T10:00\",\"count\":42,\"lastMessage\":\"{}\"}\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Should reject an empty, too long or unknown-resolution range")
+    void testStreamRange_Invalid() {
+        // Given
+        Esp32TelemetryServiceImpl service = service(100, 10);
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> service.streamRange(esp32Id, from, from, "raw"));
+        assertThrows(IllegalArgumentException.class, () -> service.streamRange(esp32Id, from, from.plusDays(31), "raw"));
+        assertThrows(IllegalArgumentException.class, () -> service.streamRange(esp32Id, from, from.plusHours(1), "daily"));
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
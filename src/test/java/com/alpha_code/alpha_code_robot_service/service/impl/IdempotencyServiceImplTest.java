@@ -0,0 +1,102 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import com.alpha_code.alpha_code_robot_service.dto.response.VoiceResponse;
+import com.alpha_code.alpha_code_robot_service.exception.ConflictException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IdempotencyServiceImpl Tests")
+class IdempotencyServiceImplTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOps;
+
+    private IdempotencyServiceImpl idempotencyService;
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyServiceImpl(redisTemplate, new ObjectMapper());
+        ReflectionTestUtils.setField(idempotencyService, "ttlMs", 600_000L);
+        ReflectionTestUtils.setField(idempotencyService, "pendingTtlMs", 60_000L);
+        ReflectionTestUtils.setField(idempotencyService, "localCapacity", 100);
+        idempotencyService.init();
+        when(redisTemplate.opsForValue()).thenReturn(valueOps);
+    }
+
+    private CompletableFuture<VoiceResponse> send(String key, String fingerprint) {
+        return idempotencyService.execute("send-message", key, fingerprint, VoiceResponse.class, () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture(new VoiceResponse(true, "Đã bật đèn"));
+        });
+    }
+
+    @Test
+    @DisplayName("A repeat on the same replica is answered from memory")
+    void replaysLocally() {
+        when(valueOps.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+
+        VoiceResponse first = send("k1", "esp|light|on").join();
+        VoiceResponse second = send("k1", "esp|light|on").join();
+
+        assertEquals(1, calls.get());
+        assertEquals(first, second);
+        verify(valueOps, times(1)).setIfAbsent(anyString(), anyString(), any(Duration.class));
+    }
+
+    @Test
+    @DisplayName("A repeat on another replica replays the response stored in Redis")
+    void replaysFromRedis() throws Exception {
+        String digest = java.util.UUID.nameUUIDFromBytes("esp|light|on".getBytes()).toString();
+        String json = new ObjectMapper().writeValueAsString(new VoiceResponse(true, "Đã bật đèn"));
+        when(valueOps.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        when(valueOps.get("idempotency:send-message:k2")).thenReturn("D|" + digest + "\n" + json);
+
+        VoiceResponse response = send("k2", "esp|light|on").join();
+
+        assertEquals(0, calls.get());
+        assertEquals("Đã bật đèn", response.getMessage());
+    }
+
+    @Test
+    @DisplayName("A key still running on another replica is a conflict")
+    void pendingElsewhereConflicts() {
+        String digest = java.util.UUID.nameUUIDFromBytes("esp|light|on".getBytes()).toString();
+        when(valueOps.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        when(valueOps.get("idempotency:send-message:k3")).thenReturn("P|" + digest);
+
+        assertThrows(ConflictException.class, () -> send("k3", "esp|light|on"));
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    @DisplayName("Reusing a key for different parameters is rejected")
+    void rejectsKeyReuse() {
+        when(valueOps.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        send("k4", "esp|light|on").join();
+
+        assertThrows(IllegalArgumentException.class, () -> send("k4", "esp|light|off"));
+        assertEquals(1, calls.get());
+    }
+}
@@ -0,0 +1,329 @@
+package com.alpha_code.alpha_code_robot_service.service.impl;
+
+import com.alpha_code.alpha_code_robot_service.dto.MqttStatsDto;
+import com.alpha_code.alpha_code_robot_service.exception.MqttBackpressureException;
+import com.alpha_code.alpha_code_robot_service.mqtt.MqttInboundDispatcher;
+import com.alpha_code.alpha_code_robot_service.mqtt.MqttTrafficClass;
+import com.alpha_code.alpha_code_robot_service.mqtt.codec.DeviceCommand;
+import com.alpha_code.alpha_code_robot_service.mqtt.codec.MqttPayloadFormat;
+import com.alpha_code.alpha_code_robot_service.mqtt.persistence.MqttPersistenceMode;
+import com.alpha_code.alpha_code_robot_service.repository.Esp32Repository;
+import com.alpha_code.alpha_code_robot_service.service.Esp32IngestService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.IMqttMessageListener;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttCallback;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("MqttServiceImpl Tests")
+class MqttServiceImplTest {
+
+    private static final String CLIENT_ID = "robot-service-test";
+
+    // lane tag -> fake broker client
+    private final Map<String, IMqttAsyncClient> clients = new HashMap<>();
+    private MqttServiceImpl mqttService;
+
+    @BeforeEach
+    void setUp() {
+        mqttService = new MqttServiceImpl(new SimpleMeterRegistry()) {
+            @Override
+            IMqttAsyncClient createClient(String laneClientId) {
+                IMqttAsyncClient client = fakeClient(laneClientId);
+                clients.put(laneClientId.substring(laneClientId.lastIndexOf('-') + 1), client);
+                return client;
+            }
+        };
+        ReflectionTestUtils.setField(mqttService, "brokerUrl", "tcp://localhost:1883");
+        ReflectionTestUtils.setField(mqttService, "clientId", "robot-service");
+        ReflectionTestUtils.setField(mqttService, "instanceId", "test");
+        ReflectionTestUtils.setField(mqttService, "ingestTopics", new String[]{"+/telemetry", "+/state"});
+        ReflectionTestUtils.setField(mqttService, "persistenceMode", MqttPersistenceMode.MEMORY);
+        ReflectionTestUtils.setField(mqttService, "initialBackoffMs", 1000L);
+        ReflectionTestUtils.setField(mqttService, "maxBackoffMs", 30_000L);
+        ReflectionTestUtils.setField(mqttService, "acquireTimeoutMs", 100L);
+        ReflectionTestUtils.setField(mqttService, "publishTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(mqttService, "dispatchQueueCapacity", 100);
+        ReflectionTestUtils.setField(mqttService, "dispatchOverflowPolicy", MqttInboundDispatcher.OverflowPolicy.BLOCK);
+        ReflectionTestUtils.setField(mqttService, "payloadFormat", MqttPayloadFormat.TEXT);
+        ReflectionTestUtils.setField(mqttService, "telemetryQos", 0);
+        ReflectionTestUtils.setField(mqttService, "telemetryMaxInFlight", 100);
+        ReflectionTestUtils.setField(mqttService, "telemetryPriority", 3);
+        ReflectionTestUtils.setField(mqttService, "telemetryStripes", 1);
+        ReflectionTestUtils.setField(mqttService, "commandQos", 1);
+        ReflectionTestUtils.setField(mqttService, "commandMaxInFlight", 100);
+        ReflectionTestUtils.setField(mqttService, "commandPriority", 8);
+        ReflectionTestUtils.setField(mqttService, "commandStripes", 2);
+        ReflectionTestUtils.setField(mqttService, "controlQos", 1);
+        ReflectionTestUtils.setField(mqttService, "controlMaxInFlight", 50);
+        ReflectionTestUtils.setField(mqttService, "controlPriority", 5);
+        ReflectionTestUtils.setField(mqttService, "controlStripes", 2);
+        mqttService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        mqttService.cleanup();
+    }
+
+    // connected, and every publish is acknowledged at once
+    private static IMqttAsyncClient fakeClient(String laneClientId) {
+        IMqttAsyncClient client = mock(IMqttAsyncClient.class);
+        try {
+            when(client.getClientId()).thenReturn(laneClientId);
+            when(client.isConnected()).thenReturn(true);
+            when(client.disconnect()).thenReturn(mock(IMqttToken.class));
+            when(client.publish(anyString(), any(MqttMessage.class), any(), any())).thenAnswer(invocation -> {
+                invocation.<IMqttActionListener>getArgument(3).onSuccess(null);
+                return null;
+            });
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return client;
+    }
+
+    private IMqttAsyncClient client(MqttTrafficClass trafficClass) {
+        return clients.get(trafficClass.tag());
+    }
+
+    private MqttCallback callback(MqttTrafficClass trafficClass) {
+        ArgumentCaptor<MqttCallback> callback = ArgumentCaptor.forClass(MqttCallback.class);
+        verify(client(trafficClass)).setCallback(callback.capture());
+        return callback.getValue();
+    }
+
+    private static MqttMessage message(String payload) {
+        return new MqttMessage(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Should subscribe the ingest topics on the telemetry connection at its QoS")
+    void testInit_IngestOnTelemetry() throws Exception {
+        // Then
+        verify(client(MqttTrafficClass.TELEMETRY)).subscribe("+/telemetry", 0);
+        verify(client(MqttTrafficClass.TELEMETRY)).subscribe("+/state", 0);
+        verify(client(MqttTrafficClass.COMMAND), never()).subscribe(anyString(), anyInt());
+        verify(client(MqttTrafficClass.CONTROL), never()).subscribe(anyString(), anyInt());
+        assertEquals(3, clients.size());
+    }
+
+    @Test
+    @DisplayName("Should send commands and subscribe acks on the command connection")
+    void testCommandLane() throws Exception {
+        // When
+        mqttService.registerRawChannelHandler("ack", MqttTrafficClass.COMMAND, (topic, payload) -> {
+        });
+        mqttService.publishCommand("esp-1/command", new DeviceCommand("on", 0, "c1")).get(1, TimeUnit.SECONDS);
+
+        // Then
+        verify(client(MqttTrafficClass.COMMAND)).subscribe("+/ack", 1);
+        ArgumentCaptor<MqttMessage> sent = ArgumentCaptor.forClass(MqttMessage.class);
+        verify(client(MqttTrafficClass.COMMAND)).publish(eq("esp-1/command"), sent.capture(), any(), any());
+        assertEquals(1, sent.getValue().getQos());
+        verify(client(MqttTrafficClass.TELEMETRY), never()).publish(anyString(), any(MqttMessage.class), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should send plain publishes and topic subscriptions on the control connection")
+    void testControlLane() throws Exception {
+        // When
+        mqttService.publishAsync("esp-1/config", "{}").get(1, TimeUnit.SECONDS);
+        mqttService.subscribe("robots/+/status", (topic, payload) -> {
+        });
+
+        // Then
+        verify(client(MqttTrafficClass.CONTROL)).publish(eq("esp-1/config"), any(MqttMessage.class), any(), any());
+        verify(client(MqttTrafficClass.CONTROL)).subscribe(eq("robots/+/status"), eq(1), any(IMqttMessageListener.class));
+        verify(client(MqttTrafficClass.COMMAND), never()).publish(anyString(), any(MqttMessage.class), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should add up the lanes in the stats")
+    void testGetStats() {
+        // Given
+        mqttService.registerChannelHandler("heartbeat", MqttTrafficClass.CONTROL, (topic, payload) -> {
+        });
+
+        // When
+        MqttStatsDto stats = mqttService.getStats();
+
+        // Then
+        assertTrue(stats.isConnected());
+        assertEquals(CLIENT_ID, stats.getClientId());
+        assertEquals(3, stats.getLanes().size());
+        assertEquals(100 + 100 + 50, stats.getPublishWindow());
+        assertEquals(1 + 2 + 2, stats.getDispatchStripes());
+        // two ingest filters and one channel
+        assertEquals(3, stats.getSubscriptionCount());
+        assertEquals("TEXT", stats.getPayloadFormat());
+        assertEquals(CLIENT_ID + "-" + MqttTrafficClass.COMMAND.tag(),
+                stats.getLanes().stream().filter(l -> l.getTrafficClass().equals("COMMAND")).findFirst().orElseThrow().getClientId());
+    }
+
+    private int inFlight(MqttTrafficClass trafficClass) {
+        return mqttService.getStats().getLanes().stream()
+                .filter(l -> l.getTrafficClass().equals(trafficClass.name()))
+                .findFirst().orElseThrow().getPublishInFlight();
+    }
+
+    @Test
+    @DisplayName("Should hold the publish slot until the broker acknowledges")
+    void testPublish_ReleasesOnSuccess() throws Exception {
+        // Given - the broker has not answered yet
+        IMqttAsyncClient control = client(MqttTrafficClass.CONTROL);
+        doReturn(null).when(control).publish(anyString(), any(MqttMessage.class), any(), any());
+
+        // When
+        CompletableFuture<Void> future = mqttService.publishAsync("esp-1/config", "{}");
+
+        // Then
+        assertEquals(1, inFlight(MqttTrafficClass.CONTROL));
+        ArgumentCaptor<IMqttActionListener> listener = ArgumentCaptor.forClass(IMqttActionListener.class);
+        verify(control).publish(eq("esp-1/config"), any(MqttMessage.class), any(), listener.capture());
+        listener.getValue().onSuccess(null);
+        future.get(1, TimeUnit.SECONDS);
+        assertEquals(0, inFlight(MqttTrafficClass.CONTROL));
+    }
+
+    @Test
+    @DisplayName("Should give the publish slot back when the publish fails")
+    void testPublish_ReleasesOnFailure() throws Exception {
+        // Given
+        doAnswer(invocation -> {
+            invocation.<IMqttActionListener>getArgument(3)
+                    .onFailure(null, new MqttException(MqttException.REASON_CODE_CONNECTION_LOST));
+            return null;
+        }).when(client(MqttTrafficClass.CONTROL)).publish(anyString(), any(MqttMessage.class), any(), any());
+
+        // When
+        CompletableFuture<Void> future = mqttService.publishAsync("esp-1/config", "{}");
+
+        // Then
+        assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+        assertEquals(0, inFlight(MqttTrafficClass.CONTROL));
+    }
+
+    @Test
+    @DisplayName("Should give the publish slot back when Paho throws instead of calling back")
+    void testPublish_ReleasesWhenPahoThrows() throws Exception {
+        // Given
+        doThrow(new MqttException(MqttException.REASON_CODE_CLIENT_NOT_CONNECTED))
+                .when(client(MqttTrafficClass.CONTROL)).publish(anyString(), any(MqttMessage.class), any(), any());
+
+        // When
+        CompletableFuture<Void> future = mqttService.publishAsync("esp-1/config", "{}");
+
+        // Then
+        assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+        assertEquals(0, inFlight(MqttTrafficClass.CONTROL));
+    }
+
+    @Test
+    @DisplayName("Should reject publishes with backpressure once the window is full")
+    void testPublish_FullWindow() throws Exception {
+        // Given - 50 control publishes the broker never acknowledges
+        doReturn(null).when(client(MqttTrafficClass.CONTROL)).publish(anyString(), any(MqttMessage.class), any(), any());
+        for (int i = 0; i < 50; i++) {
+            mqttService.publishAsync("esp-1/config", "{}");
+        }
+
+        // When & Then - waits out the acquire timeout, or gives up at once
+        assertThrows(MqttBackpressureException.class, () -> mqttService.publishAsync("esp-1/config", "{}"));
+        long start = System.nanoTime();
+        assertThrows(MqttBackpressureException.class,
+                () -> mqttService.tryPublishAsync(MqttTrafficClass.CONTROL, "esp-1/config", new byte[0]));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 100);
+        assertEquals(50, inFlight(MqttTrafficClass.CONTROL));
+        // other lanes have their own window
+        mqttService.publishCommand("esp-1/command", new DeviceCommand("on", 0, "c1")).get(1, TimeUnit.SECONDS);
+    }
+
+    // completes the latest connect of the lane
+    private void connectComplete(MqttTrafficClass trafficClass, int attempts) throws Exception {
+        ArgumentCaptor<IMqttActionListener> listener = ArgumentCaptor.forClass(IMqttActionListener.class);
+        verify(client(trafficClass), timeout(3000).times(attempts))
+                .connect(any(MqttConnectOptions.class), any(), listener.capture());
+        listener.getValue().onSuccess(null);
+    }
+
+    @Test
+    @DisplayName("Should keep routing registry subscriptions after the telemetry connection is restored")
+    void testRegistrySubscriptionsRestoredOnReconnect() throws Exception {
+        // Given - an ESP32 routed by the registry on a connected telemetry lane
+        UUID esp32Id = UUID.randomUUID();
+        Esp32Repository repository = mock(Esp32Repository.class);
+        when(repository.findActiveIds()).thenReturn(List.of(esp32Id));
+        Esp32IngestService ingestService = mock(Esp32IngestService.class);
+        Esp32SubscriptionRegistryImpl registry = new Esp32SubscriptionRegistryImpl(repository, mqttService, ingestService);
+        registry.init();
+        connectComplete(MqttTrafficClass.TELEMETRY, 1);
+
+        // When - the broker drops the connection and it comes back
+        callback(MqttTrafficClass.TELEMETRY).connectionLost(new MqttException(MqttException.REASON_CODE_CONNECTION_LOST));
+        connectComplete(MqttTrafficClass.TELEMETRY, 2);
+        callback(MqttTrafficClass.TELEMETRY).messageArrived(esp32Id + "/telemetry", message("{\"t\":1}"));
+
+        // Then - the wildcard is sent again and the route still leads to ingest
+        verify(client(MqttTrafficClass.TELEMETRY), atLeast(2)).subscribe("+/telemetry", 0);
+        verify(ingestService, timeout(1000)).onMessage(esp32Id + "/telemetry", "{\"t\":1}");
+        assertTrue(registry.isSubscribed(esp32Id));
+        assertEquals(1, mqttService.getStats().getLanes().stream()
+                .filter(l -> l.getTrafficClass().equals("TELEMETRY")).findFirst().orElseThrow().getReconnectCount());
+    }
+
+    @Test
+    @DisplayName("Should handle command acks while the telemetry dispatcher is stuck")
+    void testTelemetryBacklogDoesNotDelayAcks() throws Exception {
+        // Given - the only telemetry stripe is blocked with a backlog behind it
+        CountDownLatch release = new CountDownLatch(1);
+        mqttService.registerChannelHandler("telemetry", MqttTrafficClass.TELEMETRY, (topic, payload) -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CountDownLatch acked = new CountDownLatch(1);
+        mqttService.registerRawChannelHandler("ack", MqttTrafficClass.COMMAND, (topic, payload) -> acked.countDown());
+        MqttCallback telemetry = callback(MqttTrafficClass.TELEMETRY);
+        for (int i = 0; i < 50; i++) {
+            telemetry.messageArrived(UUID.randomUUID() + "/telemetry", message("{\"t\":" + i + "}"));
+        }
+
+        try {
+            // When
+            callback(MqttTrafficClass.COMMAND).messageArrived(UUID.randomUUID() + "/ack", message("c1|OK"));
+
+            // Then
+            assertTrue(acked.await(1, TimeUnit.SECONDS));
+            assertTrue(mqttService.getStats().getDispatchQueueDepth() > 0);
+        } finally {
+            release.countDown();
+        }
+    }
+}
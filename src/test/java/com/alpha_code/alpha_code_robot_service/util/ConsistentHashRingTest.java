@@ -0,0 +1,62 @@
+package com.alpha_code.alpha_code_robot_service.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ConsistentHashRing Tests")
+class ConsistentHashRingTest {
+
+    private static List<UUID> keys(int n) {
+        List<UUID> keys = new ArrayList<>();
+        for (int i = 0; i < n; i++) keys.add(UUID.randomUUID());
+        return keys;
+    }
+
+    @Test
+    @DisplayName("Should give the same owner regardless of member order")
+    void testOwnerOf_Deterministic() {
+        ConsistentHashRing a = new ConsistentHashRing(List.of("node-a", "node-b", "node-c"), 64);
+        ConsistentHashRing b = new ConsistentHashRing(List.of("node-c", "node-a", "node-b"), 64);
+
+        for (UUID key : keys(1000)) {
+            assertEquals(a.ownerOf(key), b.ownerOf(key));
+        }
+    }
+
+    @Test
+    @DisplayName("Should spread keys roughly evenly")
+    void testOwnerOf_Balanced() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("node-a", "node-b", "node-c"), 128);
+        Map<String, Integer> counts = new HashMap<>();
+
+        for (UUID key : keys(30_000)) {
+            counts.merge(ring.ownerOf(key), 1, Integer::sum);
+        }
+
+        assertEquals(3, counts.size());
+        counts.values().forEach(count -> assertTrue(count > 7_000 && count < 13_000, "share " + count));
+    }
+
+    @Test
+    @DisplayName("Should only move the leaving member's keys")
+    void testOwnerOf_MinimalMovement() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("node-a", "node-b", "node-c"), 128);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("node-a", "node-b"), 128);
+
+        for (UUID key : keys(5000)) {
+            String owner = before.ownerOf(key);
+            if (!owner.equals("node-c")) {
+                assertEquals(owner, after.ownerOf(key));
+            }
+        }
+        assertNull(new ConsistentHashRing(List.of(), 16).ownerOf(UUID.randomUUID()));
+    }
+}
@@ -0,0 +1,98 @@
+package com.alpha_code.alpha_code_robot_service.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Esp32Devices Tests")
+class Esp32DevicesTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private ObjectNode metadata(String... names) {
+        ObjectNode metadata = mapper.createObjectNode();
+        ArrayNode devices = metadata.putArray("devices");
+        for (String name : names) {
+            devices.addObject().put("name", name).put("type", "light");
+        }
+        return metadata;
+    }
+
+    private ObjectNode add(ObjectNode metadata, String name) {
+        ObjectNode device = mapper.createObjectNode().put("name", name).put("type", "light");
+        Esp32Devices.assignIndex(metadata, device);
+        ((ArrayNode) metadata.get("devices")).add(device);
+        return device;
+    }
+
+    @Test
+    @DisplayName("Should fall back to the array position for devices stored without an index")
+    void testIndexOf_Legacy() {
+        ObjectNode metadata = metadata("lamp", "fan");
+
+        assertEquals(0, Esp32Devices.indexOf(metadata, "lamp"));
+        assertEquals(1, Esp32Devices.indexOf(metadata, "FAN"));
+        assertEquals(-1, Esp32Devices.indexOf(metadata, "door"));
+        assertEquals(-1, Esp32Devices.indexOf(null, "lamp"));
+    }
+
+    @Test
+    @DisplayName("Should keep legacy positions when assigning indexes the first time")
+    void testEnsureIndexes_Legacy() {
+        ObjectNode metadata = metadata("lamp", "fan");
+
+        Esp32Devices.ensureIndexes(metadata, null);
+
+        assertEquals(0, metadata.get("devices").get(0).get(Esp32Devices.INDEX).asInt());
+        assertEquals(1, metadata.get("devices").get(1).get(Esp32Devices.INDEX).asInt());
+        assertEquals(2, metadata.get(Esp32Devices.NEXT_INDEX).asInt());
+    }
+
+    @Test
+    @DisplayName("Should keep indexes when an earlier device is removed and never reuse one")
+    void testIndexes_SurviveRemoval() {
+        ObjectNode metadata = metadata();
+        add(metadata, "lamp");
+        add(metadata, "fan");
+        add(metadata, "door");
+
+        // lamp removed: the others keep their index although their position shifts
+        ((ArrayNode) metadata.get("devices")).remove(0);
+        assertEquals(1, Esp32Devices.indexOf(metadata, "fan"));
+        assertEquals(2, Esp32Devices.indexOf(metadata, "door"));
+
+        // door removed as well: a new device does not take over a freed index
+        ((ArrayNode) metadata.get("devices")).remove(1);
+        assertEquals(3, add(metadata, "heater").get(Esp32Devices.INDEX).asInt());
+    }
+
+    @Test
+    @DisplayName("Should carry indexes and the counter over from the previous metadata")
+    void testEnsureIndexes_FromPrevious() {
+        ObjectNode previous = metadata();
+        add(previous, "lamp");
+        add(previous, "fan");
+        add(previous, "door");
+        ObjectNode replacement = metadata("fan", "heater");
+
+        Esp32Devices.ensureIndexes(replacement, previous);
+
+        assertEquals(1, Esp32Devices.indexOf(replacement, "fan"));
+        assertEquals(3, Esp32Devices.indexOf(replacement, "heater"));
+        assertEquals(4, replacement.get(Esp32Devices.NEXT_INDEX).asInt());
+    }
+
+    @Test
+    @DisplayName("Should refuse a device once every frame index is used")
+    void testAssignIndex_Exhausted() {
+        ObjectNode metadata = metadata();
+        metadata.put(Esp32Devices.NEXT_INDEX, Esp32Devices.MAX_INDEX);
+        add(metadata, "last");
+
+        assertThrows(IllegalArgumentException.class, () -> add(metadata, "one-too-many"));
+    }
+}
@@ -0,0 +1,64 @@
+package com.alpha_code.alpha_code_robot_service.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("HashedWheelTimer Tests")
+class HashedWheelTimerTest {
+
+    private HashedWheelTimer timer;
+
+    @BeforeEach
+    void setUp() {
+        timer = new HashedWheelTimer("test-timer", 10, TimeUnit.MILLISECONDS, 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        timer.close();
+    }
+
+    @Test
+    @DisplayName("Should run task after its delay, including delays longer than one revolution")
+    void testSchedule_Expires() throws InterruptedException {
+        // Given
+        CountDownLatch fired = new CountDownLatch(2);
+        long start = System.nanoTime();
+
+        // When
+        timer.schedule(fired::countDown, 20, TimeUnit.MILLISECONDS);
+        // 8 slots * 10 ms = 80 ms per revolution
+        timer.schedule(fired::countDown, 200, TimeUnit.MILLISECONDS);
+
+        // Then
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 200);
+        assertEquals(0, timer.pendingCount());
+    }
+
+    @Test
+    @DisplayName("Should not run cancelled task")
+    void testCancel() throws InterruptedException {
+        // Given
+        AtomicBoolean ran = new AtomicBoolean();
+        HashedWheelTimer.Timeout timeout = timer.schedule(() -> ran.set(true), 50, TimeUnit.MILLISECONDS);
+
+        // When
+        boolean cancelled = timeout.cancel();
+        Thread.sleep(150);
+
+        // Then
+        assertTrue(cancelled);
+        assertFalse(ran.get());
+        assertFalse(timeout.isExpired());
+        assertEquals(0, timer.pendingCount());
+    }
+}
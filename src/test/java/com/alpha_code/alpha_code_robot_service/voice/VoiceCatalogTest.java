@@ -0,0 +1,129 @@
+package com.alpha_code.alpha_code_robot_service.voice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("VoiceCatalog Tests")
+class VoiceCatalogTest {
+
+    private static final String SOURCE = """
+            {
+              "defaultLanguage": "vi",
+              "languages": {
+                "vi": {
+                  "commands": {
+                    "on":  { "*": "Thiết bị đã được bật.", "light": "Đã bật đèn {device}." },
+                    "set": { "*": "Đã đặt {device} thành {value}." },
+                    "*":   { "*": "Đã gửi lệnh tới {device}.", "fan": "Đã gửi lệnh tới quạt {device}." }
+                  },
+                  "statuses": {
+                    "queued": "Đã xếp hàng.", "coalesced": "Đã thay thế.",
+                    "no-response": "Không phản hồi.", "failed": "Thất bại."
+                  }
+                },
+                "en": {
+                  "commands": {
+                    "on": { "*": "The device is turned on." }
+                  },
+                  "statuses": { "failed": "Failed." }
+                }
+              }
+            }
+            """;
+
+    private ObjectMapper objectMapper;
+    private VoiceCatalog catalog;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        objectMapper = new ObjectMapper();
+        catalog = VoiceCatalog.compile(objectMapper.readTree(SOURCE));
+    }
+
+    @Test
+    @DisplayName("Should resolve command and type case-insensitively")
+    void testCommand_ExactAndCaseInsensitive() {
+        assertEquals("Đã bật đèn den1.", catalog.command("vi", "on", "den1", "light"));
+        assertEquals("Đã bật đèn den1.", catalog.command("VI", "ON", "den1", "Light"));
+        assertEquals("Thiết bị đã được bật.", catalog.command("vi", "on", "sw", "switch"));
+        assertEquals("Thiết bị đã được bật.", catalog.command("vi", "on", "sw", null));
+    }
+
+    @Test
+    @DisplayName("Should fall back to the generic phrase instead of echoing the command")
+    void testCommand_UnknownCommand() {
+        assertEquals("Đã gửi lệnh tới den1.", catalog.command("vi", "blink 3", "den1", "light"));
+        assertEquals("Đã gửi lệnh tới quạt q1.", catalog.command("vi", "swing", "q1", "fan"));
+        assertEquals("Đã gửi lệnh tới den1.", catalog.command("vi", null, "den1", null));
+    }
+
+    @Test
+    @DisplayName("Should fall back to the default language per entry")
+    void testCommand_LanguageFallback() {
+        assertEquals("The device is turned on.", catalog.command("en", "on", "den1", "light"));
+        assertEquals("Đã gửi lệnh tới den1.", catalog.command("en", "off", "den1", null));
+        assertEquals("Thiết bị đã được bật.", catalog.command("fr", "on", "sw", null));
+        assertEquals("Thiết bị đã được bật.", catalog.command(null, "on", "sw", null));
+    }
+
+    @Test
+    @DisplayName("Should substitute the command argument")
+    void testCommand_Value() {
+        assertEquals("Đã đặt den1 thành 50.", catalog.command("vi", "SET 50", "den1", null));
+        assertEquals("Đã đặt den1 thành 50.", catalog.command("vi", "set:50", "den1", null));
+        assertEquals("Đã đặt den1 thành 50.", catalog.command("vi", " set=50 ", "den1", null));
+    }
+
+    @Test
+    @DisplayName("Should return the same instance for constant phrases")
+    void testCommand_ConstantNotCopied() {
+        assertSame(catalog.command("vi", "on", "a", null), catalog.command("vi", "On", "b", "switch"));
+        assertSame(catalog.status("en", VoiceStatus.QUEUED), catalog.status("vi", VoiceStatus.QUEUED));
+    }
+
+    @Test
+    @DisplayName("Should resolve statuses with default language fallback")
+    void testStatus() {
+        assertEquals("Failed.", catalog.status("en", VoiceStatus.FAILED));
+        assertEquals("Không phản hồi.", catalog.status("en", VoiceStatus.NO_RESPONSE));
+        assertEquals("Đã thay thế.", catalog.status("xx", VoiceStatus.COALESCED));
+    }
+
+    @Test
+    @DisplayName("Should reject incomplete or malformed catalogs")
+    void testCompile_Invalid() {
+        // default language without a generic phrase
+        assertThrows(IllegalArgumentException.class, () -> compile("""
+                {"defaultLanguage":"vi","languages":{"vi":{"commands":{"on":{"*":"Bật."}},
+                 "statuses":{"queued":"a","coalesced":"b","no-response":"c","failed":"d"}}}}
+                """));
+        // missing status
+        assertThrows(IllegalArgumentException.class, () -> compile("""
+                {"defaultLanguage":"vi","languages":{"vi":{"commands":{"*":{"*":"Đã gửi."}},
+                 "statuses":{"queued":"a","coalesced":"b","no-response":"c"}}}}
+                """));
+        // {value} in the generic phrase
+        assertThrows(IllegalArgumentException.class, () -> compile("""
+                {"defaultLanguage":"vi","languages":{"vi":{"commands":{"*":{"*":"Đã gửi {value}."}},
+                 "statuses":{"queued":"a","coalesced":"b","no-response":"c","failed":"d"}}}}
+                """));
+        // unknown placeholder
+        assertThrows(IllegalArgumentException.class, () -> compile("""
+                {"defaultLanguage":"vi","languages":{"vi":{"commands":{"*":{"*":"Đã gửi {room}."}},
+                 "statuses":{"queued":"a","coalesced":"b","no-response":"c","failed":"d"}}}}
+                """));
+        // default language not defined
+        assertThrows(IllegalArgumentException.class, () -> compile("""
+                {"defaultLanguage":"en","languages":{"vi":{"commands":{"*":{"*":"Đã gửi."}},
+                 "statuses":{"queued":"a","coalesced":"b","no-response":"c","failed":"d"}}}}
+                """));
+    }
+
+    private VoiceCatalog compile(String json) throws Exception {
+        return VoiceCatalog.compile(objectMapper.readTree(json));
+    }
+}